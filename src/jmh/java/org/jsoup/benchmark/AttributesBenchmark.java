@@ -0,0 +1,71 @@
+package org.jsoup.benchmark;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Attribute;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ Benchmarks visiting every attribute of every element of a pre-parsed corpus page, via the {@link Attribute}
+ iterator and via the allocation-free {@link org.jsoup.nodes.Attributes#forEachKeyValue(java.util.function.BiConsumer)}; and
+ looking up common attributes by key. Run with {@code -prof gc} to compare the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AttributesBenchmark {
+    @Param({Corpus.Large, Corpus.YahooJp, Corpus.Xwiki})
+    String page;
+
+    Elements elements;
+
+    @Setup public void setup() {
+        Document doc = Jsoup.parse(Corpus.load(page));
+        elements = doc.getAllElements();
+    }
+
+    @Benchmark public void iterator(Blackhole bh) {
+        for (Element el : elements) {
+            if (el.attributesSize() == 0) continue;
+            for (Attribute attr : el.attributes()) {
+                bh.consume(attr.getKey());
+                bh.consume(attr.getValue());
+            }
+        }
+    }
+
+    @Benchmark public void forEachKeyValue(Blackhole bh) {
+        for (Element el : elements) {
+            if (el.attributesSize() == 0) continue;
+            el.attributes().forEachKeyValue((key, value) -> {
+                bh.consume(key);
+                bh.consume(value);
+            });
+        }
+    }
+
+    @Benchmark public void lookup(Blackhole bh) {
+        for (Element el : elements) {
+            bh.consume(el.attr("class"));
+            bh.consume(el.attr("href"));
+        }
+    }
+}
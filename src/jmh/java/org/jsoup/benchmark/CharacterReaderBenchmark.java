@@ -0,0 +1,71 @@
+package org.jsoup.benchmark;
+
+import org.jsoup.parser.CharacterReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ Benchmarks scanning a corpus page for delimiters with {@link CharacterReader#consumeToAny(char...)}: with ASCII
+ delimiters, which are found with a bitmap; and with the same delimiters plus a non-ASCII one (that doesn't occur), which
+ falls back to comparing each char against each delimiter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CharacterReaderBenchmark {
+    static final char[] Data = {'&', '<', '\0'};
+    static final char[] DataScalar = {'&', '<', '\0', '￿'};
+    static final char[] AttributeValue = {'\0', '\t', '\n', '\f', '\r', ' ', '"', '&', '\'', '<', '=', '>', '`'};
+    static final char[] AttributeValueScalar = {'\0', '\t', '\n', '\f', '\r', ' ', '"', '&', '\'', '<', '=', '>', '`', '￿'};
+
+    @Param({Corpus.Large, Corpus.YahooJp})
+    String page;
+
+    char[] chars;
+
+    @Setup public void setup() {
+        chars = Corpus.load(page).toCharArray();
+    }
+
+    @Benchmark public int scanData() {
+        return scan(Data);
+    }
+
+    @Benchmark public int scanDataScalar() {
+        return scan(DataScalar);
+    }
+
+    @Benchmark public int scanAttributeValue() {
+        return scan(AttributeValue);
+    }
+
+    @Benchmark public int scanAttributeValueScalar() {
+        return scan(AttributeValueScalar);
+    }
+
+    /** Consumes the page a run at a time, up to and past each delimiter; returns the number of runs. */
+    private int scan(char[] delimiters) {
+        CharacterReader reader = new CharacterReader(chars);
+        int runs = 0;
+        while (!reader.isEmpty()) {
+            reader.consumeToAny(delimiters);
+            reader.advance();
+            runs++;
+        }
+        return runs;
+    }
+}
@@ -0,0 +1,69 @@
+package org.jsoup.benchmark;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.safety.Cleaner;
+import org.jsoup.safety.Safelist;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Benchmarks cleaning a pre-parsed corpus page with the {@link Cleaner}, and the end-to-end {@link Jsoup#clean} and
+ {@link Cleaner#streamClean} paths; with a mutable and a {@linkplain Safelist#compile() compiled} safelist.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CleanBenchmark {
+    @Param({Corpus.Medium, Corpus.Xwiki})
+    String page;
+
+    @Param({"false", "true"})
+    boolean compiled;
+
+    String html;
+    Document dirty;
+    Safelist safelist;
+    Cleaner cleaner;
+
+    @Setup public void setup() {
+        html = Corpus.load(page);
+        dirty = Jsoup.parse(html);
+        safelist = compiled ? Safelist.relaxed().compile() : Safelist.relaxed();
+        cleaner = new Cleaner(safelist);
+    }
+
+    @Benchmark public Document clean() {
+        return cleaner.clean(dirty);
+    }
+
+    /** Validates the page; which, as it is not safe, stops at the first violation. */
+    @Benchmark public boolean isValidBodyHtml() {
+        return cleaner.isValidBodyHtml(html);
+    }
+
+    @Benchmark public String jsoupClean() {
+        return Jsoup.clean(html, safelist);
+    }
+
+    /** Parses, cleans, and writes in one streaming pass; so compare with {@link #jsoupClean()}. */
+    @Benchmark public StringBuilder streamClean() throws IOException {
+        return cleaner.streamClean(new StringReader(html), "", new StringBuilder());
+    }
+}
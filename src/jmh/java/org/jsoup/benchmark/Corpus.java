@@ -0,0 +1,50 @@
+package org.jsoup.benchmark;
+
+import org.jsoup.helper.DataUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+/**
+ The fixed corpus of real-world pages that the benchmarks run over. These are loaded from the test resources, so that
+ results are comparable between runs and versions.
+ */
+final class Corpus {
+    private Corpus() {}
+
+    /** Names of the HTML pages in the corpus, used as the {@code @Param} values of the benchmarks. */
+    static final String Large = "large.html"; // ~280 KB
+    static final String Medium = "medium.html";
+    static final String YahooJp = "yahoo-jp.html.gz";
+    static final String Xwiki = "xwiki-1324.html.gz";
+
+    /** An XML document in the corpus. */
+    static final String Svg = "osi-logo.svg";
+
+    /**
+     Load a page from the corpus as a String.
+     @param name the resource name, e.g. {@code large.html}. If it ends with {@code .gz}, will be gunzipped.
+     @return the page content
+     */
+    static String load(String name) {
+        try {
+            ByteBuffer bytes = loadBytes(name);
+            return new String(bytes.array(), 0, bytes.limit(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ByteBuffer loadBytes(String name) throws IOException {
+        InputStream in = Corpus.class.getResourceAsStream("/htmltests/" + name);
+        if (in == null) throw new IllegalArgumentException("No corpus page " + name);
+        if (name.endsWith(".gz")) in = new GZIPInputStream(in);
+        try (InputStream stream = in) {
+            return DataUtil.readToByteBuffer(stream, 0);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.jsoup.benchmark;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.parser.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ Benchmarks decoding named character references, over entity-heavy text: references with and without the closing
+ {@code ;}, legacy references that prefix a longer name (e.g. {@code &notit}), and unknown names.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EntitiesBenchmark {
+    static final String Paragraph = "Caf&eacute; &amp; cr&egrave;me br&ucirc;l&eacute;e &mdash; &ldquo;d&eacute;j&agrave; " +
+        "vu&rdquo;&hellip; &copy 2024 &nbsp;&nbsp;&euro;12&frac12; &lt;b&gt; &notit; &NotNestedLessLess; &ThickSpace; " +
+        "&unknown; &Aacute;&aacute&szlig; &rarr; &#8217; &#x2014; Tom &amp Jerry &ampersand &sup2&times;&pi;r &lowast;\n";
+
+    String text;
+    String html;
+
+    @Setup public void setup() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200; i++) sb.append(Paragraph);
+        text = sb.toString();
+        html = "<div>" + text.replace("\n", "<p>") + "</div>";
+    }
+
+    @Benchmark public String unescape() {
+        return Parser.unescapeEntities(text, false);
+    }
+
+    @Benchmark public Document parse() {
+        return Jsoup.parse(html);
+    }
+}
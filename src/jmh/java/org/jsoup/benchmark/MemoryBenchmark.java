@@ -0,0 +1,82 @@
+package org.jsoup.benchmark;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.parser.Parser;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Reports the heap retained per node by a parsed document, with and without the parser's compact mode. Each op parses
+ enough copies of the page to hold about {@value #TargetNodes} nodes, and holds them while the heap is measured (after
+ a GC); so the time score isn't meaningful, read the {@code bytesPerNode} secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 1) // one measurement per fork, as JMH sums event counters over the iterations
+@Fork(3)
+public class MemoryBenchmark {
+    static final int TargetNodes = 200_000; // parse enough copies to hold about this many nodes, to reduce the noise
+
+    @Param({Corpus.Large, Corpus.Medium, Corpus.YahooJp, Corpus.Xwiki})
+    String page;
+
+    @Param({"false", "true"})
+    boolean compact;
+
+    String html;
+    long nodes; // per copy
+    int copies;
+
+    @Setup public void setup() {
+        html = Corpus.load(page);
+        nodes = Jsoup.parse(html).nodeStream().count();
+        copies = (int) Math.max(4, TargetNodes / nodes);
+    }
+
+    /** The retained bytes per node, of the last measurement. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Retained {
+        public long bytesPerNode;
+
+        @Setup(Level.Iteration) public void reset() {
+            bytesPerNode = 0;
+        }
+    }
+
+    @Benchmark public Document[] retained(Retained retained) {
+        Parser parser = Parser.htmlParser().setCompact(compact);
+        long before = usedHeap();
+        Document[] docs = new Document[copies];
+        for (int i = 0; i < copies; i++)
+            docs[i] = Jsoup.parse(html, "", parser);
+        long after = usedHeap();
+
+        retained.bytesPerNode = (after - before) / (nodes * copies);
+        return docs;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) memory.gc(); // repeated, as a single GC may not collect everything
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
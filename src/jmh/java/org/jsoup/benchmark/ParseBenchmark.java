@@ -0,0 +1,76 @@
+package org.jsoup.benchmark;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Benchmarks parsing the corpus pages with the HTML parser (from a String, which is read directly; from a Reader, which
+ is read through a buffer; and from bytes), the XML parser, and the StreamParser.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParseBenchmark {
+    @Param({Corpus.Large, Corpus.Medium, Corpus.YahooJp, Corpus.Xwiki})
+    String page;
+
+    String html;
+    byte[] bytes;
+    String svg;
+
+    @Setup public void setup() {
+        html = Corpus.load(page);
+        bytes = html.getBytes(StandardCharsets.UTF_8);
+        svg = Corpus.load(Corpus.Svg);
+    }
+
+    @Benchmark public Document parseHtml() {
+        return Jsoup.parse(html);
+    }
+
+    @Benchmark public Document parseReader() {
+        return Parser.htmlParser().parseInput(new StringReader(html), "");
+    }
+
+    /** Parses from bytes with no charset given, so includes detecting the charset from the content. */
+    @Benchmark public Document parseBytes() throws IOException {
+        return Jsoup.parse(new ByteArrayInputStream(bytes), null, "");
+    }
+
+    @Benchmark public Document parseXml() {
+        return Jsoup.parse(svg, "", Parser.xmlParser());
+    }
+
+    @Benchmark public void streamParse(Blackhole bh) {
+        try (StreamParser streamer = new StreamParser(Parser.htmlParser()).parse(html, "")) {
+            Iterator<Element> it = streamer.iterator();
+            while (it.hasNext())
+                bh.consume(it.next());
+        }
+    }
+}
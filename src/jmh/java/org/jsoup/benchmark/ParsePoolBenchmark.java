@@ -0,0 +1,57 @@
+package org.jsoup.benchmark;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.parser.ParsePool;
+import org.jsoup.parser.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Benchmarks parsing a batch of the corpus pages, sequentially, and concurrently with a {@link ParsePool} on the common
+ pool. Each result is reduced to its element count on the worker, as a batch job extracting data would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParsePoolBenchmark {
+    static final int BatchSize = 64;
+
+    final List<String> batch = new ArrayList<>();
+    ParsePool pool;
+
+    @Setup public void setup() {
+        String[] pages = {Corpus.Large, Corpus.Medium, Corpus.YahooJp, Corpus.Xwiki};
+        for (int i = 0; i < BatchSize; i++)
+            batch.add(Corpus.load(pages[i % pages.length]));
+        pool = new ParsePool(Parser.htmlParser());
+    }
+
+    @Benchmark public int sequential() {
+        int count = 0;
+        for (String html : batch)
+            count += Jsoup.parse(html).getAllElements().size();
+        return count;
+    }
+
+    @Benchmark public int parsePool() {
+        return pool.parseAll(batch.stream().map(html -> ParsePool.Input.of(html, "")),
+                (Document doc) -> doc.getAllElements().size())
+            .mapToInt(Integer::intValue).sum();
+    }
+}
@@ -0,0 +1,59 @@
+package org.jsoup.benchmark;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.select.Elements;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ Benchmarks a mix of simple and structural CSS queries over a pre-parsed corpus page. Each invocation parses the query
+ (as {@code Element.select(String)} does), and then runs it. Runs with and without the document's element index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SelectBenchmark {
+    @Param({Corpus.Large, Corpus.Xwiki})
+    String page;
+
+    @Param({
+        "a",
+        "#content",
+        ".title",
+        "a[href]",
+        "div.product a[href]",
+        "ul > li:nth-child(2n+1)",
+        "div:has(> p)",
+        "h1 ~ p, h2 + p",
+        "p:contains(the)"
+    })
+    String query;
+
+    @Param({"false", "true"})
+    boolean indexed;
+
+    Document doc;
+
+    @Setup public void setup() {
+        doc = Jsoup.parse(Corpus.load(page)).indexed(indexed);
+    }
+
+    @Benchmark public Elements select() {
+        return doc.select(query);
+    }
+}
@@ -0,0 +1,68 @@
+package org.jsoup.benchmark;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.select.Elements;
+import org.jsoup.select.SelectorSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Benchmarks running a set of extraction queries over a pre-parsed corpus page: each query with its own
+ {@code Element.select(String)}, against all of them together via a {@link SelectorSet}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SelectorSetBenchmark {
+    static final String[] Queries = {
+        "title", "meta[name=description]", "meta[property^=og:]", "link[rel=canonical]", "link[rel~=icon]",
+        "h1", "h2", "h3", "a[href]", "a[href^=http]", "a[rel=nofollow]", "img[src]", "img[alt]", "script[src]",
+        "link[rel=stylesheet]", "form", "input[type=hidden]", "input[name]", "select option", "table td", "ul > li",
+        "ol > li", "nav a", "footer a", "#content", "#main", ".title", ".price", ".product a[href]", "div.content p",
+        "p:contains(the)", "span.date", "time[datetime]", "iframe[src]", "video source", "div:has(> img)"};
+
+    @Param({Corpus.Large, Corpus.Xwiki})
+    String page;
+
+    @Param({"12", "36"})
+    int queries;
+
+    Document doc;
+    String[] selected;
+    SelectorSet set;
+
+    @Setup public void setup() {
+        doc = Jsoup.parse(Corpus.load(page));
+        selected = new String[queries];
+        System.arraycopy(Queries, 0, selected, 0, queries);
+        set = new SelectorSet(selected);
+    }
+
+    @Benchmark public List<Elements> eachSelect() {
+        List<Elements> results = new ArrayList<>(selected.length);
+        for (String query : selected)
+            results.add(doc.select(query));
+        return results;
+    }
+
+    @Benchmark public List<Elements> selectorSet() {
+        return set.select(doc);
+    }
+}
@@ -0,0 +1,123 @@
+package org.jsoup.benchmark;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.TextNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Benchmarks serializing a pre-parsed corpus page via {@code outerHtml()}, in pretty-print and compact modes; and
+ writing it as bytes, either via the String or directly with {@link Document#writeHtml(OutputStream)}. Run with
+ {@code -prof gc} to compare the allocation rates.
+ <p>The cached variants enable the {@link Element#cacheHtml(boolean) HTML cache} on the body's top two levels of
+ elements, and serialize the document either unchanged, or after editing one text node (so that only the edited
+ subtree's caches are rebuilt).</p>
+ <p>The parallel variants print via {@link Element#html(Appendable, java.util.concurrent.Executor)} on the common
+ fork-join pool; compare with the sequential variants on a multi-core machine.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SerializeBenchmark {
+    @Param({Corpus.Large, Corpus.YahooJp, Corpus.Xwiki})
+    String page;
+
+    Document pretty;
+    Document compact;
+    Document cached;
+    TextNode edited;
+    int edits = 0;
+
+    @Setup public void setup() {
+        String html = Corpus.load(page);
+        pretty = Jsoup.parse(html);
+        compact = Jsoup.parse(html);
+        compact.outputSettings().prettyPrint(false);
+
+        cached = Jsoup.parse(html);
+        cached.outputSettings().prettyPrint(false);
+        for (Element el : cached.body().children()) {
+            el.cacheHtml(true);
+            el.children().forEach(child -> child.cacheHtml(true));
+        }
+        Element last = cached.body().stream().reduce((a, b) -> b).get(); // the last element, in document order
+        edited = new TextNode("");
+        last.appendChild(edited);
+    }
+
+    @TearDown public void tearDown() {
+        cached.stream().forEach(el -> el.cacheHtml(false));
+    }
+
+    @Benchmark public String outerHtmlPretty() {
+        return pretty.outerHtml();
+    }
+
+    @Benchmark public String outerHtmlCompact() {
+        return compact.outerHtml();
+    }
+
+    @Benchmark public int outerHtmlPrettyParallel() {
+        return pretty.html(new StringBuilder(), ForkJoinPool.commonPool()).length();
+    }
+
+    @Benchmark public int outerHtmlCompactParallel() {
+        return compact.html(new StringBuilder(), ForkJoinPool.commonPool()).length();
+    }
+
+    @Benchmark public String outerHtmlCached() {
+        return cached.outerHtml();
+    }
+
+    @Benchmark public String outerHtmlCachedEdited() {
+        edited.text(Integer.toString(edits++));
+        return cached.outerHtml();
+    }
+
+    @Benchmark public void bytesViaString(Blackhole bh) throws IOException {
+        new BlackholeStream(bh).write(compact.outerHtml().getBytes(compact.charset()));
+    }
+
+    @Benchmark public void writeHtml(Blackhole bh) throws IOException {
+        compact.writeHtml(new BlackholeStream(bh));
+    }
+
+    /** An OutputStream that consumes the written bytes into a Blackhole. */
+    static class BlackholeStream extends OutputStream {
+        final Blackhole bh;
+
+        BlackholeStream(Blackhole bh) {
+            this.bh = bh;
+        }
+
+        @Override public void write(int b) {
+            bh.consume(b);
+        }
+
+        @Override public void write(byte[] b, int off, int len) {
+            bh.consume(b);
+            bh.consume(len);
+        }
+    }
+}
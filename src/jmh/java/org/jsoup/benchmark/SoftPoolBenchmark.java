@@ -0,0 +1,74 @@
+package org.jsoup.benchmark;
+
+import org.jsoup.Jsoup;
+import org.jsoup.internal.SoftPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Benchmarks a batch of parses, each as its own task, on a platform thread pool and on a virtual thread per task
+ executor, with each {@link SoftPool.Mode}. Run with {@code -prof gc} to compare the allocation rate: with virtual
+ threads, the thread local pools are discarded with each task, so their buffers are not reused.
+ <p>The virtual thread executor requires Java 21+.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SoftPoolBenchmark {
+    static final int BatchSize = 256;
+
+    @Param({"platform", "virtual"})
+    String threads;
+
+    @Param({"ThreadLocal", "Shared", "Auto"})
+    SoftPool.Mode mode;
+
+    String html;
+    ExecutorService executor;
+
+    @Setup public void setup() throws ReflectiveOperationException {
+        SoftPool.mode(mode);
+        html = Corpus.load(Corpus.Medium);
+        if (threads.equals("virtual")) {
+            executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } else {
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    @TearDown public void tearDown() {
+        executor.shutdownNow();
+        SoftPool.mode(SoftPool.Mode.Auto);
+    }
+
+    @Benchmark public int parseBatch() throws InterruptedException, ExecutionException {
+        List<Future<Integer>> futures = new ArrayList<>(BatchSize);
+        for (int i = 0; i < BatchSize; i++)
+            futures.add(executor.submit(() -> Jsoup.parse(html).text().length()));
+        int total = 0;
+        for (Future<Integer> future : futures)
+            total += future.get();
+        return total;
+    }
+}
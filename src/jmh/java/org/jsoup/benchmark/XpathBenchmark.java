@@ -0,0 +1,61 @@
+package org.jsoup.benchmark;
+
+import org.jsoup.Jsoup;
+import org.jsoup.helper.W3CDom;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.XpathQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Benchmarks XPath queries over a pre-parsed corpus page: evaluated natively over the jsoup nodes by a compiled
+ {@link XpathQuery}, against converting to a W3C DOM and evaluating with the JDK's XPath implementation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class XpathBenchmark {
+    @Param({Corpus.Large, Corpus.Xwiki})
+    String page;
+
+    @Param({"//a[@href]", "//div/p", "//li[2]", "//*[@id='footer']//a[contains(., 'e')]"})
+    String xpath;
+
+    Document doc;
+    XpathQuery query;
+
+    @Setup public void setup() {
+        doc = Jsoup.parse(Corpus.load(page));
+        query = XpathQuery.compile(xpath);
+    }
+
+    @Benchmark public List<Element> compiled() {
+        return query.select(doc);
+    }
+
+    @Benchmark public List<Element> selectXpath() {
+        return doc.selectXpath(xpath);
+    }
+
+    @Benchmark public List<Element> w3c() {
+        W3CDom w3c = new W3CDom().namespaceAware(false);
+        org.w3c.dom.Document wDoc = w3c.fromJsoup(doc);
+        return w3c.sourceNodes(w3c.selectXpath(xpath, w3c.contextNode(wDoc)), Element.class);
+    }
+}
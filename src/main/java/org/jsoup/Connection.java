@@ -19,6 +19,9 @@ import java.net.URL;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  The Connection interface is a convenient HTTP client and session object to fetch content from the web, and parse them
@@ -496,6 +499,91 @@ public interface Connection {
      */
     Response execute() throws IOException;
 
+    /**
+     Execute the request asynchronously. When executed via the {@code java.net.http.HttpClient} (the default on Java 11+),
+     the request is sent without blocking a thread while awaiting the response. Otherwise, the request is executed on the
+     common {@link ForkJoinPool}.
+     <p>As with {@link #execute()}, the returned future is completed once the response headers have been received;
+     redirects are followed, cookies are stored, and the {@link #maxBodySize(int)} is applied when the body is read.</p>
+     <p>If the request fails, the future is completed exceptionally with the same exception that {@link #execute()} would
+     throw (e.g. an {@link HttpStatusException}).</p>
+     <p>Until the future completes, the request can't be executed again, and {@link #execute()} will throw an
+     {@link IllegalArgumentException}. Once it completes, the response is also available via {@link #response()}.</p>
+
+     @return a future of the executed {@link Response}
+     @see #executeAsync(Executor)
+     @since 1.22.1
+     */
+    default CompletableFuture<Response> executeAsync() {
+        return executeAsync(ForkJoinPool.commonPool());
+    }
+
+    /**
+     Execute the request asynchronously, as in {@link #executeAsync()}, using the supplied Executor for redirects and
+     response processing (and for the request itself, if it can't be sent without blocking).
+
+     @param executor the executor to run response processing on
+     @return a future of the executed {@link Response}
+     @since 1.22.1
+     */
+    default CompletableFuture<Response> executeAsync(Executor executor) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     Execute the request asynchronously as a GET, and parse the result. The response body is read and parsed on the common
+     {@link ForkJoinPool}.
+
+     @return a future of the parsed Document
+     @see #getAsync(Executor)
+     @since 1.22.1
+     */
+    default CompletableFuture<Document> getAsync() {
+        return getAsync(ForkJoinPool.commonPool());
+    }
+
+    /**
+     Execute the request asynchronously as a GET, and parse the result. The response body is read and parsed on the
+     supplied Executor.
+
+     @param executor the executor to run response processing and parsing on
+     @return a future of the parsed Document
+     @see #executeAsync(Executor)
+     @since 1.22.1
+     */
+    default CompletableFuture<Document> getAsync(Executor executor) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     Execute the request asynchronously as a POST, and parse the result. The response body is read and parsed on the
+     supplied Executor.
+
+     @param executor the executor to run response processing and parsing on
+     @return a future of the parsed Document
+     @see #executeAsync(Executor)
+     @since 1.22.1
+     */
+    default CompletableFuture<Document> postAsync(Executor executor) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     Execute the request asynchronously, and get a {@link StreamParser} over the response body. The future completes once
+     the response headers and the first bytes of the body (enough to detect the charset) have been received; the body is
+     then parsed as it is downloaded, so that e.g. {@link StreamParser#selectNext(String)} can return elements before
+     the whole body has arrived. The body is not buffered in full.
+     <p>The StreamParser must be closed when done, to release the connection.</p>
+
+     @param executor the executor to run response processing on
+     @return a future of the StreamParser
+     @see Response#streamParser()
+     @since 1.22.1
+     */
+    default CompletableFuture<StreamParser> streamParserAsync(Executor executor) {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * Get the request object associated with this connection
      * @return request
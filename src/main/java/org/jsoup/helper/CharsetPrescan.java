@@ -0,0 +1,232 @@
+package org.jsoup.helper;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.Locale;
+
+/**
+ Scans the leading bytes of an input for a declared character encoding, without parsing it. Implements the WHATWG
+ <a href="https://html.spec.whatwg.org/multipage/parsing.html#prescan-a-byte-stream-to-determine-its-encoding">prescan
+ a byte stream to determine its encoding</a> algorithm, to find a {@code <meta charset>} or
+ {@code <meta http-equiv=content-type content="...; charset=...">} declaration. If none is found, an
+ {@code <?xml encoding=...?>} declaration at the start of the input is used.
+ <p>Used by {@link DataUtil} when the charset is not known from a BOM or the Content-Type header.</p>
+ */
+final class CharsetPrescan {
+    private final byte[] buf;
+    private final int len;
+    private int pos;
+
+    private CharsetPrescan(byte[] buf, int len) {
+        this.buf = buf;
+        this.len = len;
+    }
+
+    /**
+     Scan the bytes for a declared charset.
+     @param buf the leading bytes of the input
+     @param len the number of bytes in buf to scan
+     @return the validated charset name, or null if none found (or not supported)
+     */
+    static @Nullable String scan(byte[] buf, int len) {
+        CharsetPrescan scanner = new CharsetPrescan(buf, len);
+        String charset = scanner.metaCharset();
+        if (charset == null) charset = scanner.xmlEncoding();
+        return charset;
+    }
+
+    private @Nullable String metaCharset() {
+        pos = 0;
+        while (pos < len) {
+            if (matches("<!--")) {
+                int end = indexOf("-->", pos + 2); // the end may overlap the start, as in <!-->
+                if (end == -1) return null;
+                pos = end + 3;
+            } else if (matchesIgnoreCase("<meta") && pos + 5 < len && isSpaceOrSlash(buf[pos + 5])) {
+                pos += 6;
+                String charset = metaAttributes();
+                if (charset != null) return charset;
+            } else if (pos + 1 < len && buf[pos] == '<' && (isAsciiAlpha(buf[pos + 1]) ||
+                buf[pos + 1] == '/' && pos + 2 < len && isAsciiAlpha(buf[pos + 2]))) {
+                // a start or end tag: skip the name, and then its attributes (which may contain a '>' in quotes)
+                while (pos < len && !isSpace(buf[pos]) && buf[pos] != '>') pos++;
+                while (attribute() != null) { /* skip */ }
+            } else if (matches("<!") || matches("</") || matches("<?")) {
+                int end = indexOf(">", pos + 2);
+                if (end == -1) return null;
+                pos = end + 1;
+            } else {
+                pos++;
+            }
+        }
+        return null;
+    }
+
+    /** Processes the attributes of a meta element, and returns its declared charset, if any. */
+    private @Nullable String metaAttributes() {
+        boolean seenHttpEquiv = false, seenContent = false, seenCharset = false; // later duplicates are ignored
+        boolean gotPragma = false;
+        Boolean needPragma = null;
+        String charset = null;
+
+        String[] attr;
+        while ((attr = attribute()) != null) {
+            String name = attr[0], value = attr[1];
+            if (name.equals("http-equiv") && !seenHttpEquiv) {
+                seenHttpEquiv = true;
+                if (value.equals("content-type")) gotPragma = true;
+            } else if (name.equals("content") && !seenContent) {
+                seenContent = true;
+                if (charset == null) {
+                    String found = DataUtil.getCharsetFromContentType(value);
+                    if (found != null) {
+                        charset = found;
+                        needPragma = true;
+                    }
+                }
+            } else if (name.equals("charset") && !seenCharset) {
+                seenCharset = true;
+                if (charset == null) { // a content charset seen earlier in this meta wins
+                    charset = DataUtil.validateCharset(value);
+                    needPragma = false;
+                }
+            }
+        }
+
+        if (needPragma == null || (needPragma && !gotPragma) || charset == null)
+            return null;
+        return encodingOverride(charset);
+    }
+
+    /** The encoding from an {@code <?xml ... encoding=...?>} declaration at the start of the input, if any. */
+    private @Nullable String xmlEncoding() {
+        pos = 0;
+        while (pos < len && isSpace(buf[pos])) pos++;
+        if (!matchesIgnoreCase("<?xml") || pos + 5 >= len || !isSpace(buf[pos + 5])) return null;
+        pos += 5;
+
+        String[] attr;
+        while ((attr = attribute()) != null) {
+            if (attr[0].equals("encoding")) {
+                String value = attr[1];
+                if (value.endsWith("?")) value = value.substring(0, value.length() - 1); // unquoted, as in encoding=x?>
+                String charset = DataUtil.validateCharset(value);
+                return charset != null ? encodingOverride(charset) : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     If the declared charset can't be what the (ASCII compatible) bytes were read as, use the one the spec mandates
+     instead.
+     */
+    private static String encodingOverride(String charset) {
+        String lower = charset.toLowerCase(Locale.ENGLISH);
+        if (lower.startsWith("utf-16")) return "UTF-8";
+        if (lower.equals("x-user-defined")) return "windows-1252";
+        return charset;
+    }
+
+    /**
+     Gets the next attribute, per the spec's "get an attribute" algorithm. Names and values are lower-cased (ASCII).
+     @return {name, value}, or null if there are no more attributes (at a '>', or at the end of the input)
+     */
+    private String @Nullable [] attribute() {
+        while (pos < len && (isSpace(buf[pos]) || buf[pos] == '/')) pos++;
+        if (pos >= len || buf[pos] == '>') return null;
+
+        StringBuilder name = new StringBuilder();
+        StringBuilder value = new StringBuilder();
+        // the name:
+        while (true) {
+            if (pos >= len) return null;
+            byte b = buf[pos];
+            if (b == '=' && name.length() > 0) {
+                pos++;
+                break;
+            } else if (isSpace(b)) {
+                while (pos < len && isSpace(buf[pos])) pos++;
+                if (pos >= len) return null;
+                if (buf[pos] != '=') return new String[]{name.toString(), ""};
+                pos++;
+                break;
+            } else if (b == '/' || b == '>') {
+                return new String[]{name.toString(), ""};
+            }
+            append(name, b);
+            pos++;
+        }
+
+        // the value:
+        while (pos < len && isSpace(buf[pos])) pos++;
+        if (pos >= len) return null;
+        byte b = buf[pos];
+        if (b == '"' || b == '\'') {
+            byte quote = b;
+            while (true) {
+                pos++;
+                if (pos >= len) return null;
+                if (buf[pos] == quote) {
+                    pos++;
+                    return new String[]{name.toString(), value.toString()};
+                }
+                append(value, buf[pos]);
+            }
+        } else if (b == '>') {
+            return new String[]{name.toString(), ""};
+        }
+        while (true) {
+            if (pos >= len) return null;
+            b = buf[pos];
+            if (isSpace(b) || b == '>') return new String[]{name.toString(), value.toString()};
+            append(value, b);
+            pos++;
+        }
+    }
+
+    private static void append(StringBuilder sb, byte b) {
+        char c = (char) (b & 0xFF); // bytes to chars as in ISO-8859-1; labels are ASCII
+        if (c >= 'A' && c <= 'Z') c = (char) (c + 0x20);
+        sb.append(c);
+    }
+
+    private boolean matches(String seq) {
+        if (pos + seq.length() > len) return false;
+        for (int i = 0; i < seq.length(); i++) {
+            if (buf[pos + i] != seq.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private boolean matchesIgnoreCase(String lowerSeq) {
+        if (pos + lowerSeq.length() > len) return false;
+        for (int i = 0; i < lowerSeq.length(); i++) {
+            int b = buf[pos + i];
+            if (b >= 'A' && b <= 'Z') b += 0x20;
+            if (b != lowerSeq.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private int indexOf(String seq, int from) {
+        for (int i = from; i + seq.length() <= len; i++) {
+            int j = 0;
+            while (j < seq.length() && buf[i + j] == seq.charAt(j)) j++;
+            if (j == seq.length()) return i;
+        }
+        return -1;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == 0x09 || b == 0x0A || b == 0x0C || b == 0x0D || b == 0x20;
+    }
+
+    private static boolean isSpaceOrSlash(byte b) {
+        return isSpace(b) || b == '/';
+    }
+
+    private static boolean isAsciiAlpha(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+}
@@ -41,7 +41,11 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.Inflater;
@@ -74,7 +78,7 @@ public class HttpConnection implements Connection {
     private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
 
     private HttpConnection.Request req;
-    private Connection.@Nullable Response res;
+    private volatile Connection.@Nullable Response res; // volatile, as an async request sets it on its completing thread
     @Nullable Object client; // The HttpClient for this Connection, if via the HttpClientExecutor
     @Nullable RequestAuthenticator lastAuth; // The previous Authenticator used by this Connection, if via the HttpClientExecutor
 
@@ -366,6 +370,44 @@ public class HttpConnection implements Connection {
         return res;
     }
 
+    @Override
+    public CompletableFuture<Connection.Response> executeAsync(Executor executor) {
+        return Response.executeAsync(req, executor, response -> res = response);
+    }
+
+    @Override
+    public CompletableFuture<Document> getAsync(Executor executor) {
+        req.method(Method.GET);
+        return parseAsync(executor);
+    }
+
+    @Override
+    public CompletableFuture<Document> postAsync(Executor executor) {
+        req.method(Method.POST);
+        return parseAsync(executor);
+    }
+
+    @Override
+    public CompletableFuture<StreamParser> streamParserAsync(Executor executor) {
+        return executeAsync(executor).thenApplyAsync(response -> {
+            try {
+                return response.streamParser();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    private CompletableFuture<Document> parseAsync(Executor executor) {
+        return executeAsync(executor).thenApplyAsync(response -> {
+            try {
+                return response.parse();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
     @Override
     public Connection.Request request() {
         return req;
@@ -630,7 +672,7 @@ public class HttpConnection implements Connection {
         @Nullable RequestAuthenticator authenticator;
         private @Nullable Progress<Connection.Response> responseProgress;
 
-        private final ReentrantLock executing = new ReentrantLock(); // detects and warns if same request used concurrently
+        private final AtomicBoolean executing = new AtomicBoolean(); // detects and warns if same request used concurrently. not a lock, as async requests complete on another thread
 
         Request() {
             super();
@@ -863,12 +905,93 @@ public class HttpConnection implements Connection {
         }
 
         static Response execute(HttpConnection.Request req) throws IOException {
-            return execute(req, null);
+            acquire(req);
+            try {
+                return execute(req, null);
+            } finally {
+                req.executing.set(false);
+            }
+        }
+
+        private static Response execute(HttpConnection.Request req, @Nullable Response prevRes) throws IOException {
+            prepare(req);
+            long startTime = System.nanoTime();
+            RequestExecutor executor = RequestDispatch.get(req, prevRes);
+            Response res = null;
+            try {
+                res = executor.execute();
+                if (redirect(req, res))
+                    return execute(req, res);
+                prepareBody(req, res, executor, startTime);
+            } catch (IOException e) {
+                if (res != null) res.safeClose(); // will be non-null if got to conn
+                throw e;
+            } finally {
+                // detach any thread local auth delegate
+                if (req.authenticator != null)
+                    AuthenticationHandler.handler.remove();
+            }
+
+            res.executed = true;
+            return res;
         }
 
-        static Response execute(HttpConnection.Request req, @Nullable Response prevRes) throws IOException {
-            Validate.isTrue(req.executing.tryLock(), "Multiple threads were detected trying to execute the same request concurrently. Make sure to use Connection#newRequest() and do not share an executing request between threads.");
+        /**
+         Execute the request asynchronously. The request is sent without blocking if supported by the executor (i.e. via
+         the HttpClient); otherwise it is executed on the supplied Executor. Redirects, and the response checks and body
+         setup, are run on the supplied Executor.
+         <p>The request is held as executing (so that {@link #execute(HttpConnection.Request)} or another async execution
+         of it is rejected) until the response has been passed to {@code onResponse}, and the future completes.</p>
+         */
+        static CompletableFuture<Connection.Response> executeAsync(
+            HttpConnection.Request req, Executor executor, Consumer<Connection.Response> onResponse) {
+            Validate.notNullParam(executor, "executor");
+            acquire(req);
+            return executeAsync(req, null, executor)
+                .whenComplete((res, e) -> {
+                    try {
+                        if (res != null) onResponse.accept(res);
+                    } finally {
+                        req.executing.set(false);
+                    }
+                });
+        }
+
+        private static CompletableFuture<Connection.Response> executeAsync(
+            HttpConnection.Request req, @Nullable Response prevRes, Executor executor) {
+            long startTime = System.nanoTime();
+            RequestExecutor requestExecutor;
+            try {
+                prepare(req);
+                requestExecutor = RequestDispatch.get(req, prevRes);
+            } catch (IOException | RuntimeException e) {
+                CompletableFuture<Connection.Response> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                return failed;
+            }
+
+            return requestExecutor.executeAsync(executor).thenComposeAsync(res -> {
+                try {
+                    if (redirect(req, res))
+                        return executeAsync(req, res, executor);
+                    prepareBody(req, res, requestExecutor, startTime);
+                } catch (IOException e) {
+                    res.safeClose();
+                    throw new CompletionException(e);
+                }
+                res.executed = true;
+                return CompletableFuture.completedFuture(res);
+            }, executor);
+        }
+
+        /** Marks the request as executing; or throws if it is already being executed. */
+        private static void acquire(HttpConnection.Request req) {
             Validate.notNullParam(req, "req");
+            Validate.isTrue(req.executing.compareAndSet(false, true), "Multiple threads were detected trying to execute the same request concurrently. Make sure to use Connection#newRequest() and do not share an executing request between threads.");
+        }
+
+        /** Validates the request and sets up its URL or body for execution. */
+        private static void prepare(HttpConnection.Request req) throws IOException {
             URL url = req.url();
             Validate.notNull(url, "URL must be specified to connect");
             String protocol = url.getProtocol();
@@ -884,79 +1007,70 @@ public class HttpConnection implements Connection {
                 serialiseRequestUrl(req);
             else if (supportsBody)
                 setOutputContentType(req);
+        }
 
-            long startTime = System.nanoTime();
-            RequestExecutor executor = RequestDispatch.get(req, prevRes);
-            Response res = null;
-            try {
-                res = executor.execute();
-
-                // redirect if there's a location header (from 3xx, or 201 etc)
-                if (res.hasHeader(LOCATION) && req.followRedirects()) {
-                    if (res.statusCode != HTTP_TEMP_REDIR) {
-                        req.method(Method.GET); // always redirect with a get. any data param from original req are dropped.
-                        req.data().clear();
-                        req.requestBody(null);
-                        req.removeHeader(CONTENT_TYPE);
-                    }
+        /**
+         If the response should be followed to a new location, updates the request to fetch it.
+         @return true if the request should be executed again
+         */
+        private static boolean redirect(HttpConnection.Request req, Response res) throws MalformedURLException {
+            // redirect if there's a location header (from 3xx, or 201 etc)
+            if (!res.hasHeader(LOCATION) || !req.followRedirects())
+                return false;
+
+            if (res.statusCode != HTTP_TEMP_REDIR) {
+                req.method(Method.GET); // always redirect with a get. any data param from original req are dropped.
+                req.data().clear();
+                req.requestBody(null);
+                req.removeHeader(CONTENT_TYPE);
+            }
 
-                    String location = res.header(LOCATION);
-                    Validate.notNull(location);
-                    if (location.startsWith("http:/") && location.charAt(6) != '/') // fix broken Location: http:/temp/AAG_New/en/index.php
-                        location = location.substring(6);
-                    URL redir = StringUtil.resolve(req.url(), location);
-                    req.url(redir);
+            String location = res.header(LOCATION);
+            Validate.notNull(location);
+            if (location.startsWith("http:/") && location.charAt(6) != '/') // fix broken Location: http:/temp/AAG_New/en/index.php
+                location = location.substring(6);
+            URL redir = StringUtil.resolve(req.url(), location);
+            req.url(redir);
+            return true;
+        }
+
+        /** Checks the response status and content type, and sets up the body stream. */
+        private static void prepareBody(HttpConnection.Request req, Response res, RequestExecutor executor, long startTime) throws IOException {
+            if ((res.statusCode < 200 || res.statusCode >= 400) && !req.ignoreHttpErrors())
+                    throw new HttpStatusException("HTTP error fetching URL", res.statusCode, req.url().toString());
+
+            // check that we can handle the returned content type; if not, abort before fetching it
+            String contentType = res.contentType();
+            if (contentType != null
+                    && !req.ignoreContentType()
+                    && !contentType.startsWith("text/")
+                    && !xmlContentTypeRxp.matcher(contentType).matches()
+                    )
+                throw new UnsupportedMimeTypeException("Unhandled content type. Must be text/*, */xml, or */*+xml",
+                        contentType, req.url().toString());
+
+            // switch to the XML parser if content type is xml and not parser not explicitly set
+            if (contentType != null && xmlContentTypeRxp.matcher(contentType).matches()) {
+                if (!req.parserDefined) req.parser(Parser.xmlParser());
+            }
 
-                    return execute(req, res);
-                }
-                if ((res.statusCode < 200 || res.statusCode >= 400) && !req.ignoreHttpErrors())
-                        throw new HttpStatusException("HTTP error fetching URL", res.statusCode, req.url().toString());
-
-                // check that we can handle the returned content type; if not, abort before fetching it
-                String contentType = res.contentType();
-                if (contentType != null
-                        && !req.ignoreContentType()
-                        && !contentType.startsWith("text/")
-                        && !xmlContentTypeRxp.matcher(contentType).matches()
-                        )
-                    throw new UnsupportedMimeTypeException("Unhandled content type. Must be text/*, */xml, or */*+xml",
-                            contentType, req.url().toString());
-
-                // switch to the XML parser if content type is xml and not parser not explicitly set
-                if (contentType != null && xmlContentTypeRxp.matcher(contentType).matches()) {
-                    if (!req.parserDefined) req.parser(Parser.xmlParser());
-                }
+            res.charset = DataUtil.getCharsetFromContentType(res.contentType); // may be null, readInputStream deals with it
+            if (res.contentLength != 0 && req.method() != HEAD) { // -1 means unknown, chunked. sun throws an IO exception on 500 response with no content when trying to read body
+                InputStream stream = executor.responseBody();
+                if (res.hasHeaderWithValue(CONTENT_ENCODING, "gzip"))
+                    stream = new GZIPInputStream(stream);
+                else if (res.hasHeaderWithValue(CONTENT_ENCODING, "deflate"))
+                    stream = new InflaterInputStream(stream, new Inflater(true));
 
-                res.charset = DataUtil.getCharsetFromContentType(res.contentType); // may be null, readInputStream deals with it
-                if (res.contentLength != 0 && req.method() != HEAD) { // -1 means unknown, chunked. sun throws an IO exception on 500 response with no content when trying to read body
-                    InputStream stream = executor.responseBody();
-                    if (res.hasHeaderWithValue(CONTENT_ENCODING, "gzip"))
-                        stream = new GZIPInputStream(stream);
-                    else if (res.hasHeaderWithValue(CONTENT_ENCODING, "deflate"))
-                        stream = new InflaterInputStream(stream, new Inflater(true));
-                    
-                    res.bodyStream = ControllableInputStream.wrap(
-                        stream, DefaultBufferSize, req.maxBodySize())
-                        .timeout(startTime, req.timeout());
-
-                    if (req.responseProgress != null) // set response progress listener
-                        res.bodyStream.onProgress(res.contentLength, req.responseProgress, res);
-                } else {
-                    res.byteData = DataUtil.emptyByteBuffer();
-                }
-            } catch (IOException e) {
-                if (res != null) res.safeClose(); // will be non-null if got to conn
-                throw e;
-            } finally {
-                req.executing.unlock();
+                res.bodyStream = ControllableInputStream.wrap(
+                    stream, DefaultBufferSize, req.maxBodySize())
+                    .timeout(startTime, req.timeout());
 
-                // detach any thread local auth delegate
-                if (req.authenticator != null)
-                    AuthenticationHandler.handler.remove();
+                if (req.responseProgress != null) // set response progress listener
+                    res.bodyStream.onProgress(res.contentLength, req.responseProgress, res);
+            } else {
+                res.byteData = DataUtil.emptyByteBuffer();
             }
-
-            res.executed = true;
-            return res;
         }
 
         @Override
@@ -1012,8 +1126,7 @@ public class HttpConnection implements Connection {
         @Override public StreamParser streamParser() throws IOException {
             ControllableInputStream stream = prepareParse();
             String baseUri = url.toExternalForm();
-            DataUtil.CharsetDoc charsetDoc = DataUtil.detectCharset(stream, charset, baseUri, req.parser());
-            // note that there may be a document in CharsetDoc as a result of scanning meta-data -- but as requires a stream parse, it is not used here. todo - revisit.
+            DataUtil.CharsetDoc charsetDoc = DataUtil.detectCharset(stream, charset, true);
 
             // set up the stream parser and rig this connection up to the parsed doc:
             StreamParser streamer = new StreamParser(req.parser());
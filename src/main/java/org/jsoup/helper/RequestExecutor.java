@@ -7,6 +7,9 @@ import org.jspecify.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  A shim interface to support both HttpURLConnection and HttpClient implementations, in a multi-version jar.
@@ -22,6 +25,24 @@ abstract class RequestExecutor {
 
     abstract Response execute() throws IOException;
 
+    /**
+     Execute the request asynchronously. This default implementation runs the blocking {@link #execute()} on the
+     executor; implementations that support non-blocking requests override it.
+     */
+    CompletableFuture<Response> executeAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return execute();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            } finally {
+                // detach any thread local auth delegate
+                if (req.authenticator != null)
+                    AuthenticationHandler.handler.remove();
+            }
+        }, executor);
+    }
+
     abstract InputStream responseBody() throws IOException;
 
     abstract void safeClose();
@@ -1,8 +1,10 @@
 package org.jsoup.helper;
 
 import org.jsoup.internal.Normalizer;
+import org.jsoup.internal.SharedConstants;
 import org.jsoup.internal.StringUtil;
 import org.jsoup.nodes.Attribute;
+import org.jsoup.nodes.Attributes;
 import org.jsoup.parser.HtmlTreeBuilder;
 import org.jsoup.select.NodeVisitor;
 import org.jsoup.select.Selector;
@@ -403,28 +405,39 @@ public class W3CDom {
         }
 
         private void copyAttributes(org.jsoup.nodes.Element jEl, Element wEl) {
-            for (Attribute attribute : jEl.attributes()) {
+            if (jEl.attributesSize() == 0) return;
+            Attributes attributes = jEl.attributes();
+            attributes.forEachKeyValue((key, value) -> { // iterates without creating Attribute objects
                 try {
-                    setAttribute(jEl, wEl, attribute, syntax);
+                    setAttribute(jEl, wEl, attributes, key, value, syntax);
                 } catch (DOMException e) {
                     if (syntax != Syntax.xml)
-                        setAttribute(jEl, wEl, attribute, Syntax.xml);
+                        setAttribute(jEl, wEl, attributes, key, value, Syntax.xml);
                 }
-            }
+            });
         }
 
-        private void setAttribute(org.jsoup.nodes.Element jEl, Element wEl, Attribute attribute, Syntax syntax) throws DOMException {
-            String key = Attribute.getValidKey(attribute.getKey(), syntax);
+        private void setAttribute(org.jsoup.nodes.Element jEl, Element wEl, Attributes attributes, String attrKey,
+            String value, Syntax syntax) throws DOMException {
+            String key = Attribute.getValidKey(attrKey, syntax);
             if (key != null) {
-                String namespace = attribute.namespace();
+                String namespace = namespace(attributes, attrKey);
                 if (namespaceAware && !namespace.isEmpty())
-                    wEl.setAttributeNS(namespace, key, attribute.getValue());
+                    wEl.setAttributeNS(namespace, key, value);
                 else
-                    wEl.setAttribute(key, attribute.getValue());
+                    wEl.setAttribute(key, value);
                 maybeAddUndeclaredNs(namespace, key, jEl, wEl);
             }
         }
 
+        /** As {@link Attribute#namespace()}: the namespace defined during the parse for the key's prefix, if any. */
+        private static String namespace(Attributes attributes, String key) {
+            int pos = key.indexOf(':');
+            if (pos == -1) return ""; // namespaces are only recorded for prefixes
+            String ns = (String) attributes.userData(SharedConstants.XmlnsAttr + key.substring(0, pos));
+            return ns != null ? ns : "";
+        }
+
         /**
          Add a namespace declaration for an attribute with a prefix if it is not already present. Ensures that attributes
          with prefixes have the corresponding namespace declared, E.g. attribute "v-bind:foo" gets another attribute
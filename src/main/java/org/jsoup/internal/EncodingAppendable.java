@@ -0,0 +1,266 @@
+package org.jsoup.internal;
+
+import org.jsoup.SerializationException;
+import org.jsoup.helper.DataUtil;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ A jsoup internal class: a QuietAppendable that encodes the appended chars to bytes in a charset, and writes them to an
+ OutputStream or a WritableByteChannel, through a recycled byte buffer. UTF-8 and US-ASCII are encoded directly; other
+ charsets via a CharsetEncoder. As with {@link String#getBytes(Charset)}, chars that can't be encoded (including
+ unpaired surrogates) are replaced with {@code ?}.
+ <p>The output must be completed with {@link #finish()}, which writes any buffered bytes (but does not flush or close
+ the target). Not thread safe.</p>
+ @since 1.22.1
+ */
+public final class EncodingAppendable extends QuietAppendable {
+    private static final int Utf8 = 0, Ascii = 1, Other = 2;
+    private static final byte Replacement = '?';
+
+    private final @Nullable OutputStream stream;
+    private final @Nullable WritableByteChannel channel;
+    private final int encoding;
+    private final @Nullable CharsetEncoder encoder; // for Other
+    private final @Nullable CharBuffer chars; // chars to encode, for Other
+
+    private byte @Nullable [] buf; // borrowed from the pool; null once finished
+    private int pos = 0;
+    private char pendingHigh = 0; // a high surrogate, waiting for its low surrogate
+
+    private EncodingAppendable(@Nullable OutputStream stream, @Nullable WritableByteChannel channel, Charset charset) {
+        this.stream = stream;
+        this.channel = channel;
+        if (charset.equals(DataUtil.UTF_8)) {
+            encoding = Utf8;
+            encoder = null;
+            chars = null;
+        } else if (charset.name().equals("US-ASCII")) {
+            encoding = Ascii;
+            encoder = null;
+            chars = null;
+        } else {
+            encoding = Other;
+            encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            chars = CharBuffer.allocate(1024);
+        }
+        buf = SimpleBufferedInput.BufferPool.borrow();
+    }
+
+    /**
+     Create an EncodingAppendable that writes to an OutputStream.
+     @param out the stream to write to
+     @param charset the charset to encode in
+     @return a new EncodingAppendable
+     */
+    public static EncodingAppendable wrap(OutputStream out, Charset charset) {
+        return new EncodingAppendable(out, null, charset);
+    }
+
+    /**
+     Create an EncodingAppendable that writes to a WritableByteChannel.
+     @param out the channel to write to
+     @param charset the charset to encode in
+     @return a new EncodingAppendable
+     */
+    public static EncodingAppendable wrap(WritableByteChannel out, Charset charset) {
+        return new EncodingAppendable(null, out, charset);
+    }
+
+    @Override
+    public EncodingAppendable append(CharSequence csq) {
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public EncodingAppendable append(CharSequence csq, int start, int end) {
+        if (encoding == Other) {
+            for (int i = start; i < end; i++)
+                encodeOther(csq.charAt(i));
+            return this;
+        }
+
+        byte[] b = buffer();
+        int i = start;
+        while (i < end) {
+            // ASCII fast path: copy while there is room in the buffer
+            int limit = Math.min(end, i + b.length - pos);
+            if (pendingHigh == 0) {
+                int p = pos;
+                while (i < limit) {
+                    char c = csq.charAt(i);
+                    if (c >= 0x80) break;
+                    b[p++] = (byte) c;
+                    i++;
+                }
+                pos = p;
+            }
+            if (i < end) {
+                if (pos == b.length) flushBuffer();
+                else encode(csq.charAt(i++));
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public EncodingAppendable append(char c) {
+        if (encoding == Other) encodeOther(c);
+        else if (c < 0x80 && pendingHigh == 0) put((byte) c);
+        else encode(c);
+        return this;
+    }
+
+    @Override
+    public EncodingAppendable append(char[] chars, int offset, int len) {
+        for (int i = offset; i < offset + len; i++)
+            append(chars[i]);
+        return this;
+    }
+
+    /**
+     Completes the output: encodes any pending chars, writes the buffered bytes to the target, and releases the buffer.
+     The target is not flushed or closed. This appendable can't be used after.
+     @throws SerializationException if the target throws an IOException
+     */
+    public void finish() {
+        if (buf == null) return;
+        try {
+            if (encoding == Other) {
+                encodeChars(true);
+            } else if (pendingHigh != 0) {
+                pendingHigh = 0;
+                put(Replacement);
+            }
+            flushBuffer();
+        } finally {
+            release();
+        }
+    }
+
+    /** Releases the buffer without writing any buffered output; for use if the output failed. */
+    public void release() {
+        if (buf == null) return;
+        SimpleBufferedInput.BufferPool.release(buf);
+        buf = null;
+    }
+
+    private byte[] buffer() {
+        if (buf == null) throw new IllegalStateException("Finished");
+        return buf;
+    }
+
+    /** Encodes the (non-ASCII, or following a high surrogate) char, as UTF-8 or ASCII. */
+    private void encode(char c) {
+        if (pendingHigh != 0) {
+            char high = pendingHigh;
+            pendingHigh = 0;
+            if (Character.isLowSurrogate(c)) {
+                encodeCodePoint(Character.toCodePoint(high, c));
+                return;
+            }
+            put(Replacement); // unpaired high surrogate
+        }
+
+        if (c < 0x80) {
+            put((byte) c);
+        } else if (Character.isHighSurrogate(c)) {
+            pendingHigh = c;
+        } else if (Character.isLowSurrogate(c)) {
+            put(Replacement); // unpaired low surrogate
+        } else {
+            encodeCodePoint(c);
+        }
+    }
+
+    private void encodeCodePoint(int cp) {
+        if (encoding == Ascii) {
+            put(Replacement);
+            return;
+        }
+
+        byte[] b = buffer();
+        if (b.length - pos < 4) {
+            flushBuffer();
+        }
+        if (cp < 0x800) {
+            b[pos++] = (byte) (0xC0 | (cp >> 6));
+            b[pos++] = (byte) (0x80 | (cp & 0x3F));
+        } else if (cp < 0x10000) {
+            b[pos++] = (byte) (0xE0 | (cp >> 12));
+            b[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+            b[pos++] = (byte) (0x80 | (cp & 0x3F));
+        } else {
+            b[pos++] = (byte) (0xF0 | (cp >> 18));
+            b[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+            b[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+            b[pos++] = (byte) (0x80 | (cp & 0x3F));
+        }
+    }
+
+    private void put(byte value) {
+        byte[] b = buffer();
+        if (pos == b.length) flushBuffer();
+        b[pos++] = value;
+    }
+
+    private void encodeOther(char c) {
+        buffer(); // check not finished
+        CharBuffer cb = chars;
+        assert cb != null;
+        if (!cb.hasRemaining()) encodeChars(false);
+        cb.put(c);
+    }
+
+    /** Encodes the staged chars into the byte buffer, writing it out as it fills. */
+    private void encodeChars(boolean endOfInput) {
+        CharBuffer cb = chars;
+        CharsetEncoder enc = encoder;
+        assert cb != null && enc != null;
+        byte[] b = buffer();
+
+        cb.flip();
+        ByteBuffer bb = ByteBuffer.wrap(b, pos, b.length - pos);
+        while (true) {
+            CoderResult result = enc.encode(cb, bb, endOfInput);
+            if (endOfInput && result.isUnderflow()) result = enc.flush(bb);
+            pos = bb.position();
+            if (result.isOverflow()) {
+                flushBuffer();
+                bb = ByteBuffer.wrap(b, 0, b.length);
+            } else {
+                break; // underflow; any remaining chars (a high surrogate) are kept for the next pass
+            }
+        }
+        cb.compact();
+    }
+
+    private void flushBuffer() {
+        byte[] b = buffer();
+        if (pos == 0) return;
+        try {
+            if (stream != null) {
+                stream.write(b, 0, pos);
+            } else {
+                assert channel != null;
+                ByteBuffer bb = ByteBuffer.wrap(b, 0, pos);
+                while (bb.hasRemaining())
+                    channel.write(bb);
+            }
+        } catch (IOException e) {
+            throw new SerializationException(e);
+        }
+        pos = 0;
+    }
+}
@@ -30,6 +30,24 @@ public final class Normalizer {
         return isStringLiteral ? lowerCase(input) : normalize(input);
     }
 
+    /**
+     Folds the case of each char, so that folded strings are equal when the originals are
+     {@link String#equalsIgnoreCase(String) equalsIgnoreCase}. (Unlike {@link #lowerCase(String)}, which e.g. doesn't
+     equate the dotless {@code ı} with {@code i}.)
+     */
+    public static String foldCase(final String input) {
+        char[] folded = null;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            char f = Character.toLowerCase(Character.toUpperCase(c));
+            if (f != c) {
+                if (folded == null) folded = input.toCharArray();
+                folded[i] = f;
+            }
+        }
+        return folded == null ? input : new String(folded);
+    }
+
     /** Minimal helper to get an otherwise OK HTML name like "foo&lt;bar" to "foo_bar". */
     @Nullable public static String xmlSafeTagName(final String tagname) {
         return Attribute.getValidKey(tagname, Document.OutputSettings.Syntax.xml); // Reuses the Attribute key normal, which is same for xml tag names
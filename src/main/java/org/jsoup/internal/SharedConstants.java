@@ -9,6 +9,7 @@ public final class SharedConstants {
     public final static String AttrRangeKey = "jsoup.attrs";
     public static final String RangeKey = "jsoup.start";
     public static final String EndRangeKey = "jsoup.end";
+    public static final String LinesKey = "jsoup.lines"; // the LineIndex of a tracked Document
     public static final String XmlnsAttr = "jsoup.xmlns-";
 
     public static final int DefaultBufferSize = 8 * 1024;
@@ -23,5 +24,7 @@ public final class SharedConstants {
 
     public static final String UseRe2j = "jsoup.useRe2j"; // enables use of the re2j regular expression engine when true and it's on the classpath
 
+    public static final String SoftPoolMode = "jsoup.softPool"; // auto (default), threadLocal, or shared; see SoftPool.Mode
+
     private SharedConstants() {}
 }
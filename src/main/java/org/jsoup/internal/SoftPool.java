@@ -1,19 +1,28 @@
 package org.jsoup.internal;
 
+import org.jspecify.annotations.Nullable;
+
 import java.lang.ref.SoftReference;
 import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Supplier;
 
 /**
  A SoftPool is a ThreadLocal that holds a SoftReference to a pool of initializable objects. This allows us to reuse
  expensive objects (buffers, etc.) between invocations (the ThreadLocal), but also for those objects to be reaped if
  they are no longer in use.
+ <p>Virtual threads are typically created per task, so a ThreadLocal pool would be discarded with each thread, and its
+ objects never reused. So when called from a virtual thread, objects are instead pooled in a bounded, lock-free shared
+ pool, striped by thread to reduce contention; also held by a SoftReference. Which pool is used can be selected with
+ the {@link SharedConstants#SoftPoolMode} system property, or {@link #mode(Mode)}.</p>
  <p>Like a ThreadLocal, should be stored in a static field.</p>
  @param <T> the type of object to pool.
  @since 1.18.2
  */
 public class SoftPool<T> {
     final ThreadLocal<SoftReference<ArrayDeque<T>>> threadLocalStack;
+    private volatile SoftReference<AtomicReferenceArray<T>> sharedSlots = new SoftReference<>(null);
     private final Supplier<T> initializer;
     /**
      How many total uses of the creating object might be instantiated on the same thread at once. More than this and
@@ -21,6 +30,34 @@ public class SoftPool<T> {
      */
     static final int MaxIdle = 12;
 
+    /** The number of stripes in the shared pool (a power of two), and the number of objects each can hold. */
+    static final int Stripes = stripes(Runtime.getRuntime().availableProcessors());
+    static final int SlotsPerStripe = 4;
+
+    /**
+     Which pool to borrow from and release to.
+     */
+    public enum Mode {
+        /** Use the shared pool for virtual threads, and a thread local pool otherwise. The default. */
+        Auto,
+        /** Always use a thread local pool. */
+        ThreadLocal,
+        /** Always use the shared pool. */
+        Shared;
+
+        static Mode fromProperty() {
+            String value = System.getProperty(SharedConstants.SoftPoolMode, "auto").toLowerCase(Locale.ROOT);
+            switch (value) {
+                case "threadlocal": return ThreadLocal;
+                case "shared": return Shared;
+                default: return Auto;
+            }
+        }
+    }
+
+    private static volatile Mode mode = Mode.fromProperty();
+    private static final @Nullable Class<?> VirtualThreadClass = virtualThreadClass(); // on Java 21+
+
     /**
      Create a new SoftPool.
      @param initializer a supplier that creates a new object when one is needed.
@@ -36,6 +73,10 @@ public class SoftPool<T> {
      @return an object from the pool, as defined by the initializer.
      */
     public T borrow() {
+        if (useShared()) {
+            T value = borrowShared();
+            return value != null ? value : initializer.get();
+        }
         ArrayDeque<T> stack = getStack();
         if (!stack.isEmpty()) {
             return stack.pop();
@@ -49,12 +90,33 @@ public class SoftPool<T> {
      @param value the object to release back to the pool.
      */
     public void release(T value) {
+        if (useShared()) {
+            releaseShared(value);
+            return;
+        }
         ArrayDeque<T> stack = getStack();
         if (stack.size() < MaxIdle) {
             stack.push(value);
         }
     }
 
+    /**
+     Set which pool SoftPools borrow from and release to. Objects already pooled are retained in the previous pool.
+     @param mode the pool mode
+     */
+    public static void mode(Mode mode) {
+        SoftPool.mode = mode;
+    }
+
+    /**
+     Get the current pool mode.
+     @return the pool mode; by default, {@link Mode#Auto}, or as set by the {@link SharedConstants#SoftPoolMode}
+     system property.
+     */
+    public static Mode mode() {
+        return mode;
+    }
+
     ArrayDeque<T> getStack() {
         ArrayDeque<T> stack = threadLocalStack.get().get();
         if (stack == null) {
@@ -63,4 +125,75 @@ public class SoftPool<T> {
         }
         return stack;
     }
+
+    private static boolean useShared() {
+        Mode current = mode;
+        if (current == Mode.Auto) return isVirtual(Thread.currentThread());
+        return current == Mode.Shared;
+    }
+
+    private @Nullable T borrowShared() {
+        AtomicReferenceArray<T> slots = sharedSlots.get();
+        if (slots == null) return null;
+        int start = stripeStart();
+        for (int i = start; i < start + SlotsPerStripe; i++) {
+            T value = slots.get(i);
+            if (value != null && slots.compareAndSet(i, value, null))
+                return value;
+        }
+        return null;
+    }
+
+    private void releaseShared(T value) {
+        AtomicReferenceArray<T> slots = getSharedSlots();
+        int start = stripeStart();
+        for (int i = start; i < start + SlotsPerStripe; i++) {
+            if (slots.get(i) == null && slots.compareAndSet(i, null, value))
+                return;
+        }
+        // stripe is full; drop it
+    }
+
+    AtomicReferenceArray<T> getSharedSlots() {
+        AtomicReferenceArray<T> slots = sharedSlots.get();
+        if (slots == null) {
+            slots = new AtomicReferenceArray<>(Stripes * SlotsPerStripe);
+            sharedSlots = new SoftReference<>(slots); // a racing release may replace this; just loses those objects
+        }
+        return slots;
+    }
+
+    /** Picks the stripe for the current thread, by mixing its id, so that sequential ids spread across stripes. */
+    @SuppressWarnings("deprecation") // Thread#getId() deprecated in 19 for threadId(); but we support Java 8
+    private static int stripeStart() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id * 0x9E3779B97F4A7C15L >>> 32);
+        return (hash & (Stripes - 1)) * SlotsPerStripe;
+    }
+
+    static int stripes(int processors) {
+        int stripes = Integer.highestOneBit(Math.max(1, processors) * 2 - 1) << 1; // next power of two of 2x processors
+        return Math.min(stripes, 64);
+    }
+
+    static boolean isVirtual(Thread thread) {
+        return VirtualThreadClass != null && VirtualThreadClass.isInstance(thread);
+    }
+
+    /**
+     Finds the class of virtual threads, by creating (but not starting) one via {@code Thread.ofVirtual()}; or null before
+     Java 21. This is resolved once, so that testing a thread is a type check, vs invoking {@code Thread#isVirtual()}
+     reflectively on each borrow and release. (We build for Java 8 and Android, so can't call it directly, or via a
+     MethodHandle.)
+     */
+    private static @Nullable Class<?> virtualThreadClass() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Thread thread = (Thread) builderType.getMethod("unstarted", Runnable.class).invoke(builder, (Runnable) () -> {});
+            return thread.getClass();
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            return null;
+        }
+    }
 }
@@ -76,6 +76,8 @@ public class Attribute implements Map.Entry<String, String>, Cloneable  {
             if (i != Attributes.NotFound) {
                 String oldKey = parent.keys[i];
                 parent.keys[i] = key;
+                parent.changed(oldKey);
+                parent.changed(key);
 
                 // if tracking source positions, update the key in the range map
                 Map<String, Range.AttributeRange> ranges = parent.getRanges();
@@ -117,6 +119,7 @@ public class Attribute implements Map.Entry<String, String>, Cloneable  {
             if (i != Attributes.NotFound) {
                 oldVal = parent.get(this.key); // trust the container more
                 parent.vals[i] = val;
+                parent.changed(this.key);
             }
         }
         this.val = val;
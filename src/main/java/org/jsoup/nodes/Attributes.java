@@ -20,6 +20,7 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 import static org.jsoup.internal.Normalizer.lowerCase;
 import static org.jsoup.internal.SharedConstants.AttrRangeKey;
@@ -53,11 +54,56 @@ public class Attributes implements Iterable<Attribute>, Cloneable {
     private static final int GrowthFactor = 2;
     static final int NotFound = -1;
 
-    // the number of instance fields is kept as low as possible giving an object size of 24 bytes
+    /*
+     Common attribute keys, so that keys added by the parser (via add()) share these instances across documents, rather
+     than holding a copy each. As String#equals tests identity first, a lookup by a literal key (e.g. attr("href")) then
+     matches without comparing the chars.
+     */
+    private static final Map<String, String> CommonKeys = new HashMap<>();
+    static {
+        String[] keys = {"id", "class", "style", "title", "lang", "dir", "hidden", "tabindex", "role", "href", "src",
+            "srcset", "sizes", "alt", "width", "height", "loading", "decoding", "rel", "type", "name", "value",
+            "content", "charset", "http-equiv", "property", "itemprop", "itemscope", "itemtype", "target", "action",
+            "method", "enctype", "for", "form", "label", "placeholder", "autocomplete", "disabled", "checked",
+            "selected", "readonly", "required", "multiple", "maxlength", "min", "max", "step", "pattern", "colspan",
+            "rowspan", "headers", "scope", "align", "valign", "border", "cellpadding", "cellspacing", "bgcolor",
+            "color", "face", "size", "media", "async", "defer", "crossorigin", "integrity", "nonce", "referrerpolicy",
+            "download", "datetime", "cite", "poster", "controls", "autoplay", "loop", "muted", "preload", "sandbox",
+            "allow", "allowfullscreen", "frameborder", "onclick", "onload", "aria-label", "aria-hidden",
+            "aria-expanded", "aria-controls", "aria-describedby", "aria-labelledby", "xmlns", "xmlns:xlink",
+            "xlink:href", "viewbox", "viewBox", "d", "fill", "stroke", "x", "y", "transform", "version", "encoding"};
+        for (String key : keys)
+            CommonKeys.put(key, key);
+    }
+
+    /** Returns the shared instance of the key, if it is a common key; or else the key. */
+    static String internKey(String key) {
+        String common = CommonKeys.get(key);
+        return common != null ? common : key;
+    }
+
+    // the number of instance fields is kept as low as possible giving an object size of 32 bytes
+    @Nullable Node owner; // the node these attributes are set on, if any; to invalidate its index and caches on change
     int size = 0; // number of slots used (not total capacity, which is keys.length). Package visible for actual size (incl internal)
     @Nullable String[] keys = new String[InitialCapacity]; // keys is not null, but contents may be. Same for vals
     @Nullable Object[] vals = new Object[InitialCapacity]; // Genericish: all non-internal attribute values must be Strings and are cast on access.
-    // todo - make keys iterable without creating Attribute objects
+
+    /**
+     Trims the backing arrays to the exact size, and shares the short String values, for {@link Element#compact()}.
+     @return true if this set is empty (with no internal attributes either), and so may be released
+     */
+    boolean compact(Map<String, String> strings) {
+        if (size == 0) return true;
+        if (keys.length != size) {
+            keys = Arrays.copyOf(keys, size);
+            vals = Arrays.copyOf(vals, size);
+        }
+        for (int i = 0; i < size; i++) {
+            if (vals[i] instanceof String)
+                vals[i] = Element.shareValue(strings, (String) vals[i]);
+        }
+        return false;
+    }
 
     // check there's room for more
     private void checkCapacity(int minNewSize) {
@@ -136,7 +182,7 @@ public class Attributes implements Iterable<Attribute>, Cloneable {
      * @see Attributes#put(String, String)
      */
     public Attributes add(String key, @Nullable String value) {
-        addObject(key, value);
+        addObject(internKey(key), value);
         return this;
     }
 
@@ -160,6 +206,7 @@ public class Attributes implements Iterable<Attribute>, Cloneable {
             vals[i] = value;
         else
             addObject(key, value);
+        changed(key);
         return this;
     }
 
@@ -233,6 +280,15 @@ public class Attributes implements Iterable<Attribute>, Cloneable {
         }
         else
             addObject(key, value);
+        changed(key);
+    }
+
+    /**
+     Called when the attribute with the given key has been modified, to invalidate the index and caches of the owner.
+     */
+    void changed(@Nullable String key) {
+        if (owner == null) return;
+        ChangeTracker.attributeChanged(owner, key);
     }
 
     /**
@@ -265,6 +321,7 @@ public class Attributes implements Iterable<Attribute>, Cloneable {
     @SuppressWarnings("AssignmentToNull")
     private void remove(int index) {
         Validate.isFalse(index >= size);
+        changed(keys[index]);
         int shifted = size - index - 1;
         if (shifted > 0) {
             System.arraycopy(keys, index + 1, keys, index, shifted);
@@ -369,10 +426,12 @@ public class Attributes implements Iterable<Attribute>, Cloneable {
         boolean needsPut = size != 0; // if this set is empty, no need to check existing set, so can add() vs put()
         // (and save bashing on the indexOfKey()
         for (Attribute attr : incoming) {
-            if (needsPut)
+            if (needsPut) {
                 put(attr);
-            else
+            } else {
                 addObject(attr.getKey(), attr.getValue());
+                changed(attr.getKey()); // put() tracks this, but add doesn't
+            }
         }
     }
 
@@ -468,6 +527,26 @@ public class Attributes implements Iterable<Attribute>, Cloneable {
         };
     }
 
+    /**
+     Performs the action for each attribute key and value, in order. Unlike iterating via {@link #iterator()}, no
+     {@link Attribute} objects are created. Boolean attributes (with no value) are given an empty string value.
+     <p>The attributes must not be added to or removed from by the action.</p>
+     @param action the action to perform on each key and value
+     @throws ConcurrentModificationException if the attributes are added to or removed from during iteration
+     @since 1.22.1
+     */
+    public void forEachKeyValue(BiConsumer<String, String> action) {
+        Validate.notNull(action);
+        final int expectedSize = size;
+        for (int i = 0; i < size; i++) {
+            String key = keys[i];
+            assert key != null;
+            if (isInternalKey(key)) continue;
+            action.accept(key, checkNotNull(vals[i]));
+            if (size != expectedSize) throw new ConcurrentModificationException("Attributes modified in forEachKeyValue");
+        }
+    }
+
     /**
      Get the attributes as a List, for iteration.
      @return a view of the attributes as an unmodifiable List.
@@ -565,6 +644,7 @@ public class Attributes implements Iterable<Attribute>, Cloneable {
         } catch (CloneNotSupportedException e) {
             throw new RuntimeException(e);
         }
+        clone.owner = null; // set when attached
         clone.size = size;
         clone.keys = Arrays.copyOf(keys, size);
         clone.vals = Arrays.copyOf(vals, size);
@@ -587,8 +667,10 @@ public class Attributes implements Iterable<Attribute>, Cloneable {
             assert keys[i] != null;
             String key = keys[i];
             assert key != null;
-            if (!isInternalKey(key))
-                keys[i] = lowerCase(key);
+            if (!isInternalKey(key)) {
+                String lower = lowerCase(key);
+                if (!lower.equals(key)) keys[i] = internKey(lower);
+            }
         }
     }
 
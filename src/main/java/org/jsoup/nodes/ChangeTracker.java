@@ -0,0 +1,105 @@
+package org.jsoup.nodes;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ Tracks the changes to a tree that has an {@link ElementIndex} or an {@link HtmlCache}, so that a change can find them
+ in O(1), without walking to the root or the owner document.
+ <p>A tracker is shared by the child lists of the elements in the tracked tree. A childless element (which uses the
+ shared empty list) is tracked by its parent's list. A new child list takes the tracker of its parent, and nodes inserted
+ into a tracked element are given its tracker. An untracked tree, such as a document being parsed, has no tracker, and
+ so a change to it returns after a field read.</p>
+ <p>A tracker holds no reference to its tree, so a node removed from a tracked tree can keep it: a later change to the
+ node only costs a spurious invalidation of the tree it was removed from.</p>
+ */
+final class ChangeTracker {
+    int modCount; // incremented on each change that may affect the element index
+    boolean htmlCached; // set once an element in the tree has had its HtmlCache enabled
+
+    /**
+     Get the tracker of the node: of its child list, or for a leaf or a childless element, of its parent's.
+     @return the tracker, or null if the node is not tracked
+     */
+    static @Nullable ChangeTracker of(Node node) {
+        Element el = node instanceof Element ? (Element) node : node.parentNode;
+        if (el == null) return null;
+        if (el.hasChildNodes()) return el.childNodes.tracker;
+        Element parent = el.parentNode;
+        return parent != null ? parent.childNodes.tracker : null;
+    }
+
+    /**
+     Track the element and its descendants, with the element's current tracker if it has one, or else a new one. The
+     element is given its own child list, so that it stays tracked if it is later removed from its parent.
+     @return the tracker
+     */
+    static ChangeTracker track(Element el) {
+        el.ensureChildNodes(); // takes the parent's tracker, if any
+        ChangeTracker tracker = el.childNodes.tracker;
+        if (tracker == null) {
+            tracker = new ChangeTracker();
+            assign(el, tracker);
+        }
+        return tracker;
+    }
+
+    /**
+     Called when the node has been inserted into a parent, to give it and its descendants the parent's tracker, if any.
+     A tracked node inserted into an untracked parent keeps its tracker.
+     */
+    static void inserted(Node node) {
+        if (!(node instanceof Element) || node.parentNode == null) return;
+        Element el = (Element) node;
+        if (!el.hasChildNodes()) return; // tracked by the parent
+        ChangeTracker tracker = of(node.parentNode);
+        if (tracker != null && el.childNodes.tracker != tracker)
+            assign(el, tracker);
+    }
+
+    /** Set the tracker of the element and its descendants, keeping the state of any trackers they had. */
+    private static void assign(Element root, ChangeTracker tracker) {
+        root.stream().forEach(el -> {
+            if (!el.hasChildNodes()) return;
+            ChangeTracker previous = el.childNodes.tracker;
+            if (previous != null && previous.htmlCached)
+                tracker.htmlCached = true;
+            el.childNodes.tracker = tracker;
+        });
+    }
+
+    /**
+     Called when the children or the tag of a node have been modified, to invalidate the element index and the HTML
+     caches of its tree, if tracked.
+     */
+    static void nodesChanged(Node node) {
+        ChangeTracker tracker = of(node);
+        if (tracker == null) return;
+        tracker.modCount++;
+        if (tracker.htmlCached)
+            HtmlCache.invalidate(node);
+    }
+
+    /**
+     Called when the value of a leaf node has been modified, to invalidate the HTML caches of its tree, if tracked. The
+     element index does not depend on values.
+     */
+    static void valueChanged(Node node) {
+        ChangeTracker tracker = of(node);
+        if (tracker != null && tracker.htmlCached)
+            HtmlCache.invalidate(node);
+    }
+
+    /**
+     Called when an attribute of the node has been modified, to invalidate the element index if the attribute is
+     indexed, and the HTML caches, of its tree, if tracked.
+     */
+    static void attributeChanged(Node owner, @Nullable String key) {
+        if (key == null) return;
+        ChangeTracker tracker = of(owner);
+        if (tracker == null) return;
+        if (key.equalsIgnoreCase("id") || key.equalsIgnoreCase("class"))
+            tracker.modCount++;
+        if (tracker.htmlCached && !Attributes.isInternalKey(key))
+            HtmlCache.invalidate(owner);
+    }
+}
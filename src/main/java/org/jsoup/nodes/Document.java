@@ -4,10 +4,14 @@ import org.jsoup.Connection;
 import org.jsoup.Jsoup;
 import org.jsoup.helper.DataUtil;
 import org.jsoup.helper.Validate;
+import org.jsoup.internal.QuietAppendable;
+import org.jsoup.internal.SharedConstants;
 import org.jsoup.internal.StringUtil;
+import org.jsoup.parser.LineIndex;
 import org.jsoup.parser.ParseSettings;
 import org.jsoup.parser.Parser;
 import org.jsoup.parser.Tag;
+import org.jsoup.select.Collector;
 import org.jsoup.select.Elements;
 import org.jsoup.select.Evaluator;
 import org.jsoup.select.Selector;
@@ -16,6 +20,7 @@ import org.jspecify.annotations.Nullable;
 import java.nio.charset.Charset;
 import java.util.List;
 
+import static org.jsoup.internal.Normalizer.normalize;
 import static org.jsoup.parser.Parser.NamespaceHtml;
 
 /**
@@ -28,6 +33,7 @@ public class Document extends Element {
     private Parser parser; // the parser used to parse this document
     private QuirksMode quirksMode = QuirksMode.noQuirks;
     private final String location;
+    @Nullable ElementIndex index; // set if indexed
 
     /**
      Create a new, empty Document, in the specified namespace.
@@ -231,6 +237,11 @@ public class Document extends Element {
         return super.html(); // no outer wrapper tag
     }
 
+    @Override
+    protected void outerHtml(QuietAppendable accum) {
+        html(accum); // no outer wrapper tag
+    }
+
     /**
      Set the text of the {@code body} of this document. Any existing nodes within the body will be cleared.
      @param text un-encoded text
@@ -280,11 +291,102 @@ public class Document extends Element {
         return outputSettings.charset();
     }
 
+    /**
+     Enable or disable the element index of this Document. When enabled, an index of elements by id, tag name, and
+     class name is built lazily on first use, and used by {@link #getElementById(String)},
+     {@link #getElementsById(String)}, {@link #getElementsByTag(String)}, {@link #getElementsByClass(String)}, and by
+     selector queries. A query is seeded from the most selective indexed term it requires (e.g. the {@code .product} in
+     {@code div.product > a[href]}, or the {@code #nav} in {@code #nav a}), so only those elements or subtrees are
+     tested, vs a walk of the whole document. The index is discarded on any change to the document's structure, to an
+     element's tag, or to an {@code id} or {@code class} attribute, and rebuilt on the next lookup.
+     <p>This is most effective for documents that are queried repeatedly and modified rarely. Modifications to other
+     documents do not affect this index. A {@link #clone()} of an indexed document is not itself indexed.</p>
+     <p>An {@code id} or {@code class} attribute added with the low-level {@link Attributes#add(String, String)} (as
+     used by the parser) does not invalidate the index; use {@link Element#attr(String, String)} or
+     {@link Attributes#put(String, String)} to modify an indexed document.</p>
+
+     @param indexed true to enable the index, false to disable and discard it
+     @return this document, for chaining
+     @see #isIndexed()
+     @since 1.22.1
+     */
+    public Document indexed(boolean indexed) {
+        if (indexed && index == null) {
+            ChangeTracker.track(this);
+            index = new ElementIndex();
+        } else if (!indexed) {
+            index = null;
+        }
+        return this;
+    }
+
+    /**
+     Check if this Document has its element index enabled.
+     @return true if indexed
+     @see #indexed(boolean)
+     @since 1.22.1
+     */
+    public boolean isIndexed() {
+        return index != null;
+    }
+
+    /**
+     Find all elements in this Document with the given id, in document order. Normally an id is unique within a
+     document, but input HTML may contain duplicates. If the document is {@link #indexed(boolean) indexed}, the index is
+     used.
+
+     @param id the id to search for
+     @return the matching elements, empty if none
+     @since 1.22.1
+     */
+    public Elements getElementsById(String id) {
+        Validate.notEmpty(id);
+        if (index != null)
+            return new Elements(index.byId(this, id));
+        return Collector.collect(new Evaluator.Id(id), this);
+    }
+
+    /**
+     Finds elements, including and recursively under this Document, with the specified tag name. If the document is
+     {@link #indexed(boolean) indexed}, the index is used.
+
+     @param tagName The tag name to search for (case insensitively).
+     @return a matching unmodifiable list of elements. Will be empty if this element and none of its children match.
+     */
+    @Override
+    public Elements getElementsByTag(String tagName) {
+        Validate.notEmpty(tagName);
+        if (index != null)
+            return new Elements(index.byTag(this, normalize(tagName)));
+        return super.getElementsByTag(tagName);
+    }
+
+    /**
+     Find elements that have this class, including or under this Document. Case-insensitive. If the document is
+     {@link #indexed(boolean) indexed}, the index is used.
+
+     @param className the name of the class to search for.
+     @return elements with the supplied class name, empty if none
+     @see #hasClass(String)
+     @see #classNames()
+     */
+    @Override
+    public Elements getElementsByClass(String className) {
+        Validate.notEmpty(className);
+        if (index != null)
+            return new Elements(index.byClass(this, className));
+        return super.getElementsByClass(className);
+    }
+
     @Override
     public Document clone() {
         Document clone = (Document) super.clone();
-        if (attributes != null) clone.attributes = attributes.clone();
+        if (attributes != null) {
+            clone.attributes = attributes.clone();
+            clone.attributes.owner = clone;
+        }
         clone.outputSettings = this.outputSettings.clone();
+        clone.index = null; // not indexed until enabled on the clone
         // parser is pointer copy
         return clone;
     }
@@ -292,7 +394,10 @@ public class Document extends Element {
     @Override
     public Document shallowClone() {
         Document clone = new Document(this.tag().namespace(), baseUri(), parser); // preserves parser pointer
-        if (attributes != null) clone.attributes = attributes.clone();
+        if (attributes != null) {
+            clone.attributes = attributes.clone();
+            clone.attributes.owner = clone;
+        }
         clone.outputSettings = this.outputSettings.clone();
         return clone;
     }
@@ -338,11 +443,13 @@ public class Document extends Element {
         public enum Syntax {html, xml}
         private Entities.EscapeMode escapeMode = Entities.EscapeMode.base;
         private Charset charset = DataUtil.UTF_8;
+        Entities.CoreCharset coreCharset = Entities.CoreCharset.utf; // fast encoders for charset
         private boolean prettyPrint = true;
         private boolean outline = false;
         private int indentAmount = 1;
         private int maxPaddingWidth = 30;
         private Syntax syntax = Syntax.html;
+        int version = 0; // incremented on each change, to invalidate HtmlCaches
 
         /**
          Create a new OutputSettings object, with the default settings (UTF-8, HTML, EscapeMode.base, pretty-printing,
@@ -375,6 +482,7 @@ public class Document extends Element {
          */
         public OutputSettings escapeMode(Entities.EscapeMode escapeMode) {
             this.escapeMode = escapeMode;
+            version++;
             return this;
         }
 
@@ -397,6 +505,8 @@ public class Document extends Element {
          */
         public OutputSettings charset(Charset charset) {
             this.charset = charset;
+            coreCharset = Entities.CoreCharset.byName(charset.name());
+            version++;
             return this;
         }
 
@@ -428,6 +538,7 @@ public class Document extends Element {
          */
         public OutputSettings syntax(Syntax syntax) {
             this.syntax = syntax;
+            version++;
             if (syntax == Syntax.xml)
                 this.escapeMode(Entities.EscapeMode.xhtml);
             return this;
@@ -449,6 +560,7 @@ public class Document extends Element {
          */
         public OutputSettings prettyPrint(boolean pretty) {
             prettyPrint = pretty;
+            version++;
             return this;
         }
         
@@ -468,6 +580,7 @@ public class Document extends Element {
          */
         public OutputSettings outline(boolean outlineMode) {
             outline = outlineMode;
+            version++;
             return this;
         }
 
@@ -487,6 +600,7 @@ public class Document extends Element {
         public OutputSettings indentAmount(int indentAmount) {
             Validate.isTrue(indentAmount >= 0);
             this.indentAmount = indentAmount;
+            version++;
             return this;
         }
 
@@ -508,6 +622,7 @@ public class Document extends Element {
         public OutputSettings maxPaddingWidth(int maxPaddingWidth) {
             Validate.isTrue(maxPaddingWidth >= -1);
             this.maxPaddingWidth = maxPaddingWidth;
+            version++;
             return this;
         }
 
@@ -558,6 +673,19 @@ public class Document extends Element {
         return this;
     }
 
+    /**
+     Get the index of the lines of this document's source, to find the line and column number of any position in it.
+     The index is kept when the document is parsed with {@link Parser#setTrackPosition(boolean) position tracking}
+     enabled.
+     @return the line index; or null if the document was not parsed with position tracking
+     @see Node#sourceRange()
+     @since 1.22.1
+     */
+    public @Nullable LineIndex lineIndex() {
+        if (!hasAttributes()) return null;
+        return (LineIndex) attributes().userData(SharedConstants.LinesKey);
+    }
+
     /**
      * Get the parser that was used to parse this document.
      * @return the parser
@@ -16,6 +16,7 @@ import org.jsoup.select.NodeFilter;
 import org.jsoup.select.NodeVisitor;
 import org.jsoup.select.Nodes;
 import org.jsoup.select.Selector;
+import org.jsoup.select.XpathQuery;
 import org.jspecify.annotations.Nullable;
 
 import java.lang.ref.WeakReference;
@@ -23,11 +24,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.regex.Pattern;
@@ -87,6 +90,7 @@ public class Element extends Node implements Iterable<Element> {
         Validate.notNull(tag);
         childNodes = EmptyNodeList;
         this.attributes = attributes;
+        if (attributes != null) attributes.owner = this;
         this.tag = tag;
         if (!StringUtil.isBlank(baseUri)) this.setBaseUri(baseUri);
     }
@@ -112,6 +116,7 @@ public class Element extends Node implements Iterable<Element> {
     @Override protected List<Node> ensureChildNodes() {
         if (childNodes == EmptyNodeList) {
             childNodes = new NodeList(4);
+            if (parentNode != null) childNodes.tracker = ChangeTracker.of(parentNode); // stays tracked
         }
         return childNodes;
     }
@@ -123,8 +128,10 @@ public class Element extends Node implements Iterable<Element> {
 
     @Override
     public Attributes attributes() {
-        if (attributes == null) // not using hasAttributes, as doesn't clear warning
+        if (attributes == null) { // not using hasAttributes, as doesn't clear warning
             attributes = new Attributes();
+            attributes.owner = this;
+        }
         return attributes;
     }
 
@@ -218,6 +225,7 @@ public class Element extends Node implements Iterable<Element> {
         Validate.notEmptyParam(namespace, "namespace");
         Parser parser = NodeUtils.parser(this);
         tag = parser.tagSet().valueOf(tagName, namespace, parser.settings()); // maintains the case option of the original parse
+        ChangeTracker.nodesChanged(this);
         return this;
     }
 
@@ -239,6 +247,7 @@ public class Element extends Node implements Iterable<Element> {
     public Element tag(Tag tag) {
         Validate.notNull(tag);
         this.tag = tag;
+        ChangeTracker.nodesChanged(this);
         return this;
     }
 
@@ -541,6 +550,9 @@ public class Element extends Node implements Iterable<Element> {
      are fetched from the root as the stream is traversed. You can use standard {@code Stream} operations such as
      {@code filter}, {@code map}, or {@code findFirst} to process elements on demand.
      </p>
+     <p>The query's evaluator is cached and reused, and holds state for the evaluation until the stream is fully
+     consumed or closed. If the stream may not be fully consumed (e.g. with {@code findFirst}), close it (e.g. with
+     try-with-resources), so that the evaluator doesn't retain this document.</p>
 
      @param cssQuery a {@link Selector} CSS-like query
      @return a {@link Stream} containing elements that match the query (empty if none match)
@@ -555,6 +567,8 @@ public class Element extends Node implements Iterable<Element> {
 
     /**
      Find a Stream of elements that match the supplied Evaluator.
+     <p>The evaluator holds state for the evaluation until the stream is fully consumed or closed; so close a stream
+     that may not be fully consumed if the evaluator is reused.</p>
 
      @param evaluator an element Evaluator
      @return a {@link Stream} containing elements that match the query (empty if none match)
@@ -769,6 +783,8 @@ public class Element extends Node implements Iterable<Element> {
      Find Elements that match the supplied {@index XPath} expression.
      <p>Note that for convenience of writing the Xpath expression, namespaces are disabled, and queries can be
      expressed using the element's local name only.</p>
+     <p>Queries are evaluated directly over the jsoup nodes by an {@link XpathQuery}; to run the same query many times,
+     compile it once with {@link XpathQuery#compile(String)}.</p>
      <p>By default, XPath 1.0 expressions are supported. If you would to use XPath 2.0 or higher, you can provide an
      alternate XPathFactory implementation:</p>
      <ol>
@@ -781,6 +797,7 @@ public class Element extends Node implements Iterable<Element> {
      @param xpath XPath expression
      @return matching elements, or an empty list if none match.
      @see #selectXpath(String, Class)
+     @see XpathQuery
      @since 1.14.3
      */
     public Elements selectXpath(String xpath) {
@@ -820,6 +837,7 @@ public class Element extends Node implements Iterable<Element> {
         ensureChildNodes();
         childNodes.add(child);
         child.setSiblingIndex(childNodes.size() - 1);
+        ChangeTracker.nodesChanged(this);
         return this;
     }
 
@@ -1070,6 +1088,7 @@ public class Element extends Node implements Iterable<Element> {
         for (int i = 0; i < size; i++)
             childNodes.get(i).parentNode = null;
         childNodes.clear();
+        ChangeTracker.nodesChanged(this);
         return this;
     }
 
@@ -1551,39 +1570,70 @@ public class Element extends Node implements Iterable<Element> {
      */
     public String text() {
         final StringBuilder accum = StringUtil.borrowBuilder();
-        new TextAccumulator(accum).traverse(this);
-        return StringUtil.releaseBuilder(accum).trim();
+        text(accum);
+        return StringUtil.releaseBuilder(accum);
+    }
+
+    /**
+     Appends the <b>normalized, combined text</b> of this element and all its children to the supplied Appendable, as
+     in {@link #text()}. As the text is written directly, this avoids creating an intermediate String of the whole text.
+     @param accum the Appendable to write to
+     @return the supplied Appendable, for chaining
+     @throws org.jsoup.SerializationException if the Appendable throws an IOException
+     @see #text(Appendable, int)
+     @since 1.22.1
+     */
+    public <T extends Appendable> T text(T accum) {
+        return text(accum, Integer.MAX_VALUE);
+    }
+
+    /**
+     Appends the <b>normalized, combined text</b> of this element and all its children to the supplied Appendable, as
+     in {@link #text()}; writing at most {@code maxLength} chars. Once the limit is reached, the rest of the element is
+     not visited. E.g. to fill a {@link java.nio.CharBuffer}, pass its {@code remaining()} capacity.
+     @param accum the Appendable to write to
+     @param maxLength the maximum number of chars to write. A surrogate pair is not split.
+     @return the supplied Appendable, for chaining
+     @throws org.jsoup.SerializationException if the Appendable throws an IOException
+     @since 1.22.1
+     */
+    public <T extends Appendable> T text(T accum, int maxLength) {
+        Validate.notNullParam(accum, "accum");
+        Validate.isTrue(maxLength >= 0, "maxLength must not be negative");
+        new TextAccumulator(new TextWriter(accum, true, maxLength)).traverse(this);
+        return accum;
     }
 
-    private static class TextAccumulator implements NodeVisitor {
-        private final StringBuilder accum;
+    private static class TextAccumulator implements NodeFilter {
+        private final TextWriter accum;
 
-        public TextAccumulator(StringBuilder accum) {
+        public TextAccumulator(TextWriter accum) {
             this.accum = accum;
         }
 
-        @Override public void head(Node node, int depth) {
+        @Override public FilterResult head(Node node, int depth) {
             if (node instanceof TextNode) {
                 TextNode textNode = (TextNode) node;
                 appendNormalisedText(accum, textNode);
             } else if (node instanceof Element) {
                 Element element = (Element) node;
-                if (accum.length() > 0 &&
+                if (!accum.isEmpty() &&
                     (element.isBlock() || element.nameIs("br")) &&
-                    !lastCharIsWhitespace(accum))
+                    !accum.lastIsSpace())
                     accum.append(' ');
             }
+            return accum.isFull() ? FilterResult.STOP : FilterResult.CONTINUE;
         }
 
-        @Override public void tail(Node node, int depth) {
+        @Override public FilterResult tail(Node node, int depth) {
             // make sure there is a space between block tags and immediately following text nodes or inline elements <div>One</div>Two should be "One Two".
             if (node instanceof Element) {
                 Element element = (Element) node;
                 Node next = node.nextSibling();
-                if (!element.tag.isInline() && (next instanceof TextNode || next instanceof Element && ((Element) next).tag.isInline()) && !lastCharIsWhitespace(accum))
+                if (!element.tag.isInline() && (next instanceof TextNode || next instanceof Element && ((Element) next).tag.isInline()) && !accum.lastIsSpace())
                     accum.append(' ');
             }
-
+            return accum.isFull() ? FilterResult.STOP : FilterResult.CONTINUE;
         }
     }
 
@@ -1598,6 +1648,42 @@ public class Element extends Node implements Iterable<Element> {
         return wholeTextOf(nodeStream());
     }
 
+    /**
+     Appends the non-normalized, decoded text of this element and its children to the supplied Appendable, as in
+     {@link #wholeText()}. As the text is written directly, this avoids creating an intermediate String of the whole
+     text.
+     @param accum the Appendable to write to
+     @return the supplied Appendable, for chaining
+     @throws org.jsoup.SerializationException if the Appendable throws an IOException
+     @see #wholeText(Appendable, int)
+     @since 1.22.1
+     */
+    public <T extends Appendable> T wholeText(T accum) {
+        return wholeText(accum, Integer.MAX_VALUE);
+    }
+
+    /**
+     Appends the non-normalized, decoded text of this element and its children to the supplied Appendable, as in
+     {@link #wholeText()}; writing at most {@code maxLength} chars. Once the limit is reached, the rest of the element
+     is not visited.
+     @param accum the Appendable to write to
+     @param maxLength the maximum number of chars to write. A surrogate pair is not split.
+     @return the supplied Appendable, for chaining
+     @throws org.jsoup.SerializationException if the Appendable throws an IOException
+     @since 1.22.1
+     */
+    public <T extends Appendable> T wholeText(T accum, int maxLength) {
+        Validate.notNullParam(accum, "accum");
+        Validate.isTrue(maxLength >= 0, "maxLength must not be negative");
+        TextWriter writer = new TextWriter(accum, false, maxLength);
+        filter((node, depth) -> {
+            if (node instanceof TextNode) writer.append(((TextNode) node).getWholeText());
+            else if (node.nameIs("br")) writer.append('\n');
+            return writer.isFull() ? NodeFilter.FilterResult.STOP : NodeFilter.FilterResult.CONTINUE;
+        });
+        return accum;
+    }
+
     /**
      An Element's nodeValue is its whole own text.
      */
@@ -1664,6 +1750,14 @@ public class Element extends Node implements Iterable<Element> {
             StringUtil.appendNormalisedWhitespace(accum, text, lastCharIsWhitespace(accum));
     }
 
+    private static void appendNormalisedText(TextWriter accum, TextNode textNode) {
+        String text = textNode.getWholeText();
+        if (preserveWhitespace(textNode.parentNode) || textNode instanceof CDataNode)
+            accum.append(text);
+        else
+            accum.appendNormalised(text);
+    }
+
     static boolean preserveWhitespace(@Nullable Node node) {
         // looks only at this element and five levels up, to prevent recursion & needless stack searches
         if (node instanceof Element) {
@@ -1960,23 +2054,165 @@ public class Element extends Node implements Iterable<Element> {
      * @see #outerHtml()
      */
     public String html() {
-        StringBuilder sb = StringUtil.borrowBuilder();
-        html(sb);
-        String html = StringUtil.releaseBuilder(sb);
+        String html;
+        HtmlCache cache = HtmlCache.get(this);
+        if (cache != null) {
+            html = cache.html(this, false);
+        } else {
+            StringBuilder sb = StringUtil.borrowBuilder();
+            printChildren(QuietAppendable.wrap(sb));
+            html = StringUtil.releaseBuilder(sb);
+        }
         return NodeUtils.outputSettings(this).prettyPrint() ? html.trim() : html;
     }
 
     @Override
     public <T extends Appendable> T html(T accum) {
+        html(QuietAppendable.wrap(accum));
+        return accum;
+    }
+
+    /**
+     Write this element's inner HTML to the given Appendable, printing independent subtrees concurrently on the given
+     executor. The output is exactly the same as {@link #html(Appendable)}, including when pretty-printing.
+     <p>The tree is split at the first element (descending from this one) that has enough children to share out, and
+     those children are printed in batches, each into its own buffer, by tasks on the executor. The rest of the tree is
+     printed on the calling thread, which appends the batches in order as they complete. This is useful for large
+     documents (such as big XML exports), where serialization would otherwise be limited to a single core.</p>
+     <p>The document must not be modified until this method returns. If this element has its {@link #cacheHtml(boolean)
+     HTML cache} enabled, the cache is used instead.</p>
+
+     @param accum the Appendable to write to
+     @param executor the executor to print the batches on; e.g. {@link java.util.concurrent.ForkJoinPool#commonPool()}
+     @param <T> the Appendable type
+     @return the supplied Appendable, for chaining
+     @throws org.jsoup.SerializationException if the appendable throws an IOException, or the print is interrupted
+     @since 1.22.1
+     */
+    public <T extends Appendable> T html(T accum, Executor executor) {
+        Validate.notNullParam(accum, "accum");
+        Validate.notNullParam(executor, "executor");
+        QuietAppendable quiet = QuietAppendable.wrap(accum);
+        HtmlCache cache = HtmlCache.get(this);
+        if (cache != null)
+            quiet.append(cache.html(this, false));
+        else
+            ParallelPrinter.print(this, quiet, executor);
+        return accum;
+    }
+
+    void html(QuietAppendable accum) {
+        HtmlCache cache = HtmlCache.get(this);
+        if (cache != null)
+            accum.append(cache.html(this, false));
+        else
+            printChildren(accum);
+    }
+
+    /** Prints the inner HTML, without using this element's cache. */
+    void printChildren(QuietAppendable accum) {
         Node child = firstChild();
         if (child != null) {
-            Printer printer = Printer.printerFor(child, QuietAppendable.wrap(accum));
+            Printer printer = Printer.printerFor(child, accum);
             while (child != null) {
                 printer.traverse(child);
                 child = child.nextSibling();
             }
         }
-        return accum;
+    }
+
+    @Override
+    public String outerHtml() {
+        HtmlCache cache = HtmlCache.get(this);
+        return cache != null ? cache.html(this, true) : super.outerHtml();
+    }
+
+    @Override
+    protected void outerHtml(QuietAppendable accum) {
+        HtmlCache cache = HtmlCache.get(this);
+        if (cache != null)
+            accum.append(cache.html(this, true));
+        else
+            super.outerHtml(accum);
+    }
+
+    /**
+     Enable or disable the serialization cache of this element. When enabled, the output of {@link #outerHtml()} and
+     {@link #html()} (and their Appendable variants) is cached, and reused by later calls until this element or any of
+     its descendants is modified. This suits templates and other fragments that are serialized many times, but rarely
+     change.
+     <p>Cached entries are keyed on the document's {@link Document.OutputSettings}, so changing the settings (or moving
+     the element to another document) rebuilds the cache. When pretty-printing is disabled, a cached element is also
+     copied from its cache when an ancestor is serialized. The cache is best suited to subtrees that are read far more
+     often than they are modified.</p>
+     <p>Once an element in a document has its cache enabled, modifications to that document incur a small cost to
+     invalidate the caches of the modified node and its ancestors. Modifications to other documents do not. The cache
+     is not copied to a clone of this element.</p>
+
+     @param cache true to enable the cache, false to disable and discard it
+     @return this element, for chaining
+     @see #isHtmlCached()
+     @since 1.22.1
+     */
+    public Element cacheHtml(boolean cache) {
+        HtmlCache current = HtmlCache.get(this);
+        if (cache && current == null) {
+            attributes().userData(HtmlCache.Key, new HtmlCache());
+            ChangeTracker.track((Element) root()).htmlCached = true; // tracked from the root, so its printer finds the cache
+            ChangeTracker.track(this); // and stays tracked if removed
+        } else if (!cache && current != null) {
+            attributes().userData(HtmlCache.Key, null);
+        }
+        return this;
+    }
+
+    /**
+     Check if this element has its serialization cache enabled.
+     @return true if cached
+     @see #cacheHtml(boolean)
+     @since 1.22.1
+     */
+    public boolean isHtmlCached() {
+        return HtmlCache.get(this) != null;
+    }
+
+    /**
+     Reduces the memory held by this element and its descendants, for a DOM that will be mostly read rather than
+     modified. Each child list and attribute array is trimmed to its exact size; an empty attribute set is released (and
+     will be recreated if an attribute is added); and text and attribute values up to {@value #CompactShareLength} chars
+     are shared between nodes that have equal values.
+     <p>The element can still be modified after, with the trimmed lists growing again as needed.</p>
+
+     @return this element, for chaining
+     @see Parser#setCompact(boolean)
+     @since 1.22.1
+     */
+    public Element compact() {
+        Map<String, String> strings = new HashMap<>();
+        return traverse((node, depth) -> node.compactNode(strings));
+    }
+
+    static final int CompactShareLength = 64; // longer values are unlikely to repeat, so aren't worth hashing
+
+    /** Get an equal shared instance of the value, if it's short enough to share. */
+    static String shareValue(Map<String, String> strings, String value) {
+        if (value.length() > CompactShareLength) return value;
+        String shared = strings.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+
+    @Override
+    void compactNode(Map<String, String> strings) {
+        if (childNodes != EmptyNodeList) {
+            if (childNodes.isEmpty() && childNodes.tracker == null) { // a tracked element keeps its list
+                childNodes = EmptyNodeList;
+            } else {
+                childNodes.trimToSize();
+                if (!childNodes.validChildren) reindexChildren();
+            }
+        }
+        if (attributes != null && attributes.compact(strings))
+            attributes = null;
     }
 
     /**
@@ -2011,8 +2247,11 @@ public class Element extends Node implements Iterable<Element> {
         clone.childNodes.addAll(childNodes); // the children then get iterated and cloned in Node.clone
         if (attributes != null) {
             clone.attributes = attributes.clone();
+            clone.attributes.owner = clone;
             // clear any cached children
             clone.attributes.userData(childElsKey, null);
+            if (clone.attributes.hasUserData())
+                clone.attributes.userData(HtmlCache.Key, null); // the cache is not copied; enable it on the clone if wanted
         }
 
         return clone;
@@ -2078,6 +2317,8 @@ public class Element extends Node implements Iterable<Element> {
     static final class NodeList extends ArrayList<Node> {
         /** Tracks if the children have valid sibling indices. We only need to reindex on siblingIndex() demand. */
         boolean validChildren = true;
+        /** The tracker of changes to this element's tree, if it has an index or HTML cache. Never set on the shared empty list. */
+        @Nullable ChangeTracker tracker;
 
         public NodeList(int size) {
             super(size);
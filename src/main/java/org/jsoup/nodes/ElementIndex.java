@@ -0,0 +1,120 @@
+package org.jsoup.nodes;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.jsoup.internal.Normalizer.foldCase;
+
+/**
+ An optional index of a Document's elements by id, tag name, and class name, enabled via
+ {@link Document#indexed(boolean)}. The index is built lazily on first use. It is discarded on any structural change to
+ the Document (children added, removed, or replaced; or an element renamed), or when an {@code id} or {@code class}
+ attribute is changed; and then rebuilt on the next lookup.
+ <p>Changes are counted by the Document's {@link ChangeTracker}, in O(1) each, and the index checks that count on
+ lookup. So only changes within the owning Document invalidate its index. Attributes added via the low-level
+ {@link Attributes#add(String, String)} (as used by the parser) do not invalidate the index.</p>
+ */
+final class ElementIndex {
+    // Null until built, or when invalidated. Volatile so that a lazy build in one reader thread is safely published to
+    // others.
+    private volatile @Nullable Maps maps;
+
+    /** The lookup maps, each to elements in document order. Built and published together. */
+    private static final class Maps {
+        final ChangeTracker tracker; // and its modCount, when built
+        final int modCount;
+        final Map<String, List<Element>> ids = new HashMap<>();
+        final Map<String, List<Element>> tags = new HashMap<>(); // by normal name
+        final Map<String, List<Element>> classes = new HashMap<>(); // by case-folded name
+
+        Maps(ChangeTracker tracker) {
+            this.tracker = tracker;
+            this.modCount = tracker.modCount;
+        }
+    }
+
+    /**
+     Get the elements in the document with the given id, in document order.
+     @return the elements (which must not be modified); empty if none.
+     */
+    List<Element> byId(Document doc, String id) {
+        return get(maps(doc).ids, id);
+    }
+
+    /**
+     Get the elements in the document with the given normal tag name, in document order.
+     @return the elements (which must not be modified); empty if none.
+     */
+    List<Element> byTag(Document doc, String normalName) {
+        return get(maps(doc).tags, normalName);
+    }
+
+    /**
+     Get the elements in the document with the given class name (case-insensitive), in document order.
+     @return the elements (which must not be modified); empty if none.
+     */
+    List<Element> byClass(Document doc, String className) {
+        return get(maps(doc).classes, foldCase(className));
+    }
+
+    private static List<Element> get(Map<String, List<Element>> map, String key) {
+        List<Element> els = map.get(key);
+        return els != null ? els : Collections.emptyList();
+    }
+
+    private Maps maps(Document doc) {
+        Maps current = maps;
+        ChangeTracker tracker = ChangeTracker.track(doc); // already tracked, since indexed
+        if (current == null || current.tracker != tracker || current.modCount != tracker.modCount) {
+            current = build(doc, tracker);
+            maps = current;
+        }
+        return current;
+    }
+
+    private static Maps build(Document doc, ChangeTracker tracker) {
+        Maps maps = new Maps(tracker);
+        doc.stream().forEach(el -> {
+            add(maps.tags, el.normalName(), el);
+            if (!el.hasAttributes()) return;
+            String id = el.id();
+            if (!id.isEmpty())
+                add(maps.ids, id, el);
+            indexClasses(maps.classes, el);
+        });
+        return maps;
+    }
+
+    private static void add(Map<String, List<Element>> map, String key, Element el) {
+        List<Element> els = map.get(key);
+        if (els == null) {
+            els = new ArrayList<>(1);
+            map.put(key, els);
+        }
+        els.add(el);
+    }
+
+    /** Splits the class attribute on whitespace, as in {@link Element#hasClass(String)}. */
+    private static void indexClasses(Map<String, List<Element>> map, Element el) {
+        String classAttr = el.attributes().getIgnoreCase("class");
+        int len = classAttr.length();
+        int start = -1;
+        for (int i = 0; i <= len; i++) {
+            boolean ws = i == len || Character.isWhitespace(classAttr.charAt(i));
+            if (ws && start != -1) {
+                String className = foldCase(classAttr.substring(start, i));
+                List<Element> els = map.get(className);
+                if (els == null || els.get(els.size() - 1) != el) // skip a class repeated on one element
+                    add(map, className, el);
+                start = -1;
+            } else if (!ws && start == -1) {
+                start = i;
+            }
+        }
+    }
+}
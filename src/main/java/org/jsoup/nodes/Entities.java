@@ -7,12 +7,11 @@ import org.jsoup.helper.Validate;
 import org.jsoup.nodes.Document.OutputSettings;
 import org.jsoup.parser.CharacterReader;
 import org.jsoup.parser.Parser;
+import org.jspecify.annotations.Nullable;
 
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 
 import static org.jsoup.nodes.Entities.EscapeMode.base;
@@ -36,9 +35,6 @@ public class Entities {
     private static final char[] codeDelims = {',', ';'};
     private static final HashMap<String, String> multipoints = new HashMap<>(); // name -> multiple character references
 
-    private static final int BaseCount = 106;
-    private static final ArrayList<String> baseSorted = new ArrayList<>(BaseCount); // names sorted longest first, for prefix matching
-
     public enum EscapeMode {
         /**
          * Restricted entities suitable for XHTML output: lt, gt, amp, and quot only.
@@ -53,10 +49,10 @@ public class Entities {
          */
         extended(EntitiesData.fullPoints, 2125);
 
+        // trie of the names, for matching in the input, and prefix matching
+        private static final EntityTrie Trie;
         static {
-            // sort the base names by length, for prefix matching
-            Collections.addAll(baseSorted, base.nameKeys);
-            baseSorted.sort((a, b) -> b.length() - a.length());
+            Trie = new EntityTrie(extended.nameKeys, extended.codeVals, multipoints, base.nameKeys);
         }
 
         // table of named references to their codepoints. sorted so we can binary search. built by BuildEntities.
@@ -149,11 +145,28 @@ public class Entities {
      @return longest entity name that is a prefix of the input, or "" if no entity matches
      */
     public static String findPrefix(String input) {
-        for (String name : baseSorted) {
-            if (input.startsWith(name)) return name;
-        }
-        return emptyName;
-        // if perf critical, could look at using a Trie vs a scan
+        int length = EscapeMode.Trie.basePrefix(input);
+        return length > 0 ? input.substring(0, length) : emptyName;
+    }
+
+    /**
+     Internal method; jsoup internal, so don't depend on it as there is no contract API. Matches a named character
+     reference at the start of the input (after the {@code &}), without creating a String for the name. Used by the
+     parser's tokeniser.
+     <p>The name is the run of ASCII letters and then digits from {@code start}. It matches in full if it is a base
+     named entity, or an extended one that is followed by {@code ;}. Otherwise, the longest base named entity that is a
+     prefix of the name matches (so {@code &notit;} matches {@code &not}). The run is scanned no further than one past
+     the longest entity name, as a longer name can't match in full.</p>
+
+     @param input the input characters
+     @param start the start of the name
+     @param end the end of the available input
+     @param match an array of three, that is set to the length of the name, and the first and second codepoints of the
+     match (or {@code -1} if the match has one codepoint)
+     @return the length of the match; or {@code 0} if none
+     */
+    public static int matchName(char[] input, int start, int end, int[] match) {
+        return EscapeMode.Trie.match(input, start, end, match);
     }
 
     /**
@@ -183,27 +196,44 @@ public class Entities {
     private static String escapeString(String data, EscapeMode escapeMode, Charset charset) {
         if (data == null) return "";
         StringBuilder sb = StringUtil.borrowBuilder();
-        doEscape(data, QuietAppendable.wrap(sb), escapeMode, charset, ForText | ForAttribute);
+        doEscape(data, QuietAppendable.wrap(sb), escapeMode, charset, CoreCharset.byName(charset.name()), ForText | ForAttribute);
         return StringUtil.releaseBuilder(sb);
     }
 
     static void escape(QuietAppendable accum, String data, OutputSettings out, int options) {
-        doEscape(data, accum, out.escapeMode(), out.charset(), options);
+        doEscape(data, accum, out.escapeMode(), out.charset(), out.coreCharset, options);
     }
 
-    private static void doEscape(String data, QuietAppendable accum, EscapeMode mode, Charset charset, int options) {
-        final CoreCharset coreCharset = CoreCharset.byName(charset.name());
-        final CharsetEncoder fallback = encoderFor(charset);
+    private static void doEscape(String data, QuietAppendable accum, EscapeMode mode, Charset charset,
+        CoreCharset coreCharset, int options) {
+        final CharsetEncoder fallback = coreCharset == CoreCharset.fallback ? encoderFor(charset) : null;
+        final boolean normalise = (options & Normalise) != 0;
         final int length = data.length();
 
-        int codePoint;
         boolean lastWasWhite = false;
         boolean reachedNonWhite = false;
         boolean skipped = false;
-        for (int offset = 0; offset < length; offset += Character.charCount(codePoint)) {
-            codePoint = data.codePointAt(offset);
+        int offset = 0;
+        while (offset < length) {
+            // a run of chars that don't need escaping is appended in bulk:
+            int runEnd = plainRunEnd(data, offset, length, coreCharset, normalise);
+            if (runEnd > offset) {
+                if (normalise) {
+                    lastWasWhite = false;
+                    reachedNonWhite = true;
+                    if (skipped) {
+                        accum.append(' '); // wasn't the end, so need to place a normalized space
+                        skipped = false;
+                    }
+                }
+                accum.append(data, offset, runEnd);
+                offset = runEnd;
+                continue;
+            }
 
-            if ((options & Normalise) != 0) {
+            int codePoint = data.codePointAt(offset);
+            offset += Character.charCount(codePoint);
+            if (normalise) {
                 if (StringUtil.isWhitespace(codePoint)) {
                     if ((options & TrimLeading) != 0 && !reachedNonWhite) continue;
                     if (lastWasWhite) continue;
@@ -227,8 +257,33 @@ public class Entities {
         }
     }
 
+    /**
+     Finds the end of the run of chars from start that are output as-is in any escape mode: printable ASCII other than
+     the escaped {@code &<>"'}, and (when the charset is UTF) other chars valid in XML, excluding nbsp. When normalising,
+     spaces end the run.
+     */
+    private static int plainRunEnd(String data, int start, int end, CoreCharset coreCharset, boolean normalise) {
+        int i = start;
+        for (; i < end; i++) {
+            char c = data.charAt(i);
+            if (c < 0x80) {
+                if (!PlainAscii[c] || (normalise && c == ' ')) break;
+            } else if (coreCharset != CoreCharset.utf || c == 0xA0 || (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE)
+                || c >= 0xFFFE) {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static final boolean[] PlainAscii = new boolean[0x80];
+    static {
+        for (char c = 0x20; c < 0x80; c++)
+            PlainAscii[c] = c != '&' && c != '<' && c != '>' && c != '"' && c != '\'';
+    }
+
     private static void appendEscaped(int codePoint, QuietAppendable accum, int options, EscapeMode escapeMode,
-        CoreCharset coreCharset, CharsetEncoder fallback) {
+        CoreCharset coreCharset, @Nullable CharsetEncoder fallback) {
         // specific character range for xml 1.0; drop (not encode) if so
         if (EscapeMode.xhtml == escapeMode && !isValidXmlChar(codePoint)) {
             return;
@@ -339,7 +394,7 @@ public class Entities {
      * Alterslash: 3013, 28
      * Jsoup: 167, 2
      */
-    private static boolean canEncode(final CoreCharset charset, final char c, final CharsetEncoder fallback) {
+    private static boolean canEncode(final CoreCharset charset, final char c, final @Nullable CharsetEncoder fallback) {
         // todo add more charset tests if impacted by Android's bad perf in canEncode
         switch (charset) {
             case ascii:
@@ -347,6 +402,7 @@ public class Entities {
             case utf:
                 return !(c >= Character.MIN_SURROGATE && c < (Character.MAX_SURROGATE + 1)); // !Character.isSurrogate(c); but not in Android 10 desugar
             default:
+                Validate.notNull(fallback);
                 return fallback.canEncode(c);
         }
     }
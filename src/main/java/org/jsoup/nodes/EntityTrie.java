@@ -0,0 +1,161 @@
+package org.jsoup.nodes;
+
+import org.jsoup.internal.StringUtil;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ A trie of the named character references, to match a name directly in the input without first creating a String for
+ it. Used by {@link Entities#matchName(char[], int, int, int[])}, for the tokeniser, and {@link Entities#findPrefix(String)}.
+ <p>The trie is encoded in arrays. Each node is a prefix of a name; the nodes are numbered breadth first, and the children
+ of each node in ascending order of their label, so that the children of a node {@code n} are the consecutive nodes
+ from {@code firstChild[n]} up to {@code firstChild[n + 1]}. A node that completes a name holds its flags and
+ codepoints.</p>
+ */
+final class EntityTrie {
+    static final byte Extended = 1; // a name in the extended set
+    static final byte Base = 2; // a name in the base set, which may be used without the closing ;
+
+    private final char[] label; // the last character of the node's prefix
+    private final int[] firstChild;
+    private final byte[] flags;
+    private final int[] codepoint;
+    private final int[] codepoint2; // -1 if a single codepoint
+    private final int[] rootChild = new int[128]; // the children of the root, by ASCII character; 0 if none
+    private final int maxLength; // of a name
+
+    /**
+     Build the trie.
+     @param names the extended names, in sorted order
+     @param codepoints the codepoint of each name
+     @param multipoints the names that have two codepoints
+     @param baseNames the base names, a subset of the extended names
+     */
+    EntityTrie(String[] names, int[] codepoints, Map<String, String> multipoints, String[] baseNames) {
+        int max = 1; // an upper bound of the node count
+        int maxLength = 0;
+        for (String name : names) {
+            max += name.length();
+            maxLength = Math.max(maxLength, name.length());
+        }
+        this.maxLength = maxLength;
+        char[] label = new char[max];
+        int[] firstChild = new int[max + 1];
+        byte[] flags = new byte[max];
+        int[] codepoint = new int[max];
+        int[] codepoint2 = new int[max];
+        // for the nodes still to be expanded: the depth, and the range of the names that have the node's prefix
+        int[] depth = new int[max];
+        int[] from = new int[max];
+        int[] to = new int[max];
+
+        to[0] = names.length;
+        int count = 1;
+        for (int node = 0; node < count; node++) {
+            firstChild[node] = count;
+            int d = depth[node];
+            int i = from[node];
+            int end = to[node];
+            if (i < end && names[i].length() == d) { // the node's prefix is itself a name, sorted first
+                String name = names[i];
+                flags[node] = Extended;
+                String multi = multipoints.get(name);
+                codepoint[node] = multi != null ? multi.codePointAt(0) : codepoints[i];
+                codepoint2[node] = multi != null ? multi.codePointAt(1) : -1;
+                i++;
+            }
+            while (i < end) { // each run of names with the same next character is a child
+                char c = names[i].charAt(d);
+                int j = i + 1;
+                while (j < end && names[j].charAt(d) == c) j++;
+                label[count] = c;
+                depth[count] = d + 1;
+                from[count] = i;
+                to[count] = j;
+                count++;
+                i = j;
+            }
+        }
+        firstChild[count] = count;
+
+        this.label = Arrays.copyOf(label, count);
+        this.firstChild = Arrays.copyOf(firstChild, count + 1);
+        this.flags = Arrays.copyOf(flags, count);
+        this.codepoint = Arrays.copyOf(codepoint, count);
+        this.codepoint2 = Arrays.copyOf(codepoint2, count);
+        for (int child = this.firstChild[0]; child < this.firstChild[1]; child++)
+            rootChild[this.label[child]] = child;
+
+        for (String name : baseNames) {
+            int node = 0;
+            for (int i = 0; i < name.length(); i++)
+                node = child(node, name.charAt(i));
+            this.flags[node] |= Base;
+        }
+    }
+
+    /** Get the child of the node with the label; or -1 if none. */
+    private int child(int node, char c) {
+        if (node == 0) {
+            int child = c < 128 ? rootChild[c] : 0;
+            return child != 0 ? child : -1;
+        }
+        for (int child = firstChild[node], end = firstChild[node + 1]; child < end; child++) {
+            char l = label[child];
+            if (l == c) return child;
+            if (l > c) break;
+        }
+        return -1;
+    }
+
+    /** See {@link Entities#matchName(char[], int, int, int[])}. */
+    int match(char[] input, int start, int end, int[] match) {
+        int node = 0;
+        int matched = 0; // the length of the longest base name seen, and its node
+        int matchedNode = -1;
+        int i = start;
+        boolean digits = false;
+        int limit = Math.min(end, start + maxLength + 1); // no need to scan a long run beyond a possible name
+        for (; i < limit; i++) {
+            char c = input[i];
+            if (!digits && !StringUtil.isAsciiLetter(c)) {
+                if (!StringUtil.isDigit(c)) break;
+                digits = true;
+            } else if (digits && !StringUtil.isDigit(c)) {
+                break;
+            }
+            if (node >= 0) {
+                node = child(node, c);
+                if (node >= 0 && (flags[node] & Base) != 0) {
+                    matched = i + 1 - start;
+                    matchedNode = node;
+                }
+            }
+        }
+
+        int length = i - start;
+        match[0] = length;
+        if (node > 0 && matched != length && (flags[node] & Extended) != 0 && i < end && input[i] == ';') {
+            matched = length;
+            matchedNode = node;
+        }
+        if (matchedNode >= 0) {
+            match[1] = codepoint[matchedNode];
+            match[2] = codepoint2[matchedNode];
+        }
+        return matched;
+    }
+
+    /** The length of the longest base name that is a prefix of the input; 0 if none. */
+    int basePrefix(String input) {
+        int node = 0;
+        int matched = 0;
+        for (int i = 0; i < input.length(); i++) {
+            node = child(node, input.charAt(i));
+            if (node < 0) break;
+            if ((flags[node] & Base) != 0) matched = i + 1;
+        }
+        return matched;
+    }
+}
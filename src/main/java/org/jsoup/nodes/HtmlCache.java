@@ -0,0 +1,137 @@
+package org.jsoup.nodes;
+
+import org.jsoup.internal.QuietAppendable;
+import org.jsoup.internal.StringUtil;
+import org.jsoup.nodes.Document.OutputSettings;
+import org.jsoup.parser.Tag;
+import org.jspecify.annotations.Nullable;
+
+/**
+ An optional cache of an Element's serialized HTML, enabled via {@link Element#cacheHtml(boolean)}. The outer and inner
+ HTML are each built on first use, and then reused until the element's subtree changes.
+ <p>A cached entry is keyed by the owner document, the identity and version of the {@link OutputSettings} it was built
+ with, and by the element's child {@link Element.NodeList#modCount() modCount}. A structural change (children added,
+ removed, or replaced; an element renamed), a change to the value of a text, data, or comment node, or a change to an
+ attribute, clears the caches of the changed node and its element ancestors. Attributes added via the low-level
+ {@link Attributes#add(String, String)} (as used by the parser) do not.</p>
+ <p>Enabling a cache marks the element's tree as {@link ChangeTracker#htmlCached htmlCached}. Changes to an unmarked tree
+ don't look for caches to clear, and the Printer doesn't look for cached descendants of an unmarked root. (An entry
+ built in another document, or while detached, is not used, as the owner document is part of its key.)</p>
+ <p>When pretty-printing, an element's output depends on its ancestors and siblings, so the cache is only used when the
+ element is the root of the serialization, and the entry is also keyed by that context. In compact mode, the output of
+ an element is independent of its context, so the cache of a descendant element is also used when serializing an
+ ancestor.</p>
+ */
+final class HtmlCache {
+    static final String Key = "jsoup.htmlCache"; // the userData key
+
+    // The settings key for an element without an owner document, which is printed with default settings
+    private static final OutputSettings Detached = new OutputSettings();
+
+    // Context flags, for pretty-printing
+    private static final int PreserveWhitespace = 1; // an ancestor preserves whitespace
+    private static final int ParentIsDocument = 2; // which makes an unknown tag a block
+
+    // Null until built, or when invalidated. Volatile so that a lazy build in one reader thread is safely published to
+    // others.
+    private volatile @Nullable Entry outer;
+    private volatile @Nullable Entry inner;
+
+    /** A serialized HTML string, and the state it was built from. */
+    private static final class Entry {
+        final String html;
+        final @Nullable Document owner;
+        final OutputSettings settings;
+        final int version; // of the settings
+        final int modCount; // of the element's children
+        final int context;
+
+        Entry(String html, @Nullable Document owner, OutputSettings settings, int modCount, int context) {
+            this.html = html;
+            this.owner = owner;
+            this.settings = settings;
+            this.version = settings.version;
+            this.modCount = modCount;
+            this.context = context;
+        }
+
+        boolean matches(@Nullable Document owner, OutputSettings settings, int modCount, int context) {
+            return this.owner == owner && this.settings == settings && version == settings.version &&
+                this.modCount == modCount && this.context == context;
+        }
+    }
+
+    void invalidate() {
+        outer = null;
+        inner = null;
+    }
+
+    /** Get the cache of the element, if enabled. */
+    static @Nullable HtmlCache get(Element el) {
+        if (el.attributes == null || !el.attributes.hasUserData()) return null; // don't create empty userdata
+        return (HtmlCache) el.attributes.userData().get(Key);
+    }
+
+    /**
+     Get the outer or inner HTML of the element, from the cache if it is current, or else built and cached.
+     @param el the element this cache belongs to
+     @param outerHtml true for the outer HTML, false for the inner
+     @return the HTML; for the inner HTML, before any pretty-print trim
+     */
+    String html(Element el, boolean outerHtml) {
+        Document owner = el.ownerDocument();
+        OutputSettings settings = owner != null ? owner.outputSettings() : Detached;
+        int modCount = el.childNodes.modCount();
+        int context = context(el, settings);
+
+        Entry entry = outerHtml ? outer : inner;
+        if (entry == null || !entry.matches(owner, settings, modCount, context)) {
+            entry = new Entry(build(el, outerHtml), owner, settings, modCount, context);
+            if (outerHtml) outer = entry;
+            else inner = entry;
+        }
+        return entry.html;
+    }
+
+    private static String build(Element el, boolean outerHtml) {
+        StringBuilder sb = StringUtil.borrowBuilder();
+        QuietAppendable accum = QuietAppendable.wrap(sb);
+        if (outerHtml)
+            Printer.printerFor(el, accum).traverse(el, el);
+        else
+            el.printChildren(accum);
+        return StringUtil.releaseBuilder(sb);
+    }
+
+    /** The parts of the element's context that the pretty printers depend on. Compact output has no context. */
+    private static int context(Element el, OutputSettings settings) {
+        if (!settings.prettyPrint() && !settings.outline()) return 0;
+        int context = 0;
+        for (Element parent = el.parent(); parent != null; parent = parent.parent()) {
+            if (parent.tag.is(Tag.PreserveWhitespace)) {
+                context |= PreserveWhitespace;
+                break;
+            }
+        }
+        if (el.parentNode instanceof Document) context |= ParentIsDocument;
+        return context;
+    }
+
+    /**
+     Invalidate the caches of the modified node (or of a leaf node's parent) and its ancestors, if any. Called via the
+     {@link ChangeTracker} of a tree that has caches.
+     */
+    static void invalidate(Node node) {
+        for (Element el = node instanceof Element ? (Element) node : node.parentNode; el != null; el = el.parentNode) {
+            HtmlCache cache = get(el);
+            if (cache != null)
+                cache.invalidate();
+        }
+    }
+
+    /** Tests if the node's tree may hold a cache, via its tracker. */
+    static boolean mayHaveCaches(Node node) {
+        ChangeTracker tracker = ChangeTracker.of(node);
+        return tracker != null && tracker.htmlCached;
+    }
+}
@@ -5,6 +5,7 @@ import org.jsoup.internal.QuietAppendable;
 import org.jspecify.annotations.Nullable;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  A node that does not hold any children. E.g.: {@link TextNode}, {@link DataNode}, {@link Comment}.
@@ -37,9 +38,18 @@ public abstract class LeafNode extends Node {
             Attributes attributes = new Attributes();
             value = attributes;
             attributes.put(nodeName(), coreValue);
+            attributes.owner = this; // after the core value is moved in, which is not a change
         }
     }
 
+    @Override
+    void compactNode(Map<String, String> strings) {
+        if (value instanceof String)
+            value = Element.shareValue(strings, (String) value);
+        else
+            ((Attributes) value).compact(strings); // holds the core value, so is never empty
+    }
+
     String coreValue() {
         return attr(nodeName());
     }
@@ -70,6 +80,7 @@ public abstract class LeafNode extends Node {
     public Node attr(String key, String value) {
         if (!hasAttributes() && key.equals(nodeName())) {
             this.value = value;
+            ChangeTracker.valueChanged(this);
         } else {
             ensureAttributes();
             super.attr(key, value);
@@ -128,8 +139,11 @@ public abstract class LeafNode extends Node {
         LeafNode clone = (LeafNode) super.doClone(parent);
 
         // Object value could be plain string or attributes - need to clone
-        if (hasAttributes())
-            clone.value = ((Attributes) value).clone();
+        if (hasAttributes()) {
+            Attributes attributes = ((Attributes) value).clone();
+            attributes.owner = clone;
+            clone.value = attributes;
+        }
 
         return clone;
     }
@@ -1,6 +1,8 @@
 package org.jsoup.nodes;
 
+import org.jsoup.SerializationException;
 import org.jsoup.helper.Validate;
+import org.jsoup.internal.EncodingAppendable;
 import org.jsoup.internal.QuietAppendable;
 import org.jsoup.internal.StringUtil;
 import org.jsoup.parser.ParseSettings;
@@ -9,12 +11,15 @@ import org.jsoup.select.NodeVisitor;
 import org.jspecify.annotations.Nullable;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
@@ -541,6 +546,7 @@ public abstract class Node implements Cloneable {
             this.parentNode.removeChild(this);
         assert parentNode instanceof Element;
         this.parentNode = (Element) parentNode;
+        ChangeTracker.inserted(this);
     }
 
     protected void replaceChild(Node out, Node in) {
@@ -555,9 +561,11 @@ public abstract class Node implements Cloneable {
         ensureChildNodes().set(index, in);
         in.parentNode = (Element) this;
         in.setSiblingIndex(index);
+        ChangeTracker.inserted(in);
         out.parentNode = null;
 
         ((Element) this).childNodes.incrementMod(); // as mod count not changed in set(), requires explicit update, to invalidate the child element cache
+        ChangeTracker.nodesChanged(this);
     }
 
     protected void removeChild(Node out) {
@@ -570,6 +578,7 @@ public abstract class Node implements Cloneable {
 
         el.invalidateChildren();
         out.parentNode = null;
+        ChangeTracker.nodesChanged(this);
     }
 
     protected void addChildren(Node... children) {
@@ -581,6 +590,7 @@ public abstract class Node implements Cloneable {
             nodes.add(child);
             child.setSiblingIndex(nodes.size()-1);
         }
+        ChangeTracker.nodesChanged(this);
     }
 
     protected void addChildren(int index, Node... children) {
@@ -609,8 +619,10 @@ public abstract class Node implements Cloneable {
                 assert this instanceof Element;
                 while (i-- > 0) {
                     children[i].parentNode = (Element) this;
+                    ChangeTracker.inserted(children[i]);
                 }
                 ((Element) this).invalidateChildren();
+                ChangeTracker.nodesChanged(this);
                 return;
             }
         }
@@ -621,6 +633,7 @@ public abstract class Node implements Cloneable {
         }
         nodes.addAll(index, Arrays.asList(children));
         ((Element) this).invalidateChildren();
+        ChangeTracker.nodesChanged(this);
     }
     
     protected void reparentChild(Node child) {
@@ -855,6 +868,12 @@ public abstract class Node implements Cloneable {
         printer.traverse(this);
     }
 
+    /**
+     Reduces the memory held by this node (but not its children), for {@link Element#compact()}.
+     @param strings the shared text and attribute values, keyed by themselves
+     */
+    void compactNode(Map<String, String> strings) {}
+
     /**
      Get the outer HTML of this node.
 
@@ -877,6 +896,49 @@ public abstract class Node implements Cloneable {
         return appendable;
     }
 
+    /**
+     Write this node and its children as HTML to the given {@link OutputStream}, encoded in the document's output
+     {@link Document.OutputSettings#charset() charset}. The HTML is encoded to bytes as it is serialized (through a
+     recycled buffer), without creating an intermediate String; so the output is the same as
+     {@code outerHtml().getBytes(charset)}, but with less memory and time.
+     <p>The stream is not flushed or closed.</p>
+
+     @param out the {@link OutputStream} to write to.
+     @throws IOException if the stream throws an IOException.
+     @since 1.22.1
+     */
+    public void writeHtml(OutputStream out) throws IOException {
+        Validate.notNullParam(out, "out");
+        writeHtml(EncodingAppendable.wrap(out, NodeUtils.outputSettings(this).charset()));
+    }
+
+    /**
+     Write this node and its children as HTML to the given {@link WritableByteChannel}, encoded in the document's
+     output {@link Document.OutputSettings#charset() charset}.
+     <p>The channel is not closed.</p>
+
+     @param out the {@link WritableByteChannel} to write to.
+     @throws IOException if the channel throws an IOException.
+     @see #writeHtml(OutputStream)
+     @since 1.22.1
+     */
+    public void writeHtml(WritableByteChannel out) throws IOException {
+        Validate.notNullParam(out, "out");
+        writeHtml(EncodingAppendable.wrap(out, NodeUtils.outputSettings(this).charset()));
+    }
+
+    private void writeHtml(EncodingAppendable accum) throws IOException {
+        try {
+            outerHtml(accum);
+            accum.finish();
+        } catch (SerializationException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw e;
+        } finally {
+            accum.release();
+        }
+    }
+
     /**
      Get the source range (start and end positions) in the original input source from which this node was parsed.
      Position tracking must be enabled prior to parsing the content. For an Element, this will be the positions of the
@@ -4,6 +4,8 @@ import org.jsoup.helper.Validate;
 import org.jsoup.helper.W3CDom;
 import org.jsoup.parser.HtmlTreeBuilder;
 import org.jsoup.parser.Parser;
+import org.jsoup.select.Selector;
+import org.jsoup.select.XpathQuery;
 import org.w3c.dom.NodeList;
 
 import java.util.Iterator;
@@ -36,16 +38,26 @@ final class NodeUtils {
     }
 
     /**
-     This impl works by compiling the input xpath expression, and then evaluating it against a W3C Document converted
-     from the original jsoup element. The original jsoup elements are then fetched from the w3c doc user data (where we
-     stashed them during conversion). This process could potentially be optimized by transpiling the compiled xpath
-     expression to a jsoup Evaluator when there's 1:1 support, thus saving the W3C document conversion stage.
+     Evaluates the xpath with the native {@link XpathQuery} evaluator, directly over the jsoup nodes. Queries it does not
+     support, and all queries when an alternate XPathFactory is configured, are instead evaluated against a W3C Document
+     converted from the original jsoup element; the original jsoup elements are then fetched from the w3c doc user data
+     (where we stashed them during conversion).
      */
     static <T extends Node> List<T> selectXpath(String xpath, Element el, Class<T> nodeType) {
         Validate.notEmpty(xpath);
         Validate.notNull(el);
         Validate.notNull(nodeType);
 
+        if (System.getProperty(W3CDom.XPathFactoryProperty) == null) {
+            XpathQuery query = null;
+            try {
+                query = XpathQuery.compile(xpath);
+            } catch (Selector.SelectorParseException e) {
+                // not supported natively (or invalid); the JDK's evaluator will run it, or report the error
+            }
+            if (query != null) return query.select(el, nodeType);
+        }
+
         W3CDom w3c = new W3CDom().namespaceAware(false);
         org.w3c.dom.Document wDoc = w3c.fromJsoup(el);
         org.w3c.dom.Node contextNode = w3c.contextNode(wDoc);
@@ -0,0 +1,218 @@
+package org.jsoup.nodes;
+
+import org.jsoup.SerializationException;
+import org.jsoup.internal.QuietAppendable;
+import org.jsoup.internal.StringUtil;
+import org.jsoup.parser.Tag;
+import org.jsoup.select.NodeFilter;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ Prints the inner HTML of an element concurrently, for {@link Element#html(Appendable, Executor)}.
+ <p>The tree is split at a <i>container</i>: the element, or a descendant found by descending into the child with the
+ most children, until one has enough children to share out. The container's children are split into consecutive
+ batches, which are each printed by a task on the executor into a pooled buffer. The rest of the tree (the
+ <i>frame</i>: the container's ancestors and their other descendants) is printed on the calling thread, and the
+ batches are appended in order in place of the container's children. When the calling thread reaches a batch that the
+ executor hasn't yet started, it prints it itself.</p>
+ <p>The output is the same as the sequential print. The compact printer has no state; the pretty printers track only
+ the indent depth, and if whitespace is preserved. At each of the container's children, the depth is the container's
+ depth, and whitespace is preserved if the container or any of its ancestors preserves it (as the flag is set at the
+ head of a preserving element, and cleared at its tail unless an ancestor also preserves). So each batch's printer is
+ started with that state, and the frame printer's state is unchanged by skipping over the batches.</p>
+ <p>If the print fails (or the calling thread is interrupted), the batches that haven't been appended are cancelled, and
+ their buffers are released.</p>
+ */
+final class ParallelPrinter {
+    static final int MinSplit = 8; // descend until a container has at least this many children
+    static final int MaxDescent = 8;
+    static final int MaxTasks = 64;
+
+    private ParallelPrinter() {}
+
+    /** A batch print task. If it completes after it's cancelled, it releases its buffer, as that won't be appended. */
+    private static final class Batch extends FutureTask<StringBuilder> {
+        boolean appended; // set by the calling thread once the output has been appended and the buffer released
+
+        Batch(Callable<StringBuilder> print) {
+            super(print);
+        }
+
+        @Override protected void set(StringBuilder sb) {
+            super.set(sb);
+            if (isCancelled()) StringUtil.releaseBuilderVoid(sb);
+        }
+
+        /** Cancels the batch if it hasn't been appended, and releases its buffer if it had already completed. */
+        void abandon() {
+            if (appended || cancel(false)) return; // if running, it will release its buffer on completion
+            try {
+                StringUtil.releaseBuilderVoid(get()); // completed, so doesn't wait
+            } catch (ExecutionException e) {
+                // failed, so has no buffer
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static void print(Element el, QuietAppendable accum, Executor executor) {
+        Node first = el.firstChild();
+        Element container = container(el);
+        int size = container.childNodeSize();
+        if (first == null || size < 2) { // nothing to share
+            el.printChildren(accum);
+            return;
+        }
+
+        // make sure sibling indexes are valid, so the tasks only read the DOM
+        el.stream().forEach(e -> {
+            if (!e.hasValidChildren()) e.reindexChildren();
+        });
+
+        int depth = 0;
+        for (Element e = container; e != el; e = e.parentNode) {
+            assert e != null;
+            depth++;
+        }
+        boolean preserve = preservesWhitespace(container);
+
+        int count = Math.min(size, MaxTasks);
+        List<Batch> tasks = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                int from = (int) ((long) i * size / count);
+                int to = (int) ((long) (i + 1) * size / count);
+                int batchDepth = depth;
+                Batch task = new Batch(() -> printBatch(first, container, from, to, batchDepth, preserve));
+                tasks.add(task);
+                executor.execute(task);
+            }
+
+            if (container == el) {
+                for (Batch task : tasks)
+                    append(accum, task);
+            } else {
+                printFrame(el, container, accum, tasks);
+            }
+        } finally {
+            for (Batch task : tasks)
+                task.abandon();
+        }
+    }
+
+    /** Finds the element to split, descending from the root into the child with the most children. */
+    private static Element container(Element root) {
+        Element container = root;
+        for (int i = 0; i < MaxDescent && container.childNodeSize() < MinSplit; i++) {
+            Element largest = null;
+            for (Element child = container.firstElementChild(); child != null; child = child.nextElementSibling()) {
+                if (largest == null || child.childNodeSize() > largest.childNodeSize())
+                    largest = child;
+            }
+            if (largest == null || largest.childNodeSize() < 2) break;
+            container = largest;
+        }
+        return container;
+    }
+
+    private static boolean preservesWhitespace(Element container) {
+        for (Element e = container; e != null; e = e.parentNode) {
+            if (e.tag.is(Tag.PreserveWhitespace)) return true;
+        }
+        return false;
+    }
+
+    /** Prints the container's children from {@code from} to {@code to}, with the state they have in the full print. */
+    private static StringBuilder printBatch(Node first, Element container, int from, int to, int depth, boolean preserve) {
+        StringBuilder sb = StringUtil.borrowBuilder();
+        try {
+            Printer printer = Printer.printerFor(first, QuietAppendable.wrap(sb)); // same root, for Pretty#shouldIndent
+            NodeVisitor visitor = printer;
+            if (printer instanceof Printer.Pretty) {
+                ((Printer.Pretty) printer).preserveWhitespace = preserve;
+                if (depth > 0) visitor = new NodeVisitor() { // offsets the depth, for the indent
+                    @Override public void head(Node node, int d) {
+                        printer.head(node, d + depth);
+                    }
+
+                    @Override public void tail(Node node, int d) {
+                        printer.tail(node, d + depth);
+                    }
+                };
+            }
+
+            for (int i = from; i < to; i++) {
+                Node node = container.childNode(i);
+                if (visitor == printer) printer.traverse(node); // (the compact printer uses any HtmlCaches)
+                else NodeTraversor.traverse(visitor, node);
+            }
+            return sb;
+        } catch (RuntimeException | Error e) {
+            StringUtil.releaseBuilderVoid(sb);
+            throw e;
+        }
+    }
+
+    /** Prints the frame around the container's children, appending the batches in their place. */
+    private static void printFrame(Element el, Element container, QuietAppendable accum, List<Batch> tasks) {
+        Node first = el.firstChild();
+        assert first != null;
+        Printer printer = Printer.printerFor(first, accum);
+        NodeFilter frame = new NodeFilter() {
+            @Override public FilterResult head(Node node, int depth) {
+                if (node.parentNode == container) {
+                    if (node.siblingIndex() == 0) {
+                        for (Batch task : tasks)
+                            append(accum, task);
+                    }
+                    return FilterResult.SKIP_ENTIRELY;
+                }
+                printer.head(node, depth);
+                return FilterResult.CONTINUE;
+            }
+
+            @Override public FilterResult tail(Node node, int depth) {
+                printer.tail(node, depth);
+                return FilterResult.CONTINUE;
+            }
+        };
+
+        for (Node child = first; child != null; child = child.nextSibling())
+            NodeTraversor.filter(frame, child);
+    }
+
+    /** Appends the task's output (waiting for it to complete), and releases its buffer. */
+    private static void append(QuietAppendable accum, Batch task) {
+        StringBuilder sb = result(task);
+        try {
+            accum.append(sb);
+        } finally {
+            task.appended = true;
+            StringUtil.releaseBuilderVoid(sb);
+        }
+    }
+
+    private static StringBuilder result(Batch task) {
+        task.run(); // if the executor hasn't started it yet, run it here rather than wait; else a no-op
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new SerializationException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SerializationException(e);
+        }
+    }
+}
@@ -4,6 +4,8 @@ import org.jsoup.internal.QuietAppendable;
 import org.jsoup.internal.StringUtil;
 import org.jsoup.nodes.Document.OutputSettings;
 import org.jsoup.parser.Tag;
+import org.jsoup.select.NodeFilter;
+import org.jsoup.select.NodeTraversor;
 import org.jsoup.select.NodeVisitor;
 import org.jspecify.annotations.Nullable;
 
@@ -54,6 +56,43 @@ class Printer implements NodeVisitor {
         }
     }
 
+    @Override
+    public void traverse(Node root) {
+        traverse(root, null);
+    }
+
+    /**
+     Traverse and print the root. If any elements have an {@link HtmlCache}, they are printed from their cache (other
+     than {@code building}, the element whose cache is being built), skipping their descendants.
+     */
+    void traverse(Node root, @Nullable Element building) {
+        if (!HtmlCache.mayHaveCaches(root)) {
+            NodeTraversor.traverse(this, root);
+            return;
+        }
+
+        NodeTraversor.filter(new NodeFilter() {
+            @Override
+            public FilterResult head(Node node, int depth) {
+                if (node instanceof Element && node != building) {
+                    HtmlCache cache = HtmlCache.get((Element) node);
+                    if (cache != null) {
+                        accum.append(cache.html((Element) node, true));
+                        return FilterResult.SKIP_ENTIRELY;
+                    }
+                }
+                Printer.this.head(node, depth);
+                return FilterResult.CONTINUE;
+            }
+
+            @Override
+            public FilterResult tail(Node node, int depth) {
+                Printer.this.tail(node, depth);
+                return FilterResult.CONTINUE;
+            }
+        }, root);
+    }
+
     /** Pretty Printer */
     static class Pretty extends Printer {
         boolean preserveWhitespace = false;
@@ -70,6 +109,11 @@ class Printer implements NodeVisitor {
             }
         }
 
+        @Override
+        void traverse(Node root, @Nullable Element building) {
+            NodeTraversor.traverse(this, root); // cached output can't be nested, as pretty output depends on context
+        }
+
         @Override
         void addHead(Element el, int depth) {
             if (shouldIndent(el))
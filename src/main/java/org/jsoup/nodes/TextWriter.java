@@ -0,0 +1,164 @@
+package org.jsoup.nodes;
+
+import org.jsoup.internal.QuietAppendable;
+import org.jsoup.internal.StringUtil;
+
+import java.util.Arrays;
+
+/**
+ Writes extracted text to an Appendable as it is found, for {@link Element#text(Appendable, int)} and
+ {@link Element#wholeText(Appendable, int)}; optionally trimmed, and capped to a maximum length.
+ <p>As the output can't be read back or rewound, trimming is applied as the text is written: leading whitespace is
+ dropped, and other whitespace is held as pending until a following non-whitespace char is written (so trailing
+ whitespace is never written). "Whitespace" here is as in {@link String#trim()}. The whitespace rules of
+ {@link Element#text()} look at the text as if it were untrimmed, so that is tracked as the virtual last char.</p>
+ */
+final class TextWriter {
+    private final QuietAppendable out;
+    private final boolean trim;
+    private final int maxLength;
+    private int written = 0; // chars written to out
+    private boolean full = false; // reached maxLength
+    private boolean appended = false; // if any text has been appended, pre-trim
+    private char last = 0; // the last char appended, pre-trim
+
+    private char[] pending = Empty; // trimmable whitespace not yet written
+    private int pendingLen = 0;
+    private static final char[] Empty = new char[0];
+
+    TextWriter(Appendable out, boolean trim, int maxLength) {
+        this.out = QuietAppendable.wrap(out);
+        this.trim = trim;
+        this.maxLength = maxLength;
+    }
+
+    /** If the output has reached the maximum length, so no more text will be written. */
+    boolean isFull() {
+        return full;
+    }
+
+    /** If any text has been appended (including whitespace that was trimmed). */
+    boolean isEmpty() {
+        return !appended;
+    }
+
+    /** If the last char appended (including whitespace that was trimmed) was a space. */
+    boolean lastIsSpace() {
+        return last == ' ';
+    }
+
+    TextWriter append(char c) {
+        if (full) return this;
+        appended = true;
+        last = c;
+        if (trim && c <= ' ') {
+            if (written > 0) addPending(c);
+            return this;
+        }
+        if (!fits(1)) return this;
+        flushPending();
+        out.append(c);
+        written++;
+        return this;
+    }
+
+    TextWriter append(String text) {
+        return append(text, 0, text.length());
+    }
+
+    /** Appends the text range as-is (but trimmed, if trimming). */
+    TextWriter append(String text, int start, int end) {
+        if (full || start == end) return this;
+        appended = true;
+        last = text.charAt(end - 1);
+        if (!trim) {
+            write(text, start, end);
+            return this;
+        }
+
+        int contentEnd = end;
+        if (written == 0) { // leading whitespace is dropped
+            while (start < contentEnd && text.charAt(start) <= ' ') start++;
+        }
+        while (contentEnd > start && text.charAt(contentEnd - 1) <= ' ') contentEnd--;
+        if (start < contentEnd) {
+            if (!fits(Character.isHighSurrogate(text.charAt(start)) ? 2 : 1)) return this; // so pending isn't orphaned
+            flushPending();
+            write(text, start, contentEnd);
+        }
+        for (int i = Math.max(contentEnd, start); i < end; i++) {
+            addPending(text.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     Appends the text with whitespace normalized, as {@link StringUtil#appendNormalisedWhitespace(StringBuilder, String,
+    boolean)}, stripping leading whitespace if the last char was a space. Runs of visible text are written in bulk.
+     */
+    void appendNormalised(String text) {
+        boolean lastWasWhite = false;
+        boolean reachedNonWhite = false;
+        boolean stripLeading = lastIsSpace();
+
+        int len = text.length();
+        int i = 0;
+        while (i < len && !full) {
+            char c = text.charAt(i);
+            if (StringUtil.isActuallyWhitespace(c)) {
+                if (!(stripLeading && !reachedNonWhite) && !lastWasWhite) {
+                    append(' ');
+                    lastWasWhite = true;
+                }
+                i++;
+            } else if (StringUtil.isInvisibleChar(c)) {
+                i++;
+            } else { // a run of visible chars; surrogate pairs are always within a run
+                int runEnd = i + 1;
+                while (runEnd < len && isVisible(text.charAt(runEnd))) runEnd++;
+                append(text, i, runEnd);
+                lastWasWhite = false;
+                reachedNonWhite = true;
+                i = runEnd;
+            }
+        }
+    }
+
+    private static boolean isVisible(char c) {
+        return !StringUtil.isActuallyWhitespace(c) && !StringUtil.isInvisibleChar(c);
+    }
+
+    /** Writes the text range, with any pending whitespace already flushed; truncated to fit the cap. */
+    private void write(String text, int start, int end) {
+        int room = maxLength - written;
+        if (end - start > room) {
+            end = start + room;
+            if (end > start && Character.isHighSurrogate(text.charAt(end - 1))) end--; // don't split a pair
+            full = true;
+        }
+        out.append(text, start, end);
+        written += end - start;
+    }
+
+    /** Tests if the pending whitespace and count chars fit under the cap; if not, the writer is full. */
+    private boolean fits(int count) {
+        if ((long) written + pendingLen + count > maxLength) { // long, as maxLength may be MAX_VALUE
+            full = true;
+            return false;
+        }
+        return true;
+    }
+
+    private void addPending(char c) {
+        if (pendingLen == pending.length)
+            pending = Arrays.copyOf(pending, Math.max(8, pendingLen * 2));
+        pending[pendingLen++] = c;
+    }
+
+    private void flushPending() {
+        if (pendingLen == 0) return;
+        out.append(pending, 0, pendingLen);
+        written += pendingLen;
+        pendingLen = 0;
+    }
+}
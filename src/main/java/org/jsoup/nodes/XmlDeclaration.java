@@ -48,9 +48,7 @@ public class XmlDeclaration extends LeafNode {
     }
 
     private void getWholeDeclaration(QuietAppendable accum, Document.OutputSettings out) {
-        for (Attribute attribute : attributes()) {
-            String key = attribute.getKey();
-            String val = attribute.getValue();
+        attributes().forEachKeyValue((key, val) -> {
             if (!key.equals(nodeName())) { // skips coreValue (name)
                 accum.append(' ');
                 // basically like Attribute, but skip empty vals in XML
@@ -61,7 +59,7 @@ public class XmlDeclaration extends LeafNode {
                     accum.append('"');
                 }
             }
-        }
+        });
     }
 
     @Override
@@ -3,19 +3,21 @@ package org.jsoup.parser;
 import org.jsoup.helper.Validate;
 import org.jsoup.internal.SoftPool;
 import org.jsoup.internal.StringUtil;
+import org.jsoup.nodes.Entities;
+import org.jsoup.nodes.Range;
 import org.jspecify.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.io.Reader;
-import java.io.StringReader;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Locale;
 
 /**
  CharacterReader consumes tokens off a string. Used internally by jsoup. API subject to changes.
+ <p>A Reader input is read through a pooled buffer, which is refilled as it is consumed. A char[] input, or a String that
+ fits in the buffer, is instead read directly, with the whole input as the buffer; so there is no refilling, and no
+ limit on how far back a mark can be rewound. (A longer String is streamed, rather than copied whole.)</p>
  <p>If the underlying reader throws an IOException during any operation, the CharacterReader will throw an
  {@link UncheckedIOException}. That won't happen with String / StringReader inputs.</p>
  */
@@ -30,8 +32,8 @@ public final class CharacterReader implements AutoCloseable {
     static final int RefillPoint = BufferSize / 2;  // when bufPos characters read, refill; visible for testing
     private static final int RewindLimit = 1024;    // the maximum we can rewind. No HTML entities can be larger than this.
 
-    private Reader reader;      // underlying Reader, will be backed by a buffered+controlled input stream, or StringReader
-    private char[] charBuf;     // character buffer we consume from; filled from Reader
+    @Nullable private Reader reader; // underlying Reader, will be backed by a buffered+controlled input stream, or StringReader. Null if direct
+    private char[] charBuf;     // character buffer we consume from; filled from Reader, or the whole input if direct
     private int bufPos;         // position in charBuf that's been consumed to
     private int bufLength;      // the num of characters actually buffered in charBuf, <= charBuf.length
     private int fillPoint = 0;  // how far into the charBuf we read before re-filling. 0.5 of charBuf.length after bufferUp
@@ -41,8 +43,8 @@ public final class CharacterReader implements AutoCloseable {
 
     private static final SoftPool<char[]> BufferPool = new SoftPool<>(() -> new char[BufferSize]); // recycled char buffer
 
-    @Nullable private ArrayList<Integer> newlinePositions = null; // optionally track the pos() position of newlines - scans during bufferUp()
-    private int lineNumberOffset = 1; // line numbers start at 1; += newlinePosition[indexof(pos)]
+    @Nullable private LineIndex lines = null; // optionally track the pos() position of newlines - scans during bufferUp()
+    private int linesScanned; // the pos() that newlines have been scanned to
 
     public CharacterReader(Reader input, int sz) {
         this(input); // sz is no longer used
@@ -50,6 +52,10 @@ public final class CharacterReader implements AutoCloseable {
 
     public CharacterReader(Reader input) {
         Validate.notNull(input);
+        if (input instanceof StringInput && ((StringInput) input).length() <= BufferSize) { // a short String, so read it directly
+            readDirect(((StringInput) input).toChars());
+            return;
+        }
         reader = input;
         charBuf = BufferPool.borrow();
         stringCache = StringPool.borrow();
@@ -57,20 +63,41 @@ public final class CharacterReader implements AutoCloseable {
     }
 
     public CharacterReader(String input) {
-        this(new StringReader(input));
+        this(new StringInput(input));
+    }
+
+    /**
+     Create a CharacterReader that reads the input directly, without copying it. The array must not be modified until
+     the reader is closed.
+     @param input the input
+     @since 1.22.1
+     */
+    public CharacterReader(char[] input) {
+        Validate.notNull(input);
+        readDirect(input);
+    }
+
+    private void readDirect(char[] input) {
+        charBuf = input;
+        bufLength = input.length;
+        fillPoint = bufLength;
+        readFully = true; // so never buffers up
+        stringCache = StringPool.borrow();
     }
 
     @Override
     public void close() {
-        if (reader == null)
+        if (charBuf == null)
             return;
         try {
-            reader.close();
+            if (reader != null) reader.close();
         } catch (IOException ignored) {
         } finally {
+            if (reader != null) { // else direct, so the buffer is the input, not pooled
+                Arrays.fill(charBuf, (char) 0); // before release, clear the buffer. Not required, but acts as a safety net, and makes debug view clearer
+                BufferPool.release(charBuf);
+            }
             reader = null;
-            Arrays.fill(charBuf, (char) 0); // before release, clear the buffer. Not required, but acts as a safety net, and makes debug view clearer
-            BufferPool.release(charBuf);
             charBuf = null;
             StringPool.release(stringCache); // conversely, we don't clear the string cache, so we can reuse the contents
             stringCache = null;
@@ -165,12 +192,13 @@ public final class CharacterReader implements AutoCloseable {
      @since 1.14.3
      */
     public void trackNewlines(boolean track) {
-        if (track && newlinePositions == null) {
-            newlinePositions = new ArrayList<>(BufferSize / 80); // rough guess of likely count
+        if (track && lines == null) {
+            lines = new LineIndex();
+            linesScanned = pos();
             scanBufferForNewlines(); // first pass when enabled; subsequently called during bufferUp
         }
         else if (!track)
-            newlinePositions = null;
+            lines = null;
     }
 
     /**
@@ -179,7 +207,12 @@ public final class CharacterReader implements AutoCloseable {
      @since 1.14.3
      */
     public boolean isTrackNewlines() {
-        return newlinePositions != null;
+        return lines != null;
+    }
+
+    /** Get the index of the newlines read, if tracking newlines. */
+    @Nullable LineIndex lineIndex() {
+        return lines;
     }
 
     /**
@@ -193,15 +226,7 @@ public final class CharacterReader implements AutoCloseable {
     }
 
     int lineNumber(int pos) {
-        // note that this impl needs to be called before the next buffer up or line numberoffset will be wrong. if that
-        // causes issues, can remove the reset of newlinepositions during buffer, at the cost of a larger tracking array
-        if (!isTrackNewlines())
-            return 1;
-
-        int i = lineNumIndex(pos);
-        if (i == -1)
-            return lineNumberOffset; // first line
-        return i + lineNumberOffset + 1;
+        return lines != null ? lines.lineNumber(pos) : 1;
     }
 
     /**
@@ -215,13 +240,12 @@ public final class CharacterReader implements AutoCloseable {
     }
 
     int columnNumber(int pos) {
-        if (!isTrackNewlines())
-            return pos + 1;
+        return lines != null ? lines.columnNumber(pos) : pos + 1;
+    }
 
-        int i = lineNumIndex(pos);
-        if (i == -1)
-          return pos + 1;
-        return pos - newlinePositions.get(i) + 1;
+    /** Get the Position of the position, with its line and column numbers (in one lookup). */
+    Range.Position position(int pos) {
+        return lines != null ? lines.position(pos) : new Range.Position(pos, 1, pos + 1);
     }
 
     /**
@@ -235,34 +259,17 @@ public final class CharacterReader implements AutoCloseable {
         return lineNumber() + ":" + columnNumber();
     }
 
-    private int lineNumIndex(int pos) {
-        if (!isTrackNewlines()) return 0;
-        int i = Collections.binarySearch(newlinePositions, pos);
-        if (i < -1) i = Math.abs(i) - 2;
-        return i;
-    }
-
     /**
-     Scans the buffer for newline position, and tracks their location in newlinePositions.
+     Scans the newly buffered chars for newlines, and adds their positions to the line index. The index spans the whole
+     input, so that the line of a position behind the current buffer can still be found.
      */
     private void scanBufferForNewlines() {
-        if (!isTrackNewlines())
+        if (lines == null)
             return;
 
-        if (newlinePositions.size() > 0) {
-            // work out the line number that we have read up to (as we have likely scanned past this point)
-            int index = lineNumIndex(consumed);
-            if (index == -1) index = 0; // first line
-            int linePos = newlinePositions.get(index);
-            lineNumberOffset += index; // the num lines we've read up to
-            newlinePositions.clear();
-            newlinePositions.add(linePos); // roll the last read pos to first, for cursor num after buffer
-        }
-
-        for (int i = bufPos; i < bufLength; i++) {
-            if (charBuf[i] == '\n')
-                newlinePositions.add(1 + consumed + i);
-        }
+        int start = Math.max(bufPos, linesScanned - consumed); // the chars kept in the buffer were already scanned
+        lines.scan(charBuf, start, bufLength, consumed);
+        linesScanned = consumed + bufLength;
     }
 
     /**
@@ -432,6 +439,8 @@ public final class CharacterReader implements AutoCloseable {
      * @return characters read up to the matched delimiter.
      */
     public String consumeToAny(final char... chars) {
+        if (Delimiters.isAscii(chars))
+            return consumeToAny(new Delimiters(chars));
         return consumeMatching(c -> { // seeks until we see one of the terminating chars
             for (char seek : chars)
                 if (c == seek) return false;
@@ -439,41 +448,44 @@ public final class CharacterReader implements AutoCloseable {
         });
     }
 
-    String consumeToAnySorted(final char... chars) {
-        return consumeMatching(c -> Arrays.binarySearch(chars, c) < 0); // matches until a hit
+    /**
+     Read characters until the first of the delimiters is found.
+     @param delimiters delimiters to scan for
+     @return characters read up to the matched delimiter.
+     */
+    String consumeToAny(Delimiters delimiters) {
+        bufferUp();
+        final int start = bufPos;
+        final int pos = delimiters.scan(charBuf, start, bufLength);
+        bufPos = pos;
+        return pos > start ? cacheString(charBuf, stringCache, start, pos - start) : "";
     }
 
+    private static final Delimiters DataDelims = new Delimiters('&', '<', TokeniserState.nullChar);
+    private static final Delimiters AttributeDoubleQuotedDelims = new Delimiters(TokeniserState.nullChar, '&', '"');
+    private static final Delimiters AttributeSingleQuotedDelims = new Delimiters(TokeniserState.nullChar, '&', '\'');
+    private static final Delimiters RawDataDelims = new Delimiters('<', TokeniserState.nullChar);
+    private static final Delimiters TagNameDelims = new Delimiters('\t', '\n', '\r', '\f', ' ', '/', '>');
+
     String consumeData() {
         // consumes until &, <, null
-        return consumeMatching(c -> c != '&' && c != '<' && c != TokeniserState.nullChar);
+        return consumeToAny(DataDelims);
     }
 
     String consumeAttributeQuoted(final boolean single) {
         // null, " or ', &
-        return consumeMatching(c -> c != TokeniserState.nullChar && c != '&' && (single ? c != '\'' : c != '"'));
+        return consumeToAny(single ? AttributeSingleQuotedDelims : AttributeDoubleQuotedDelims);
     }
 
     String consumeRawData() {
         // <, null
-        return consumeMatching(c -> c != '<' && c != TokeniserState.nullChar);
+        return consumeToAny(RawDataDelims);
     }
 
     String consumeTagName() {
         // '\t', '\n', '\r', '\f', ' ', '/', '>'
         // NOTE: out of spec; does not stop and append on nullChar but eats
-        return consumeMatching(c -> {
-            switch (c) {
-                case '\t':
-                case '\n':
-                case '\r':
-                case '\f':
-                case ' ':
-                case '/':
-                case '>':
-                    return false;
-            }
-            return true;
-        });
+        return consumeToAny(TagNameDelims);
     }
 
     String consumeToEnd() {
@@ -502,6 +514,30 @@ public final class CharacterReader implements AutoCloseable {
         return cacheString(charBuf, stringCache, start, bufPos - start);
     }
 
+    /**
+     Matches a named character reference at the current position (after the {@code &}), without consuming it, or creating
+     a String for the name.
+     @see Entities#matchName(char[], int, int, int[])
+     */
+    int matchNamedReference(int[] match) {
+        bufferUp();
+        return Entities.matchName(charBuf, bufPos, bufLength, match);
+    }
+
+    /**
+     Moves the current position by count characters, which must already be buffered (e.g. as matched by
+     {@link #matchNamedReference(int[])}).
+     */
+    void advance(int count) {
+        bufPos += count;
+    }
+
+    /** Gets up to count characters from the current position, without consuming them. */
+    String peek(int count) {
+        bufferUp();
+        return cacheString(charBuf, stringCache, bufPos, Math.min(count, bufLength - bufPos));
+    }
+
     String consumeHexSequence() {
         return consumeMatching(StringUtil::isHexDigit);
     }
@@ -692,4 +728,49 @@ public final class CharacterReader implements AutoCloseable {
     interface CharPredicate {
         boolean test(char c);
     }
+
+    /**
+     A set of ASCII delimiters to scan for. The set is a bitmap of the ASCII chars, so that each char is tested with a
+     shift and a mask, rather than compared against each delimiter in turn, or through a predicate.
+     */
+    static final class Delimiters {
+        private final long low;  // the delimiters from 0 to 63, by bit
+        private final long high; // and from 64 to 127
+
+        Delimiters(char... delimiters) {
+            long low = 0, high = 0;
+            for (char c : delimiters) {
+                Validate.isTrue(c < 128, "Delimiters must be ASCII");
+                if (c < 64) low |= 1L << c;
+                else high |= 1L << c; // the shift distance is taken mod 64
+            }
+            this.low = low;
+            this.high = high;
+        }
+
+        static boolean isAscii(char[] chars) {
+            for (char c : chars)
+                if (c >= 128) return false;
+            return true;
+        }
+
+        boolean contains(char c) {
+            // tests the bit first, as it is rarely set; and only then if ASCII, as the shift of a higher char wraps
+            return ((c < 64 ? low : high) >>> c & 1) != 0 && c < 128;
+        }
+
+        /**
+         Find the first delimiter in the buffer.
+         @return the index of the first delimiter from start; or end if none
+         */
+        int scan(char[] buf, int start, int end) {
+            final long low = this.low, high = this.high;
+            int i = start;
+            for (; i < end; i++) {
+                char c = buf[i];
+                if (((c < 64 ? low : high) >>> c & 1) != 0 && c < 128) break;
+            }
+            return i;
+        }
+    }
 }
@@ -0,0 +1,97 @@
+package org.jsoup.parser;
+
+import org.jsoup.helper.Validate;
+import org.jsoup.nodes.Range;
+
+import java.util.Arrays;
+
+/**
+ An index of the lines of a source, to find the line and column number of a position in it. The index holds the start
+ position of each line, in an int array, and a position's line is found by a binary search.
+ <p>The parser builds the index as it reads the input, when {@link Parser#setTrackPosition(boolean) position tracking}
+ is enabled, and the parsed document keeps it, as {@link org.jsoup.nodes.Document#lineIndex()}. So the line and column
+ of any position in the source (e.g. of an offset found by another tool) can be found after parsing.</p>
+ @since 1.22.1
+ */
+public final class LineIndex {
+    private int[] starts; // the positions following each newline, ascending
+    private int count;
+
+    LineIndex() {
+        starts = new int[CharacterReader.BufferSize / 80]; // rough guess of likely count, grows as required
+    }
+
+    /**
+     Create an index of the lines of the source.
+     @param source the source text
+     */
+    public LineIndex(String source) {
+        Validate.notNull(source);
+        starts = new int[16];
+        for (int i = source.indexOf('\n'); i != -1; i = source.indexOf('\n', i + 1))
+            add(i + 1);
+    }
+
+    /**
+     Adds the newlines in the buffer to the index. Must be called with consecutive ranges of the source.
+     @param buf the buffer
+     @param start the start of the range in the buffer to scan
+     @param end the end of the range
+     @param offset the position in the source of the buffer's start
+     */
+    void scan(char[] buf, int start, int end, int offset) {
+        for (int i = start; i < end; i++) {
+            if (buf[i] == '\n')
+                add(offset + i + 1);
+        }
+    }
+
+    private void add(int lineStart) {
+        if (count == starts.length)
+            starts = Arrays.copyOf(starts, Math.max(16, count * 2));
+        starts[count++] = lineStart;
+    }
+
+    /** The index of the last line start at or before the position; or -1 if on the first line. */
+    private int lineIndex(int pos) {
+        int i = Arrays.binarySearch(starts, 0, count, pos);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    /**
+     Get the number of lines in the source (that have been read, while parsing).
+     @return the line count, at least 1
+     */
+    public int lineCount() {
+        return count + 1;
+    }
+
+    /**
+     Get the line number of the position.
+     @param pos the position (0-based) in the source
+     @return the line number (1-based)
+     */
+    public int lineNumber(int pos) {
+        return lineIndex(pos) + 2;
+    }
+
+    /**
+     Get the column number of the position.
+     @param pos the position (0-based) in the source
+     @return the column number (1-based)
+     */
+    public int columnNumber(int pos) {
+        int i = lineIndex(pos);
+        return pos - (i >= 0 ? starts[i] : 0) + 1;
+    }
+
+    /**
+     Get the Position of the position, with its line and column numbers.
+     @param pos the position (0-based) in the source
+     @return the Position
+     */
+    public Range.Position position(int pos) {
+        int i = lineIndex(pos);
+        return new Range.Position(pos, i + 2, pos - (i >= 0 ? starts[i] : 0) + 1);
+    }
+}
@@ -0,0 +1,257 @@
+package org.jsoup.parser;
+
+import org.jsoup.helper.DataUtil;
+import org.jsoup.helper.Validate;
+import org.jsoup.nodes.Document;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ A ParsePool parses many inputs concurrently on an {@link Executor}, such as a {@link ForkJoinPool} or a virtual thread
+ per task executor. Each parse runs on a {@link Parser} copied from the supplied parser's configuration, and those
+ copies are reused for later inputs, so that callers don't need to manage a Parser per thread. Each Document is
+ given its own copy as its {@link Document#parser()}, with its own {@link TagSet}, so that it can be modified while the
+ pool parses other inputs.
+ <p>{@link #parseAll(Stream)} returns a Stream of the parsed Documents, in the order of the inputs. At most
+ {@code maxInFlight} inputs are queued or being parsed ahead of the consumer, so a large or unbounded input Stream can be
+ processed in bounded memory. To retain less of each Document, use {@link #parseAll(Stream, Function)} to extract a
+ result from each on the worker thread.</p>
+ <p>For example:</p>
+ <pre>{@code
+ ParsePool pool = new ParsePool(Parser.htmlParser());
+ try (Stream<String> titles = pool.parseAll(paths.map(path -> ParsePool.Input.of(path, null, "")), Document::title)) {
+     titles.forEach(System.out::println);
+ }
+ }</pre>
+ <p>If the parser tracks errors, each input is parsed with a new copy of the parser, so that each Document's
+ {@code parser().getErrors()} are its own.</p>
+ <p>A ParsePool is thread-safe.</p>
+ */
+public final class ParsePool {
+    private final Parser parser; // the configuration to copy; not itself used to parse
+    private final Executor executor;
+    private final int maxInFlight;
+    private final ConcurrentLinkedQueue<Parser> idle = new ConcurrentLinkedQueue<>(); // parsers ready for reuse
+
+    /**
+     An input to parse.
+     */
+    @FunctionalInterface
+    public interface Input {
+        /**
+         Parse this input with the supplied parser.
+         @param parser the parser to use; not shared with other threads during this call
+         @return the parsed Document
+         @throws IOException if the input could not be read
+         */
+        Document parse(Parser parser) throws IOException;
+
+        /**
+         An input of HTML (or XML) held in a String.
+         @param html the input to parse
+         @param baseUri the base URI of the input, for resolving relative URLs
+         @return the input
+         */
+        static Input of(String html, String baseUri) {
+            Validate.notNullParam(html, "html");
+            Validate.notNullParam(baseUri, "baseUri");
+            return parser -> parser.parseInput(html, baseUri);
+        }
+
+        /**
+         An input read from a file. The file is read and decoded when it is parsed, on the worker thread.
+         @param path the file to parse
+         @param charsetName (optional) the character set of the input; if null, it is detected as in
+         {@link DataUtil#load(Path, String, String, Parser)}
+         @param baseUri the base URI of the input, for resolving relative URLs
+         @return the input
+         */
+        static Input of(Path path, @Nullable String charsetName, String baseUri) {
+            Validate.notNullParam(path, "path");
+            Validate.notNullParam(baseUri, "baseUri");
+            return parser -> DataUtil.load(path, charsetName, baseUri, parser);
+        }
+
+        /**
+         An input read from an InputStream. The stream is read and decoded when it is parsed, on the worker thread, and is
+         then closed.
+         @param in the input stream to parse
+         @param charsetName (optional) the character set of the input; if null, it is detected as in
+         {@link DataUtil#load(InputStream, String, String, Parser)}
+         @param baseUri the base URI of the input, for resolving relative URLs
+         @return the input
+         */
+        static Input of(InputStream in, @Nullable String charsetName, String baseUri) {
+            Validate.notNullParam(in, "in");
+            Validate.notNullParam(baseUri, "baseUri");
+            return parser -> DataUtil.load(in, charsetName, baseUri, parser);
+        }
+    }
+
+    /**
+     Create a new ParsePool that parses on the {@link ForkJoinPool#commonPool() common pool}, with up to twice its
+     parallelism in flight.
+     @param parser the parser whose configuration (HTML or XML, settings, tag set, etc.) to parse with
+     */
+    public ParsePool(Parser parser) {
+        this(parser, ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism() * 2);
+    }
+
+    /**
+     Create a new ParsePool.
+     @param parser the parser whose configuration (HTML or XML, settings, tag set, etc.) to parse with
+     @param executor the executor to parse on; e.g. a {@link ForkJoinPool}, or
+     {@code Executors.newVirtualThreadPerTaskExecutor()}
+     @param maxInFlight the maximum number of inputs to be queued or parsing at once, per {@code parseAll} stream. Must
+     be at least 1.
+     */
+    public ParsePool(Parser parser, Executor executor, int maxInFlight) {
+        Validate.notNullParam(parser, "parser");
+        Validate.notNullParam(executor, "executor");
+        Validate.isTrue(maxInFlight > 0, "maxInFlight must be at least 1");
+        this.parser = parser.copyWithTags(); // a copy, so that later changes to the parser don't race with the workers
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     Parse each input concurrently, and return the Documents in the order of the inputs. The input stream is consumed
+     as the results are; parsing runs ahead of the consumer by up to {@code maxInFlight} inputs.
+     <p>If an input could not be read, an {@link UncheckedIOException} is thrown when its Document is consumed. Closing
+     the returned stream cancels any inputs not yet parsed, and closes the input stream.</p>
+     @param inputs the inputs to parse
+     @return a sequential Stream of the parsed Documents
+     */
+    public Stream<Document> parseAll(Stream<? extends Input> inputs) {
+        return parseAll(inputs, Function.identity());
+    }
+
+    /**
+     Parse each input concurrently, extract a result from each Document on the worker thread, and return the results
+     in the order of the inputs. As the Documents are not retained, this uses less memory than collecting them.
+     <p>If an input could not be read, an {@link UncheckedIOException} is thrown when its result is consumed. An
+     exception thrown by the extractor is rethrown when its result is consumed. Closing the returned stream cancels any
+     inputs not yet parsed, and closes the input stream.</p>
+     @param inputs the inputs to parse
+     @param extractor the function to apply to each parsed Document. Must return a non-null result.
+     @param <R> the result type
+     @return a sequential Stream of the results
+     */
+    public <R> Stream<R> parseAll(Stream<? extends Input> inputs, Function<? super Document, ? extends R> extractor) {
+        Validate.notNullParam(inputs, "inputs");
+        Validate.notNullParam(extractor, "extractor");
+        Results<R> results = new Results<>(inputs.iterator(), extractor);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(results, Spliterator.NONNULL | Spliterator.ORDERED), false)
+            .onClose(results::cancel)
+            .onClose(inputs::close);
+    }
+
+    /**
+     Parse a single input, on the calling thread, with a pooled parser.
+     @param input the input to parse
+     @return the parsed Document
+     @throws IOException if the input could not be read
+     */
+    public Document parse(Input input) throws IOException {
+        Validate.notNullParam(input, "input");
+        Parser worker = borrow();
+        try {
+            Document doc = input.parse(worker);
+            if (doc.parser() == worker && !worker.isTrackErrors())
+                doc.parser(worker.handOff(parser)); // the worker is reused, so the Document gets its own parser and tags
+            return doc;
+        } finally {
+            release(worker);
+        }
+    }
+
+    private Parser borrow() {
+        Parser worker = idle.poll();
+        return worker != null ? worker : parser.copyWithTags();
+    }
+
+    private void release(Parser worker) {
+        if (!worker.isTrackErrors()) // otherwise a later parse would reset the errors held for the previous Document
+            idle.offer(worker);
+    }
+
+    /** Keeps up to maxInFlight parses running ahead of the consumer, and yields their results in input order. */
+    private final class Results<R> implements Iterator<R> {
+        private final Iterator<? extends Input> inputs;
+        private final Function<? super Document, ? extends R> extractor;
+        private final ArrayDeque<CompletableFuture<R>> inFlight = new ArrayDeque<>();
+        private volatile boolean cancelled = false;
+
+        Results(Iterator<? extends Input> inputs, Function<? super Document, ? extends R> extractor) {
+            this.inputs = inputs;
+            this.extractor = extractor;
+        }
+
+        @Override
+        public boolean hasNext() {
+            fill();
+            return !inFlight.isEmpty();
+        }
+
+        @Override
+        public R next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            CompletableFuture<R> head = inFlight.poll();
+            fill(); // keep the pool busy while the consumer handles this result
+            try {
+                return head.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) throw new UncheckedIOException((IOException) cause);
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw e;
+            }
+        }
+
+        private void fill() {
+            while (!cancelled && inFlight.size() < maxInFlight && inputs.hasNext()) {
+                Input input = inputs.next();
+                Validate.notNull(input, "input must not be null");
+                inFlight.add(CompletableFuture.supplyAsync(() -> parse(input), executor));
+            }
+        }
+
+        private R parse(Input input) {
+            if (cancelled) throw new CancellationException();
+            try {
+                R result = extractor.apply(ParsePool.this.parse(input));
+                Validate.notNull(result, "extractor must not return null");
+                return result;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            for (CompletableFuture<R> future : inFlight)
+                future.cancel(false);
+            inFlight.clear();
+        }
+    }
+}
@@ -7,7 +7,6 @@ import org.jsoup.nodes.Node;
 import org.jspecify.annotations.Nullable;
 
 import java.io.Reader;
-import java.io.StringReader;
 import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -28,6 +27,7 @@ public class Parser implements Cloneable {
     private ParseErrorList errors;
     private ParseSettings settings;
     private boolean trackPosition = false;
+    private boolean compact = false;
     private @Nullable TagSet tagSet;
     private final ReentrantLock lock = new ReentrantLock();
 
@@ -56,10 +56,35 @@ public class Parser implements Cloneable {
     }
 
     private Parser(Parser copy) {
+        this(copy, null);
+    }
+
+    private Parser(Parser copy, @Nullable TagSet tagSet) {
         treeBuilder = copy.treeBuilder.newInstance(); // because extended
         errors = new ParseErrorList(copy.errors); // only copies size, not contents
         settings = new ParseSettings(copy.settings);
         trackPosition = copy.trackPosition;
+        compact = copy.compact;
+        this.tagSet = tagSet;
+    }
+
+    /**
+     Creates a copy of this parser, with a deep copy of its TagSet (if set), so that the copy can parse on another thread
+     with the same tags. Used by {@link ParsePool}.
+     */
+    Parser copyWithTags() {
+        return new Parser(this, tagSet != null ? tagSet.deepCopy() : null);
+    }
+
+    /**
+     Creates a copy of this parser for the Document it last parsed, which takes this parser's TagSet (holding the tags of
+     that Document); and resets this parser to a copy of the original's TagSet. Used by {@link ParsePool}, so that a
+     reused parser is not shared with the Documents it has made.
+     */
+    Parser handOff(Parser original) {
+        Parser docParser = new Parser(this, tagSet);
+        tagSet = original.tagSet != null ? original.tagSet.deepCopy() : null;
+        return docParser;
     }
 
     /**
@@ -70,7 +95,7 @@ public class Parser implements Cloneable {
      @return parsed Document
      */
     public Document parseInput(String html, String baseUri) {
-        return parseInput(new StringReader(html), baseUri);
+        return parseInput(new StringInput(html), baseUri);
     }
 
     /**
@@ -99,7 +124,7 @@ public class Parser implements Cloneable {
      @return list of nodes parsed from the input HTML.
      */
     public List<Node> parseFragmentInput(String fragment, @Nullable Element context, String baseUri) {
-        return parseFragmentInput(new StringReader(fragment), context, baseUri);
+        return parseFragmentInput(new StringInput(fragment), context, baseUri);
     }
 
     /**
@@ -176,6 +201,63 @@ public class Parser implements Cloneable {
         return this;
     }
 
+    /**
+     Apply a text edit to a Document that was parsed with position tracking enabled, replacing the source text from
+     {@code start} to {@code end} with the replacement, and updating the Document to match a parse of the edited
+     source. For example, an editor can use this to keep a Document current as the user types, passing its text as it
+     was before each edit.
+     <p>Where the edit falls within the content of a block container element (such as a {@code div} or a
+     {@code section}, with explicit start and end tags, and within other containers), only that content is re-parsed,
+     and the container's children are replaced. The source ranges of the following nodes are shifted to suit the edit.
+     If the edit can't be contained to an element's content (for example, if it adds an unclosed element, or an end
+     tag that would close the container, or if it is in the {@code head} or a table), the whole source is re-parsed,
+     and the Document's children are replaced. Either way, the result is the same as a fresh parse of the edited
+     source.</p>
+     <p>The Document must have been parsed by a Parser with {@link #setTrackPosition(boolean) position tracking}
+     enabled, and must not have been otherwise modified since the parse (or last reparse). The source is not retained by
+     the Document, so the caller supplies it, and applies the same edit to its copy for any later reparse. This parser's
+     settings are used for the reparse, so it should be configured as the parser that made the Document (e.g.
+     {@link Document#parser()}).</p>
+
+     @param doc the Document to update
+     @param source the Document's current source: the input it was parsed from, with any previous edits applied
+     @param start the start position of the edit, in the current source
+     @param end the end position of the edit (exclusive), in the current source
+     @param replacement the text to replace the edited range with; empty to delete it
+     @return the updated Document (the same instance)
+     @throws IllegalArgumentException if the Document's positions were not tracked, if the source's length does not
+     match the Document's, or if the edit range is not valid
+     @since 1.22.1
+     */
+    public Document reparse(Document doc, String source, int start, int end, String replacement) {
+        Validate.notNull(doc);
+        Reparser.reparse(this, doc, source, start, end, replacement);
+        return doc;
+    }
+
+    /**
+     Test if compact mode is enabled. By default, it is not.
+     @return true if parsed nodes are compacted
+     @see #setCompact(boolean)
+     @since 1.22.1
+     */
+    public boolean isCompact() {
+        return compact;
+    }
+
+    /**
+     Enable or disable compact mode. When enabled, the parsed document (or fragment nodes) are compacted after the
+     parse via {@link Element#compact()}, reducing the memory held per node. This suits documents that are kept in
+     memory and read, such as in a cache. The parse takes a little longer.
+     @param compact compact setting; {@code true} to enable
+     @return this Parser, for chaining
+     @since 1.22.1
+     */
+    public Parser setCompact(boolean compact) {
+        this.compact = compact;
+        return this;
+    }
+
     /**
      Update the ParseSettings of this Parser, to control the case sensitivity of tags and attributes.
      * @param settings the new settings
@@ -235,7 +317,7 @@ public class Parser implements Cloneable {
      */
     public static Document parse(String html, String baseUri) {
         TreeBuilder treeBuilder = new HtmlTreeBuilder();
-        return treeBuilder.parse(new StringReader(html), baseUri, new Parser(treeBuilder));
+        return treeBuilder.parse(new StringInput(html), baseUri, new Parser(treeBuilder));
     }
 
     /**
@@ -250,7 +332,7 @@ public class Parser implements Cloneable {
      */
     public static List<Node> parseFragment(String fragmentHtml, Element context, String baseUri) {
         HtmlTreeBuilder treeBuilder = new HtmlTreeBuilder();
-        return treeBuilder.parseFragment(new StringReader(fragmentHtml), context, baseUri, new Parser(treeBuilder));
+        return treeBuilder.parseFragment(new StringInput(fragmentHtml), context, baseUri, new Parser(treeBuilder));
     }
 
     /**
@@ -268,7 +350,7 @@ public class Parser implements Cloneable {
         HtmlTreeBuilder treeBuilder = new HtmlTreeBuilder();
         Parser parser = new Parser(treeBuilder);
         parser.errors = errorList;
-        return treeBuilder.parseFragment(new StringReader(fragmentHtml), context, baseUri, parser);
+        return treeBuilder.parseFragment(new StringInput(fragmentHtml), context, baseUri, parser);
     }
 
     /**
@@ -280,7 +362,7 @@ public class Parser implements Cloneable {
      */
     public static List<Node> parseXmlFragment(String fragmentXml, String baseUri) {
         XmlTreeBuilder treeBuilder = new XmlTreeBuilder();
-        return treeBuilder.parseFragment(new StringReader(fragmentXml), null, baseUri, new Parser(treeBuilder));
+        return treeBuilder.parseFragment(new StringInput(fragmentXml), null, baseUri, new Parser(treeBuilder));
     }
 
     /**
@@ -328,7 +410,7 @@ public class Parser implements Cloneable {
     public String unescape(String string, boolean inAttribute) {
         Validate.notNull(string);
         if (string.indexOf('&') < 0) return string; // nothing to unescape
-        this.treeBuilder.initialiseParse(new StringReader(string), "", this);
+        this.treeBuilder.initialiseParse(new StringInput(string), "", this);
         Tokeniser tokeniser = new Tokeniser(this.treeBuilder);
         return tokeniser.unescapeEntities(inAttribute);
     }
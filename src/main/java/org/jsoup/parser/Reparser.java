@@ -0,0 +1,281 @@
+package org.jsoup.parser;
+
+import org.jsoup.helper.Validate;
+import org.jsoup.internal.SharedConstants;
+import org.jsoup.nodes.Attributes;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.Range;
+import org.jsoup.select.NodeFilter;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.jsoup.parser.Parser.NamespaceHtml;
+
+/**
+ Applies a text edit to a parsed Document, for {@link Parser#reparse(Document, String, int, int, String)}.
+ <p>The edit is re-parsed in place when it falls within the content of a <i>container</i> element, with explicit start
+ and end tags, that the HTML tree builder parses in the same way however its content changes. Those are the elements in
+ {@link #Containers}, and those in {@link #Closable} (such as {@code p}), when all their ancestors are in
+ {@code Containers} (so the content is parsed in the <i>in body</i> insertion mode, and no start tag in it can close an
+ ancestor); and when no formatting element before the container or in its current content may still be on the list of
+ active formatting elements (as it would be reconstructed in the new content, or after the container).</p>
+ <p>The container's new content, followed by its end tag, is parsed as a fragment in the context of the container. The
+ result is used only if the fragment parsed without errors, and if its parse was self-contained: the container was
+ closed by its end tag, and every element the content opened was closed explicitly, or implicitly by a later token in
+ the content, or (for elements such as {@code p}) by the container's end tag (but not for {@code body}, as its end tag
+ doesn't close its open elements). Otherwise, a stray end tag or an unclosed element could have consumed the
+ container's end tag in a full parse, and so the whole document is re-parsed instead.</p>
+ <p>When the content is re-parsed, the container's children are replaced, and the source ranges of the nodes that
+ follow the edit are shifted.</p>
+ */
+final class Reparser {
+    /** Elements whose content the HTML tree builder parses independently of their tags. */
+    static final Set<String> Containers = new HashSet<>(Arrays.asList(
+        "body", "div", "section", "article", "main", "nav", "aside", "header", "footer", "address", "blockquote",
+        "center", "details", "dialog", "fieldset", "figcaption", "figure", "hgroup", "menu", "search", "summary", "ul",
+        "ol", "dl", "span"));
+
+    /**
+     Elements whose content can be re-parsed, but not that of their descendants, as a start tag in a descendant's content
+     could implicitly close them. (A start tag in their own content that closes them closes the fragment's context
+     element, which is detected.)
+     */
+    static final Set<String> Closable = new HashSet<>(Arrays.asList(
+        "p", "li", "dd", "dt", "h1", "h2", "h3", "h4", "h5", "h6"));
+
+    /** Formatting elements, which may be reconstructed after they have been implicitly closed. */
+    static final Set<String> Formatting = new HashSet<>(Arrays.asList(
+        "a", "b", "big", "code", "em", "font", "i", "nobr", "s", "small", "strike", "strong", "tt", "u"));
+
+    /** Elements that an end tag closes implicitly (via <i>generate implied end tags</i>). */
+    static final Set<String> ImpliedEnd = new HashSet<>(Arrays.asList(
+        "dd", "dt", "li", "optgroup", "option", "p", "rb", "rp", "rt", "rtc"));
+
+    private Reparser() {}
+
+    static void reparse(Parser parser, Document doc, String source, int start, int end, String replacement) {
+        Validate.notNull(source);
+        Range docEnd = doc.endSourceRange(); // the end of the source the document was parsed from
+        Validate.isTrue(docEnd.isTracked(), "The document must be parsed with position tracking enabled, to reparse it");
+        Validate.isTrue(docEnd.endPos() == source.length(), "The source must be the document's current source");
+        Validate.isTrue(start >= 0 && start <= end && end <= source.length(), "Invalid edit range");
+        Validate.notNull(replacement);
+
+        String updated = source.substring(0, start) + replacement + source.substring(end);
+        Parser reparser = parser.newInstance().setTrackPosition(true);
+        if (!reparseContent(reparser, doc, updated, start, end, replacement.length() - (end - start)))
+            reparseAll(reparser, doc, updated);
+    }
+
+    /** Re-parses the content of the container enclosing the edit, if there is one, and if its parse is contained. */
+    private static boolean reparseContent(Parser parser, Document doc, String updated, int start, int end, int delta) {
+        if (!(parser.getTreeBuilder() instanceof HtmlTreeBuilder)) return false;
+        Element container = container(doc, start, end);
+        if (container == null) return false;
+        int contentStart = container.sourceRange().endPos();
+        int contentEnd = container.endSourceRange().startPos();
+        if (!childrenWithin(container, contentStart, contentEnd) || hasOpenFormatting(doc, container)) return false;
+
+        // parse the content followed by the container's end tag, which closes it as in the full parse
+        String content = updated.substring(contentStart, contentEnd + delta);
+        String endTag = "</" + container.normalName() + ">";
+        parser.setTrackErrors(1);
+        List<Node> nodes = parser.parseFragmentInput(content + endTag, container, container.baseUri());
+        if (!parser.getErrors().isEmpty() || !isContained(nodes, content, !container.nameIs("body")))
+            return false;
+
+        // the edit is good to apply. Shift the ranges that follow the content, then replace the content
+        LineIndex lines = new LineIndex(updated);
+        doc.filter(new NodeFilter() {
+            @Override public FilterResult head(Node node, int depth) {
+                if (node.parent() == container) return FilterResult.SKIP_ENTIRELY; // replaced
+                if (node != container) shiftRanges(node, true, contentEnd, delta, lines);
+                shiftRanges(node, false, contentEnd, delta, lines);
+                return FilterResult.CONTINUE;
+            }
+        });
+
+        container.empty();
+        container.appendChildren(new ArrayList<>(nodes));
+        for (Node node : nodes) {
+            node.traverse((child, depth) -> {
+                shiftRanges(child, true, 0, contentStart, lines);
+                shiftRanges(child, false, 0, contentStart, lines);
+            });
+        }
+        doc.attributes().userData(SharedConstants.LinesKey, lines);
+        return true;
+    }
+
+    private static void reparseAll(Parser parser, Document doc, String updated) {
+        Document parsed = parser.parseInput(updated, doc.location());
+        doc.empty();
+        doc.quirksMode(parsed.quirksMode());
+        doc.appendChildren(new ArrayList<>(parsed.childNodes()));
+        doc.attributes()
+            .userData(SharedConstants.RangeKey, parsed.sourceRange())
+            .userData(SharedConstants.EndRangeKey, parsed.endSourceRange())
+            .userData(SharedConstants.LinesKey, parsed.lineIndex());
+    }
+
+    /**
+     Finds the innermost container element whose content encloses the edit, descending through the elements that
+     enclose it while they are containers (or the html root).
+     */
+    private static @Nullable Element container(Document doc, int start, int end) {
+        Element found = null;
+        Element parent = doc;
+        descend:
+        while (true) {
+            for (Element el = parent.firstElementChild(); el != null; el = el.nextElementSibling()) {
+                Range open = el.sourceRange(), close = el.endSourceRange();
+                if (!open.isTracked() || !close.isTracked() || open.endPos() > start || end > close.startPos())
+                    continue;
+
+                boolean isContainer = isContainer(el);
+                if ((isContainer || isClosable(el)) && !open.isImplicit() && !close.isImplicit())
+                    found = el;
+                if (!isContainer && !el.nameIs("html"))
+                    return found; // the content of a descendant can't be parsed independently, as it could close el
+                parent = el;
+                continue descend;
+            }
+            return found;
+        }
+    }
+
+    private static boolean isContainer(Element el) {
+        return Containers.contains(el.normalName()) && isInBody(el);
+    }
+
+    private static boolean isClosable(Element el) {
+        return Closable.contains(el.normalName()) && isInBody(el);
+    }
+
+    private static boolean isInBody(Element el) {
+        if (!el.tag().namespace().equals(NamespaceHtml)) return false;
+        // if foster parented (out of a table), its content is parsed in the table insertion mode
+        Element next = el.nextElementSibling();
+        return next == null || next.sourceRange().startPos() > el.sourceRange().startPos();
+    }
+
+    /**
+     Tests that the descendant nodes are tracked, and were parsed from within the content. (Content after the body's end
+     tag is parsed into the body's open elements, so an element may hold nodes from past its parent's end.)
+     */
+    private static boolean childrenWithin(Element el, int contentStart, int contentEnd) {
+        for (Node child : el.childNodes()) {
+            boolean within = child.nodeStream().allMatch(node -> {
+                Range range = node.sourceRange();
+                if (!range.isTracked() || range.startPos() < contentStart || range.endPos() > contentEnd) return false;
+                if (!(node instanceof Element)) return true;
+                Range end = ((Element) node).endSourceRange();
+                return !end.isTracked() || end.endPos() <= contentEnd;
+            });
+            if (!within) return false;
+        }
+        return true;
+    }
+
+    /**
+     Tests if a formatting element preceding the container, or in its current content, was closed without an end tag,
+     and so may still be on the list of active formatting elements (to be reconstructed in the new content, or after
+     the container).
+     */
+    private static boolean hasOpenFormatting(Document doc, Element container) {
+        boolean[] found = {false};
+        doc.filter(new NodeFilter() {
+            @Override public FilterResult head(Node node, int depth) {
+                if (node instanceof Element && Formatting.contains(node.normalName()) &&
+                    !isExplicit(((Element) node).endSourceRange())) {
+                    found[0] = true;
+                    return FilterResult.STOP;
+                }
+                return FilterResult.CONTINUE;
+            }
+
+            @Override public FilterResult tail(Node node, int depth) {
+                return node == container ? FilterResult.STOP : FilterResult.CONTINUE;
+            }
+        });
+        return found[0];
+    }
+
+    /** Tests that the fragment's elements were closed in the fragment, as they would be in a full parse. */
+    private static boolean isContained(List<Node> nodes, String content, boolean closesImplied) {
+        if (nodes.isEmpty()) return true;
+        int length = content.length();
+        Node root = nodes.get(0).parentNode(); // the fragment's context element
+        if (!(root instanceof Element) || ((Element) root).endSourceRange().startPos() != length)
+            return false; // was closed by an end tag in the content, or not closed by the container's end tag
+
+        for (Node node : nodes) {
+            if (!(node instanceof Element)) continue;
+            if (!((Element) node).stream().allMatch(el -> isClosed(el, content, closesImplied))) return false;
+        }
+        return true;
+    }
+
+    private static boolean isClosed(Element el, String content, boolean closesImplied) {
+        Tag tag = el.tag();
+        if (tag.isEmpty() || tag.isSelfClosing()) return true;
+        Range close = el.endSourceRange();
+        if (!close.isTracked()) return false;
+        if (tag.textState() != null) { // as the tokeniser may end the text early if it can't find the end tag ahead
+            String endTag = "</" + el.normalName();
+            return !close.isImplicit() && content.regionMatches(true, close.startPos(), endTag, 0, endTag.length());
+        }
+        int length = content.length();
+        if (!close.isImplicit()) return true;
+        if (Formatting.contains(el.normalName())) return false; // would stay on the active formatting elements
+        return close.startPos() < length // closed by a token in the content
+            || closesImplied && close.startPos() == length && ImpliedEnd.contains(el.normalName()); // by the end tag
+    }
+
+    private static boolean isExplicit(Range range) {
+        return range.isTracked() && !range.isImplicit();
+    }
+
+    /**
+     Shifts the tracked positions of the node's start (or end) range, and of its attributes' ranges, that are at or
+     after {@code from}, by {@code delta}.
+     */
+    private static void shiftRanges(Node node, boolean start, int from, int delta, LineIndex lines) {
+        Range range = start ? node.sourceRange() : node instanceof Element ? ((Element) node).endSourceRange() : null;
+        if (range == null || !range.isTracked()) return; // (so the node has attributes)
+        Attributes attributes = node.attributes();
+        attributes.userData(start ? SharedConstants.RangeKey : SharedConstants.EndRangeKey,
+            shift(range, from, delta, lines));
+
+        if (start && node instanceof Element) {
+            //noinspection unchecked
+            Map<String, Range.AttributeRange> ranges =
+                (Map<String, Range.AttributeRange>) attributes.userData(SharedConstants.AttrRangeKey);
+            if (ranges != null) { // replaced, not modified, as a reconstructed formatting element shares its original's
+                Map<String, Range.AttributeRange> shifted = new HashMap<>();
+                ranges.forEach((key, attr) -> shifted.put(key, new Range.AttributeRange(
+                    shift(attr.nameRange(), from, delta, lines), shift(attr.valueRange(), from, delta, lines))));
+                attributes.userData(SharedConstants.AttrRangeKey, shifted);
+            }
+        }
+    }
+
+    private static Range shift(Range range, int from, int delta, LineIndex lines) {
+        if (!range.isTracked()) return range;
+        return new Range(shift(range.start(), from, delta, lines), shift(range.end(), from, delta, lines));
+    }
+
+    private static Range.Position shift(Range.Position pos, int from, int delta, LineIndex lines) {
+        if (!pos.isTracked() || pos.pos() < from) return pos;
+        return lines.position(pos.pos() + delta);
+    }
+}
@@ -0,0 +1,24 @@
+package org.jsoup.parser;
+
+import java.io.StringReader;
+
+/**
+ A Reader of a String, passed by the Parser methods that take a String. A {@link CharacterReader} created with it reads
+ a short String's chars directly, rather than through its pooled buffer.
+ */
+final class StringInput extends StringReader {
+    private final String input;
+
+    StringInput(String input) {
+        super(input);
+        this.input = input;
+    }
+
+    int length() {
+        return input.length();
+    }
+
+    char[] toChars() {
+        return input.toCharArray();
+    }
+}
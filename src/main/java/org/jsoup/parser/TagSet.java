@@ -43,6 +43,24 @@ public class TagSet {
         this.source = original;
     }
 
+    /**
+     Copies this TagSet, and the sources that it pulls tags through, so that the copy does not modify or look up into
+     anything that this TagSet does (except a source without its own source, which lookups don't modify). Used when
+     copying a Parser for a {@link ParsePool}, so that the copy can be used on another thread.
+     */
+    TagSet deepCopy() {
+        TagSet copy = source == null ? new TagSet() : new TagSet(source.source != null ? source.deepCopy() : source);
+        for (Map.Entry<String, Map<String, Tag>> ns : tags.entrySet()) {
+            Map<String, Tag> nsCopy = new HashMap<>(ns.getValue().size());
+            for (Map.Entry<String, Tag> tag : ns.getValue().entrySet())
+                nsCopy.put(tag.getKey(), tag.getValue().clone());
+            copy.tags.put(ns.getKey(), nsCopy);
+        }
+        if (customizers != null)
+            copy.customizers = new ArrayList<>(customizers);
+        return copy;
+    }
+
     /**
      Insert a tag into this TagSet. If the tag already exists, it is replaced.
      <p>Tags explicitly added like this are considered to be known tags (vs those that are dynamically created via
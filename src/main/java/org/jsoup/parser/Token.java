@@ -181,12 +181,8 @@ abstract class Token {
                 if (!attrValue.hasData()) attrValStart = attrValEnd = attrNameEnd;
 
                 Range.AttributeRange range = new Range.AttributeRange(
-                    new Range(
-                        new Range.Position(attrNameStart, r.lineNumber(attrNameStart), r.columnNumber(attrNameStart)),
-                        new Range.Position(attrNameEnd, r.lineNumber(attrNameEnd), r.columnNumber(attrNameEnd))),
-                    new Range(
-                        new Range.Position(attrValStart, r.lineNumber(attrValStart), r.columnNumber(attrValStart)),
-                        new Range.Position(attrValEnd, r.lineNumber(attrValEnd), r.columnNumber(attrValEnd)))
+                    new Range(r.position(attrNameStart), r.position(attrNameEnd)),
+                    new Range(r.position(attrValStart), r.position(attrValEnd))
                 );
                 attributes.sourceRange(name, range);
             }
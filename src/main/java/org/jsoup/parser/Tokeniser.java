@@ -130,6 +130,7 @@ final class Tokeniser {
 
     final private int[] codepointHolder = new int[1]; // holder to not have to keep creating arrays
     final private int[] multipointHolder = new int[2];
+    final private int[] nameMatch = new int[3]; // holder for Entities.matchName
 
     /** Tries to consume a character reference, and returns: null if nothing, int[1], or int[2]. */
     int @Nullable [] consumeCharacterReference(@Nullable Character additionalAllowedCharacter, boolean inAttribute) {
@@ -179,23 +180,25 @@ final class Tokeniser {
             }
             return codeRef;
         } else { // named
-            // get as many letters as possible, and look for matching entities.
-            String nameRef = reader.consumeLetterThenDigitSequence();
-            boolean looksLegit = reader.matches(';');
-            // found if a base named entity without a ;, or an extended entity with the ;.
-            boolean found = (Entities.isBaseNamedEntity(nameRef) || (Entities.isNamedEntity(nameRef) && looksLegit));
+            // match as many letters then digits as possible against the entity names, without creating a String. found
+            // if a base named entity without a ;, or an extended entity with the ;
+            final int[] match = nameMatch;
+            int length = reader.matchNamedReference(match);
+            boolean found = length > 0 && length == match[0];
 
             if (!found) {
-                reader.rewindToMark();
-                if (looksLegit) // named with semicolon
-                    characterReferenceError("invalid named reference [%s]", nameRef);
-                if (inAttribute) return null;
-                // check if there's a base prefix match; consume and use that if so
-                String prefix = Entities.findPrefix(nameRef);
-                if (prefix.isEmpty()) return null;
-                reader.matchConsume(prefix);
-                nameRef = prefix;
+                if (errors.canAddError()) {
+                    String nameRef = reader.peek(match[0] + 1);
+                    if (nameRef.endsWith(";")) // named with semicolon
+                        characterReferenceError("invalid named reference [%s]", nameRef.substring(0, match[0]));
+                }
+                if (inAttribute || length == 0) { // else use the base prefix match
+                    reader.rewindToMark();
+                    return null;
+                }
             }
+            String nameRef = errors.canAddError() ? reader.peek(length) : ""; // for error messages
+            reader.advance(length);
             if (inAttribute && (reader.matchesAsciiAlpha() || reader.matchesDigit() || reader.matchesAny('=', '-', '_'))) {
                 // don't want that to match
                 reader.rewindToMark();
@@ -205,14 +208,12 @@ final class Tokeniser {
             reader.unmark();
             if (!reader.matchConsume(";"))
                 characterReferenceError("missing semicolon on [&%s]", nameRef); // missing semi
-            int numChars = Entities.codepointsForName(nameRef, multipointHolder);
-            if (numChars == 1) {
-                codeRef[0] = multipointHolder[0];
+            if (match[2] == -1) {
+                codeRef[0] = match[1];
                 return codeRef;
-            } else if (numChars ==2) {
-                return multipointHolder;
             } else {
-                Validate.fail("Unexpected characters returned for " + nameRef);
+                multipointHolder[0] = match[1];
+                multipointHolder[1] = match[2];
                 return multipointHolder;
             }
         }
@@ -356,7 +356,7 @@ enum TokeniserState {
                     t.emit(replacementChar);
                     break;
                 default:
-                    String data = r.consumeToAny('-', '<', nullChar);
+                    String data = r.consumeToAny(scriptDataEscapedDelims);
                     t.emit(data);
             }
         }
@@ -482,7 +482,7 @@ enum TokeniserState {
                     t.transition(Data);
                     break;
                 default:
-                    String data = r.consumeToAny('-', '<', nullChar);
+                    String data = r.consumeToAny(scriptDataEscapedDelims);
                     t.emit(data);
             }
         }
@@ -611,7 +611,7 @@ enum TokeniserState {
         // from before attribute name
         @Override void read(Tokeniser t, CharacterReader r) {
             int pos = r.pos();
-            String name = r.consumeToAnySorted(attributeNameCharsSorted); // spec deviate - consume and emit nulls in one hit vs stepping
+            String name = r.consumeToAny(attributeNameDelims); // spec deviate - consume and emit nulls in one hit vs stepping
             t.tagPending.appendAttributeName(name, pos, r.pos());
 
             pos = r.pos();
@@ -821,7 +821,7 @@ enum TokeniserState {
     AttributeValue_unquoted {
         @Override void read(Tokeniser t, CharacterReader r) {
             int pos = r.pos();
-            String value = r.consumeToAnySorted(attributeValueUnquoted);
+            String value = r.consumeToAny(attributeValueUnquotedDelims);
             if (value.length() > 0)
                 t.tagPending.appendAttributeValue(value, pos, r.pos());
 
@@ -1048,7 +1048,7 @@ enum TokeniserState {
                     t.transition(Data);
                     break;
                 default:
-                    t.commentPending.append(r.consumeToAny('-', nullChar));
+                    t.commentPending.append(r.consumeToAny(commentDelims));
             }
         }
     },
@@ -1662,6 +1662,10 @@ enum TokeniserState {
     // char searches. must be sorted, used in inSorted. MUST update TokeniserStateTest if more arrays are added.
     static final char[] attributeNameCharsSorted = new char[]{'\t', '\n', '\f', '\r', ' ', '"', '\'', '/', '<', '=', '>', '?'};
     static final char[] attributeValueUnquoted = new char[]{nullChar, '\t', '\n', '\f', '\r', ' ', '"', '&', '\'', '<', '=', '>', '`'};
+    private static final CharacterReader.Delimiters attributeNameDelims = new CharacterReader.Delimiters(attributeNameCharsSorted);
+    private static final CharacterReader.Delimiters attributeValueUnquotedDelims = new CharacterReader.Delimiters(attributeValueUnquoted);
+    private static final CharacterReader.Delimiters scriptDataEscapedDelims = new CharacterReader.Delimiters('-', '<', nullChar);
+    private static final CharacterReader.Delimiters commentDelims = new CharacterReader.Delimiters('-', nullChar);
 
     private static final char replacementChar = Tokeniser.replacementChar;
     private static final String replacementStr = String.valueOf(Tokeniser.replacementChar);
@@ -65,6 +65,8 @@ abstract class TreeBuilder {
     void completeParse() {
         // tidy up - as the Parser and Treebuilder are retained in document for settings / fragments
         if (reader == null) return;
+        if (trackSourceRange && reader.lineIndex() != null) // keep the line index, for lookups after the parse
+            doc.attributes().userData(SharedConstants.LinesKey, reader.lineIndex());
         reader.close();
         reader = null;
         tokeniser = null;
@@ -74,6 +76,7 @@ abstract class TreeBuilder {
     Document parse(Reader input, String baseUri, Parser parser) {
         initialiseParse(input, baseUri, parser);
         runParser();
+        if (parser.isCompact()) doc.compact();
         return doc;
     }
 
@@ -81,7 +84,13 @@ abstract class TreeBuilder {
         initialiseParse(inputFragment, baseUri, parser);
         initialiseParseFragment(context);
         runParser();
-        return completeParseFragment();
+        List<Node> nodes = completeParseFragment();
+        if (parser.isCompact()) {
+            for (Node node : nodes) {
+                if (node instanceof Element) ((Element) node).compact();
+            }
+        }
+        return nodes;
     }
 
     void initialiseParseFragment(@Nullable Element context) {
@@ -299,11 +308,7 @@ abstract class TreeBuilder {
             }
         }
 
-        Range.Position startPosition = new Range.Position
-            (startPos, reader.lineNumber(startPos), reader.columnNumber(startPos));
-        Range.Position endPosition = new Range.Position
-            (endPos, reader.lineNumber(endPos), reader.columnNumber(endPos));
-        Range range = new Range(startPosition, endPosition);
+        Range range = new Range(reader.position(startPos), reader.position(endPos));
         node.attributes().userData(isStart ? SharedConstants.RangeKey : SharedConstants.EndRangeKey, range);
     }
 }
@@ -2,7 +2,6 @@ package org.jsoup.parser;
 
 import org.jsoup.helper.Validate;
 import org.jsoup.internal.SharedConstants;
-import org.jsoup.nodes.Attribute;
 import org.jsoup.nodes.Attributes;
 import org.jsoup.nodes.CDataNode;
 import org.jsoup.nodes.Comment;
@@ -19,7 +18,6 @@ import org.jsoup.select.Elements;
 import org.jspecify.annotations.Nullable;
 
 import java.io.Reader;
-import java.io.StringReader;
 import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.List;
@@ -85,7 +83,7 @@ public class XmlTreeBuilder extends TreeBuilder {
     }
 
     Document parse(String input, String baseUri) {
-        return parse(new StringReader(input), baseUri, new Parser(this));
+        return parse(new StringInput(input), baseUri, new Parser(this));
     }
 
     @Override List<Node> completeParseFragment() {
@@ -171,29 +169,28 @@ public class XmlTreeBuilder extends TreeBuilder {
 
     private static void processNamespaces(Attributes attributes, HashMap<String, String> namespaces) {
         // process attributes for namespaces (xmlns, xmlns:)
-        for (Attribute attr : attributes) {
-            String key = attr.getKey();
-            String value = attr.getValue();
+        attributes.forEachKeyValue((key, value) -> {
             if (key.equals(XmlnsKey)) {
                 namespaces.put("", value); // new default for this level
             } else if (key.startsWith(XmlnsPrefix)) {
                 String nsPrefix = key.substring(XmlnsPrefix.length());
                 namespaces.put(nsPrefix, value);
             }
-        }
+        });
     }
 
     private static void applyNamespacesToAttributes(Attributes attributes, HashMap<String, String> namespaces) {
         // second pass, apply namespace to attributes. Collects them first then adds (as userData is an attribute)
         Map<String, String> attrPrefix = new HashMap<>();
-        for (Attribute attr: attributes) {
-            String prefix = attr.prefix();
-            if (!prefix.isEmpty()) {
-                if (prefix.equals(XmlnsKey)) continue;
+        attributes.forEachKeyValue((key, value) -> {
+            int pos = key.indexOf(':');
+            if (pos > 0) { // has a prefix
+                String prefix = key.substring(0, pos);
+                if (prefix.equals(XmlnsKey)) return;
                 String ns = namespaces.get(prefix);
                 if (ns != null) attrPrefix.put(SharedConstants.XmlnsAttr + prefix, ns);
             }
-        }
+        });
         for (Map.Entry<String, String> entry : attrPrefix.entrySet())
             attributes.userData(entry.getKey(), entry.getValue());
     }
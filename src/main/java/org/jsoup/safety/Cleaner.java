@@ -3,16 +3,21 @@ package org.jsoup.safety;
 import org.jsoup.helper.Validate;
 import org.jsoup.nodes.Attribute;
 import org.jsoup.nodes.Attributes;
+import org.jsoup.nodes.CDataNode;
 import org.jsoup.nodes.DataNode;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
 import org.jsoup.nodes.TextNode;
-import org.jsoup.parser.ParseErrorList;
 import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
 import org.jsoup.select.NodeVisitor;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
 
 import static org.jsoup.internal.SharedConstants.DummyUri;
 
@@ -65,6 +70,10 @@ public class Cleaner {
      tags and attributes in the input HTML are allowed by the safelist, and that there is no content in the
      <code>head</code>.
      <p>
+     The document is checked without being copied, and the check stops at the first node or attribute that is not
+     allowed.
+     </p>
+     <p>
      This method is intended to be used in a user interface as a validator for user input. Note that regardless of the
      output of this method, the input document <b>must always</b> be normalized using a method such as
      {@link #clean(Document)}, and the result of that method used to store or serialize the document before later reuse
@@ -85,10 +94,8 @@ public class Cleaner {
     public boolean isValid(Document dirtyDocument) {
         Validate.notNull(dirtyDocument);
 
-        Document clean = Document.createShell(dirtyDocument.baseUri());
-        int numDiscarded = copySafeNodes(dirtyDocument.body(), clean.body());
-        return numDiscarded == 0
-            && dirtyDocument.head().childNodes().isEmpty(); // because we only look at the body, but we start from a shell, make sure there's nothing in the head
+        return dirtyDocument.head().childNodes().isEmpty() // because we only look at the body, make sure there's nothing in the head
+            && isSafeDescendants(dirtyDocument.body());
     }
 
     /**
@@ -113,14 +120,234 @@ public class Cleaner {
      @return true if no tags or attributes need to be removed; false if they do
      */
     public boolean isValidBodyHtml(String bodyHtml) {
+        try {
+            return isValidBodyHtml(new StringReader(bodyHtml));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // can't happen with a StringReader
+        }
+    }
+
+    /**
+     Determines if the input <b>body HTML</b> is valid, against the safelist, reading it as it is parsed. It is
+     considered valid if it parses without errors, and all the tags and attributes in it are allowed by the safelist.
+     <p>
+     Each element is checked as the parser completes it, so the check stops at the first parse error, or the first node
+     or attribute that is not allowed, without reading the rest of the input. That lets large invalid input be rejected
+     after reading only its prefix. If the input is valid, the whole fragment is then confirmed, once parsed.
+     </p>
+     <p>
+     As with {@link #isValidBodyHtml(String)}, the input <b>must always</b> be normalized with a method such as
+     {@link #clean(Document)} or {@link #streamClean(Reader, String, Appendable)} before later reuse.
+     </p>
+     @param bodyHtml the input HTML (a body fragment) to test; read and closed
+     @return true if it parses without errors, and no tags or attributes need to be removed; false if not
+     @throws IOException if an I/O error occurs reading the input
+     @since 1.22.1
+     */
+    public boolean isValidBodyHtml(Reader bodyHtml) throws IOException {
+        Validate.notNullParam(bodyHtml, "bodyHtml");
         String baseUri = (safelist.preserveRelativeLinks()) ? DummyUri : ""; // fake base URI to allow relative URLs to remain valid
-        Document clean = Document.createShell(baseUri);
-        Document dirty = Document.createShell(baseUri);
-        ParseErrorList errorList = ParseErrorList.tracking(1);
-        List<Node> nodes = Parser.parseFragment(bodyHtml, dirty.body(), baseUri, errorList);
-        dirty.body().insertChildren(0, nodes);
-        int numDiscarded = copySafeNodes(dirty.body(), clean.body());
-        return numDiscarded == 0 && errorList.isEmpty();
+        Element context = Document.createShell(baseUri).body();
+        Parser parser = Parser.htmlParser().setTrackErrors(1);
+
+        try (StreamParser streamer = new StreamParser(parser)) {
+            streamer.parseFragment(bodyHtml, context, baseUri);
+            Element root = streamer.document().firstElementChild(); // the fragment's context element
+            Validate.notNull(root);
+            Iterator<Element> it = streamer.iterator();
+            while (it.hasNext()) {
+                Element el = it.next();
+                if (!parser.getErrors().isEmpty()) return false;
+                if (el != root && !(el instanceof Document) && !isSafeElement(el)) return false;
+            }
+            // emitted elements may be moved by the tree builder after they were checked, so confirm the final tree
+            return parser.getErrors().isEmpty() && isSafeDescendants(root);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     Cleans the input body HTML, and writes the safe HTML to the supplied Appendable, as the input is parsed. Unlike
+     {@link #clean(Document)}, no clean copy of the document is built: each top-level node is cleaned in place and
+     written once it has been parsed, and then discarded. So memory use is bounded by the largest top-level node, not
+     by the whole input.
+     <p>Once the content to write contains a {@code template} element, it and the rest of the input are held and written
+     at the end, as the tree builder may insert into a template after it (or its parent) has been closed, when resetting
+     the insertion mode.</p>
+     <p>The output is the same as {@link org.jsoup.Jsoup#clean(String, String, Safelist, Document.OutputSettings)
+     Jsoup.clean()} with pretty-printing disabled.</p>
+     @param bodyHtml the untrusted input HTML (a body fragment); read and closed
+     @param baseUri the URL to resolve relative URLs against
+     @param accum the Appendable to write the clean HTML to
+     @param <T> the Appendable type
+     @return the supplied Appendable, for chaining
+     @throws IOException if an I/O error occurs reading the input
+     @throws org.jsoup.SerializationException if the Appendable throws an IOException
+     @since 1.22.1
+     */
+    public <T extends Appendable> T streamClean(Reader bodyHtml, String baseUri, T accum) throws IOException {
+        Validate.notNullParam(bodyHtml, "bodyHtml");
+        Validate.notNullParam(baseUri, "baseUri");
+        Validate.notNullParam(accum, "accum");
+        if (baseUri.isEmpty() && safelist.preserveRelativeLinks())
+            baseUri = DummyUri; // as in Jsoup.clean: allows relative links to pass the protocol tests; won't leak to output
+
+        Element context = Document.createShell(baseUri).body();
+        Document out = Document.createShell(baseUri);
+        out.outputSettings().prettyPrint(false);
+        Element holder = out.body(); // cleaned nodes are moved here to be written
+
+        try (StreamParser streamer = new StreamParser(Parser.htmlParser())) {
+            streamer.parseFragment(bodyHtml, context, baseUri);
+            Element root = streamer.document().firstElementChild(); // the fragment's context element
+            Validate.notNull(root);
+            Iterator<Element> it = streamer.iterator();
+            boolean hold = false; // set once a template is seen, as content may be inserted into it after it's closed
+            while (it.hasNext()) {
+                Element el = it.next();
+                // Once a top-level element is closed, its preceding siblings won't be modified by the tree builder. (It
+                // may still be moved out of, by the adoption agency, until closed; so it's held until the next one.)
+                if (!hold && el.parentNode() == root) {
+                    hold = hasTemplateBefore(root, el);
+                    if (hold) continue;
+                    Node prev;
+                    while ((prev = root.firstChild()) != el && prev != null)
+                        holder.appendChild(prev);
+                    writeClean(holder, accum);
+                }
+            }
+            // the rest; and content may have been added outside the root
+            holder.appendChildren(root.childNodes());
+            holder.appendChildren(root.siblingNodes());
+            writeClean(holder, accum);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return accum;
+    }
+
+    /** Tests if any of the root's children before the element are, or contain, a template. */
+    private static boolean hasTemplateBefore(Element root, Element el) {
+        for (Node node = root.firstChild(); node != el && node != null; node = node.nextSibling()) {
+            if (node instanceof Element && ((Element) node).stream().anyMatch(e -> e.nameIs("template")))
+                return true;
+        }
+        return false;
+    }
+
+    private void writeClean(Element holder, Appendable accum) {
+        if (holder.childNodeSize() == 0) return;
+        cleanInPlace(holder);
+        holder.html(accum);
+        holder.empty();
+    }
+
+    /**
+     Cleans the descendants of the root in place: unsafe elements are unwrapped, unsafe attributes removed and enforced
+     attributes added, and other unsafe nodes removed. The result is the same as {@link #copySafeNodes(Element,
+    Element)}, without the copy.
+     @return the number of nodes and attributes discarded
+     */
+    private int cleanInPlace(Element root) {
+        int numDiscarded = 0;
+        Element parent = root;
+        Node node = root.firstChild();
+        while (true) {
+            if (node == null) { // end of the parent's children; ascend
+                Element up = parent.parent();
+                if (parent == root || up == null) break;
+                node = parent.nextSibling();
+                parent = up;
+                continue;
+            }
+
+            Node next = node.nextSibling();
+            if (node instanceof Element) {
+                Element el = (Element) node;
+                if (safelist.isSafeTag(el.normalName())) {
+                    numDiscarded += cleanAttributes(el);
+                    parent = el; // descend
+                    next = el.firstChild();
+                } else {
+                    numDiscarded++;
+                    // data (e.g. in a script) is only kept in a safe parent; then the children are hoisted, and visited
+                    for (DataNode data : el.dataNodes()) {
+                        data.remove();
+                        numDiscarded++;
+                    }
+                    Node first = el.firstChild();
+                    el.unwrap();
+                    if (first != null) next = first;
+                }
+            } else if (node instanceof TextNode) {
+                if (node instanceof CDataNode) // as text, same as the copy
+                    node.replaceWith(new TextNode(((TextNode) node).getWholeText()));
+            } else if (!(node instanceof DataNode && safelist.isSafeTag(parent.normalName()))) {
+                node.remove(); // comments, xml declarations, etc
+                numDiscarded++;
+            }
+            node = next;
+        }
+        return numDiscarded;
+    }
+
+    /** Removes unsafe attributes from the element, and adds any enforced attributes. Returns the count removed. */
+    private int cleanAttributes(Element el) {
+        int numDiscarded = 0;
+        String tagName = el.normalName();
+        for (Iterator<Attribute> it = el.attributes().iterator(); it.hasNext(); ) {
+            if (!safelist.isSafeAttribute(tagName, el, it.next())) {
+                it.remove();
+                numDiscarded++;
+            }
+        }
+        el.attributes().addAll(enforcedAttributes(el));
+        return numDiscarded;
+    }
+
+    /**
+     Tests if all the descendants of the root, and their attributes, are allowed; stopping at the first that is not.
+     Equivalent to testing that {@link #copySafeNodes(Element, Element)} discards nothing, without the copy.
+     */
+    private boolean isSafeDescendants(Element root) {
+        Node node = root.firstChild();
+        while (node != null) {
+            if (!isSafeNode(node)) return false;
+            Node next = node.firstChild();
+            while (next == null && node != root) { // no children, so the next sibling, or ascend
+                next = node.nextSibling();
+                if (next == null) node = node.parentNode();
+            }
+            node = next;
+        }
+        return true;
+    }
+
+    private boolean isSafeNode(Node node) {
+        if (node instanceof Element) {
+            Element el = (Element) node;
+            if (!safelist.isSafeTag(el.normalName())) return false;
+            if (el.attributesSize() > 0) {
+                String tagName = el.normalName();
+                for (Attribute attr : el.attributes()) {
+                    if (!safelist.isSafeAttribute(tagName, el, attr)) return false;
+                }
+            }
+            return true;
+        }
+        if (node instanceof TextNode) return true;
+        Element parent = node.parentElement();
+        return node instanceof DataNode && parent != null && safelist.isSafeTag(parent.normalName());
+    }
+
+    /** Tests if the element, its attributes, and its child nodes other than elements, are allowed. */
+    private boolean isSafeElement(Element el) {
+        if (!isSafeNode(el)) return false;
+        for (Node child = el.firstChild(); child != null; child = child.nextSibling()) {
+            if (!(child instanceof Element) && !isSafeNode(child)) return false;
+        }
+        return true;
     }
 
     /**
@@ -178,7 +405,7 @@ public class Cleaner {
 
     private ElementMeta createSafeElement(Element sourceEl) {
         Element dest = sourceEl.shallowClone(); // reuses tag, clones attributes and preserves any user data
-        String sourceTag = sourceEl.tagName();
+        String sourceTag = sourceEl.normalName();
         Attributes destAttrs = dest.attributes();
         dest.clearAttributes(); // clear all non-internal attributes, ready for safe copy
 
@@ -192,7 +419,13 @@ public class Cleaner {
         }
 
 
-        Attributes enforcedAttrs = safelist.getEnforcedAttributes(sourceTag);
+        destAttrs.addAll(enforcedAttributes(sourceEl));
+        dest.attributes().addAll(destAttrs); // re-attach, if removed in clear
+        return new ElementMeta(dest, numDiscarded);
+    }
+
+    private Attributes enforcedAttributes(Element sourceEl) {
+        Attributes enforcedAttrs = safelist.getEnforcedAttributes(sourceEl.normalName());
         // special case for <a href rel=nofollow>, only apply to external links:
         if (sourceEl.nameIs("a") && enforcedAttrs.get("rel").equals("nofollow")) {
             String href = sourceEl.absUrl("href");
@@ -201,10 +434,7 @@ public class Cleaner {
                 enforcedAttrs.remove("rel");
             }
         }
-
-        destAttrs.addAll(enforcedAttrs);
-        dest.attributes().addAll(destAttrs); // re-attach, if removed in clear
-        return new ElementMeta(dest, numDiscarded);
+        return enforcedAttrs;
     }
 
     private static class ElementMeta {
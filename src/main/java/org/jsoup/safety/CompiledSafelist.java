@@ -0,0 +1,237 @@
+package org.jsoup.safety;
+
+import org.jsoup.nodes.Attribute;
+import org.jsoup.nodes.Attributes;
+import org.jsoup.nodes.Element;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.jsoup.internal.Normalizer.lowerCase;
+
+/**
+ An immutable {@link Safelist}, with its configuration precomputed into per-tag lookup tables. Created by
+ {@link Safelist#compile()}.
+ <p>Rules are keyed by the normal (lower-case) tag name, rather than by {@link org.jsoup.parser.Tag}, as each parser
+ holds its own copies of the Tags. For each tag, the allowed and enforced attribute keys are held in sorted arrays, and
+ the allowed protocols are held as prefixes ready to match. A tag name or attribute key is looked up as is first, as it
+ is normally already lower-case (the Cleaner passes the element's {@code normalName()}, and the parser normalizes
+ attribute keys), and is only lower-cased on a miss. So a check only allocates for a mixed-case input, or when a URL
+ attribute is resolved to an absolute URL (as in the mutable Safelist).</p>
+ <p>The inherited configuration maps are a copy, and are never modified after construction; so this is safe to share
+ between threads.</p>
+ */
+final class CompiledSafelist extends Safelist {
+    private final Set<String> safeTags;
+    private final Map<String, TagRules> rules;
+
+    CompiledSafelist(Safelist copy) {
+        super(copy);
+
+        safeTags = new HashSet<>();
+        for (TagName tag : tagNames)
+            safeTags.add(tag.toString());
+
+        Set<TagName> ruleTags = new HashSet<>(attributes.keySet());
+        ruleTags.addAll(enforcedAttributes.keySet());
+        rules = new HashMap<>();
+        for (TagName tag : ruleTags)
+            rules.put(tag.toString(), new TagRules(this, tag));
+    }
+
+    /** The allowed attributes, their protocols, and the enforced attributes, for one tag. */
+    private static final class TagRules {
+        final String[] keys; // allowed attribute keys, sorted
+        final @Nullable Protocols[] protocols; // for each allowed key; null if not restricted
+        final String[] enforcedKeys; // sorted
+        final String[] enforcedValues;
+
+        TagRules(Safelist safelist, TagName tag) {
+            Map<AttributeKey, Set<Protocol>> tagProtocols = safelist.protocols.get(tag);
+            keys = sortedKeys(safelist.attributes.getOrDefault(tag, Collections.emptySet()));
+            protocols = new Protocols[keys.length];
+            if (tagProtocols != null) {
+                for (int i = 0; i < keys.length; i++) {
+                    Set<Protocol> prots = tagProtocols.get(AttributeKey.valueOf(keys[i]));
+                    if (prots != null) protocols[i] = new Protocols(prots);
+                }
+            }
+
+            Map<AttributeKey, AttributeValue> enforced = safelist.enforcedAttributes.getOrDefault(tag, Collections.emptyMap());
+            enforcedKeys = sortedKeys(enforced.keySet());
+            enforcedValues = new String[enforcedKeys.length];
+            for (int i = 0; i < enforcedKeys.length; i++)
+                enforcedValues[i] = enforced.get(AttributeKey.valueOf(enforcedKeys[i])).toString();
+        }
+
+        private static String[] sortedKeys(Set<AttributeKey> keys) {
+            String[] sorted = new String[keys.size()];
+            int i = 0;
+            for (AttributeKey key : keys)
+                sorted[i++] = key.toString();
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    /** The allowed protocols for an attribute, as the prefixes to match (e.g. {@code http:}). */
+    private static final class Protocols {
+        final String[] prefixes;
+        final boolean anchors; // if # is allowed, for in-page links
+
+        Protocols(Set<Protocol> protocols) {
+            boolean anchors = false;
+            String[] prefixes = new String[protocols.size()];
+            int i = 0;
+            for (Protocol protocol : protocols) {
+                String prot = protocol.toString();
+                if (prot.equals("#"))
+                    anchors = true;
+                else
+                    prefixes[i++] = prot + ":";
+            }
+            this.prefixes = Arrays.copyOf(prefixes, i);
+            this.anchors = anchors;
+        }
+    }
+
+    @Override
+    public boolean isSafeTag(String tag) {
+        return safeTags.contains(tag) || safeTags.contains(lowerCase(tag));
+    }
+
+    /** Get the rules for the tag, looking up the name as is first, as it is normally already lower-case. */
+    private @Nullable TagRules rules(String tagName) {
+        TagRules tagRules = rules.get(tagName);
+        return tagRules != null ? tagRules : rules.get(lowerCase(tagName));
+    }
+
+    /** Find the key in the sorted keys, as is first, as it is normally already lower-case. */
+    private static int indexOf(String[] keys, String key) {
+        int i = Arrays.binarySearch(keys, key);
+        return i >= 0 ? i : Arrays.binarySearch(keys, lowerCase(key));
+    }
+
+    @Override
+    public boolean isSafeAttribute(String tagName, Element el, Attribute attr) {
+        TagRules tagRules = rules(tagName);
+        if (tagRules != null) {
+            String key = attr.getKey();
+            int i = indexOf(tagRules.keys, key);
+            if (i >= 0)
+                return testValidProtocol(el, attr, tagRules.protocols[i]);
+            // might be an enforced attribute?
+            i = indexOf(tagRules.enforcedKeys, key);
+            if (i >= 0)
+                return tagRules.enforcedValues[i].equals(attr.getValue());
+        }
+        // no attributes defined for tag, try :all tag
+        return !tagName.equals(All) && isSafeAttribute(All, el, attr);
+    }
+
+    private boolean testValidProtocol(Element el, Attribute attr, @Nullable Protocols protocols) {
+        if (protocols == null) return true; // attribute found, no protocols defined, so OK
+
+        // as in Safelist: resolve relative urls to abs, and optionally update the attribute so output html has abs.
+        String value = el.absUrl(attr.getKey());
+        if (value.length() == 0)
+            value = attr.getValue(); // if it could not be made abs, run as-is to allow custom unknown protocols
+        if (!preserveRelativeLinks())
+            attr.setValue(value);
+
+        if (protocols.anchors && isValidAnchor(value))
+            return true;
+        for (String prefix : protocols.prefixes) {
+            if (startsWithLowerCase(value, prefix))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     Tests if the lower-cased value starts with the prefix; as {@code lowerCase(value).startsWith(prefix)}, but without
+     creating the lower-cased copy, unless the value has non-ASCII chars in the prefix range (where lower-casing may
+     change the length).
+     */
+    static boolean startsWithLowerCase(String value, String prefix) {
+        int len = prefix.length();
+        for (int i = 0; i < len; i++) {
+            if (i == value.length()) return false;
+            char c = value.charAt(i);
+            if (c >= 128) return lowerCase(value).startsWith(prefix);
+            if (c >= 'A' && c <= 'Z') c += 32;
+            if (c != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Attributes getEnforcedAttributes(String tagName) {
+        Attributes attrs = new Attributes(); // a new set each time, as the caller may modify it
+        TagRules tagRules = rules(tagName);
+        if (tagRules != null) {
+            for (int i = 0; i < tagRules.enforcedKeys.length; i++)
+                attrs.put(tagRules.enforcedKeys[i], tagRules.enforcedValues[i]);
+        }
+        return attrs;
+    }
+
+    @Override
+    public Safelist compile() {
+        return this;
+    }
+
+    @Override
+    public Safelist addTags(String... tags) {
+        throw immutable();
+    }
+
+    @Override
+    public Safelist removeTags(String... tags) {
+        throw immutable();
+    }
+
+    @Override
+    public Safelist addAttributes(String tag, String... attributes) {
+        throw immutable();
+    }
+
+    @Override
+    public Safelist removeAttributes(String tag, String... attributes) {
+        throw immutable();
+    }
+
+    @Override
+    public Safelist addEnforcedAttribute(String tag, String attribute, String value) {
+        throw immutable();
+    }
+
+    @Override
+    public Safelist removeEnforcedAttribute(String tag, String attribute) {
+        throw immutable();
+    }
+
+    @Override
+    public Safelist preserveRelativeLinks(boolean preserve) {
+        throw immutable();
+    }
+
+    @Override
+    public Safelist addProtocols(String tag, String attribute, String... protocols) {
+        throw immutable();
+    }
+
+    @Override
+    public Safelist removeProtocols(String tag, String attribute, String... removeProtocols) {
+        throw immutable();
+    }
+
+    private static UnsupportedOperationException immutable() {
+        return new UnsupportedOperationException("A compiled Safelist can't be modified; copy it to change it");
+    }
+}
@@ -18,6 +18,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 import static org.jsoup.internal.Normalizer.lowerCase;
 
@@ -52,6 +53,10 @@ import static org.jsoup.internal.Normalizer.lowerCase;
  <li>{@link #removeEnforcedAttribute(String tagName, String attribute)}
  <li>{@link #removeProtocols(String tagName, String attribute, String... removeProtocols)}
  </ul>
+ <p>
+ Once configured, a safelist can be {@linkplain #compile() compiled} to an immutable form that is faster to check
+ against, and safe to share between threads.
+ </p>
 
  <p>
  The cleaner and these safelists assume that you want to clean a <code>body</code> fragment of HTML (to add user
@@ -66,11 +71,12 @@ import static org.jsoup.internal.Normalizer.lowerCase;
  </p>
  */
 public class Safelist {
-    private static final String All = ":all";
-    private final Set<TagName> tagNames; // tags allowed, lower case. e.g. [p, br, span]
-    private final Map<TagName, Set<AttributeKey>> attributes; // tag -> attribute[]. allowed attributes [href] for a tag.
-    private final Map<TagName, Map<AttributeKey, AttributeValue>> enforcedAttributes; // always set these attribute values
-    private final Map<TagName, Map<AttributeKey, Set<Protocol>>> protocols; // allowed URL protocols for attributes
+    static final String All = ":all";
+    private static final Pattern ContainsWhitespace = Pattern.compile(".*\\s.*");
+    final Set<TagName> tagNames; // tags allowed, lower case. e.g. [p, br, span]
+    final Map<TagName, Set<AttributeKey>> attributes; // tag -> attribute[]. allowed attributes [href] for a tag.
+    final Map<TagName, Map<AttributeKey, AttributeValue>> enforcedAttributes; // always set these attribute values
+    final Map<TagName, Map<AttributeKey, Set<Protocol>>> protocols; // allowed URL protocols for attributes
     private boolean preserveRelativeLinks; // option to preserve relative links
 
     /**
@@ -504,6 +510,23 @@ public class Safelist {
         return this;
     }
 
+    /**
+     Compile this safelist to an immutable, thread-safe Safelist, with its configuration precomputed into per-tag
+     lookup tables, so that checking tags and attributes while cleaning doesn't allocate. Use it when the same
+     configuration is used to clean many inputs, or shared by concurrent {@link Cleaner}s.
+     <p>The compiled safelist is a snapshot: later changes to this safelist are not reflected in it, and calling any of
+     its configuration methods throws an {@link UnsupportedOperationException}. To change it, create a mutable copy
+     with {@link #Safelist(Safelist)}, and compile that.</p>
+     <p>Only a {@code Safelist} (not a subclass, which may override the safety checks) can be compiled.</p>
+
+     @return the compiled safelist; or this, if this safelist is already compiled.
+     @since 1.22.1
+     */
+    public Safelist compile() {
+        Validate.isTrue(getClass() == Safelist.class, "Only a Safelist, not a subclass, can be compiled");
+        return new CompiledSafelist(this);
+    }
+
     /**
      * Test if the supplied tag is allowed by this safelist.
      * @param tag test tag
@@ -576,8 +599,8 @@ public class Safelist {
         return false;
     }
 
-    private static boolean isValidAnchor(String value) {
-        return value.startsWith("#") && !value.matches(".*\\s.*");
+    static boolean isValidAnchor(String value) {
+        return value.startsWith("#") && !ContainsWhitespace.matcher(value).matches();
     }
 
     /**
@@ -1,14 +1,20 @@
 package org.jsoup.select;
 
-import org.jsoup.helper.Validate;
+import org.jsoup.internal.Normalizer;
+import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.LeafNode;
 import org.jsoup.nodes.Node;
 import org.jsoup.nodes.TextNode;
 import org.jspecify.annotations.Nullable;
 
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.util.stream.Collectors.toCollection;
 
@@ -28,15 +34,22 @@ public class Collector {
      @return list of matches; empty if none
      */
     public static Elements collect(Evaluator eval, Element root) {
-        Stream<Element> stream = eval.wantsNodes() ?
-            streamNodes(eval, root, Element.class) :
-            stream(eval, root);
+        try {
+            Stream<Element> stream = eval.wantsNodes() ?
+                streamNodes(eval, root, Element.class) :
+                stream(eval, root);
 
-        return stream.collect(toCollection(Elements::new));
+            return stream.collect(toCollection(Elements::new));
+        } finally {
+            eval.reset(); // release the memoized matches, so a cached evaluator doesn't retain the document
+        }
     }
 
     /**
      Obtain a Stream of elements by visiting the root and every descendant of root and testing it against the evaluator.
+     <p>Consuming all of the stream, or closing it, releases any state the evaluator holds for the evaluation. If the
+     stream may not be fully consumed (e.g. with {@code findFirst()}), close it, so that a reused evaluator doesn't
+     retain the document.</p>
 
      @param evaluator Evaluator to test elements against
      @param root root of tree to descend
@@ -45,12 +58,159 @@ public class Collector {
      */
     public static Stream<Element> stream(Evaluator evaluator, Element root) {
         evaluator.reset();
-        return root.stream().filter(evaluator.asPredicate(root));
+        return resetWhenDone(candidates(evaluator, root).filter(evaluator.asPredicate(root)), evaluator);
+    }
+
+    /**
+     Wraps the stream so that the evaluator is reset once the stream has been fully consumed, as well as when it is
+     closed; as streams are commonly consumed but not closed.
+     */
+    private static <T> Stream<T> resetWhenDone(Stream<T> stream, Evaluator evaluator) {
+        Iterator<T> source = stream.iterator();
+        Iterator<T> resetting = new Iterator<T>() {
+            @Override public boolean hasNext() {
+                if (source.hasNext()) return true;
+                evaluator.reset();
+                return false;
+            }
+
+            @Override public T next() {
+                return source.next();
+            }
+        };
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(resetting, Spliterator.NONNULL | Spliterator.ORDERED), false)
+            .onClose(stream::close)
+            .onClose(evaluator::reset);
+    }
+
+    /**
+     Get the elements to test against the evaluator, in document order. Usually the root and all its descendants. But if
+     the root's document is {@link Document#indexed(boolean) indexed}, the candidates are seeded from the most selective
+     indexed term (an id, tag, or class) that the query requires on either the matched element (the rightmost compound
+     selector, e.g. {@code div > a.nav}), or on one of its ancestors (e.g. {@code #id p}); and so only those elements
+     (or subtrees) are tested. An id is preferred to a tag or class, and a term on the matched element to one on an
+     ancestor. Tag and class terms are only used when querying from the document itself, as from a smaller root it's
+     cheaper to walk its subtree than to filter the document's matches.
+     */
+    private static Stream<Element> candidates(Evaluator eval, Element root) {
+        Document doc = root.ownerDocument();
+        if (doc == null || !doc.isIndexed()) return root.stream();
+        boolean idsOnly = root != doc;
+
+        List<Evaluator> terms = new ArrayList<>();
+        requiredTerms(eval, terms);
+        Elements seed = seed(terms, doc, true);
+        if (seed != null) return within(seed, root);
+
+        List<Evaluator> ancestorTerms = new ArrayList<>();
+        requiredAncestorTerms(eval, ancestorTerms);
+        Elements ancestors = seed(ancestorTerms, doc, true);
+        if (ancestors != null) return subtrees(ancestors, root);
+
+        if (!idsOnly) {
+            seed = seed(terms, doc, false);
+            if (seed != null) return within(seed, root);
+            ancestors = seed(ancestorTerms, doc, false);
+            if (ancestors != null) return subtrees(ancestors, root);
+        }
+        return root.stream();
+    }
+
+    /** The seeded elements that are the root or within it. */
+    private static Stream<Element> within(Elements seed, Element root) {
+        return seed.stream().filter(el -> isInclusiveDescendant(el, root));
+    }
+
+    /** The elements of the subtrees (within the root) of the seeded ancestors. */
+    private static Stream<Element> subtrees(Elements ancestors, Element root) {
+        Elements subtrees = new Elements();
+        for (Element el : ancestors) {
+            if (isInclusiveDescendant(root, el))
+                return root.stream(); // the root is within the seeded subtree (e.g. via a > combinator above root)
+            if (!isInclusiveDescendant(el, root)) continue;
+            // skip nested seeded elements, as covered by the prior subtree. As in document order, only check last:
+            if (!subtrees.isEmpty() && isInclusiveDescendant(el, subtrees.last())) continue;
+            subtrees.add(el);
+        }
+        return subtrees.stream().flatMap(Element::stream);
+    }
+
+    /**
+     Look up each term in the index, and return the smallest result, or null if there are no usable terms.
+     @param idsOnly if true, only use id terms
+     */
+    private static @Nullable Elements seed(List<Evaluator> terms, Document doc, boolean idsOnly) {
+        Elements best = null;
+        for (Evaluator term : terms) {
+            Elements els;
+            if (term instanceof Evaluator.Id) {
+                if (!idsOnly) continue; // already tried
+                els = doc.getElementsById(((Evaluator.Id) term).id);
+            } else if (idsOnly) {
+                continue;
+            } else if (term instanceof Evaluator.Tag) {
+                String tagName = ((Evaluator.Tag) term).tagName;
+                // the evaluator matches the exact normal name, but the lookup normalizes; so not-normal can't match
+                els = tagName.equals(Normalizer.normalize(tagName)) ? doc.getElementsByTag(tagName) : new Elements();
+            } else {
+                String className = ((Evaluator.Class) term).className;
+                els = className.isEmpty() ? new Elements() : doc.getElementsByClass(className);
+            }
+            if (best == null || els.size() < best.size()) best = els;
+            if (best.isEmpty()) break;
+        }
+        return best;
+    }
+
+    /** Collect the indexable terms that the evaluator requires on a matching element itself. */
+    static void requiredTerms(Evaluator eval, List<Evaluator> terms) {
+        if (eval instanceof Evaluator.Id || eval instanceof Evaluator.Tag || eval instanceof Evaluator.Class) {
+            terms.add(eval);
+        } else if (eval instanceof CombiningEvaluator.And) {
+            for (Evaluator inner : ((CombiningEvaluator.And) eval).evaluators)
+                requiredTerms(inner, terms);
+        } else if (eval instanceof StructuralEvaluator.ImmediateParentRun) {
+            List<Evaluator> run = ((StructuralEvaluator.ImmediateParentRun) eval).evaluators;
+            requiredTerms(run.get(run.size() - 1), terms);
+        }
+    }
+
+    /** Collect the indexable terms that the evaluator requires on an ancestor of a matching element. */
+    private static void requiredAncestorTerms(Evaluator eval, List<Evaluator> terms) {
+        if (eval instanceof CombiningEvaluator.And) {
+            for (Evaluator inner : ((CombiningEvaluator.And) eval).evaluators) {
+                if (inner instanceof StructuralEvaluator.Ancestor) {
+                    Evaluator ancestor = ((StructuralEvaluator.Ancestor) inner).evaluator;
+                    requiredTerms(ancestor, terms);
+                    requiredAncestorTerms(ancestor, terms);
+                } else {
+                    requiredAncestorTerms(inner, terms);
+                }
+            }
+        } else if (eval instanceof StructuralEvaluator.ImmediateParentRun) {
+            List<Evaluator> run = ((StructuralEvaluator.ImmediateParentRun) eval).evaluators;
+            for (int i = 0; i < run.size(); i++) {
+                if (i < run.size() - 1) requiredTerms(run.get(i), terms); // all but the last are ancestors
+                requiredAncestorTerms(run.get(i), terms);
+            }
+        }
+    }
+
+    /** Test if the element is the ancestor, or descends from it. */
+    private static boolean isInclusiveDescendant(Element el, Element ancestor) {
+        for (Element e = el; e != null; e = e.parent()) {
+            if (e == ancestor) return true;
+        }
+        return false;
     }
 
     /**
      Obtain a Stream of nodes, of the specified type, by visiting the root and every descendant of root and testing it
      against the evaluator.
+     <p>Consuming all of the stream, or closing it, releases any state the evaluator holds for the evaluation. If the
+     stream may not be fully consumed (e.g. with {@code findFirst()}), close it, so that a reused evaluator doesn't
+     retain the document.</p>
 
      @param evaluator Evaluator to test elements against
      @param root root of tree to descend
@@ -61,7 +221,7 @@ public class Collector {
      */
     public static <T extends Node> Stream<T> streamNodes(Evaluator evaluator, Element root, Class<T> type) {
         evaluator.reset();
-        return root.nodeStream(type).filter(evaluator.asNodePredicate(root));
+        return resetWhenDone(root.nodeStream(type).filter(evaluator.asNodePredicate(root)), evaluator);
     }
 
     /**
@@ -72,7 +232,9 @@ public class Collector {
      @return the first match; {@code null} if none
      */
     public static @Nullable Element findFirst(Evaluator eval, Element root) {
-        return stream(eval, root).findFirst().orElse(null);
+        try (Stream<Element> stream = stream(eval, root)) {
+            return stream.findFirst().orElse(null);
+        }
     }
 
     /**
@@ -86,7 +248,9 @@ public class Collector {
      @since 1.21.1
      */
     public static <T extends Node> @Nullable T findFirstNode(Evaluator eval, Element root, Class<T> type) {
-        return streamNodes(eval, root, type).findFirst().orElse(null);
+        try (Stream<T> stream = streamNodes(eval, root, type)) {
+            return stream.findFirst().orElse(null);
+        }
     }
 
     /**
@@ -100,6 +264,8 @@ public class Collector {
      @return list of matches; empty if none
      */
     public static <T extends Node> Nodes<T> collectNodes(Evaluator evaluator, Element root, Class<T> type) {
-        return streamNodes(evaluator, root, type).collect(toCollection(Nodes::new));
+        try (Stream<T> stream = streamNodes(evaluator, root, type)) {
+            return stream.collect(toCollection(Nodes::new));
+        }
     }
 }
@@ -91,7 +91,7 @@ public abstract class Evaluator {
      * Evaluator for tag name
      */
     public static final class Tag extends Evaluator {
-        private final String tagName;
+        final String tagName;
 
         public Tag(String tagName) {
             this.tagName = tagName;
@@ -159,7 +159,7 @@ public abstract class Evaluator {
      * Evaluator for element id
      */
     public static final class Id extends Evaluator {
-        private final String id;
+        final String id;
 
         public Id(String id) {
             this.id = id;
@@ -183,7 +183,7 @@ public abstract class Evaluator {
      * Evaluator for element class
      */
     public static final class Class extends Evaluator {
-        private final String className;
+        final String className;
 
         public Class(String className) {
             this.className = className;
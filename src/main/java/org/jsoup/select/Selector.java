@@ -112,6 +112,8 @@ import java.util.stream.Stream;
  @see Elements#select(String css)
  @see Element#selectXpath(String xpath) */
 public class Selector {
+    private static final SelectorCache Cache = new SelectorCache(SelectorCache.DefaultMaxSize);
+
     // not instantiable
     private Selector() {}
 
@@ -143,6 +145,9 @@ public class Selector {
 
     /**
      Finds a Stream of elements matching the CSS query.
+     <p>The query's evaluator is cached and reused, and holds state for the evaluation until the stream is fully
+     consumed or closed. If the stream may not be fully consumed, close it, so that the evaluator doesn't retain the
+     document.</p>
 
      @param query CSS selector
      @param root root element to descend into
@@ -185,9 +190,10 @@ public class Selector {
         HashSet<Element> seenElements = new HashSet<>(); // dedupe elements by identity, as .equals is ==
 
         for (Element root : roots) {
-            selectStream(evaluator, root)
-                .filter(seenElements::add)
-                .forEach(elements::add);
+            try (Stream<Element> stream = selectStream(evaluator, root)) {
+                stream.filter(seenElements::add)
+                    .forEach(elements::add);
+            }
         }
 
         return elements;
@@ -272,8 +278,8 @@ public class Selector {
     }
 
     /**
-     Parse a CSS query into an Evaluator. If you are evaluating the same query repeatedly, it may be more efficient to
-     parse it once and reuse the Evaluator.
+     Parse a CSS query into an Evaluator. Parsed queries are held in the shared {@link #cache() SelectorCache}, so
+     repeated calls with the same query return the same Evaluator without reparsing it.
 
      @param css CSS query
      @return Evaluator
@@ -282,7 +288,18 @@ public class Selector {
      @since 1.21.1
      */
     public static Evaluator evaluatorOf(String css) {
-        return QueryParser.parse(css);
+        return Cache.evaluatorOf(css);
+    }
+
+    /**
+     Get the shared cache of parsed CSS queries, used by {@link #evaluatorOf(String)} and the {@code select} methods.
+     Use it to change the cache size, or to inspect the hit and miss counts.
+
+     @return the shared SelectorCache
+     @since 1.22.1
+     */
+    public static SelectorCache cache() {
+        return Cache;
     }
 
     public static class SelectorParseException extends IllegalStateException {
@@ -0,0 +1,160 @@
+package org.jsoup.select;
+
+import org.jsoup.helper.Validate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ A bounded, thread-safe, least-recently-used cache of parsed CSS queries. Used by {@link Selector#evaluatorOf(String)}
+ (and so by {@code Element.select(String)} et al.) so that repeated queries are only parsed once.
+ <p>The shared cache is accessed via {@link Selector#cache()}. Its maximum size can be changed with
+ {@link #maxSize(int)}; setting a size of {@code 0} disables caching.</p>
+ <p>Compiled {@link Evaluator}s are safe to reuse across threads, so a single cached Evaluator is returned to all
+ callers of the same query.</p>
+
+ @since 1.22.1
+ */
+public final class SelectorCache {
+    /** The default maximum number of queries held in the shared cache. */
+    public static final int DefaultMaxSize = 256;
+
+    private final ReentrantLock lock = new ReentrantLock(); // lock vs synchronized to support loom threads
+    private final LinkedHashMap<String, Evaluator> cache = new LinkedHashMap<String, Evaluator>(16, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<String, Evaluator> eldest) {
+            return size() > maxSize;
+        }
+    };
+    private int maxSize;
+    private long hits;
+    private long misses;
+
+    /**
+     Create a new cache, holding up to {@code maxSize} queries.
+     @param maxSize the maximum number of queries to hold. {@code 0} disables caching.
+     */
+    public SelectorCache(int maxSize) {
+        Validate.isTrue(maxSize >= 0, "maxSize must be >= 0");
+        this.maxSize = maxSize;
+    }
+
+    /**
+     Get the Evaluator for the CSS query, parsing and caching it if it is not already held.
+
+     @param css CSS query
+     @return the parsed Evaluator
+     @throws Selector.SelectorParseException if the CSS query is invalid
+     */
+    public Evaluator evaluatorOf(String css) {
+        Validate.notEmpty(css);
+        lock.lock();
+        try {
+            Evaluator eval = cache.get(css);
+            if (eval != null) {
+                hits++;
+                return eval;
+            }
+            misses++;
+        } finally {
+            lock.unlock();
+        }
+
+        // parse outside the lock, so other queries are not blocked. A concurrent miss on the same query may parse twice.
+        Evaluator eval = QueryParser.parse(css);
+        lock.lock();
+        try {
+            if (maxSize > 0) cache.put(css, eval);
+        } finally {
+            lock.unlock();
+        }
+        return eval;
+    }
+
+    /**
+     Get the maximum number of queries this cache will hold.
+     @return the maximum size
+     */
+    public int maxSize() {
+        lock.lock();
+        try {
+            return maxSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     Set the maximum number of queries this cache will hold. If the cache currently holds more than that, the least
+     recently used queries are evicted.
+     @param maxSize the new maximum size. {@code 0} disables caching.
+     @return this cache, for chaining
+     */
+    public SelectorCache maxSize(int maxSize) {
+        Validate.isTrue(maxSize >= 0, "maxSize must be >= 0");
+        lock.lock();
+        try {
+            this.maxSize = maxSize;
+            while (cache.size() > maxSize) {
+                cache.remove(cache.keySet().iterator().next()); // eldest first
+            }
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
+    /**
+     Get the number of queries currently held.
+     @return the number of cached queries
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return cache.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     Get the number of lookups that were served from the cache.
+     @return the hit count
+     */
+    public long hits() {
+        lock.lock();
+        try {
+            return hits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     Get the number of lookups that were not in the cache, and so were parsed.
+     @return the miss count
+     */
+    public long misses() {
+        lock.lock();
+        try {
+            return misses;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     Remove all cached queries, and reset the hit and miss counters. As the choice of regular expression engine is made
+     when a query is parsed, clear the cache after changing that setting.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            cache.clear();
+            hits = 0;
+            misses = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
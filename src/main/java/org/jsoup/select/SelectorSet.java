@@ -0,0 +1,254 @@
+package org.jsoup.select;
+
+import org.jsoup.helper.Validate;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.jsoup.internal.Normalizer.foldCase;
+
+/**
+ A set of CSS queries that are run together, in a single traversal of the tree. When extracting many things from a page,
+ this is more efficient than calling {@link Element#select(String)} for each query, which walks the tree once per query.
+ <p>The queries are compiled once, when the set is created, and the set may then be reused across documents and threads.
+ Each query's selector groups (e.g. the {@code a} and {@code b} of {@code a, b}) are indexed by an id, tag, or class that
+ they require on a matching element, so that each element is only tested against the groups that it could match. And the
+ simple selectors that several groups have in common (e.g. the {@code div} of {@code div.a} and {@code div > p}) are
+ evaluated just once per element.</p>
+ <pre>{@code
+ SelectorSet set = new SelectorSet("title", "meta[name=description]", "a[href]", "img[src]");
+ List<Elements> results = set.select(doc); // one result per query, in the same order
+ Elements links = results.get(2);
+ }</pre>
+ <p>The results are the same as those of {@code root.select(query)} for each query. Unlike a single select, a set does not
+ use the document's {@link org.jsoup.nodes.Document#indexed(boolean) element index}.</p>
+
+ @since 1.22.1
+ */
+public final class SelectorSet {
+    private final List<String> queries;
+    private final Evaluator[] evaluators; // per query
+    private final int numTerms;
+    private final int numGroups;
+
+    // the groups to test each element against, by a required id, tag, or (case-folded) class; or else any element
+    private final Map<String, List<Group>> byId = new HashMap<>();
+    private final Map<String, List<Group>> byTag = new HashMap<>();
+    private final Map<String, List<Group>> byClass = new HashMap<>();
+    private final List<Group> any = new ArrayList<>();
+
+    /** A simple or compound selector, that may be shared by several groups. Its result is memoized per element. */
+    private static final class Term {
+        final Evaluator eval;
+        final int index;
+
+        Term(Evaluator eval, int index) {
+            this.eval = eval;
+            this.index = index;
+        }
+    }
+
+    /** A selector group of a query; matches if all its terms match. */
+    private static final class Group {
+        final int query;
+        final int index;
+        final Term[] terms; // cost ascending
+
+        Group(int query, int index, Term[] terms) {
+            this.query = query;
+            this.index = index;
+            this.terms = terms;
+        }
+    }
+
+    /**
+     Create a new set of the CSS queries.
+     @param queries the CSS queries
+     @throws Selector.SelectorParseException (unchecked) on an invalid CSS query.
+     */
+    public SelectorSet(String... queries) {
+        this(Arrays.asList(queries));
+    }
+
+    /**
+     Create a new set of the CSS queries.
+     @param queries the CSS queries
+     @throws Selector.SelectorParseException (unchecked) on an invalid CSS query.
+     */
+    public SelectorSet(Collection<String> queries) {
+        Validate.notNull(queries);
+        this.queries = Collections.unmodifiableList(new ArrayList<>(queries));
+        evaluators = new Evaluator[this.queries.size()];
+
+        Map<Object, Term> terms = new HashMap<>(); // shared, by termKey
+        int groups = 0;
+        for (int q = 0; q < evaluators.length; q++) {
+            String query = this.queries.get(q);
+            Validate.notEmpty(query);
+            Evaluator eval = Selector.evaluatorOf(query);
+            evaluators[q] = eval;
+
+            List<Evaluator> alternatives = eval instanceof CombiningEvaluator.Or ?
+                ((CombiningEvaluator.Or) eval).evaluators : Collections.singletonList(eval);
+            for (Evaluator alternative : alternatives) {
+                List<Evaluator> parts = alternative instanceof CombiningEvaluator.And ?
+                    ((CombiningEvaluator.And) alternative).sortedEvaluators : Collections.singletonList(alternative);
+                Term[] groupTerms = new Term[parts.size()];
+                for (int i = 0; i < groupTerms.length; i++) {
+                    Evaluator part = parts.get(i);
+                    groupTerms[i] = terms.computeIfAbsent(termKey(part), k -> new Term(part, terms.size()));
+                }
+                index(new Group(q, groups++, groupTerms), alternative);
+            }
+        }
+        numTerms = terms.size();
+        numGroups = groups;
+    }
+
+    /**
+     The key to share a term by. For the simple evaluators whose string form fully describes what they match, that
+     string (so e.g. the {@code div} of {@code div.a} and of {@code div > p} is shared); otherwise the evaluator itself,
+     which is shared by repeated queries via the {@link SelectorCache}.
+     */
+    private static Object termKey(Evaluator eval) {
+        if (eval instanceof Evaluator.Tag || eval instanceof Evaluator.Id || eval instanceof Evaluator.Class ||
+            eval instanceof Evaluator.Attribute || eval instanceof Evaluator.AttributeStarting ||
+            eval instanceof Evaluator.AttributeKeyPair)
+            return eval.getClass().getName() + ':' + eval;
+        return eval;
+    }
+
+    /** Files the group by the most selective term that it requires on a matching element. */
+    private void index(Group group, Evaluator alternative) {
+        List<Evaluator> required = new ArrayList<>();
+        Collector.requiredTerms(alternative, required);
+        Evaluator.Tag tag = null;
+        Evaluator.Class cls = null;
+        for (Evaluator term : required) {
+            if (term instanceof Evaluator.Id) {
+                byId.computeIfAbsent(((Evaluator.Id) term).id, k -> new ArrayList<>()).add(group);
+                return;
+            } else if (term instanceof Evaluator.Tag && tag == null) {
+                tag = (Evaluator.Tag) term;
+            } else if (term instanceof Evaluator.Class && cls == null) {
+                cls = (Evaluator.Class) term;
+            }
+        }
+        if (tag != null)
+            byTag.computeIfAbsent(tag.tagName, k -> new ArrayList<>()).add(group);
+        else if (cls != null && !cls.className.isEmpty())
+            byClass.computeIfAbsent(foldCase(cls.className), k -> new ArrayList<>()).add(group);
+        else
+            any.add(group);
+    }
+
+    /**
+     Get the CSS queries of this set.
+     @return an unmodifiable list of the queries, in order
+     */
+    public List<String> queries() {
+        return queries;
+    }
+
+    /**
+     Get the number of queries in this set.
+     @return the query count
+     */
+    public int size() {
+        return queries.size();
+    }
+
+    /**
+     Find the elements matching each of the queries, by visiting the root and every descendant of root once.
+     @param root root element to descend into
+     @return a list of the matching elements of each query, in the order of the queries. Each is in document order, and
+     empty if none.
+     */
+    public List<Elements> select(Element root) {
+        Validate.notNull(root);
+        for (Evaluator eval : evaluators)
+            eval.reset();
+        Matcher matcher = new Matcher(root);
+        try {
+            NodeTraversor.traverse(matcher, root);
+        } finally {
+            for (Evaluator eval : evaluators)
+                eval.reset(); // release memoized matches, so the document isn't retained
+        }
+        return Arrays.asList(matcher.results);
+    }
+
+    /** The state of a single select: the results, and the memoized term and group evaluations of the current element. */
+    private final class Matcher implements NodeVisitor {
+        final Element root;
+        final Elements[] results = new Elements[evaluators.length];
+        final int[] termTested = new int[numTerms]; // the stamp of the element the term was last tested on
+        final boolean[] termMatched = new boolean[numTerms];
+        final int[] groupTested = new int[numGroups]; // so a group filed under repeated classes is only tested once
+        int stamp = 0;
+
+        Matcher(Element root) {
+            this.root = root;
+            for (int i = 0; i < results.length; i++)
+                results[i] = new Elements();
+        }
+
+        @Override public void head(Node node, int depth) {
+            if (!(node instanceof Element)) return;
+            Element el = (Element) node;
+            stamp++;
+
+            test(el, any);
+            if (!byTag.isEmpty()) test(el, byTag.get(el.normalName()));
+            if (el.attributesSize() == 0) return;
+            if (!byId.isEmpty()) test(el, byId.get(el.id()));
+            if (!byClass.isEmpty()) testClasses(el);
+        }
+
+        private void testClasses(Element el) {
+            String classAttr = el.attributes().getIgnoreCase("class");
+            int len = classAttr.length();
+            int start = -1;
+            for (int i = 0; i <= len; i++) {
+                if (i == len || Character.isWhitespace(classAttr.charAt(i))) {
+                    if (start >= 0) {
+                        test(el, byClass.get(foldCase(classAttr.substring(start, i))));
+                        start = -1;
+                    }
+                } else if (start < 0) {
+                    start = i;
+                }
+            }
+        }
+
+        private void test(Element el, List<Group> groups) {
+            if (groups == null) return;
+            for (Group group : groups) {
+                if (groupTested[group.index] == stamp) continue;
+                groupTested[group.index] = stamp;
+                Elements result = results[group.query];
+                if (!result.isEmpty() && result.last() == el) continue; // matched by another group of the query
+                if (matches(el, group)) result.add(el);
+            }
+        }
+
+        private boolean matches(Element el, Group group) {
+            for (Term term : group.terms) {
+                int i = term.index;
+                if (termTested[i] != stamp) {
+                    termTested[i] = stamp;
+                    termMatched[i] = term.eval.matches(root, el);
+                }
+                if (!termMatched[i]) return false;
+            }
+            return true;
+        }
+    }
+}
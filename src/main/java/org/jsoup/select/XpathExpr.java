@@ -0,0 +1,877 @@
+package org.jsoup.select;
+
+import org.jsoup.nodes.Comment;
+import org.jsoup.nodes.Node;
+import org.jspecify.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ A compiled XPath 1.0 expression, evaluated over an {@link XpathTree}. Each expression has a static {@link Type}, and is
+ evaluated by the method for that type ({@link #nodes}, {@link #string}, {@link #number}, or {@link #bool}); the others
+ convert from it, by the XPath conversion rules.
+ <p>Node-sets are Lists of nodes in document order, without duplicates. They are not modified once returned.</p>
+ */
+abstract class XpathExpr {
+    enum Type { NodeSet, Num, Str, Bool }
+
+    /** The evaluation context: the context node, position, and size. */
+    static final class Context {
+        final XpathTree tree;
+        Object node;
+        int position;
+        int size;
+
+        Context(XpathTree tree, Object node, int position, int size) {
+            this.tree = tree;
+            this.node = node;
+            this.position = position;
+            this.size = size;
+        }
+    }
+
+    abstract Type type();
+
+    List<Object> nodes(Context c) {
+        throw new IllegalStateException("Not a node-set"); // the parser only allows node-set expressions here
+    }
+
+    String string(Context c) {
+        switch (type()) {
+            case NodeSet:
+                List<Object> nodes = nodes(c);
+                return nodes.isEmpty() ? "" : c.tree.string(nodes.get(0));
+            case Num:
+                return toString(number(c));
+            case Bool:
+                return bool(c) ? "true" : "false";
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    double number(Context c) {
+        return type() == Type.Bool ? (bool(c) ? 1 : 0) : toNumber(string(c));
+    }
+
+    boolean bool(Context c) {
+        switch (type()) {
+            case NodeSet:
+                return !nodes(c).isEmpty();
+            case Num:
+                double d = number(c);
+                return d != 0 && !Double.isNaN(d);
+            case Str:
+                return !string(c).isEmpty();
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    /**
+     If this expression uses the context position or size. A predicate that does not (and is not a number) can be tested
+     without knowing the position, so a step that it filters can be rewritten.
+     */
+    boolean usesPosition() {
+        return false;
+    }
+
+    /** If the predicate tests the context position: a number, or using the position or size. */
+    static boolean isPositional(XpathExpr predicate) {
+        return predicate.type() == Type.Num || predicate.usesPosition();
+    }
+
+    /** Filters the nodes by the predicates, with positions in the list's order. */
+    static List<Object> filter(List<Object> nodes, XpathExpr[] predicates, XpathTree tree) {
+        for (XpathExpr predicate : predicates) {
+            if (nodes.isEmpty()) break;
+            Context c = new Context(tree, nodes.get(0), 0, nodes.size());
+            List<Object> matched = new ArrayList<>();
+            for (int i = 0; i < nodes.size(); i++) {
+                c.node = nodes.get(i);
+                c.position = i + 1;
+                boolean match = predicate.type() == Type.Num ? predicate.number(c) == c.position : predicate.bool(c);
+                if (match) matched.add(c.node);
+            }
+            nodes = matched;
+        }
+        return nodes;
+    }
+
+    /** Converts a number to a string: integers without a decimal point, and no exponents. */
+    static String toString(double d) {
+        if (Double.isNaN(d)) return "NaN";
+        if (Double.isInfinite(d)) return d > 0 ? "Infinity" : "-Infinity";
+        if (d == (long) d) return Long.toString((long) d); // and -0 is "0"
+        return new BigDecimal(Double.toString(d)).stripTrailingZeros().toPlainString();
+    }
+
+    /** Converts a string to a number: an optional minus and a decimal number, within whitespace. NaN if not a number. */
+    static double toNumber(String s) {
+        int start = 0, end = s.length();
+        while (start < end && isWhitespace(s.charAt(start))) start++;
+        while (end > start && isWhitespace(s.charAt(end - 1))) end--;
+        int i = start;
+        if (i < end && s.charAt(i) == '-') i++;
+        boolean digits = false, point = false;
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') digits = true;
+            else if (c == '.' && !point) point = true;
+            else return Double.NaN;
+        }
+        return digits ? Double.parseDouble(s.substring(start, end)) : Double.NaN;
+    }
+
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    static final class StringLiteral extends XpathExpr {
+        private final String value;
+
+        StringLiteral(String value) {
+            this.value = value;
+        }
+
+        @Override Type type() {
+            return Type.Str;
+        }
+
+        @Override String string(Context c) {
+            return value;
+        }
+    }
+
+    static final class NumberLiteral extends XpathExpr {
+        private final double value;
+
+        NumberLiteral(double value) {
+            this.value = value;
+        }
+
+        @Override Type type() {
+            return Type.Num;
+        }
+
+        @Override double number(Context c) {
+            return value;
+        }
+    }
+
+    /** {@code or} and {@code and}. */
+    static final class Logical extends XpathExpr {
+        private final boolean and;
+        private final XpathExpr left, right;
+
+        Logical(boolean and, XpathExpr left, XpathExpr right) {
+            this.and = and;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override Type type() {
+            return Type.Bool;
+        }
+
+        @Override boolean bool(Context c) {
+            return and ? left.bool(c) && right.bool(c) : left.bool(c) || right.bool(c);
+        }
+
+        @Override boolean usesPosition() {
+            return left.usesPosition() || right.usesPosition();
+        }
+    }
+
+    enum CompareOp { Eq, Ne, Lt, Le, Gt, Ge }
+
+    /**
+     The comparisons. Node-sets compare true if any of their nodes do (so {@code @class != 'a'} is true for an element
+     with a class that is not 'a', and false for one without a class).
+     */
+    static final class Compare extends XpathExpr {
+        private final CompareOp op;
+        private final XpathExpr left, right;
+
+        Compare(CompareOp op, XpathExpr left, XpathExpr right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override Type type() {
+            return Type.Bool;
+        }
+
+        @Override boolean usesPosition() {
+            return left.usesPosition() || right.usesPosition();
+        }
+
+        @Override boolean bool(Context c) {
+            Type lt = left.type(), rt = right.type();
+            if (lt == Type.NodeSet && rt == Type.NodeSet) {
+                List<Object> l = left.nodes(c), r = right.nodes(c);
+                if (l.isEmpty() || r.isEmpty()) return false;
+                List<String> rs = new ArrayList<>(r.size());
+                for (Object node : r) rs.add(c.tree.string(node));
+                for (Object node : l) {
+                    String ls = c.tree.string(node);
+                    for (String s : rs) {
+                        if (compare(ls, s)) return true;
+                    }
+                }
+                return false;
+            }
+
+            if (lt == Type.NodeSet || rt == Type.NodeSet) {
+                boolean nodesLeft = lt == Type.NodeSet;
+                XpathExpr nodeSet = nodesLeft ? left : right, other = nodesLeft ? right : left;
+                if (other.type() == Type.Bool) {
+                    double a = nodeSet.bool(c) ? 1 : 0, b = other.bool(c) ? 1 : 0;
+                    return nodesLeft ? compare(a, b) : compare(b, a);
+                }
+                if (other.type() == Type.Num) {
+                    double value = other.number(c);
+                    for (Object node : nodeSet.nodes(c)) {
+                        double n = toNumber(c.tree.string(node));
+                        if (nodesLeft ? compare(n, value) : compare(value, n)) return true;
+                    }
+                    return false;
+                }
+                String value = other.string(c);
+                for (Object node : nodeSet.nodes(c)) {
+                    String s = c.tree.string(node);
+                    if (nodesLeft ? compare(s, value) : compare(value, s)) return true;
+                }
+                return false;
+            }
+
+            if (op == CompareOp.Eq || op == CompareOp.Ne) {
+                boolean eq;
+                if (lt == Type.Bool || rt == Type.Bool) eq = left.bool(c) == right.bool(c);
+                else if (lt == Type.Num || rt == Type.Num) eq = left.number(c) == right.number(c);
+                else eq = left.string(c).equals(right.string(c));
+                return eq == (op == CompareOp.Eq);
+            }
+            return compare(left.number(c), right.number(c));
+        }
+
+        private boolean compare(String a, String b) {
+            switch (op) {
+                case Eq: return a.equals(b);
+                case Ne: return !a.equals(b);
+                default: return compare(toNumber(a), toNumber(b));
+            }
+        }
+
+        private boolean compare(double a, double b) {
+            switch (op) {
+                case Eq: return a == b;
+                case Ne: return a != b;
+                case Lt: return a < b;
+                case Le: return a <= b;
+                case Gt: return a > b;
+                default: return a >= b;
+            }
+        }
+    }
+
+    enum ArithmeticOp { Add, Subtract, Multiply, Divide, Mod }
+
+    static final class Arithmetic extends XpathExpr {
+        private final ArithmeticOp op;
+        private final XpathExpr left, right;
+
+        Arithmetic(ArithmeticOp op, XpathExpr left, XpathExpr right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override Type type() {
+            return Type.Num;
+        }
+
+        @Override boolean usesPosition() {
+            return left.usesPosition() || right.usesPosition();
+        }
+
+        @Override double number(Context c) {
+            double a = left.number(c), b = right.number(c);
+            switch (op) {
+                case Add: return a + b;
+                case Subtract: return a - b;
+                case Multiply: return a * b;
+                case Divide: return a / b;
+                default: return a % b; // truncating, as XPath's mod
+            }
+        }
+    }
+
+    static final class Negate extends XpathExpr {
+        private final XpathExpr expr;
+
+        Negate(XpathExpr expr) {
+            this.expr = expr;
+        }
+
+        @Override Type type() {
+            return Type.Num;
+        }
+
+        @Override boolean usesPosition() {
+            return expr.usesPosition();
+        }
+
+        @Override double number(Context c) {
+            return -expr.number(c);
+        }
+    }
+
+    static final class Union extends XpathExpr {
+        private final XpathExpr left, right;
+
+        Union(XpathExpr left, XpathExpr right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override Type type() {
+            return Type.NodeSet;
+        }
+
+        @Override boolean usesPosition() {
+            return left.usesPosition() || right.usesPosition();
+        }
+
+        @Override List<Object> nodes(Context c) {
+            List<Object> l = left.nodes(c), r = right.nodes(c);
+            if (r.isEmpty()) return l;
+            if (l.isEmpty()) return r;
+            List<Object> nodes = new ArrayList<>(l.size() + r.size());
+            nodes.addAll(l);
+            nodes.addAll(r);
+            c.tree.sort(nodes);
+            return nodes;
+        }
+    }
+
+    /** A primary expression with predicates, e.g. {@code (//p)[1]}. Positions are in document order. */
+    static final class Filter extends XpathExpr {
+        private final XpathExpr primary;
+        private final XpathExpr[] predicates;
+
+        Filter(XpathExpr primary, XpathExpr[] predicates) {
+            this.primary = primary;
+            this.predicates = predicates;
+        }
+
+        @Override Type type() {
+            return Type.NodeSet;
+        }
+
+        @Override boolean usesPosition() {
+            return primary.usesPosition();
+        }
+
+        @Override List<Object> nodes(Context c) {
+            return filter(primary.nodes(c), predicates, c.tree);
+        }
+    }
+
+    /** A location path: steps from the context node, or from the root if absolute, or from a filter expression. */
+    static final class Path extends XpathExpr {
+        private final @Nullable XpathExpr filter;
+        private final boolean absolute;
+        private final Step[] steps;
+
+        Path(@Nullable XpathExpr filter, boolean absolute, Step[] steps) {
+            this.filter = filter;
+            this.absolute = absolute;
+            this.steps = steps;
+        }
+
+        @Override Type type() {
+            return Type.NodeSet;
+        }
+
+        @Override boolean usesPosition() {
+            return filter != null && filter.usesPosition();
+        }
+
+        @Override List<Object> nodes(Context c) {
+            List<Object> nodes;
+            if (filter != null) {
+                nodes = filter.nodes(c);
+            } else {
+                nodes = new ArrayList<>(1);
+                nodes.add(absolute ? c.tree.root : c.node);
+            }
+            for (Step step : steps) {
+                if (nodes.isEmpty()) break;
+                nodes = step.select(nodes, c.tree);
+            }
+            return nodes;
+        }
+    }
+
+    /** A step of a location path: the nodes along an axis that match the node test and the predicates. */
+    static final class Step {
+        final Axis axis;
+        final NodeTest test;
+        final XpathExpr[] predicates;
+        private final boolean positional;
+
+        Step(Axis axis, NodeTest test, XpathExpr[] predicates) {
+            this.axis = axis;
+            this.test = test;
+            this.predicates = predicates;
+            boolean positional = false;
+            for (XpathExpr predicate : predicates) {
+                if (XpathExpr.isPositional(predicate)) positional = true;
+            }
+            this.positional = positional;
+        }
+
+        boolean isPositional() {
+            return positional;
+        }
+
+        /** Selects the step's nodes from each of the input nodes (which are in document order). */
+        List<Object> select(List<Object> input, XpathTree tree) {
+            List<Object> out = new ArrayList<>();
+            if (input.size() == 1) {
+                select(input.get(0), tree, out);
+                if (axis.reverse) Collections.reverse(out);
+                return out;
+            }
+
+            boolean sort = true;
+            if (axis == Axis.Self || axis == Axis.Attribute) {
+                sort = false;
+            } else if (axis == Axis.Child || ((axis == Axis.Descendant || axis == Axis.DescendantOrSelf) && !positional)) {
+                // results are in order unless an input is within an earlier one. For descendants, skip those inputs, as
+                // their results are already selected from the earlier input.
+                boolean descendants = axis != Axis.Child, nested = false;
+                Object outer = null;
+                for (Object node : input) {
+                    if (node instanceof XpathTree.Attr) {
+                        nested = true;
+                    } else if (outer != null && tree.isDescendant(node, outer)) {
+                        nested = true;
+                        if (descendants) continue;
+                    } else {
+                        outer = node;
+                    }
+                    select(node, tree, out);
+                }
+                if (nested) tree.sort(out);
+                return out;
+            }
+
+            for (Object node : input)
+                select(node, tree, out);
+            if (sort) tree.sort(out);
+            return out;
+        }
+
+        /** Selects the nodes from the context node, in the axis's order. */
+        private void select(Object node, XpathTree tree, List<Object> out) {
+            if (predicates.length == 0) {
+                axis.collect(tree, node, test, out);
+            } else {
+                List<Object> candidates = new ArrayList<>();
+                axis.collect(tree, node, test, candidates);
+                out.addAll(filter(candidates, predicates, tree));
+            }
+        }
+
+        Step withAxis(Axis axis) {
+            return new Step(axis, test, predicates);
+        }
+    }
+
+    enum Axis {
+        Ancestor("ancestor", true),
+        AncestorOrSelf("ancestor-or-self", true),
+        Attribute("attribute", false),
+        Child("child", false),
+        Descendant("descendant", false),
+        DescendantOrSelf("descendant-or-self", false),
+        Following("following", false),
+        FollowingSibling("following-sibling", false),
+        Parent("parent", false),
+        Preceding("preceding", true),
+        PrecedingSibling("preceding-sibling", true),
+        Self("self", false);
+
+        final String name;
+        final boolean reverse; // if the axis is in reverse document order
+
+        Axis(String name, boolean reverse) {
+            this.name = name;
+            this.reverse = reverse;
+        }
+
+        static @Nullable Axis byName(String name) {
+            for (Axis axis : values()) {
+                if (axis.name.equals(name)) return axis;
+            }
+            return null;
+        }
+
+        /** Adds the nodes along this axis from the node that match the test, in the axis's order. */
+        void collect(XpathTree tree, Object node, NodeTest test, List<Object> out) {
+            switch (this) {
+                case Self:
+                    add(tree, node, test, out);
+                    break;
+                case Child:
+                    for (Node child = tree.firstChild(node); child != null; child = tree.nextSibling(child))
+                        add(tree, child, test, out);
+                    break;
+                case DescendantOrSelf:
+                    add(tree, node, test, out);
+                    descendants(tree, node, test, out);
+                    break;
+                case Descendant:
+                    descendants(tree, node, test, out);
+                    break;
+                case Parent:
+                    Object parent = tree.parent(node);
+                    if (parent != null) add(tree, parent, test, out);
+                    break;
+                case AncestorOrSelf:
+                    add(tree, node, test, out);
+                    // fall through
+                case Ancestor:
+                    for (Object p = tree.parent(node); p != null; p = tree.parent(p))
+                        add(tree, p, test, out);
+                    break;
+                case FollowingSibling:
+                    for (Node sib = tree.nextSibling(node); sib != null; sib = tree.nextSibling(sib))
+                        add(tree, sib, test, out);
+                    break;
+                case PrecedingSibling:
+                    for (Node sib = tree.previousSibling(node); sib != null; sib = tree.previousSibling(sib))
+                        add(tree, sib, test, out);
+                    break;
+                case Following:
+                    if (node instanceof XpathTree.Attr) { // an attribute's following nodes include its owner's contents
+                        node = ((XpathTree.Attr) node).owner;
+                        descendants(tree, node, test, out);
+                    }
+                    for (Object n = node; n != null; n = tree.parent(n)) {
+                        for (Node sib = tree.nextSibling(n); sib != null; sib = tree.nextSibling(sib)) {
+                            add(tree, sib, test, out);
+                            descendants(tree, sib, test, out);
+                        }
+                    }
+                    break;
+                case Preceding:
+                    if (node instanceof XpathTree.Attr) node = ((XpathTree.Attr) node).owner;
+                    List<Object> subtree = new ArrayList<>();
+                    for (Object n = node; n != null; n = tree.parent(n)) {
+                        for (Node sib = tree.previousSibling(n); sib != null; sib = tree.previousSibling(sib)) {
+                            add(tree, sib, test, subtree);
+                            descendants(tree, sib, test, subtree);
+                            for (int i = subtree.size() - 1; i >= 0; i--)
+                                out.add(subtree.get(i));
+                            subtree.clear();
+                        }
+                    }
+                    break;
+                case Attribute:
+                    for (XpathTree.Attr attr : tree.attributes(node)) {
+                        if (test.matches(tree, attr, true)) out.add(attr);
+                    }
+                    break;
+            }
+        }
+
+        private static void add(XpathTree tree, Object node, NodeTest test, List<Object> out) {
+            if (test.matches(tree, node, false)) out.add(node);
+        }
+
+        /** Adds the node's descendants that match the test, in document order. */
+        private static void descendants(XpathTree tree, Object node, NodeTest test, List<Object> out) {
+            Node n = tree.firstChild(node);
+            while (n != null) {
+                add(tree, n, test, out);
+                Node child = tree.firstChild(n);
+                if (child != null) {
+                    n = child;
+                    continue;
+                }
+                while (true) { // ascend until there is a next sibling
+                    Node next = tree.nextSibling(n);
+                    if (next != null) {
+                        n = next;
+                        break;
+                    }
+                    Object parent = tree.parent(n);
+                    if (parent == node || parent == null) {
+                        n = null;
+                        break;
+                    }
+                    n = (Node) parent;
+                }
+            }
+        }
+    }
+
+    /** A node test. Name tests match the principal node type of the axis: attributes on the attribute axis, otherwise elements. */
+    static final class NodeTest {
+        enum Kind {
+            Name, AnyName, Node, Text, Comment,
+            None // processing-instruction(), and prefixed names (as there is no namespace context); these match nothing
+        }
+
+        final Kind kind;
+        final String name;
+
+        NodeTest(Kind kind, String name) {
+            this.kind = kind;
+            this.name = name;
+        }
+
+        NodeTest(Kind kind) {
+            this(kind, "");
+        }
+
+        boolean matches(XpathTree tree, Object node, boolean attributeAxis) {
+            switch (kind) {
+                case Name:
+                    return (attributeAxis || tree.isElement(node)) && tree.hasLocalName(node, name);
+                case AnyName:
+                    return attributeAxis || tree.isElement(node);
+                case Node:
+                    return true;
+                case Text:
+                    return XpathTree.isText(node);
+                case Comment:
+                    return node instanceof Comment;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    enum Fn {
+        Last("last", Type.Num, 0, 0),
+        Position("position", Type.Num, 0, 0),
+        Count("count", Type.Num, 1, 1),
+        LocalName("local-name", Type.Str, 0, 1),
+        NamespaceUri("namespace-uri", Type.Str, 0, 1),
+        Name("name", Type.Str, 0, 1),
+        ToString("string", Type.Str, 0, 1),
+        Concat("concat", Type.Str, 2, Integer.MAX_VALUE),
+        StartsWith("starts-with", Type.Bool, 2, 2),
+        Contains("contains", Type.Bool, 2, 2),
+        SubstringBefore("substring-before", Type.Str, 2, 2),
+        SubstringAfter("substring-after", Type.Str, 2, 2),
+        Substring("substring", Type.Str, 2, 3),
+        StringLength("string-length", Type.Num, 0, 1),
+        NormalizeSpace("normalize-space", Type.Str, 0, 1),
+        Translate("translate", Type.Str, 3, 3),
+        ToBoolean("boolean", Type.Bool, 1, 1),
+        Not("not", Type.Bool, 1, 1),
+        True("true", Type.Bool, 0, 0),
+        False("false", Type.Bool, 0, 0),
+        ToNumber("number", Type.Num, 0, 1),
+        Sum("sum", Type.Num, 1, 1),
+        Floor("floor", Type.Num, 1, 1),
+        Ceiling("ceiling", Type.Num, 1, 1),
+        Round("round", Type.Num, 1, 1);
+
+        final String name;
+        final Type type;
+        final int minArgs, maxArgs;
+
+        Fn(String name, Type type, int minArgs, int maxArgs) {
+            this.name = name;
+            this.type = type;
+            this.minArgs = minArgs;
+            this.maxArgs = maxArgs;
+        }
+
+        static @Nullable Fn byName(String name) {
+            for (Fn fn : values()) {
+                if (fn.name.equals(name)) return fn;
+            }
+            return null;
+        }
+
+        /** If the function's arguments must be node-sets. */
+        boolean takesNodeSet() {
+            return this == Count || this == Sum || this == LocalName || this == NamespaceUri || this == Name;
+        }
+    }
+
+    /** A call of a function in the XPath core library. */
+    static final class Call extends XpathExpr {
+        private final Fn fn;
+        private final XpathExpr[] args;
+
+        Call(Fn fn, XpathExpr[] args) {
+            this.fn = fn;
+            this.args = args;
+        }
+
+        @Override Type type() {
+            return fn.type;
+        }
+
+        @Override boolean usesPosition() {
+            if (fn == Fn.Last || fn == Fn.Position) return true;
+            for (XpathExpr arg : args) {
+                if (arg.usesPosition()) return true;
+            }
+            return false;
+        }
+
+        /** The string argument; or if none, the context node's string-value. */
+        private String stringArg(Context c) {
+            return args.length == 0 ? c.tree.string(c.node) : args[0].string(c);
+        }
+
+        /** The node argument (the first of the node-set); or if none, the context node. */
+        private @Nullable Object nodeArg(Context c) {
+            if (args.length == 0) return c.node;
+            List<Object> nodes = args[0].nodes(c);
+            return nodes.isEmpty() ? null : nodes.get(0);
+        }
+
+        @Override double number(Context c) {
+            switch (fn) {
+                case Last:
+                    return c.size;
+                case Position:
+                    return c.position;
+                case Count:
+                    return args[0].nodes(c).size();
+                case StringLength:
+                    return stringArg(c).length();
+                case ToNumber:
+                    return args.length == 0 ? toNumber(c.tree.string(c.node)) : args[0].number(c);
+                case Sum:
+                    double sum = 0;
+                    for (Object node : args[0].nodes(c))
+                        sum += toNumber(c.tree.string(node));
+                    return sum;
+                case Floor:
+                    return Math.floor(args[0].number(c));
+                case Ceiling:
+                    return Math.ceil(args[0].number(c));
+                case Round:
+                    return round(args[0].number(c));
+                default:
+                    return super.number(c);
+            }
+        }
+
+        @Override String string(Context c) {
+            switch (fn) {
+                case LocalName:
+                case Name: {
+                    Object node = nodeArg(c);
+                    if (node == null) return "";
+                    return fn == Fn.Name ? c.tree.name(node) : c.tree.localName(node);
+                }
+                case NamespaceUri:
+                    return ""; // namespaces are not in the tree
+                case ToString:
+                    return stringArg(c);
+                case Concat: {
+                    StringBuilder sb = new StringBuilder();
+                    for (XpathExpr arg : args)
+                        sb.append(arg.string(c));
+                    return sb.toString();
+                }
+                case SubstringBefore: {
+                    String s = args[0].string(c);
+                    int i = s.indexOf(args[1].string(c));
+                    return i == -1 ? "" : s.substring(0, i);
+                }
+                case SubstringAfter: {
+                    String s = args[0].string(c), find = args[1].string(c);
+                    int i = s.indexOf(find);
+                    return i == -1 ? "" : s.substring(i + find.length());
+                }
+                case Substring:
+                    return substring(c);
+                case NormalizeSpace:
+                    return normalizeSpace(stringArg(c));
+                case Translate:
+                    return translate(args[0].string(c), args[1].string(c), args[2].string(c));
+                default:
+                    return super.string(c);
+            }
+        }
+
+        @Override boolean bool(Context c) {
+            switch (fn) {
+                case StartsWith:
+                    return args[0].string(c).startsWith(args[1].string(c));
+                case Contains:
+                    return args[0].string(c).contains(args[1].string(c));
+                case ToBoolean:
+                    return args[0].bool(c);
+                case Not:
+                    return !args[0].bool(c);
+                case True:
+                    return true;
+                case False:
+                    return false;
+                default:
+                    return super.bool(c);
+            }
+        }
+
+        /** The characters at positions (from 1) at or after the rounded start, and before the start plus the length. */
+        private String substring(Context c) {
+            String s = args[0].string(c);
+            double start = round(args[1].number(c));
+            double end = args.length == 3 ? start + round(args[2].number(c)) : Double.POSITIVE_INFINITY;
+            if (Double.isNaN(start) || Double.isNaN(end)) return "";
+            double from = Math.max(start, 1), to = Math.min(end, s.length() + 1);
+            return from < to ? s.substring((int) from - 1, (int) to - 1) : "";
+        }
+
+        private static double round(double d) {
+            if (Double.isNaN(d) || Double.isInfinite(d)) return d;
+            if (d >= -0.5 && d < 0) return -0.0;
+            return Math.floor(d + 0.5);
+        }
+
+        private static String normalizeSpace(String s) {
+            StringBuilder sb = new StringBuilder(s.length());
+            boolean space = false;
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (isWhitespace(c)) {
+                    space = sb.length() > 0;
+                } else {
+                    if (space) sb.append(' ');
+                    sb.append(c);
+                    space = false;
+                }
+            }
+            return sb.toString();
+        }
+
+        private static String translate(String s, String from, String to) {
+            StringBuilder sb = new StringBuilder(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                int pos = from.indexOf(c);
+                if (pos == -1) sb.append(c);
+                else if (pos < to.length()) sb.append(to.charAt(pos));
+            }
+            return sb.toString();
+        }
+    }
+}
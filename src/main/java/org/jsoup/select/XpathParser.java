@@ -0,0 +1,459 @@
+package org.jsoup.select;
+
+import org.jsoup.helper.Validate;
+import org.jsoup.select.XpathExpr.Axis;
+import org.jsoup.select.XpathExpr.NodeTest;
+import org.jsoup.select.XpathExpr.Step;
+import org.jsoup.select.XpathExpr.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ Parses an XPath 1.0 expression into an {@link XpathExpr}. Variables, the {@code namespace} axis, and the {@code id()} and
+ {@code lang()} functions are not supported.
+ */
+class XpathParser {
+    private enum TokenType {
+        LParen, RParen, LBracket, RBracket, Dot, DotDot, At, Comma, ColonColon,
+        NameTest, // *, name, prefix:*, prefix:name
+        NodeType, // comment, text, processing-instruction, node; when followed by (
+        Function, // a name followed by (
+        Axis, // a name followed by ::
+        Operator, // and or mod div * / // | + - = != < <= > >=
+        Literal, Number, Variable, End
+    }
+
+    private static final class Token {
+        final TokenType type;
+        final String text;
+        final int pos;
+
+        Token(TokenType type, String text, int pos) {
+            this.type = type;
+            this.text = text;
+            this.pos = pos;
+        }
+    }
+
+    private final String xpath;
+    private final List<Token> tokens;
+    private int index = 0;
+
+    private XpathParser(String xpath) {
+        this.xpath = xpath;
+        this.tokens = tokenize(xpath);
+    }
+
+    /**
+     Parse an XPath expression.
+     @param xpath the XPath expression
+     @return the expression
+     @throws Selector.SelectorParseException if the expression is not valid, or uses an unsupported feature
+     */
+    static XpathExpr parse(String xpath) {
+        Validate.notEmpty(xpath);
+        XpathParser parser = new XpathParser(xpath);
+        XpathExpr expr = parser.expr();
+        if (parser.peek().type != TokenType.End)
+            throw parser.error("unexpected '%s'", parser.peek().text);
+        return expr;
+    }
+
+    private Selector.SelectorParseException error(String msg, Object... args) {
+        return new Selector.SelectorParseException("Could not parse XPath query [%s] at %s: %s",
+            xpath, peek().pos, String.format(msg, args));
+    }
+
+    // Tokenizer
+
+    private List<Token> tokenize(String s) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (true) {
+            while (i < s.length() && XpathExpr.isWhitespace(s.charAt(i))) i++;
+            if (i >= s.length()) break;
+            int start = i;
+            char c = s.charAt(i);
+            Token prev = tokens.isEmpty() ? null : tokens.get(tokens.size() - 1);
+            // per the spec's lexical rules, * and names are operators if following a token that is not an operator or
+            // one of @ :: ( [ , (as there is then an operand before them):
+            boolean operand = prev != null && prev.type != TokenType.At && prev.type != TokenType.ColonColon
+                && prev.type != TokenType.LParen && prev.type != TokenType.LBracket && prev.type != TokenType.Comma
+                && prev.type != TokenType.Operator;
+            TokenType type;
+            String text;
+
+            if (c == '(' || c == ')' || c == '[' || c == ']' || c == '@' || c == ',') {
+                type = c == '(' ? TokenType.LParen : c == ')' ? TokenType.RParen : c == '[' ? TokenType.LBracket
+                    : c == ']' ? TokenType.RBracket : c == '@' ? TokenType.At : TokenType.Comma;
+                i++;
+            } else if (c == '.' && !isDigit(s, i + 1)) {
+                type = startsWith(s, i, "..") ? TokenType.DotDot : TokenType.Dot;
+                i += type == TokenType.DotDot ? 2 : 1;
+            } else if (c == '.' || isDigit(s, i)) {
+                type = TokenType.Number;
+                while (isDigit(s, i)) i++;
+                if (i < s.length() && s.charAt(i) == '.') {
+                    i++;
+                    while (isDigit(s, i)) i++;
+                }
+            } else if (c == '"' || c == '\'') {
+                int end = s.indexOf(c, i + 1);
+                if (end == -1) throw tokenError(start, "unterminated literal");
+                tokens.add(new Token(TokenType.Literal, s.substring(i + 1, end), start));
+                i = end + 1;
+                continue;
+            } else if (startsWith(s, i, "::")) {
+                type = TokenType.ColonColon;
+                i += 2;
+            } else if (startsWith(s, i, "//") || startsWith(s, i, "!=") || startsWith(s, i, "<=") || startsWith(s, i, ">=")) {
+                type = TokenType.Operator;
+                i += 2;
+            } else if (c == '/' || c == '|' || c == '+' || c == '-' || c == '=' || c == '<' || c == '>') {
+                type = TokenType.Operator;
+                i++;
+            } else if (c == '*') {
+                type = operand ? TokenType.Operator : TokenType.NameTest;
+                i++;
+            } else if (c == '$') {
+                i = skipQName(s, i + 1);
+                type = TokenType.Variable;
+            } else if (isNameStart(c)) {
+                i = skipNcName(s, i);
+                if (operand) {
+                    text = s.substring(start, i);
+                    if (!(text.equals("and") || text.equals("or") || text.equals("mod") || text.equals("div")))
+                        throw tokenError(start, "expected an operator, found '" + text + "'");
+                    tokens.add(new Token(TokenType.Operator, text, start));
+                    continue;
+                }
+                if (i + 1 < s.length() && s.charAt(i) == ':' && s.charAt(i + 1) == '*') {
+                    i += 2; // prefix:*
+                } else if (i + 1 < s.length() && s.charAt(i) == ':' && isNameStart(s.charAt(i + 1))) {
+                    i = skipNcName(s, i + 1); // prefix:name
+                }
+                text = s.substring(start, i);
+                int next = i;
+                while (next < s.length() && XpathExpr.isWhitespace(s.charAt(next))) next++;
+                if (startsWith(s, next, "::")) {
+                    type = TokenType.Axis;
+                } else if (startsWith(s, next, "(")) {
+                    type = text.equals("comment") || text.equals("text") || text.equals("node")
+                        || text.equals("processing-instruction") ? TokenType.NodeType : TokenType.Function;
+                } else {
+                    type = TokenType.NameTest;
+                }
+                tokens.add(new Token(type, text, start));
+                continue;
+            } else {
+                throw tokenError(start, "unexpected character '" + c + "'");
+            }
+            tokens.add(new Token(type, s.substring(start, i), start));
+        }
+        tokens.add(new Token(TokenType.End, "", s.length()));
+        return tokens;
+    }
+
+    private Selector.SelectorParseException tokenError(int pos, String msg) {
+        return new Selector.SelectorParseException("Could not parse XPath query [%s] at %s: %s", xpath, pos, msg);
+    }
+
+    private static boolean isDigit(String s, int i) {
+        return i < s.length() && s.charAt(i) >= '0' && s.charAt(i) <= '9';
+    }
+
+    private static boolean startsWith(String s, int i, String prefix) {
+        return s.startsWith(prefix, i);
+    }
+
+    private static boolean isNameStart(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.' || c == '\u00B7';
+    }
+
+    private static int skipNcName(String s, int i) {
+        i++; // the start char
+        while (i < s.length() && isNameChar(s.charAt(i))) i++;
+        return i;
+    }
+
+    private static int skipQName(String s, int i) {
+        while (i < s.length() && (isNameChar(s.charAt(i)) || s.charAt(i) == ':')) i++;
+        return i;
+    }
+
+    // Parser
+
+    private Token peek() {
+        return tokens.get(index);
+    }
+
+    private boolean peekOperator(String op) {
+        Token token = peek();
+        return token.type == TokenType.Operator && token.text.equals(op);
+    }
+
+    private boolean consumeOperator(String op) {
+        if (!peekOperator(op)) return false;
+        index++;
+        return true;
+    }
+
+    private Token consume() {
+        return tokens.get(index++);
+    }
+
+    private void expect(TokenType type, String what) {
+        if (peek().type != type) throw error("expected %s", what);
+        index++;
+    }
+
+    private XpathExpr expr() {
+        XpathExpr expr = and();
+        while (consumeOperator("or"))
+            expr = new XpathExpr.Logical(false, expr, and());
+        return expr;
+    }
+
+    private XpathExpr and() {
+        XpathExpr expr = equality();
+        while (consumeOperator("and"))
+            expr = new XpathExpr.Logical(true, expr, equality());
+        return expr;
+    }
+
+    private XpathExpr equality() {
+        XpathExpr expr = relational();
+        while (true) {
+            if (consumeOperator("=")) expr = new XpathExpr.Compare(XpathExpr.CompareOp.Eq, expr, relational());
+            else if (consumeOperator("!=")) expr = new XpathExpr.Compare(XpathExpr.CompareOp.Ne, expr, relational());
+            else return expr;
+        }
+    }
+
+    private XpathExpr relational() {
+        XpathExpr expr = additive();
+        while (true) {
+            if (consumeOperator("<")) expr = new XpathExpr.Compare(XpathExpr.CompareOp.Lt, expr, additive());
+            else if (consumeOperator("<=")) expr = new XpathExpr.Compare(XpathExpr.CompareOp.Le, expr, additive());
+            else if (consumeOperator(">")) expr = new XpathExpr.Compare(XpathExpr.CompareOp.Gt, expr, additive());
+            else if (consumeOperator(">=")) expr = new XpathExpr.Compare(XpathExpr.CompareOp.Ge, expr, additive());
+            else return expr;
+        }
+    }
+
+    private XpathExpr additive() {
+        XpathExpr expr = multiplicative();
+        while (true) {
+            if (consumeOperator("+")) expr = new XpathExpr.Arithmetic(XpathExpr.ArithmeticOp.Add, expr, multiplicative());
+            else if (consumeOperator("-")) expr = new XpathExpr.Arithmetic(XpathExpr.ArithmeticOp.Subtract, expr, multiplicative());
+            else return expr;
+        }
+    }
+
+    private XpathExpr multiplicative() {
+        XpathExpr expr = unary();
+        while (true) {
+            if (consumeOperator("*")) expr = new XpathExpr.Arithmetic(XpathExpr.ArithmeticOp.Multiply, expr, unary());
+            else if (consumeOperator("div")) expr = new XpathExpr.Arithmetic(XpathExpr.ArithmeticOp.Divide, expr, unary());
+            else if (consumeOperator("mod")) expr = new XpathExpr.Arithmetic(XpathExpr.ArithmeticOp.Mod, expr, unary());
+            else return expr;
+        }
+    }
+
+    private XpathExpr unary() {
+        if (consumeOperator("-")) return new XpathExpr.Negate(unary());
+        return union();
+    }
+
+    private XpathExpr union() {
+        XpathExpr expr = path();
+        while (peekOperator("|")) {
+            checkNodeSet(expr);
+            index++;
+            XpathExpr right = path();
+            checkNodeSet(right);
+            expr = new XpathExpr.Union(expr, right);
+        }
+        return expr;
+    }
+
+    private void checkNodeSet(XpathExpr expr) {
+        if (expr.type() != Type.NodeSet) throw error("expected a node-set");
+    }
+
+    private XpathExpr path() {
+        TokenType type = peek().type;
+        if (type == TokenType.Literal || type == TokenType.Number || type == TokenType.Variable
+            || type == TokenType.LParen || type == TokenType.Function) {
+            XpathExpr filter = primary();
+            if (peek().type == TokenType.LBracket) {
+                checkNodeSet(filter);
+                filter = new XpathExpr.Filter(filter, predicates());
+            }
+            if (!peekOperator("/") && !peekOperator("//")) return filter;
+            checkNodeSet(filter);
+            List<Step> steps = new ArrayList<>();
+            relativePath(steps);
+            return new XpathExpr.Path(filter, false, optimize(steps));
+        }
+
+        List<Step> steps = new ArrayList<>();
+        boolean absolute = false;
+        if (consumeOperator("/")) {
+            absolute = true;
+            if (!isStepStart()) return new XpathExpr.Path(null, true, new Step[0]); // just the root
+            steps.add(step());
+        } else if (!peekOperator("//")) {
+            steps.add(step());
+        } else {
+            absolute = true;
+        }
+        relativePath(steps);
+        return new XpathExpr.Path(null, absolute, optimize(steps));
+    }
+
+    /** Adds the steps following a / or //. */
+    private void relativePath(List<Step> steps) {
+        while (true) {
+            if (consumeOperator("//")) {
+                steps.add(new Step(Axis.DescendantOrSelf, new NodeTest(NodeTest.Kind.Node), new XpathExpr[0]));
+                steps.add(step());
+            } else if (consumeOperator("/")) {
+                steps.add(step());
+            } else {
+                return;
+            }
+        }
+    }
+
+    private boolean isStepStart() {
+        TokenType type = peek().type;
+        return type == TokenType.Dot || type == TokenType.DotDot || type == TokenType.At || type == TokenType.Axis
+            || type == TokenType.NameTest || type == TokenType.NodeType;
+    }
+
+    /**
+     Rewrites {@code descendant-or-self::node()/child::x} (i.e. {@code //x}) as {@code descendant::x}, which selects the
+     same nodes without visiting every node first, unless x's predicates test positions, which are then relative to
+     each parent.
+     */
+    private static Step[] optimize(List<Step> steps) {
+        for (int i = 0; i < steps.size() - 1; i++) {
+            Step step = steps.get(i), next = steps.get(i + 1);
+            if (step.axis == Axis.DescendantOrSelf && step.test.kind == NodeTest.Kind.Node && step.predicates.length == 0
+                && next.axis == Axis.Child && !next.isPositional()) {
+                steps.set(i, next.withAxis(Axis.Descendant));
+                steps.remove(i + 1);
+            }
+        }
+        return steps.toArray(new Step[0]);
+    }
+
+    private Step step() {
+        Token token = peek();
+        if (token.type == TokenType.Dot) {
+            index++;
+            return new Step(Axis.Self, new NodeTest(NodeTest.Kind.Node), new XpathExpr[0]);
+        }
+        if (token.type == TokenType.DotDot) {
+            index++;
+            return new Step(Axis.Parent, new NodeTest(NodeTest.Kind.Node), new XpathExpr[0]);
+        }
+
+        Axis axis = Axis.Child;
+        if (token.type == TokenType.At) {
+            index++;
+            axis = Axis.Attribute;
+        } else if (token.type == TokenType.Axis) {
+            axis = Axis.byName(token.text);
+            if (axis == null) throw error("unsupported axis '%s'", token.text);
+            index++;
+            expect(TokenType.ColonColon, "::");
+        }
+        NodeTest test = nodeTest();
+        return new Step(axis, test, predicates());
+    }
+
+    private NodeTest nodeTest() {
+        Token token = peek();
+        if (token.type == TokenType.NameTest) {
+            index++;
+            if (token.text.equals("*")) return new NodeTest(NodeTest.Kind.AnyName);
+            if (token.text.indexOf(':') != -1) return new NodeTest(NodeTest.Kind.None); // no namespace context to resolve the prefix
+            return new NodeTest(NodeTest.Kind.Name, token.text);
+        }
+        if (token.type == TokenType.NodeType) {
+            index++;
+            expect(TokenType.LParen, "(");
+            NodeTest test;
+            switch (token.text) {
+                case "node": test = new NodeTest(NodeTest.Kind.Node); break;
+                case "text": test = new NodeTest(NodeTest.Kind.Text); break;
+                case "comment": test = new NodeTest(NodeTest.Kind.Comment); break;
+                default: // processing-instruction, with an optional literal
+                    if (peek().type == TokenType.Literal) index++;
+                    test = new NodeTest(NodeTest.Kind.None);
+            }
+            expect(TokenType.RParen, ")");
+            return test;
+        }
+        throw error("expected a node test");
+    }
+
+    private XpathExpr[] predicates() {
+        List<XpathExpr> predicates = new ArrayList<>();
+        while (peek().type == TokenType.LBracket) {
+            index++;
+            predicates.add(expr());
+            expect(TokenType.RBracket, "]");
+        }
+        return predicates.toArray(new XpathExpr[0]);
+    }
+
+    private XpathExpr primary() {
+        Token token = consume();
+        switch (token.type) {
+            case Literal:
+                return new XpathExpr.StringLiteral(token.text);
+            case Number:
+                return new XpathExpr.NumberLiteral(Double.parseDouble(token.text));
+            case LParen:
+                XpathExpr expr = expr();
+                expect(TokenType.RParen, ")");
+                return expr;
+            case Function:
+                return call(token);
+            default: // Variable
+                index--;
+                throw error("variables are not supported");
+        }
+    }
+
+    private XpathExpr call(Token name) {
+        XpathExpr.Fn fn = XpathExpr.Fn.byName(name.text);
+        if (fn == null) {
+            index--;
+            throw error("unsupported function '%s()'", name.text);
+        }
+        expect(TokenType.LParen, "(");
+        List<XpathExpr> args = new ArrayList<>();
+        if (peek().type != TokenType.RParen) {
+            while (true) {
+                XpathExpr arg = expr();
+                if (fn.takesNodeSet()) checkNodeSet(arg);
+                args.add(arg);
+                if (peek().type != TokenType.Comma) break;
+                index++;
+            }
+        }
+        expect(TokenType.RParen, ")");
+        if (args.size() < fn.minArgs || args.size() > fn.maxArgs)
+            throw error("wrong number of arguments to %s()", fn.name);
+        return new XpathExpr.Call(fn, args.toArray(new XpathExpr[0]));
+    }
+}
@@ -0,0 +1,91 @@
+package org.jsoup.select;
+
+import org.jsoup.helper.Validate;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ A compiled XPath 1.0 query, evaluated directly over jsoup nodes. Compile a query once with {@link #compile(String)},
+ and then run it against any number of elements; a compiled query is immutable and may be used across threads.
+ <p>Queries see the same tree as {@link Element#selectXpath(String)}: namespaces are disabled, so elements and
+ attributes are matched by their local name (e.g. {@code //book} matches {@code <bk:book>}, and {@code name()} is
+ {@code bk:book}); the whole document is visible from the context element; and adjacent text nodes are a single text
+ node. As attributes are not Nodes in jsoup, attributes are not returned from a query, but may be used in it (e.g.
+ {@code //a[@href]}).</p>
+ <p>All of XPath 1.0 is supported, except variables, the {@code namespace} axis, and the {@code id()} and {@code lang()}
+ functions. The query must select nodes (e.g. it can't be {@code count(//p)}).</p>
+ <p>{@link Element#selectXpath(String)} uses this evaluator, and falls back to converting to a W3C DOM and using the
+ JDK's XPath implementation for queries that are not supported here, or if an alternate XPathFactory is set.</p>
+
+ @see Element#selectXpath(String)
+ @since 1.22.1
+ */
+public final class XpathQuery {
+    private final String xpath;
+    private final XpathExpr expr;
+
+    private XpathQuery(String xpath, XpathExpr expr) {
+        this.xpath = xpath;
+        this.expr = expr;
+    }
+
+    /**
+     Compile an XPath query.
+     @param xpath the XPath 1.0 query
+     @return the compiled query
+     @throws Selector.SelectorParseException if the query is not valid, uses an unsupported feature, or does not select
+     nodes
+     */
+    public static XpathQuery compile(String xpath) {
+        Validate.notEmpty(xpath);
+        XpathExpr expr = XpathParser.parse(xpath);
+        if (expr.type() != XpathExpr.Type.NodeSet)
+            throw new Selector.SelectorParseException("XPath query [%s] does not select nodes", xpath);
+        return new XpathQuery(xpath, expr);
+    }
+
+    /**
+     Find the Elements that match this query, from the context element.
+     @param context the context element. If a Document, its root element (e.g. {@code <html>}) is the context.
+     @return the matching elements, in document order; or an empty list if none match.
+     */
+    public Elements select(Element context) {
+        return new Elements(select(context, Element.class));
+    }
+
+    /**
+     Find the Nodes that match this query, from the context element.
+     @param context the context element. If a Document, its root element (e.g. {@code <html>}) is the context.
+     @param nodeType the jsoup node type to return (e.g. {@code TextNode.class}); other matching nodes are not returned.
+     @param <T> the node type
+     @return the matching nodes, in document order; or an empty list if none match.
+     */
+    public <T extends Node> List<T> select(Element context, Class<T> nodeType) {
+        Validate.notNull(context);
+        Validate.notNull(nodeType);
+        Element el = context instanceof Document ? context.firstElementChild() : context;
+        if (el == null) return Collections.emptyList();
+
+        XpathTree tree = new XpathTree(el);
+        List<Object> nodes = expr.nodes(new XpathExpr.Context(tree, el, 1, 1));
+        List<T> matches = new ArrayList<>(nodes.size());
+        for (Object node : nodes) {
+            if (nodeType.isInstance(node) && node != tree.root) // attributes and the root are not returned
+                matches.add(nodeType.cast(node));
+        }
+        return matches;
+    }
+
+    /**
+     Get the XPath query that this was compiled from.
+     @return the XPath query
+     */
+    @Override public String toString() {
+        return xpath;
+    }
+}
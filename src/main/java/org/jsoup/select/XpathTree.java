@@ -0,0 +1,271 @@
+package org.jsoup.select;
+
+import org.jsoup.internal.Normalizer;
+import org.jsoup.internal.StringUtil;
+import org.jsoup.nodes.Attribute;
+import org.jsoup.nodes.Comment;
+import org.jsoup.nodes.DataNode;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Document.OutputSettings.Syntax;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ The tree an {@link XpathQuery} is evaluated over: jsoup's nodes, seen as the XPath data model. The view is the same as
+ the W3C DOM that {@link org.jsoup.helper.W3CDom} converts to (without namespaces), so queries match the same nodes as
+ they would there:
+ <ul>
+ <li>the root node is the owner Document, and its one child is the Document's first element. (For an element that is
+ not in a Document, the root is a stand-in above that element.) Doctypes, XML declarations, and any other nodes outside
+ that element are not in the tree;</li>
+ <li>TextNodes (including CDataNodes) and DataNodes are text nodes, and adjacent ones are a single text node, represented
+ by the first of them;</li>
+ <li>element names are the XML-safe tag name, and attribute keys are coerced as when converting. A name's prefix is not a
+ namespace, so a name test matches on the local part (e.g. {@code book} matches {@code <bk:book>});</li>
+ <li>attributes are {@link Attr} nodes, and {@code xmlns} attributes are namespace declarations, not attributes.</li>
+ </ul>
+ Nodes are held as {@code Object}s, being either a jsoup {@link Node} or an {@link Attr}.
+ */
+final class XpathTree {
+    final Node root; // the document node
+    final Element top; // the document element, the root's only child
+    private final Syntax syntax; // attribute keys are coerced to this syntax
+    private @Nullable IdentityHashMap<Node, Integer> order; // the document order of each node, built when sorting
+
+    XpathTree(Element context) {
+        Document doc = context.ownerDocument();
+        Element docEl = doc != null ? doc.firstElementChild() : null;
+        if (doc != null && docEl != null) {
+            root = doc;
+            top = docEl;
+            syntax = doc.outputSettings().syntax();
+        } else {
+            root = new Document("");
+            top = context;
+            syntax = Syntax.xml;
+        }
+    }
+
+    /** An attribute node, of its owner element. */
+    static final class Attr {
+        final Element owner;
+        final int index; // the attribute's index in the owner's attributes, for document order
+        final String name;
+        final String value;
+
+        Attr(Element owner, int index, String name, String value) {
+            this.owner = owner;
+            this.index = index;
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Attr)) return false;
+            Attr attr = (Attr) o;
+            return owner == attr.owner && index == attr.index;
+        }
+
+        @Override public int hashCode() {
+            return 31 * System.identityHashCode(owner) + index;
+        }
+    }
+
+    /** If the jsoup node is in the XPath tree. Elements, text, and comments are; others, like XmlDeclarations, are not. */
+    static boolean isVisible(Node node) {
+        return node instanceof Element || node instanceof TextNode || node instanceof DataNode || node instanceof Comment;
+    }
+
+    /** If the node is (or starts) an XPath text node. */
+    static boolean isText(Object node) {
+        return node instanceof TextNode || node instanceof DataNode;
+    }
+
+    /** If the node is an XPath element (i.e. an Element, other than the root). */
+    boolean isElement(Object node) {
+        return node instanceof Element && node != root;
+    }
+
+    @Nullable Node firstChild(Object node) {
+        if (node == root) return top;
+        if (!(node instanceof Element)) return null;
+        Node child = ((Element) node).firstChild();
+        while (child != null && !isVisible(child))
+            child = child.nextSibling();
+        return child;
+    }
+
+    @Nullable Node nextSibling(Object node) {
+        if (node == top || !(node instanceof Node)) return null;
+        boolean text = isText(node);
+        for (Node next = ((Node) node).nextSibling(); next != null; next = next.nextSibling()) {
+            if (!isVisible(next) || (text && isText(next))) continue; // skips the rest of this text node
+            return next;
+        }
+        return null;
+    }
+
+    @Nullable Node previousSibling(Object node) {
+        if (node == top || !(node instanceof Node)) return null;
+        Node found = null;
+        for (Node prev = ((Node) node).previousSibling(); prev != null; prev = prev.previousSibling()) {
+            if (!isVisible(prev)) continue;
+            if (found != null && !(isText(found) && isText(prev))) break;
+            found = prev; // continues to the first of adjacent text nodes
+        }
+        return found;
+    }
+
+    @Nullable Object parent(Object node) {
+        if (node instanceof Attr) return ((Attr) node).owner;
+        if (node == top) return root;
+        if (node == root) return null;
+        return ((Node) node).parentNode();
+    }
+
+    /** If the node is a descendant of the ancestor. */
+    boolean isDescendant(Object node, Object ancestor) {
+        if (node instanceof Attr || ancestor instanceof Attr) return false;
+        for (Object parent = parent(node); parent != null; parent = parent(parent)) {
+            if (parent == ancestor) return true;
+        }
+        return false;
+    }
+
+    /** Gets the element's attribute nodes. */
+    List<Attr> attributes(Object node) {
+        if (!isElement(node) || ((Element) node).attributesSize() == 0) return Collections.emptyList();
+        Element el = (Element) node;
+        List<Attr> attrs = new ArrayList<>(el.attributesSize());
+        int i = 0;
+        for (Attribute attribute : el.attributes()) {
+            String name = attributeName(attribute.getKey());
+            if (name != null && !isNamespaceDeclaration(name))
+                attrs.add(new Attr(el, i, name, attribute.getValue()));
+            i++;
+        }
+        return attrs;
+    }
+
+    /** The attribute's name, coerced as W3CDom does: to the document's syntax, then to XML if that is not valid. */
+    private @Nullable String attributeName(String key) {
+        String name = Attribute.getValidKey(key, syntax);
+        if (name != null && syntax != Syntax.xml && !name.equals(Attribute.getValidKey(name, Syntax.xml)))
+            name = Attribute.getValidKey(key, Syntax.xml);
+        return name;
+    }
+
+    private static boolean isNamespaceDeclaration(String name) {
+        return name.startsWith("xmlns") && (name.length() == 5 || name.charAt(5) == ':');
+    }
+
+    /** The node's qualified name, as the {@code name()} function. Empty if the node has none. */
+    String name(Object node) {
+        if (node instanceof Attr) return ((Attr) node).name;
+        if (isElement(node)) {
+            String name = Normalizer.xmlSafeTagName(((Element) node).tagName());
+            return name != null ? name : "";
+        }
+        return "";
+    }
+
+    /** The node's local name, as the {@code local-name()} function. */
+    String localName(Object node) {
+        String name = name(node);
+        return name.substring(name.indexOf(':') + 1);
+    }
+
+    /** If the node's local name is the given name. */
+    boolean hasLocalName(Object node, String localName) {
+        String name;
+        if (node instanceof Attr) {
+            name = ((Attr) node).name;
+        } else {
+            String tagName = ((Element) node).tagName();
+            if (tagName.equals(localName)) return true; // the common case: an XML-safe name, without a prefix
+            name = Normalizer.xmlSafeTagName(tagName);
+            if (name == null) return false;
+        }
+        int start = name.indexOf(':') + 1;
+        return name.length() - start == localName.length() && name.startsWith(localName, start);
+    }
+
+    /** The node's string-value. */
+    String string(Object node) {
+        if (node instanceof Attr) return ((Attr) node).value;
+        if (node instanceof Comment) return ((Comment) node).getData();
+        if (node instanceof Element) {
+            Element el = node == root ? top : (Element) node;
+            Node child = firstChild(el);
+            if (child != null && isText(child) && nextSibling(child) == null)
+                return string(child); // only contains text; don't need to build
+            StringBuilder accum = StringUtil.borrowBuilder();
+            NodeTraversor.traverse((n, depth) -> appendText(n, accum), el);
+            return StringUtil.releaseBuilder(accum);
+        }
+        if (isText(node)) {
+            Node next = nextRaw((Node) node);
+            if (next == null || !isText(next)) return text((Node) node); // a single text node
+            StringBuilder accum = StringUtil.borrowBuilder();
+            for (Node n = (Node) node; n != null && (isText(n) || !isVisible(n)); n = n.nextSibling())
+                appendText(n, accum);
+            return StringUtil.releaseBuilder(accum);
+        }
+        return "";
+    }
+
+    /** The next visible sibling, without skipping adjacent text. */
+    private static @Nullable Node nextRaw(Node node) {
+        Node next = node.nextSibling();
+        while (next != null && !isVisible(next))
+            next = next.nextSibling();
+        return next;
+    }
+
+    private static void appendText(Node node, StringBuilder accum) {
+        if (isText(node)) accum.append(text(node));
+    }
+
+    private static String text(Node node) {
+        return node instanceof TextNode ? ((TextNode) node).getWholeText() : ((DataNode) node).getWholeData();
+    }
+
+    /** Sorts the nodes into document order, and removes duplicates. */
+    void sort(List<Object> nodes) {
+        if (nodes.size() < 2) return;
+        Collections.sort(nodes, this::compare);
+        int size = 1;
+        for (int i = 1; i < nodes.size(); i++) {
+            Object node = nodes.get(i);
+            if (!node.equals(nodes.get(size - 1)))
+                nodes.set(size++, node);
+        }
+        nodes.subList(size, nodes.size()).clear();
+    }
+
+    private int compare(Object a, Object b) {
+        int c = Integer.compare(order(a), order(b));
+        if (c != 0) return c;
+        // an attribute follows its owner, and precedes its children:
+        return Integer.compare(a instanceof Attr ? ((Attr) a).index + 1 : 0, b instanceof Attr ? ((Attr) b).index + 1 : 0);
+    }
+
+    private int order(Object node) {
+        if (order == null) {
+            IdentityHashMap<Node, Integer> order = new IdentityHashMap<>();
+            order.put(root, 0);
+            NodeTraversor.traverse((n, depth) -> order.put(n, order.size()), root == top.parentNode() ? root : top);
+            this.order = order;
+        }
+        Integer i = order.get(node instanceof Attr ? ((Attr) node).owner : node);
+        return i != null ? i : -1;
+    }
+}
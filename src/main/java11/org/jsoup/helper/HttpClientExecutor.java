@@ -19,6 +19,10 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import static org.jsoup.helper.HttpConnection.Response;
 import static org.jsoup.helper.HttpConnection.Response.writePost;
@@ -28,10 +32,9 @@ import static org.jsoup.helper.HttpConnection.Response.writePost;
  property {@code jsoup.useHttpClient} to {@code false}.
  */
 class HttpClientExecutor extends RequestExecutor {
-    // HttpClient expects proxy settings per client; we do per request, so held as a thread local. Can't do same for
-    // auth because that callback is on a worker thread, so can only do auth per Connection. So we create a new client
-    // if the authenticator is different between requests
-    static ThreadLocal<@Nullable Proxy> perRequestProxy = new ThreadLocal<>();
+    // HttpClient expects proxy and auth settings per client; we do per request. The proxy selector and authenticator
+    // callbacks may run on worker threads (and always do for async requests), so can't be passed via thread locals. So
+    // we create a new client if the proxy or authenticator is different between requests in a Connection.
 
     @Nullable
     HttpResponse<InputStream> hRes;
@@ -56,12 +59,15 @@ class HttpClientExecutor extends RequestExecutor {
                 reuse = false;
             if (req.sslContext != null && !(client.sslContext() == req.sslContext)) // client returns default context if not otherwise set
                 reuse = false;
+            ProxySelector selector = client.proxy().orElse(null);
+            if (!(selector instanceof ProxyWrap) || !Objects.equals(((ProxyWrap) selector).proxy, req.proxy()))
+                reuse = false;
             if (reuse) return client;
         }
 
         HttpClient.Builder builder = HttpClient.newBuilder();
         builder.followRedirects(HttpClient.Redirect.NEVER); // customized redirects
-        builder.proxy(new ProxyWrap()); // thread local impl for per request; called on executing thread
+        builder.proxy(new ProxyWrap(req.proxy())); // the request's proxy, else the system default
         if (req.authenticator != null) builder.authenticator(new AuthenticationHandler(req.authenticator));
         if (req.sslContext    != null) builder.sslContext(req.sslContext);
 
@@ -72,6 +78,49 @@ class HttpClientExecutor extends RequestExecutor {
 
     @Override
     HttpConnection.Response execute() throws IOException {
+        try {
+            hRes = client().send(request(), HttpResponse.BodyHandlers.ofInputStream());
+            return response(hRes);
+        } catch (IOException e) {
+            safeClose();
+            throw e;
+        } catch (InterruptedException e) {
+            safeClose();
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     Sends the request without blocking, via {@link HttpClient#sendAsync}. The response is set up on the executor.
+     */
+    @Override
+    CompletableFuture<HttpConnection.Response> executeAsync(Executor executor) {
+        final HttpRequest hReq;
+        final HttpClient client;
+        try {
+            hReq = request();
+            client = client();
+        } catch (IOException | RuntimeException e) {
+            CompletableFuture<HttpConnection.Response> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        return client.sendAsync(hReq, HttpResponse.BodyHandlers.ofInputStream())
+            .thenApplyAsync(response -> {
+                hRes = response;
+                try {
+                    return response(response);
+                } catch (IOException e) {
+                    safeClose();
+                    throw new CompletionException(e);
+                }
+            }, executor);
+    }
+
+    /** Build the HttpRequest for the jsoup request. */
+    private HttpRequest request() throws IOException {
         try {
             HttpRequest.Builder reqBuilder =
                 HttpRequest.newBuilder(req.url.toURI()).method(req.method.name(), requestBody(req));
@@ -84,40 +133,29 @@ class HttpClientExecutor extends RequestExecutor {
                 values.forEach(value -> reqBuilder.header(key, value));
             });
 
-            if (req.proxy() != null) perRequestProxy.set(req.proxy()); // set up per request proxy
-            HttpRequest hReq = reqBuilder.build();
-            HttpClient client = client();
-            hRes = client.send(hReq, HttpResponse.BodyHandlers.ofInputStream());
-            HttpHeaders headers = hRes.headers();
-
-            // set up the response
-            Response res = new Response(req);
-            res.executor = this;
-            res.method = Connection.Method.valueOf(hRes.request().method());
-            res.url = hRes.uri().toURL();
-            res.statusCode = hRes.statusCode();
-            res.statusMessage = StatusMessage(res.statusCode);
-            res.contentType = headers.firstValue("content-type").orElse("");
-            long length = headers.firstValueAsLong("content-length").orElse(-1);
-            res.contentLength = length < Integer.MAX_VALUE ? (int) length : -1;
-            res.prepareResponse(headers.map(), prevRes);
-
-            return res;
-        } catch (IOException e) {
-            safeClose();
-            throw e;
-        } catch (InterruptedException e) {
-            safeClose();
-            Thread.currentThread().interrupt();
-            throw new IOException(e);
+            return reqBuilder.build();
         } catch (URISyntaxException e) {
             throw new IllegalArgumentException("Malformed URL: " + req.url, e);
-        } finally {
-            // detach per request proxy
-            perRequestProxy.remove();
         }
     }
 
+    /** Set up the jsoup response from the HttpResponse. */
+    private Response response(HttpResponse<InputStream> hRes) throws IOException {
+        HttpHeaders headers = hRes.headers();
+        Response res = new Response(req);
+        res.executor = this;
+        res.method = Connection.Method.valueOf(hRes.request().method());
+        res.url = hRes.uri().toURL();
+        res.statusCode = hRes.statusCode();
+        res.statusMessage = StatusMessage(res.statusCode);
+        res.contentType = headers.firstValue("content-type").orElse("");
+        long length = headers.firstValueAsLong("content-length").orElse(-1);
+        res.contentLength = length < Integer.MAX_VALUE ? (int) length : -1;
+        res.prepareResponse(headers.map(), prevRes);
+
+        return res;
+    }
+
     /**
      As HTTP/2 no longer provides a server-set status message, and HttpClient doesn't parse it for 1.1, just provide minimal stock ones, for loggers.
      */
@@ -156,13 +194,21 @@ class HttpClientExecutor extends RequestExecutor {
         }
     }
 
+    /**
+     A ProxySelector that selects the request's proxy, if set; otherwise delegates to the system default.
+     */
     static class ProxyWrap extends ProxySelector {
         // empty list for no proxy:
         static final List<Proxy> NoProxy = new ArrayList<>(0);
 
+        final @Nullable Proxy proxy;
+
+        ProxyWrap(@Nullable Proxy proxy) {
+            this.proxy = proxy;
+        }
+
         @Override
         public List<Proxy> select(URI uri) {
-            Proxy proxy = perRequestProxy.get();
             if (proxy != null) {
                 return Collections.singletonList(proxy);
             }
@@ -175,7 +221,7 @@ class HttpClientExecutor extends RequestExecutor {
 
         @Override
         public void connectFailed(URI uri, SocketAddress sa, IOException ioe) {
-            if (perRequestProxy.get() != null) {
+            if (proxy != null) {
                 return;  // no-op
             }
             ProxySelector defaultSelector = ProxySelector.getDefault();
@@ -0,0 +1,109 @@
+package org.jsoup.helper;
+
+import org.jsoup.internal.ControllableInputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CharsetPrescanTest {
+    private static String scan(String html) {
+        byte[] bytes = html.getBytes(StandardCharsets.ISO_8859_1);
+        return CharsetPrescan.scan(bytes, bytes.length);
+    }
+
+    @Test void findsMetaCharset() {
+        assertEquals("iso-8859-1", scan("<html><head><meta charset=ISO-8859-1></head>"));
+        assertEquals("shift_jis", scan("<META CHARSET=\"Shift_JIS\"/>"));
+        assertEquals("euc-kr", scan("<meta\ncharset = 'euc-kr'>"));
+    }
+
+    @Test void findsHttpEquivContentType() {
+        assertEquals("euc-kr", scan("<meta http-equiv=\"Content-Type\" content=\"text/html; charset=euc-kr\">"));
+        assertEquals("koi8-u", scan("<meta content='text/html; charset=koi8-u' http-equiv=content-type>"));
+        // the content needs the pragma:
+        assertNull(scan("<meta content=\"text/html; charset=euc-kr\">"));
+        assertNull(scan("<meta http-equiv=refresh content=\"text/html; charset=euc-kr\">"));
+    }
+
+    @Test void usesFirstValidMeta() {
+        assertEquals("iso-8859-1", scan("<meta charset=iso-8><meta http-equiv=Content-Type content='text/html'>" +
+            "<meta charset=iso-8859-1><meta charset=koi8-u>"));
+        // duplicate attributes are ignored
+        assertEquals("koi8-u", scan("<meta charset=koi8-u charset=iso-8859-1>"));
+    }
+
+    @Test void firstCharsetAttributeInMetaWins() {
+        // the content charset is set first, so the charset attribute is ignored
+        assertEquals("euc-kr", scan("<meta http-equiv=content-type content=\"text/html; charset=euc-kr\" charset=koi8-u>"));
+        assertEquals("koi8-u", scan("<meta charset=koi8-u http-equiv=content-type content=\"text/html; charset=euc-kr\">"));
+        assertEquals("koi8-u", scan("<meta charset=koi8-u content=\"text/html; charset=euc-kr\">")); // no pragma needed
+        // the content charset needs the pragma, even if the charset attribute follows it
+        assertNull(scan("<meta content=\"text/html; charset=euc-kr\" charset=koi8-u>"));
+    }
+
+    @Test void skipsCommentsAndAttributes() {
+        assertNull(scan("<!-- <meta charset=iso-8859-1> --><p>One"));
+        assertEquals("koi8-u", scan("<!--><meta charset=koi8-u>"));
+        assertNull(scan("<div title='<meta charset=iso-8859-1>'>"));
+        assertEquals("koi8-u", scan("<div title='a>b'><meta charset=koi8-u>"));
+        assertNull(scan("<metal charset=koi8-u>"));
+        assertNull(scan("<meta charset=koi8-u")); // truncated
+    }
+
+    @Test void overridesUnreadableCharsets() {
+        assertEquals("UTF-8", scan("<meta charset=utf-16>"));
+        assertEquals("UTF-8", scan("<meta charset=UTF-16LE>"));
+    }
+
+    @Test void findsXmlDeclaration() {
+        assertEquals("iso-8859-1", scan("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><html>"));
+        assertEquals("koi8-u", scan(" <?XML version='1.0' encoding=koi8-u?><html>"));
+        assertEquals("euc-kr", scan("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><meta charset=euc-kr>"));
+        assertNull(scan("<p><?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>"));
+    }
+
+    @Test void noneFound() {
+        assertNull(scan(""));
+        assertNull(scan("<html><head><title>One</title></head><body>Two</body></html>"));
+    }
+
+    @Test void detectCharsetDoesNotConsumeInput() throws IOException {
+        byte[] bytes = "<meta charset=iso-8859-1><p>Hellö</p>".getBytes(StandardCharsets.ISO_8859_1);
+        ControllableInputStream input = ControllableInputStream.wrap(new ByteArrayInputStream(bytes), 0);
+        DataUtil.CharsetDoc charsetDoc = DataUtil.detectCharset(input, null);
+        assertEquals(StandardCharsets.ISO_8859_1, charsetDoc.charset);
+        assertEquals(ByteBuffer.wrap(bytes), DataUtil.readToByteBuffer(charsetDoc.input, 0));
+    }
+
+    @Test void progressiveDetectionDoesNotWaitForMore() throws IOException {
+        // a stream that delivers 2K at a time, and never has more available without blocking
+        StringBuilder html = new StringBuilder();
+        while (html.length() < 3000) html.append("<p>Filler</p>\n");
+        html.append("<meta charset=iso-8859-1>");
+        byte[] bytes = html.toString().getBytes(StandardCharsets.ISO_8859_1);
+
+        assertEquals(StandardCharsets.ISO_8859_1, DataUtil.detectCharset(chunked(bytes), null).charset);
+        DataUtil.CharsetDoc progressive = DataUtil.detectCharset(chunked(bytes), null, true);
+        assertEquals(DataUtil.UTF_8, progressive.charset); // the late meta was not waited for
+        assertEquals(ByteBuffer.wrap(bytes), DataUtil.readToByteBuffer(progressive.input, 0));
+    }
+
+    private static ControllableInputStream chunked(byte[] bytes) {
+        InputStream in = new ByteArrayInputStream(bytes) {
+            @Override public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 2048));
+            }
+
+            @Override public synchronized int available() {
+                return 0;
+            }
+        };
+        return ControllableInputStream.wrap(in, 0);
+    }
+}
@@ -0,0 +1,196 @@
+package org.jsoup.integration;
+
+import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.jsoup.integration.servlets.EchoServlet;
+import org.jsoup.integration.servlets.FileServlet;
+import org.jsoup.integration.servlets.HelloServlet;
+import org.jsoup.integration.servlets.ProxyServlet;
+import org.jsoup.integration.servlets.RedirectServlet;
+import org.jsoup.integration.servlets.SlowRider;
+import org.jsoup.internal.SharedConstants;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.StreamParser;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.net.MalformedURLException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.jsoup.integration.ConnectTest.ihVal;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ Tests the async Connection methods against a local server, via both the HttpClient and HttpURLConnection executors.
+ */
+public class AsyncConnectTest {
+    @BeforeAll
+    public static void setUp() {
+        TestServer.start();
+    }
+
+    interface AsyncTest {
+        void run(ExecutorService executor) throws Exception;
+    }
+
+    /** Runs the test with the HttpClient enabled or not, and with a named executor. */
+    private static void withClient(boolean useHttpClient, AsyncTest test) throws Exception {
+        String prev = System.getProperty(SharedConstants.UseHttpClient);
+        System.setProperty(SharedConstants.UseHttpClient, String.valueOf(useHttpClient));
+        ExecutorService executor = Executors.newFixedThreadPool(2, r -> new Thread(r, "jsoup-async-test"));
+        try {
+            test.run(executor);
+        } finally {
+            executor.shutdownNow();
+            if (prev == null) System.clearProperty(SharedConstants.UseHttpClient);
+            else System.setProperty(SharedConstants.UseHttpClient, prev);
+        }
+    }
+
+    @ParameterizedTest @ValueSource(booleans = {true, false})
+    void getAsync(boolean useHttpClient) throws Exception {
+        withClient(useHttpClient, executor -> {
+            Document doc = Jsoup.connect(HelloServlet.Url).getAsync(executor).get(10, TimeUnit.SECONDS);
+            assertEquals("Hello, World!", doc.expectFirst("p").text());
+            assertEquals(HelloServlet.Url, doc.location());
+
+            doc = Jsoup.connect(HelloServlet.Url).getAsync().get(10, TimeUnit.SECONDS);
+            assertEquals("Hello, World!", doc.expectFirst("p").text());
+        });
+    }
+
+    @ParameterizedTest @ValueSource(booleans = {true, false})
+    void parsesOnSuppliedExecutor(boolean useHttpClient) throws Exception {
+        withClient(useHttpClient, executor -> {
+            String thread = Jsoup.connect(HelloServlet.Url).executeAsync(executor)
+                .thenApplyAsync(res -> Thread.currentThread().getName(), executor)
+                .get(10, TimeUnit.SECONDS);
+            assertEquals("jsoup-async-test", thread);
+        });
+    }
+
+    @ParameterizedTest @ValueSource(booleans = {true, false})
+    void followsRedirectsWithCookies(boolean useHttpClient) throws Exception {
+        withClient(useHttpClient, executor -> {
+            Connection con = Jsoup.connect(RedirectServlet.Url)
+                .data(RedirectServlet.CodeParam, "302")
+                .data(RedirectServlet.SetCookiesParam, "true")
+                .data(RedirectServlet.LocationParam, EchoServlet.Url)
+                .cookie("LetMeIn", "True");
+            Connection.Response res = con.executeAsync(executor).get(10, TimeUnit.SECONDS);
+            assertSame(res, con.response());
+
+            Map<String, String> cookies = res.cookies();
+            assertEquals("asdfg123", cookies.get("token"));
+            assertEquals("jhy", cookies.get("uid"));
+
+            Document doc = res.parse();
+            assertEquals(EchoServlet.Url, doc.location());
+            assertEquals("True", ihVal("Cookie: LetMeIn", doc));
+        });
+    }
+
+    @ParameterizedTest @ValueSource(booleans = {true, false})
+    void rejectsExecuteWhileInFlight(boolean useHttpClient) throws Exception {
+        withClient(useHttpClient, executor -> {
+            ExecutorService single = Executors.newSingleThreadExecutor();
+            CountDownLatch gate = new CountDownLatch(1);
+            try {
+                single.execute(() -> { // holds the response processing until released
+                    try {
+                        gate.await();
+                    } catch (InterruptedException ignored) {}
+                });
+                Connection con = Jsoup.connect(HelloServlet.Url);
+                CompletableFuture<Connection.Response> future = con.executeAsync(single);
+                assertThrows(IllegalArgumentException.class, con::execute);
+                assertThrows(IllegalArgumentException.class, () -> con.executeAsync(single));
+                assertThrows(IllegalArgumentException.class, con::response); // not yet executed
+
+                gate.countDown();
+                Connection.Response res = future.get(10, TimeUnit.SECONDS);
+                assertSame(res, con.response());
+                assertNotSame(res, con.execute()); // can execute again once complete
+            } finally {
+                single.shutdownNow();
+            }
+        });
+    }
+
+    @ParameterizedTest @ValueSource(booleans = {true, false})
+    void appliesMaxBodySize(boolean useHttpClient) throws Exception {
+        withClient(useHttpClient, executor -> {
+            String url = FileServlet.urlTo("/htmltests/large.html"); // 280 K
+            Connection.Response res = Jsoup.connect(url).maxBodySize(50 * 1024).executeAsync(executor)
+                .get(10, TimeUnit.SECONDS);
+            assertEquals(50 * 1024, res.body().length());
+        });
+    }
+
+    @ParameterizedTest @ValueSource(booleans = {true, false})
+    void failsWithHttpStatusException(boolean useHttpClient) throws Exception {
+        withClient(useHttpClient, executor -> {
+            CompletableFuture<Document> future = Jsoup.connect(EchoServlet.Url)
+                .header(EchoServlet.CodeParam, "404")
+                .getAsync(executor);
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+            HttpStatusException cause = assertInstanceOf(HttpStatusException.class, e.getCause());
+            assertEquals(404, cause.getStatusCode());
+        });
+    }
+
+    @ParameterizedTest @ValueSource(booleans = {true, false})
+    void invalidRequestFailsFuture(boolean useHttpClient) throws Exception {
+        withClient(useHttpClient, executor -> {
+            CompletableFuture<Connection.Response> future = Jsoup.connect("ftp://example.com/").executeAsync(executor);
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(MalformedURLException.class, e.getCause());
+        });
+    }
+
+    @ParameterizedTest @ValueSource(booleans = {true, false})
+    void streamsBeforeBodyComplete(boolean useHttpClient) throws Exception {
+        withClient(useHttpClient, executor -> {
+            // the slow rider sends an intro, and then a short para every 2 seconds, for 20 seconds. So if the stream
+            // parser waited for the full body, or for the full charset prescan buffer (5K), it would not complete in time
+            CompletableFuture<StreamParser> future = Jsoup.connect(SlowRider.Url)
+                .data(SlowRider.IntroSizeParam, "2000")
+                .data(SlowRider.MaxTimeParam, "20000")
+                .streamParserAsync(executor);
+
+            try (StreamParser streamer = future.get(10, TimeUnit.SECONDS)) {
+                Element title = streamer.selectNext("title");
+                assertNotNull(title);
+                assertEquals("Slow Rider", title.text());
+                Element p = streamer.selectNext("p");
+                assertNotNull(p);
+                assertEquals("Hello and welcome to the Slow Rider!", p.text());
+                assertEquals(SlowRider.Url + "?introSize=2000&maxTime=20000", streamer.document().location());
+            }
+        });
+    }
+
+    @ParameterizedTest @ValueSource(booleans = {true, false})
+    void fetchesViaProxy(boolean useHttpClient) throws Exception {
+        withClient(useHttpClient, executor -> {
+            TestServer.ProxySettings proxy = ProxyServlet.ProxySettings;
+            Connection session = Jsoup.newSession();
+            // a proxied and a direct request in the same session, concurrently:
+            CompletableFuture<Connection.Response> proxied = session.newRequest(HelloServlet.Url)
+                .proxy(proxy.hostname, proxy.port).executeAsync(executor);
+            CompletableFuture<Connection.Response> direct = session.newRequest(HelloServlet.Url).executeAsync(executor);
+
+            assertEquals(ProxyServlet.Via, proxied.get(10, TimeUnit.SECONDS).header("Via"));
+            assertNull(direct.get(10, TimeUnit.SECONDS).header("Via"));
+        });
+    }
+}
@@ -0,0 +1,90 @@
+package org.jsoup.internal;
+
+import org.jsoup.SerializationException;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EncodingAppendableTest {
+    static final String[] Inputs = {
+        "",
+        "Hello, there",
+        "Ça va? Grüße, 日本語, ελληνικά",
+        "Smile 😀 and 🎉!",
+        "Lone high \uD83D and low \uDE00 surrogates, and at the end \uD83D",
+        "\uDE00\uD83D😀",
+    };
+
+    private static String large() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) sb.append("Line ").append(i).append(" ünïcödé 😀\n");
+        return sb.toString();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"UTF-8", "US-ASCII", "ISO-8859-1", "Shift_JIS", "UTF-16"})
+    void encodesAsGetBytes(String charsetName) {
+        Charset charset = Charset.forName(charsetName);
+        for (String input : Inputs) {
+            assertArrayEquals(input.getBytes(charset), encodeByChars(input, charset), input);
+            assertArrayEquals(input.getBytes(charset), encodeBySequence(input, charset), input);
+        }
+        String large = large();
+        assertArrayEquals(large.getBytes(charset), encodeByChars(large, charset));
+        assertArrayEquals(large.getBytes(charset), encodeBySequence(large, charset));
+    }
+
+    private static byte[] encodeByChars(String input, Charset charset) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncodingAppendable accum = EncodingAppendable.wrap(out, charset);
+        for (int i = 0; i < input.length(); i++) accum.append(input.charAt(i)); // splits surrogate pairs
+        accum.finish();
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeBySequence(String input, Charset charset) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncodingAppendable accum = EncodingAppendable.wrap(Channels.newChannel(out), charset);
+        int mid = input.length() / 2;
+        accum.append(input, 0, mid);
+        accum.append(input.substring(mid).toCharArray(), 0, input.length() - mid);
+        accum.finish();
+        return out.toByteArray();
+    }
+
+    @Test void writesOnlyOnFullOrFinish() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncodingAppendable accum = EncodingAppendable.wrap(out, Charset.forName("UTF-8"));
+        accum.append("Hello");
+        assertEquals(0, out.size());
+        accum.finish();
+        assertEquals("Hello", out.toString());
+
+        accum.finish(); // no-op once finished
+        assertThrows(IllegalStateException.class, () -> accum.append('x'));
+    }
+
+    @Test void throwsSerializationException() {
+        OutputStream broken = new OutputStream() {
+            @Override public void write(int b) throws IOException {
+                throw new IOException("broken");
+            }
+
+            @Override public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("broken");
+            }
+        };
+        EncodingAppendable accum = EncodingAppendable.wrap(broken, Charset.forName("UTF-8"));
+        accum.append("Hello");
+        SerializationException e = assertThrows(SerializationException.class, accum::finish);
+        assertEquals("broken", e.getCause().getMessage());
+    }
+}
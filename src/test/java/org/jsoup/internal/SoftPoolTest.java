@@ -4,13 +4,16 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -136,4 +139,78 @@ public class SoftPoolTest {
         ArrayDeque<char[]> stack = softLocalPool.getStack();
         assertTrue(stack.size() <= SoftPool.MaxIdle, "Pool size exceeded MaxIdle limit");
     }
+
+    @Test
+    public void sharedPoolReusesAcrossThreads() throws InterruptedException {
+        SoftPool.Mode prev = SoftPool.mode();
+        SoftPool.mode(SoftPool.Mode.Shared);
+        try {
+            Set<char[]> seen = Collections.newSetFromMap(new ConcurrentHashMap<>());
+            AtomicInteger created = new AtomicInteger();
+            SoftPool<char[]> counting = new SoftPool<>(() -> {
+                created.incrementAndGet();
+                return new char[BufSize];
+            });
+
+            // sequential short-lived threads, as with virtual threads per task
+            for (int i = 0; i < 20; i++) {
+                Thread thread = new Thread(() -> {
+                    char[] buffer = counting.borrow();
+                    seen.add(buffer);
+                    counting.release(buffer);
+                });
+                thread.start();
+                thread.join();
+            }
+            // each thread hashes to a stripe, so at most one buffer per stripe is created
+            assertTrue(created.get() <= SoftPool.Stripes, "Created " + created.get());
+            assertTrue(seen.size() < 20);
+        } finally {
+            SoftPool.mode(prev);
+        }
+    }
+
+    @Test
+    public void sharedPoolIsBounded() {
+        SoftPool.Mode prev = SoftPool.mode();
+        SoftPool.mode(SoftPool.Mode.Shared);
+        try {
+            SoftPool<char[]> pool = new SoftPool<>(() -> new char[BufSize]);
+            List<char[]> borrowed = new ArrayList<>();
+            for (int i = 0; i < SoftPool.SlotsPerStripe + 5; i++)
+                borrowed.add(pool.borrow());
+            for (char[] buffer : borrowed)
+                pool.release(buffer);
+
+            int pooled = 0;
+            AtomicReferenceArray<char[]> slots = pool.getSharedSlots();
+            for (int i = 0; i < slots.length(); i++) {
+                if (slots.get(i) != null) pooled++;
+            }
+            assertEquals(SoftPool.SlotsPerStripe, pooled);
+            assertTrue(pool.getStack().isEmpty()); // the thread local pool was not used
+        } finally {
+            SoftPool.mode(prev);
+        }
+    }
+
+    @Test
+    public void autoUsesThreadLocalOnPlatformThreads() {
+        assertEquals(SoftPool.Mode.Auto, SoftPool.mode());
+        assertFalse(SoftPool.isVirtual(Thread.currentThread()));
+
+        SoftPool<char[]> pool = new SoftPool<>(() -> new char[BufSize]);
+        char[] buffer = pool.borrow();
+        pool.release(buffer);
+        assertSame(buffer, pool.getStack().peek());
+    }
+
+    @Test
+    public void stripesArePowersOfTwo() {
+        assertEquals(2, SoftPool.stripes(1));
+        assertEquals(8, SoftPool.stripes(3));
+        assertEquals(8, SoftPool.stripes(4));
+        assertEquals(64, SoftPool.stripes(256));
+        assertEquals(0, SoftPool.Stripes & (SoftPool.Stripes - 1));
+    }
 }
@@ -3,6 +3,7 @@ package org.jsoup.nodes;
 import org.jsoup.Jsoup;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.List;
@@ -431,4 +432,35 @@ public class AttributesTest {
         assertEquals(2, attrs.size); // we keep the internals
         assertTrue(attrs.isEmpty());
     }
+
+    @Test void forEachKeyValueVisitsKeysAndValues() {
+        Attributes attrs = new Attributes();
+        attrs.put("Tot", "a&p");
+        attrs.userData("foo", "bar"); // internal, so skipped
+        attrs.put("hidden", null);
+        attrs.put("data-x", "1");
+
+        StringBuilder sb = new StringBuilder();
+        attrs.forEachKeyValue((key, value) -> sb.append(key).append('=').append(value).append(';'));
+        assertEquals("Tot=a&p;hidden=;data-x=1;", sb.toString());
+
+        List<Attribute> list = new ArrayList<>();
+        attrs.forEach(list::add); // Iterable.forEach is not ambiguous with a method reference
+        assertEquals(3, list.size());
+
+        assertThrows(ConcurrentModificationException.class, () -> attrs.forEachKeyValue((key, value) -> attrs.remove(key)));
+    }
+
+    @Test void parsedKeysAreInterned() {
+        String html = "<a href=/foo CLASS=x data-custom=y>One</a>";
+        Element a = Jsoup.parse(html).expectFirst("a");
+        List<Attribute> attrs = a.attributes().asList();
+        assertSame("href", attrs.get(0).getKey());
+        assertSame("class", attrs.get(1).getKey()); // after normalization to lower-case
+        assertEquals("data-custom", attrs.get(2).getKey());
+
+        Element xml = Jsoup.parse(html, org.jsoup.parser.Parser.xmlParser()).expectFirst("a");
+        assertEquals("CLASS", xml.attributes().asList().get(1).getKey()); // case preserved
+        assertEquals("x", xml.attr("CLASS"));
+    }
 }
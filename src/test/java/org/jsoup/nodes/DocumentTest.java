@@ -1,6 +1,7 @@
 package org.jsoup.nodes;
 
 import org.jsoup.Jsoup;
+import org.jsoup.SerializationException;
 import org.jsoup.TextUtil;
 import org.jsoup.integration.ParseTest;
 import org.jsoup.nodes.Document.OutputSettings;
@@ -15,7 +16,13 @@ import org.junit.jupiter.api.Test;
 import java.io.*;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -566,4 +573,308 @@ public class DocumentTest {
         assertTrue(threw);
 
     }
+
+    @Test void indexedGetElementById() {
+        Document doc = Jsoup.parse("<div id=a><p id=b>One</p><p id=b>Two</p></div>").indexed(true);
+        try {
+            assertTrue(doc.isIndexed());
+            assertEquals("One", doc.expectFirst("p").text());
+            assertEquals("One", doc.getElementById("b").text());
+            assertEquals(2, doc.getElementsById("b").size());
+            assertNull(doc.getElementById("c"));
+
+            // structural changes invalidate
+            doc.body().prependElement("span").id("b").text("Three");
+            assertEquals("Three", doc.getElementById("b").text());
+            doc.getElementById("b").remove();
+            assertEquals("One", doc.getElementById("b").text());
+            doc.expectFirst("div").empty();
+            assertNull(doc.getElementById("b"));
+
+            // attribute changes invalidate
+            Element div = doc.expectFirst("div");
+            div.id("c");
+            assertSame(div, doc.getElementById("c"));
+            assertNull(doc.getElementById("a"));
+            div.attributes().put("id", "d");
+            assertSame(div, doc.getElementById("d"));
+            div.attribute("id").setValue("e");
+            assertSame(div, doc.getElementById("e"));
+            div.removeAttr("id");
+            assertNull(doc.getElementById("e"));
+            Attributes added = new Attributes().put("class", "c").put("id", "z"); // before the index is rebuilt
+            Element p = doc.body().appendElement("p");
+            assertNull(doc.getElementById("z"));
+            assertEquals(0, doc.getElementsByClass("c").size());
+            p.attributes().addAll(added); // into an empty set
+            assertSame(p, doc.getElementById("z"));
+            assertEquals(1, doc.getElementsByClass("c").size());
+            assertEquals(1, doc.select(".c").size());
+
+            // search from a descendant only finds within that subtree
+            Element span = doc.body().appendElement("span");
+            span.appendElement("i").id("f");
+            doc.body().appendElement("b").id("g");
+            assertNotNull(span.getElementById("f"));
+            assertNull(span.getElementById("g"));
+        } finally {
+            doc.indexed(false);
+        }
+        assertFalse(doc.isIndexed());
+    }
+
+    @Test void indexedSelectsMatchUnindexed() {
+        String html = "<div id=a><p id=x class=one>One <span id=s>S</span></p><div id=a><p>Two</p></div></div>" +
+            "<section><p id=x>Three</p><p>Four</p></section>";
+        String[] queries = {"#x", "p#x", "section > #x", "div #x", "#a p", "#a > p", "#a span", "p #s", "#a #x", "#s",
+            "#a div > p", "#nope", "#nope p", "#x ~ p"};
+
+        Document plain = Jsoup.parse(html);
+        Document indexed = Jsoup.parse(html).indexed(true);
+        try {
+            for (String query : queries) {
+                assertEquals(plain.select(query).outerHtml(), indexed.select(query).outerHtml(), query);
+                Element plainRoot = plain.expectFirst("div div");
+                Element indexedRoot = indexed.expectFirst("div div");
+                assertEquals(plainRoot.select(query).outerHtml(), indexedRoot.select(query).outerHtml(), query);
+            }
+        } finally {
+            indexed.indexed(false);
+        }
+    }
+
+    @Test void indexedTagAndClassSelectsMatchUnindexed() {
+        String html = "<div class='product Sale'><a href=/1>One</a><p class=x><a>Two</a></p></div>" +
+            "<div class=product><div class='x  product'><a href=/3 class=X>Three</a></div></div>" +
+            "<section class=x><p>Four</p><svg><rect class=x /></svg></section>";
+        String[] queries = {"div.product a[href]", ".x p", ".X", "a", "A", "div", ".product > a", "div.sale", ".x a",
+            "p.x a", "section p, .x", "rect", "svg > .x", ".product .product a", ".nope a", "div.nope", "*"};
+
+        Document plain = Jsoup.parse(html);
+        Document indexed = Jsoup.parse(html).indexed(true);
+        try {
+            for (String query : queries) {
+                assertEquals(plain.select(query).outerHtml(), indexed.select(query).outerHtml(), query);
+                Element plainRoot = plain.expectFirst("div div");
+                Element indexedRoot = indexed.expectFirst("div div");
+                assertEquals(plainRoot.select(query).outerHtml(), indexedRoot.select(query).outerHtml(), query);
+            }
+            assertEquals(plain.getElementsByTag("A").size(), indexed.getElementsByTag("A").size());
+            assertEquals(plain.getElementsByClass("PRODUCT").size(), indexed.getElementsByClass("PRODUCT").size());
+        } finally {
+            indexed.indexed(false);
+        }
+    }
+
+    @Test void indexedTagAndClassTrackMutations() {
+        Document doc = Jsoup.parse("<div class=a><p>One</p><p class=b>Two</p></div>").indexed(true);
+        try {
+            assertEquals(2, doc.select("p").size());
+            assertEquals(1, doc.select(".b").size());
+
+            Element first = doc.expectFirst("p");
+            first.tagName("span");
+            assertEquals(1, doc.select("p").size());
+            assertEquals(1, doc.select("div > span").size());
+
+            first.addClass("b");
+            assertEquals(2, doc.select(".b").size());
+            first.removeClass("b");
+            assertEquals(1, doc.select(".b").size());
+            first.attr("class", "c b");
+            assertEquals(2, doc.select("div .b").size());
+            first.classNames(new LinkedHashSet<>());
+            assertEquals(1, doc.getElementsByClass("b").size());
+
+            doc.expectFirst("div").removeClass("a");
+            assertEquals(0, doc.select(".a p").size());
+            doc.body().appendElement("p").addClass("a");
+            assertEquals(2, doc.select("p").size());
+            assertEquals(1, doc.select("p.a").size());
+        } finally {
+            doc.indexed(false);
+        }
+    }
+
+    @Test void tagAndClassIndexIsNotInvalidatedByOtherDocuments() {
+        Document doc = Jsoup.parse("<p class=a>One</p><p>Two</p>").indexed(true);
+        Document other = Jsoup.parse("<p class=a>Three</p>").indexed(true);
+        assertEquals(1, doc.select("p.a").size()); // builds the index
+        assertEquals(1, other.select("p.a").size());
+        doc.select("p").last().attributes().add("class", "b"); // the low-level add() is not tracked, so not yet indexed
+
+        Element p = other.expectFirst("p");
+        p.addClass("b");
+        p.tagName("div");
+        other.body().appendElement("p").addClass("b");
+        assertEquals(0, doc.select(".b").size()); // the index was not rebuilt
+        assertEquals(2, other.select(".b").size());
+        assertEquals(1, other.select("p.b").size());
+
+        doc.expectFirst("p").addClass("c"); // but a change to this document is
+        assertEquals(1, doc.select("p.b").size());
+    }
+
+    @Test void clonedIndexedDocIsNotIndexed() {
+        Document doc = Jsoup.parse("<p id=a>One</p>").indexed(true);
+        Document clone = doc.clone();
+        try {
+            assertFalse(clone.isIndexed()); // until enabled on the clone
+            clone.indexed(true);
+            clone.getElementById("a").text("Two");
+            assertEquals("One", doc.getElementById("a").text());
+            assertEquals("Two", clone.getElementById("a").text());
+        } finally {
+            doc.indexed(false);
+            clone.indexed(false);
+        }
+    }
+
+    @Test void indexIsNotInvalidatedByOtherDocuments() {
+        Document doc = Jsoup.parse("<p id=a>One</p><p>Two</p>").indexed(true);
+        Document other = Jsoup.parse("<p id=a>Three</p>");
+        assertEquals("One", doc.getElementById("a").text()); // builds the index
+        doc.select("p").last().attributes().add("id", "b"); // the low-level add() is not tracked, so not yet indexed
+
+        other.expectFirst("p").id("b");
+        other.expectFirst("p").attributes().put("id", "c");
+        other.body().appendElement("p").id("d");
+        assertNull(doc.getElementById("b")); // the index was not rebuilt
+
+        doc.body().appendElement("p"); // but a change to this document is
+        assertEquals("Two", doc.getElementById("b").text());
+    }
+
+    @Test void indexTracksElementsMovedIn() {
+        Document doc = Jsoup.parse("<div id=a><p id=b>One</p></div>").indexed(true);
+        Document other = Jsoup.parse("<div id=c><p id=d>Two</p><br id=e></div>");
+        assertEquals("One", doc.getElementById("b").text()); // builds the index
+
+        Element c = other.expectFirst("#c");
+        doc.body().appendChild(c); // moved in, with its descendants
+        assertEquals("Two", doc.getElementById("d").text());
+        c.expectFirst("p").id("f"); // so a change within the moved element is tracked
+        c.expectFirst("br").addClass("x"); // including of a childless element
+        assertNull(doc.getElementById("d"));
+        assertEquals("Two", doc.getElementById("f").text());
+        assertEquals(1, doc.select("br.x").size());
+
+        c.remove();
+        assertNull(doc.getElementById("f"));
+    }
+
+    @Test void writeHtmlMatchesHtml() throws IOException {
+        String html = "<html><head><title>Ça 😀</title><script>var s = 'ünï 😀 <b>';</script></head>" +
+            "<body><p class='x &quot;y&quot;' title=\"ñ 'q'\">Hello &amp; ünïcödé 日本語&nbsp;😀 <b>bold</b>\n\n  text</p>" +
+            "<pre>  pre\n  text </pre><!-- cömment --></body></html>";
+        for (String charset : new String[]{"UTF-8", "US-ASCII", "ISO-8859-1", "Shift_JIS"}) {
+            for (boolean pretty : new boolean[]{true, false}) {
+                Document doc = Jsoup.parse(html);
+                doc.charset(Charset.forName(charset));
+                doc.outputSettings().prettyPrint(pretty);
+
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                doc.writeHtml(out);
+                assertArrayEquals(doc.html().getBytes(doc.charset()), out.toByteArray(), charset);
+
+                Element p = doc.expectFirst("p");
+                ByteArrayOutputStream channelOut = new ByteArrayOutputStream();
+                p.writeHtml(java.nio.channels.Channels.newChannel(channelOut));
+                assertArrayEquals(p.outerHtml().getBytes(doc.charset()), channelOut.toByteArray(), charset);
+            }
+        }
+    }
+
+    @Test void writeHtmlThrowsIOException() {
+        Document doc = Jsoup.parse("<p>Hello");
+        OutputStream broken = new OutputStream() {
+            @Override public void write(int b) throws IOException {
+                throw new IOException("broken");
+            }
+        };
+        IOException e = assertThrows(IOException.class, () -> doc.writeHtml(broken));
+        assertEquals("broken", e.getMessage());
+    }
+
+    @Test void parallelHtmlMatchesHtml() throws IOException {
+        StringBuilder gen = new StringBuilder("<div>Intro<pre>  keep\n <b>this</b> </pre>");
+        for (int i = 0; i < 200; i++) {
+            gen.append("<section id=s").append(i).append("><p>Para ").append(i).append(" <i>inline</i> tail</p> text ");
+            if (i % 7 == 0) gen.append("<pre> pre ").append(i).append("\n <u>x</u></pre>");
+            if (i % 11 == 0) gen.append("<custom>  <span>one</span> two </custom>");
+            gen.append("<!-- c --></section>\n");
+        }
+        gen.append("</div><textarea>  raw\n </textarea>");
+        String[] htmls = {
+            gen.toString(),
+            "<pre>" + gen + "</pre>",
+            "<ul><li><div><p>" + gen + "</p></div></li></ul><p>After</p>",
+            ParseTest.getFileAsString(ParseTest.getFile("/htmltests/large.html")),
+            "<p>One</p>",
+            "",
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (String html : htmls) {
+                for (int mode = 0; mode < 4; mode++) {
+                    Document doc = mode == 3 ? Jsoup.parse(html, Parser.xmlParser()) : Jsoup.parse(html);
+                    if (mode == 1) doc.outputSettings().prettyPrint(false);
+                    if (mode == 2) doc.outputSettings().outline(true);
+                    String expected = doc.html();
+                    assertEquals(expected, doc.html(new StringBuilder(), executor).toString(), "mode " + mode);
+                    assertEquals(expected, doc.html(new StringBuilder(), Runnable::run).toString(), "mode " + mode);
+
+                    Element body = doc.body();
+                    assertEquals(body.html(new StringBuilder()).toString(),
+                        body.html(new StringBuilder(), executor).toString(), "mode " + mode);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test void parallelHtmlThrowsSerializationException() {
+        Document doc = Jsoup.parse("<div>" + String.join("", java.util.Collections.nCopies(50, "<p>One</p>")));
+        Writer broken = new Writer() {
+            @Override public void write(char[] cbuf, int off, int len) throws IOException {
+                throw new IOException("broken");
+            }
+            @Override public void flush() {}
+            @Override public void close() {}
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            SerializationException e = assertThrows(SerializationException.class, () -> doc.html(broken, executor));
+            assertEquals("broken", e.getCause().getMessage());
+            assertThrows(RejectedExecutionException.class, () -> doc.html(new StringBuilder(), task -> {
+                throw new RejectedExecutionException();
+            }));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test void parallelHtmlCancelsOutstandingTasksOnFailure() {
+        Document doc = Jsoup.parse("<div>" + String.join("", java.util.Collections.nCopies(50, "<p>One</p>")));
+        Writer broken = new Writer() {
+            @Override public void write(char[] cbuf, int off, int len) throws IOException {
+                throw new IOException("broken");
+            }
+            @Override public void flush() {}
+            @Override public void close() {}
+        };
+        List<Runnable> queued = new ArrayList<>(); // an executor that doesn't start the tasks
+        assertThrows(SerializationException.class, () -> doc.html(broken, queued::add));
+
+        assertTrue(queued.size() > 1);
+        int cancelled = 0;
+        for (Runnable task : queued) {
+            Future<?> future = (Future<?>) task;
+            assertTrue(future.isDone()); // run by the caller, or cancelled
+            if (future.isCancelled()) cancelled++;
+        }
+        assertTrue(cancelled > 0);
+    }
 }
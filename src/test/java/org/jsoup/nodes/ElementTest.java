@@ -1,6 +1,7 @@
 package org.jsoup.nodes;
 
 import org.jsoup.Jsoup;
+import org.jsoup.SerializationException;
 import org.jsoup.TextUtil;
 import org.jsoup.helper.ValidationException;
 import org.jsoup.internal.StringUtil;
@@ -16,6 +17,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
@@ -228,6 +232,67 @@ public class ElementTest {
         assertEquals(".  ", p3.wholeText());
     }
 
+    @Test void textToAppendable() {
+        String html = "<div> <p>Hello  <b>there</b>\n now!</p>  <pre>  One\n  Two </pre><p>Three<br>Four</p> </div>";
+        Element div = Jsoup.parse(html).expectFirst("div");
+        String text = div.text();
+        assertEquals("Hello there now!   One\n  Two Three Four", text); // pre whitespace is preserved
+        assertEquals(text, div.text(new StringBuilder()).toString());
+
+        StringWriter writer = new StringWriter();
+        assertSame(writer, div.text(writer));
+        assertEquals(text, writer.toString());
+
+        String wholeText = div.wholeText();
+        assertEquals(wholeText, div.wholeText(new StringBuilder()).toString());
+        assertEquals(wholeText, div.wholeText(new StringWriter()).toString());
+    }
+
+    @Test void textWithMaxLength() {
+        Element div = Jsoup.parse("<div><p> One  two</p><p>Three <i>four</i>  </p>\n<p>Five</div>").expectFirst("div");
+        String text = div.text();
+        assertEquals("One two Three four Five", text);
+        for (int max = 0; max <= text.length() + 1; max++) {
+            String capped = div.text(new StringBuilder(), max).toString();
+            // trailing whitespace isn't written, as if trimmed
+            assertEquals(text.substring(0, Math.min(max, text.length())).trim(), capped, "max " + max);
+        }
+
+        String wholeText = div.wholeText();
+        for (int max = 0; max <= wholeText.length() + 1; max++) {
+            assertEquals(wholeText.substring(0, Math.min(max, wholeText.length())),
+                div.wholeText(new StringBuilder(), max).toString());
+        }
+    }
+
+    @Test void textIntoCharBuffer() {
+        Document doc = Jsoup.parse("<p>One</p><p>Two</p><p>Three</p>");
+        CharBuffer buffer = CharBuffer.allocate(9);
+        doc.body().text(buffer, buffer.remaining());
+        buffer.flip();
+        assertEquals("One Two T", buffer.toString());
+    }
+
+    @Test void textMaxLengthDoesNotSplitSurrogates() {
+        Element p = Jsoup.parse("<p>Hi \uD83D\uDE00!</p>").expectFirst("p"); // 😀
+        assertEquals("Hi \uD83D\uDE00!", p.text());
+        assertEquals("Hi", p.text(new StringBuilder(), 4).toString());
+        assertEquals("Hi \uD83D\uDE00", p.text(new StringBuilder(), 5).toString());
+        assertEquals("Hi ", p.wholeText(new StringBuilder(), 4).toString());
+        assertEquals("Hi \uD83D\uDE00", p.wholeText(new StringBuilder(), 5).toString());
+    }
+
+    @Test void textToAppendableWrapsIOException() {
+        Element p = Jsoup.parse("<p>One</p>").expectFirst("p");
+        Appendable failing = new Appendable() {
+            @Override public Appendable append(CharSequence csq) throws IOException { throw new IOException("Fail"); }
+            @Override public Appendable append(CharSequence csq, int start, int end) throws IOException { throw new IOException("Fail"); }
+            @Override public Appendable append(char c) throws IOException { throw new IOException("Fail"); }
+        };
+        assertThrows(SerializationException.class, () -> p.text(failing));
+        assertThrows(SerializationException.class, () -> p.wholeText(failing));
+    }
+
     @Test void buttonTextHasSpace() {
         // https://github.com/jhy/jsoup/issues/2105
         Document doc = Jsoup.parse("<html><button>Reply</button><button>All</button></html>");
@@ -3323,4 +3388,200 @@ public class ElementTest {
         assertEquals(1, actualSize);
         assertEquals(1, reported); // was 0 via cache
     }
+
+    @Test void cacheHtmlReusesOutput() {
+        Document doc = Jsoup.parse("<div id=a><p>One <b>Two</b></p></div>");
+        Element div = doc.expectFirst("div").cacheHtml(true);
+        try {
+            assertTrue(div.isHtmlCached());
+            String outer = div.outerHtml();
+            String inner = div.html();
+            assertEquals("<div id=\"a\">\n <p>One <b>Two</b></p>\n</div>", outer);
+            assertEquals("<p>One <b>Two</b></p>", inner);
+            assertSame(outer, div.outerHtml());
+            assertSame(outer, div.toString());
+            assertEquals(inner, div.html(new StringBuilder()).toString());
+        } finally {
+            div.cacheHtml(false);
+        }
+        assertFalse(div.isHtmlCached());
+    }
+
+    @Test void cacheHtmlInvalidatedByChanges() {
+        Document doc = Jsoup.parse("<div><p>One <b>Two</b></p></div>");
+        doc.outputSettings().prettyPrint(false);
+        Element div = doc.expectFirst("div").cacheHtml(true);
+        Element b = doc.expectFirst("b").cacheHtml(true);
+        try {
+            assertEquals("<div><p>One <b>Two</b></p></div>", div.outerHtml());
+
+            b.appendText(" Three");
+            assertEquals("<div><p>One <b>Two Three</b></p></div>", div.outerHtml());
+            doc.expectFirst("p").attr("class", "x");
+            assertEquals("<div><p class=\"x\">One <b>Two Three</b></p></div>", div.outerHtml());
+            ((TextNode) doc.expectFirst("p").childNode(0)).text("Uno ");
+            assertEquals("<div><p class=\"x\">Uno <b>Two Three</b></p></div>", div.outerHtml());
+            b.tagName("i");
+            assertEquals("<div><p class=\"x\">Uno <i>Two Three</i></p></div>", div.outerHtml());
+            assertEquals("<i>Two Three</i>", b.outerHtml());
+            b.attributes().put("title", "Four");
+            assertEquals("<div><p class=\"x\">Uno <i title=\"Four\">Two Three</i></p></div>", div.outerHtml());
+            b.remove();
+            assertEquals("<div><p class=\"x\">Uno </p></div>", div.outerHtml());
+            assertEquals("<p class=\"x\">Uno </p>", div.html());
+        } finally {
+            div.cacheHtml(false);
+            b.cacheHtml(false);
+        }
+    }
+
+    @Test void cacheHtmlKeyedOnSettings() {
+        Document doc = Jsoup.parse("<div><p>One</p><p>Two</p></div>");
+        Element div = doc.expectFirst("div").cacheHtml(true);
+        try {
+            assertEquals("<div>\n <p>One</p>\n <p>Two</p>\n</div>", div.outerHtml());
+            doc.outputSettings().prettyPrint(false);
+            assertEquals("<div><p>One</p><p>Two</p></div>", div.outerHtml());
+            doc.outputSettings(new Document.OutputSettings().indentAmount(2));
+            assertEquals("<div>\n  <p>One</p>\n  <p>Two</p>\n</div>", div.outerHtml());
+
+            // pretty output depends on context, e.g. when moved into a pre
+            Element pre = doc.body().appendElement("pre");
+            pre.appendChild(div);
+            assertEquals("<div><p>One</p><p>Two</p></div>", div.outerHtml());
+
+            // detached
+            div.remove();
+            assertEquals("<div>\n <p>One</p>\n <p>Two</p>\n</div>", div.outerHtml());
+            assertSame(div.outerHtml(), div.outerHtml());
+        } finally {
+            div.cacheHtml(false);
+        }
+    }
+
+    @Test void cacheHtmlNotInvalidatedByOtherDocuments() {
+        Document layout = Jsoup.parse("<div><a href=/>Home</a></div>");
+        Element div = layout.expectFirst("div").cacheHtml(true);
+        String html = div.outerHtml();
+
+        Document page = Jsoup.parse("<div><a href=/>Home</a></div>");
+        page.expectFirst("div").cacheHtml(true);
+        page.expectFirst("a").attr("href", "/page").addClass("active");
+        page.expectFirst("div").attributes().put("id", "x");
+        page.body().appendElement("p").text("Text");
+        assertSame(html, div.outerHtml());
+
+        layout.body().appendElement("p").attr("class", "x"); // outside the cached subtree
+        assertSame(html, div.outerHtml());
+    }
+
+    @Test void cacheHtmlInvalidatedByAttributeChanges() {
+        Document doc = Jsoup.parse("<div><p><a href=/ class=x>One</a></p></div>");
+        Element div = doc.expectFirst("div").cacheHtml(true);
+        Element a = doc.expectFirst("a");
+
+        div.outerHtml();
+        a.attr("href", "/two");
+        assertEquals("<div>\n <p><a href=\"/two\" class=\"x\">One</a></p>\n</div>", div.outerHtml());
+        a.attributes().put("title", "T");
+        assertTrue(div.outerHtml().contains("title=\"T\""));
+        a.attribute("class").setValue("y");
+        assertTrue(div.outerHtml().contains("class=\"y\""));
+        a.attribute("class").setKey("data-c");
+        assertTrue(div.outerHtml().contains("data-c=\"y\""));
+        a.removeAttr("title");
+        assertFalse(div.outerHtml().contains("title"));
+        div.attr("id", "d");
+        assertTrue(div.outerHtml().startsWith("<div id=\"d\">"));
+
+        String html = div.outerHtml();
+        a.attributes().userData("key", "value"); // internal, so not a change
+        assertSame(html, div.outerHtml());
+    }
+
+    @Test void cacheHtmlTracksMovedElements() {
+        Document doc = Jsoup.parse("<div><p>One</p><br></div>");
+        Element br = doc.expectFirst("br").cacheHtml(true); // childless
+        assertEquals("<br>", br.outerHtml());
+        br.remove();
+        br.attr("class", "x"); // still tracked once removed
+        assertEquals("<br class=\"x\">", br.outerHtml());
+
+        Element p = new Element("p").cacheHtml(true);
+        p.appendText("Two");
+        assertEquals("<p>Two</p>", p.outerHtml());
+        Document other = Jsoup.parse("<div></div>");
+        other.outputSettings().prettyPrint(false);
+        other.expectFirst("div").appendChild(p); // into a document without caches
+        p.appendElement("b").text("Three");
+        assertEquals("<p>Two<b>Three</b></p>", p.outerHtml());
+
+        Element div = doc.expectFirst("div");
+        doc.outputSettings().prettyPrint(false);
+        div.appendChild(p); // and into one with
+        p.expectFirst("b").text("Four");
+        assertEquals("<p>Two<b>Four</b></p>", p.outerHtml());
+        assertEquals("<div><p>One</p><p>Two<b>Four</b></p></div>", div.outerHtml());
+    }
+
+    @Test void cacheHtmlUsedByAncestorsWhenCompact() {
+        String html = "<div><p class=a>One <b>Two</b></p><table><tr><td>Three</td></tr></table><pre> Four\n</pre><!-- five --></div>";
+        Document doc = Jsoup.parse(html);
+        Document plain = Jsoup.parse(html);
+        doc.outputSettings().prettyPrint(false);
+        plain.outputSettings().prettyPrint(false);
+        Elements cached = doc.getAllElements();
+        cached.forEach(el -> el.cacheHtml(true));
+        try {
+            assertEquals(plain.html(), doc.html());
+            assertEquals(plain.body().outerHtml(), doc.body().outerHtml());
+
+            doc.expectFirst("td").text("3");
+            plain.expectFirst("td").text("3");
+            doc.expectFirst("pre").after("<p>Six</p>");
+            plain.expectFirst("pre").after("<p>Six</p>");
+            doc.select("p.a").removeAttr("class");
+            plain.select("p.a").removeAttr("class");
+            assertEquals(plain.html(), doc.html());
+
+            Element clone = doc.body().clone();
+            assertFalse(clone.isHtmlCached()); // caches are not cloned
+            assertFalse(clone.expectFirst("td").isHtmlCached());
+            assertEquals(plain.body().outerHtml(), clone.outerHtml());
+
+            doc.outputSettings().prettyPrint(true);
+            plain.outputSettings().prettyPrint(true);
+            assertEquals(plain.html(), doc.html());
+            assertEquals(plain.expectFirst("p").outerHtml(), doc.expectFirst("p").outerHtml());
+        } finally {
+            cached.forEach(el -> el.cacheHtml(false));
+        }
+    }
+
+    @Test void compactTrimsAndShares() {
+        Document doc = Jsoup.parse("<div id=a class=x><p class=x>One</p><p class=x>One</p><span></span></div>");
+        Element div = doc.expectFirst("div");
+        Element span = doc.expectFirst("span");
+        span.attr("title", "T").removeAttr("title"); // leaves an empty attribute set
+        span.appendChild(new TextNode("X")).empty(); // and an empty child list
+        String html = doc.html();
+
+        assertSame(doc, doc.compact());
+        assertEquals(html, doc.html());
+        assertEquals(2, div.attributes.keys.length);
+        assertNull(span.attributes);
+        assertFalse(span.hasChildNodes());
+
+        Elements ps = doc.select("p");
+        assertSame(ps.get(0).attributes.vals[0], ps.get(1).attributes.vals[0]);
+        assertSame(ps.get(0).textNodes().get(0).value, ps.get(1).textNodes().get(0).value);
+
+        // can still modify
+        span.attr("title", "T").append("<b>Two</b><i>Three</i>");
+        div.attr("data-x", "1").appendElement("em").text("Four");
+        assertEquals("<span title=\"T\"><b>Two</b><i>Three</i></span>", span.outerHtml());
+        assertEquals("1", div.attr("data-x"));
+        assertEquals("One One TwoThreeFour", div.text());
+        assertEquals(3, div.lastElementChild().siblingIndex());
+    }
 }
@@ -120,6 +120,39 @@ public class EntitiesTest {
         assertEquals("I'm &notit; I tell you. I'm ∉ I tell you.", Entities.unescape(text, true)); // not for attributes
     }
 
+    @Test void matchName() {
+        int[] match = new int[3];
+        char[] input = "notin;notit;frac12x;NotNestedLessLess CounterClockwiseContourIntegral;fjlig;".toCharArray();
+        assertEquals(5, Entities.matchName(input, 0, input.length, match)); // extended, with ;
+        assertEquals(5, match[0]);
+        assertEquals('∉', match[1]);
+        assertEquals(-1, match[2]);
+
+        assertEquals(3, Entities.matchName(input, 6, input.length, match)); // base prefix
+        assertEquals(5, match[0]);
+        assertEquals('¬', match[1]);
+
+        assertEquals(6, Entities.matchName(input, 12, input.length, match)); // letters then digits
+        assertEquals(6, match[0]);
+        assertEquals('½', match[1]);
+
+        assertEquals(0, Entities.matchName(input, 20, input.length, match)); // extended, without ;
+        assertEquals(17, match[0]);
+        assertEquals(0, Entities.matchName(input, 20, 30, match)); // not past the end
+        assertEquals(10, match[0]);
+
+        assertEquals(31, Entities.matchName(input, 38, input.length, match));
+        assertEquals(5, Entities.matchName(input, 70, input.length, match)); // multiple codepoints
+        assertEquals('f', match[1]);
+        assertEquals('j', match[2]);
+
+        assertEquals(0, Entities.matchName(input, 5, input.length, match)); // no name
+        assertEquals(0, match[0]);
+        assertEquals("not", Entities.findPrefix("notit"));
+        assertEquals("frac12", Entities.findPrefix("frac12x"));
+        assertEquals("", Entities.findPrefix("NotNestedLessLess"));
+    }
+
     @Test public void caseSensitive() {
         String unescaped = "Ü ü & &";
         assertEquals("&Uuml; &uuml; &amp; &amp;",
@@ -176,6 +176,28 @@ public class CharacterReaderTest {
         assertEquals(" qux", r.consumeToAny('&', ';'));
     }
 
+    @Test void consumeToAnyNonAscii() {
+        CharacterReader r = new CharacterReader("One\u2014Two \u0141Three");
+        assertEquals("One\u2014", r.consumeToAny('&', 'T')); // \u2014 shares the bitmap position of T, but is not it
+        assertEquals('T', r.consume());
+        assertEquals("wo ", r.consumeToAny('&', '\u0141')); // non-ASCII delimiter
+        assertEquals('\u0141', r.consume());
+        assertEquals("Three", r.consumeToAny('\u2014'));
+    }
+
+    @Test void delimitersMatchEachChar() {
+        char[][] sets = {{}, {'&', '<', TokeniserState.nullChar}, TokeniserState.attributeValueUnquoted, {'?', '@', '\u007F'}};
+        for (char[] set : sets) {
+            CharacterReader.Delimiters delimiters = new CharacterReader.Delimiters(set);
+            for (int c = 0; c <= Character.MAX_VALUE; c++) {
+                boolean expected = false;
+                for (char d : set) expected |= d == c;
+                assertEquals(expected, delimiters.contains((char) c), String.valueOf(c));
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new CharacterReader.Delimiters('<', '\u0141'));
+    }
+
     @Test public void consumeLetterSequence() {
         CharacterReader r = new CharacterReader("One &bar; qux");
         assertEquals("One", r.consumeLetterSequence());
@@ -234,6 +256,53 @@ public class CharacterReaderTest {
         assertFalse(r.containsIgnoreCase("one"));
     }
 
+    @Test void directReadsWholeInput() {
+        String html = "<p><p><p></title><p></TITLE><p>" + BufferBuster("Foo Bar Qux ") + "<foo><bar></title>";
+        char[] chars = html.toCharArray();
+        CharacterReader r = new CharacterReader(chars);
+        assertTrue(r.readFully());
+        r.consumeTo("</TITLE>");
+        r.consumeTo("<p>");
+        assertTrue(r.containsIgnoreCase("</title>")); // the whole input is visible
+        r.consumeTo("<foo>");
+        assertTrue(r.matches("<foo>")); // no buffer underrun
+
+        r.close();
+        r = new CharacterReader(chars);
+        r.mark();
+        r.consumeTo("<foo>");
+        r.rewindToMark(); // beyond the streamed rewind limit
+        assertEquals(0, r.pos());
+        assertEquals(html, r.consumeToEnd());
+        r.close();
+        assertEquals('<', chars[0]); // not cleared
+
+        r = new CharacterReader("One <two>"); // a short String
+        assertTrue(r.readFully());
+        assertEquals("One ", r.consumeTo('<'));
+        assertFalse(new CharacterReader(html).readFully()); // a long one is streamed
+    }
+
+    @Test void directMatchesStreamed() {
+        String html = BufferBuster("One &amp; <two>Three</two>\n") + "<!-- four -->";
+        CharacterReader direct = new CharacterReader(html.toCharArray());
+        CharacterReader streamed = new CharacterReader(new StringReader(html));
+        direct.trackNewlines(true);
+        streamed.trackNewlines(true);
+        while (!streamed.isEmpty()) {
+            assertFalse(direct.isEmpty());
+            assertEquals(streamed.pos(), direct.pos());
+            assertEquals(streamed.lineNumber(), direct.lineNumber());
+            assertEquals(streamed.columnNumber(), direct.columnNumber());
+            String expect = direct.consumeToAny('&', '<');
+            StringBuilder sb = new StringBuilder(streamed.consumeToAny('&', '<'));
+            while (sb.length() < expect.length()) sb.append(streamed.consumeToAny('&', '<')); // may stop at the buffer end
+            assertEquals(expect, sb.toString());
+            assertEquals(streamed.consume(), direct.consume());
+        }
+        assertTrue(direct.isEmpty());
+    }
+
     @Test void containsIgnoreCaseBuffer() {
         String html = "<p><p><p></title><p></TITLE><p>" + BufferBuster("Foo Bar Qux ") + "<foo><bar></title>";
         CharacterReader r = new CharacterReader(html);
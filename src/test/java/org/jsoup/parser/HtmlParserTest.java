@@ -1276,6 +1276,20 @@ public class HtmlParserTest {
         assertEquals(1, doc.select("p").size());
     }
 
+    @Test void parsesDeepNestingInLinearTime() {
+        // each insert must not walk to the root (e.g. to find an index or cache to invalidate)
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append("<span>x");
+        }
+
+        long start = System.currentTimeMillis();
+        Document doc = Jsoup.parse(sb.toString());
+
+        assertEquals(20000, doc.select("span").size());
+        assertTrue(System.currentTimeMillis() - start < 1000);
+    }
+
     @Test public void commentAtEnd() {
         Document doc = Jsoup.parse("<!");
         assertTrue(doc.childNode(0) instanceof Comment);
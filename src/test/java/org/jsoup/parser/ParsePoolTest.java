@@ -0,0 +1,140 @@
+package org.jsoup.parser;
+
+import org.jsoup.Jsoup;
+import org.jsoup.integration.ParseTest;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParsePoolTest {
+    private static Stream<ParsePool.Input> numbered(int count) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> ParsePool.Input.of("<title>" + i + "</title><p>Para " + i, "http://example.com/" + i));
+    }
+
+    @Test void parsesAllInOrder() {
+        ParsePool pool = new ParsePool(Parser.htmlParser());
+        List<Document> docs = pool.parseAll(numbered(200)).collect(Collectors.toList());
+        assertEquals(200, docs.size());
+        for (int i = 0; i < docs.size(); i++) {
+            Document doc = docs.get(i);
+            assertEquals(String.valueOf(i), doc.title());
+            assertEquals("Para " + i, doc.expectFirst("p").text());
+            assertEquals("http://example.com/" + i, doc.location());
+        }
+    }
+
+    @Test void extractsOnWorkers() {
+        ExecutorService executor = Executors.newFixedThreadPool(4, r -> new Thread(r, "parse-pool-test"));
+        try {
+            ParsePool pool = new ParsePool(Parser.htmlParser(), executor, 8);
+            Set<String> threads = ConcurrentHashMap.newKeySet();
+            List<String> titles = pool.parseAll(numbered(50), doc -> {
+                threads.add(Thread.currentThread().getName());
+                return doc.title();
+            }).collect(Collectors.toList());
+
+            assertEquals(50, titles.size());
+            assertEquals("0", titles.get(0));
+            assertEquals("49", titles.get(49));
+            assertEquals(1, threads.size());
+            assertTrue(threads.contains("parse-pool-test"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test void boundsInFlight() {
+        AtomicInteger pulled = new AtomicInteger();
+        Stream<ParsePool.Input> inputs = numbered(1000).peek(input -> pulled.incrementAndGet());
+        ParsePool pool = new ParsePool(Parser.htmlParser(), Runnable::run, 4); // parses inline, on fill
+
+        assertEquals("0", pool.parseAll(inputs, Document::title).findFirst().orElse(null));
+        assertTrue(pulled.get() <= 5, "Pulled " + pulled.get()); // 4 in flight, and one more after the head is taken
+    }
+
+    @Test void usesParserConfiguration() {
+        Parser xml = Parser.xmlParser();
+        ParsePool pool = new ParsePool(xml);
+        Document doc = pool.parseAll(Stream.of(ParsePool.Input.of("<One><Two>x</Two></One>", ""))).findFirst().get();
+        assertEquals("<One><Two>x</Two></One>", doc.html());
+        assertNotSame(xml, doc.parser());
+        assertTrue(doc.parser().getTreeBuilder() instanceof XmlTreeBuilder);
+    }
+
+    @Test void documentsHaveOwnParsers() throws Exception {
+        // the pooled parser is reused, but each document gets its own copy, so it can be modified during later parses
+        ParsePool pool = new ParsePool(Parser.htmlParser());
+        Document one = pool.parse(ParsePool.Input.of("<p>One<custom>", ""));
+        Document two = pool.parse(ParsePool.Input.of("<p>Two", ""));
+        assertNotSame(one.parser(), two.parser());
+        assertNotSame(one.parser().tagSet(), two.parser().tagSet());
+        assertNotNull(one.parser().tagSet().get("custom", Parser.NamespaceHtml));
+        assertNull(two.parser().tagSet().get("custom", Parser.NamespaceHtml));
+        assertEquals("One", one.text());
+
+        // unless tracking errors, so that each document's errors are retained
+        ParsePool tracking = new ParsePool(Parser.htmlParser().setTrackErrors(10));
+        Document three = tracking.parse(ParsePool.Input.of("<p>Three</div>", ""));
+        Document four = tracking.parse(ParsePool.Input.of("<p>Four", ""));
+        assertNotSame(three.parser(), four.parser());
+        assertEquals(1, three.parser().getErrors().size());
+        assertEquals(0, four.parser().getErrors().size());
+    }
+
+    @Test void usesParserTagSet() throws Exception {
+        TagSet tags = TagSet.Html().add(new Tag("custom", Parser.NamespaceHtml).set(Tag.Block));
+        Parser parser = Parser.htmlParser().tagSet(tags);
+        assertTrue(Jsoup.parse("<custom>", "", parser).expectFirst("custom").tag().isKnownTag());
+
+        ParsePool pool = new ParsePool(parser);
+        for (int i = 0; i < 2; i++) { // on a new, then on a reused, parser
+            Document doc = pool.parse(ParsePool.Input.of("<custom>One</custom>", ""));
+            assertTrue(doc.expectFirst("custom").tag().isKnownTag());
+        }
+        assertTrue(parser.copyWithTags().tagSet().get("custom", Parser.NamespaceHtml).isKnownTag());
+        assertNull(parser.newInstance().tagSet().get("custom", Parser.NamespaceHtml)); // public copies don't keep tags
+    }
+
+    @Test void readsFiles() {
+        Path path = ParseTest.getPath("/htmltests/meta-charset-1.html");
+        ParsePool pool = new ParsePool(Parser.htmlParser());
+        String text = pool.parseAll(Stream.of(ParsePool.Input.of(path, null, "")), Document::text)
+            .findFirst().get();
+        assertEquals("新", text); // gb2312, detected from the meta
+    }
+
+    @Test void ioExceptionIsThrownOnConsume() {
+        ParsePool pool = new ParsePool(Parser.htmlParser());
+        Stream<ParsePool.Input> inputs = Stream.of(
+            ParsePool.Input.of("<title>One", ""),
+            ParsePool.Input.of(Paths.get("/not/there.html"), null, ""));
+        List<String> titles = new ArrayList<>();
+        assertThrows(UncheckedIOException.class, () -> pool.parseAll(inputs, Document::title).forEach(titles::add));
+        assertEquals(1, titles.size());
+    }
+
+    @Test void closeClosesInputs() {
+        AtomicInteger closed = new AtomicInteger();
+        ParsePool pool = new ParsePool(Parser.htmlParser());
+        try (Stream<Document> docs = pool.parseAll(numbered(100).onClose(closed::incrementAndGet))) {
+            assertEquals("0", docs.findFirst().get().title());
+        }
+        assertEquals(1, closed.get());
+    }
+}
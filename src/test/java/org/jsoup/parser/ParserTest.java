@@ -2,14 +2,18 @@ package org.jsoup.parser;
 
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Node;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ParserTest {
 
@@ -76,4 +80,26 @@ public class ParserTest {
         assertEquals(xmlParser.settings().preserveTagCase(), xmlClone.settings().preserveTagCase());
         assertEquals(xmlParser.settings().preserveAttributeCase(), xmlClone.settings().preserveAttributeCase());
     }
+
+    @Test
+    public void compactParse() {
+        String html = "<div id=a><p class=x>One <b>Two</b></p><p class=x>Three</p></div>";
+        Parser parser = Parser.htmlParser().setCompact(true);
+        assertTrue(parser.isCompact());
+        assertTrue(parser.newInstance().isCompact());
+        assertFalse(Parser.htmlParser().isCompact());
+
+        Document doc = Jsoup.parse(html, "", parser);
+        Document plain = Jsoup.parse(html);
+        assertEquals(plain.html(), doc.html());
+        assertEquals("One Two Three", doc.text());
+
+        List<Node> nodes = parser.parseFragmentInput(html, null, "");
+        List<Node> plainNodes = Parser.htmlParser().parseFragmentInput(html, null, "");
+        assertEquals(1, nodes.size());
+        assertEquals(plainNodes.get(0).outerHtml(), nodes.get(0).outerHtml());
+
+        doc.expectFirst("b").after("<i>Four</i>");
+        assertEquals("<p class=\"x\">One <b>Two</b><i>Four</i></p>", doc.expectFirst("p").outerHtml());
+    }
 }
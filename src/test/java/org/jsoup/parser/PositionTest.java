@@ -20,6 +20,7 @@ import org.jsoup.select.Elements;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -607,6 +608,38 @@ class PositionTest {
         assertEquals("<html attr=\"foo\"><head></head><body class=\"2\" data=\"bar\"><span id=\"1\">One</span>Two </body></html>", TextUtil.normalizeSpaces(doc.html()));
     }
 
+    @Test void tracksLinesBehindTheBuffer() {
+        // the text node is inserted when it ends, so its start is then behind the reader's buffer
+        StringBuilder sb = new StringBuilder("<p>One\n");
+        for (int i = 0; i < 1000; i++) sb.append("Two\n");
+        sb.append("<b>Three</b>");
+        Document doc = TrackingHtmlParser.parseInput(new StringReader(sb.toString()), "");
+
+        TextNode text = (TextNode) doc.expectFirst("p").childNode(0);
+        assertEquals("1,4:3-1002,1:4007", text.sourceRange().toString());
+        assertEquals("1002,1:4007-1002,4:4010", doc.expectFirst("b").sourceRange().toString());
+    }
+
+    @Test void keepsLineIndex() {
+        String html = "<p>One\n<p>Two\r\n<p>Three";
+        Parser parser = Parser.htmlParser().setTrackPosition(true);
+        Document doc = parser.parseInput(html, "");
+        LineIndex lines = doc.lineIndex();
+        assertNotNull(lines);
+        assertEquals(3, lines.lineCount());
+        assertEquals("2,4:10", lines.position(html.indexOf("Two")).toString());
+        assertEquals(3, lines.lineNumber(html.length()));
+        assertEquals(1, lines.columnNumber(html.indexOf("<p>Three")));
+        assertEquals(doc.select("p").last().sourceRange().start(), lines.position(html.indexOf("<p>Three")));
+
+        String zero = "<p>Zero\n";
+        parser.reparse(doc, html, 0, 0, zero); // updated on a reparse
+        assertEquals(4, doc.lineIndex().lineCount());
+        assertEquals("3,4:18", doc.lineIndex().position(zero.length() + html.indexOf("Two")).toString());
+
+        assertNull(Jsoup.parse(html).lineIndex());
+    }
+
     static void accumulateAttributePositions(Node node, StringBuilder sb) {
         if (node instanceof LeafNode) return; // leafnode pseudo attributes are not tracked
         for (Attribute attribute : node.attributes()) {
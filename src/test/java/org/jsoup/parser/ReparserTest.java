@@ -0,0 +1,193 @@
+package org.jsoup.parser;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Attribute;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ Tests for Parser#reparse: the incrementally re-parsed document must match a fresh parse of the edited source, in its
+ nodes and their source ranges.
+ */
+class ReparserTest {
+    static final String Html = "<!doctype html>\n<html><head><title>T</title></head>\n<body>\n" +
+        "<div id=a class=\"c\">\n  <section><p>One <b>two</b></p>\n  <ul>\n    <li>Item</li>\n  </ul></section>\n" +
+        "  <div>\n    <span title=t>Three</span>\n  </div>\n</div>\n<p>After</p>\n</body>\n</html>\n";
+
+    static Parser tracking() {
+        return Parser.htmlParser().setTrackPosition(true);
+    }
+
+    /** Applies the edit to the document and to the source, and checks the document matches a parse of the source. */
+    static String edit(Parser parser, Document doc, String source, int start, int end, String replacement) {
+        parser.reparse(doc, source, start, end, replacement);
+        String updated = source.substring(0, start) + replacement + source.substring(end);
+        assertMatchesParse(updated, doc);
+        return updated;
+    }
+
+    static void assertMatchesParse(String source, Document doc) {
+        Document expected = Jsoup.parse(source, tracking());
+        assertEquals(expected.html(), doc.html());
+        assertEquals(describe(expected), describe(doc));
+    }
+
+    static String describe(Document doc) {
+        StringBuilder sb = new StringBuilder();
+        doc.nodeStream().forEach(node -> {
+            sb.append(node.nodeName()).append(' ').append(node.sourceRange());
+            if (node instanceof Element) {
+                Element el = (Element) node;
+                sb.append(' ').append(el.endSourceRange());
+                for (Attribute attr : el.attributes())
+                    sb.append(' ').append(attr.getKey()).append(attr.sourceRange());
+            }
+            sb.append('\n');
+        });
+        return sb.toString();
+    }
+
+    @Test void reparsesContainerContent() {
+        Parser parser = tracking();
+        Document doc = Jsoup.parse(Html, parser);
+        Element head = doc.head();
+        Element section = doc.expectFirst("section");
+        Element after = doc.expectFirst("body > p");
+
+        int pos = Html.indexOf("Three") + 5;
+        String source = edit(parser, doc, Html, pos, pos, "\nand <i>Four</i>");
+        assertSame(head, doc.head()); // not a full reparse
+        assertSame(section, doc.expectFirst("section"));
+        assertSame(after, doc.expectFirst("body > p"));
+        assertEquals("Three and Four", doc.expectFirst("span").text());
+        assertEquals("14,1:227-14,4:230", after.sourceRange().toString()); // shifted a line down
+
+        pos = source.indexOf("One");
+        source = edit(parser, doc, source, pos, pos + 3, "<em>1</em>");
+        assertSame(head, doc.head());
+        assertEquals("1 two", doc.expectFirst("section p").text());
+
+        pos = source.indexOf("Item");
+        edit(parser, doc, source, pos, pos + 4, "");
+        assertSame(section, doc.expectFirst("section"));
+        assertEquals("", doc.expectFirst("li").text());
+    }
+
+    @Test void fallsBackToFullParse() {
+        Parser parser = tracking();
+        Document doc = Jsoup.parse(Html, parser);
+        Element head = doc.head();
+
+        int pos = Html.indexOf("Three");
+        String source = edit(parser, doc, Html, pos, pos, "<div>"); // unclosed, so would consume the end tag
+        assertNotSame(head, doc.head());
+
+        head = doc.head();
+        pos = source.indexOf("One");
+        source = edit(parser, doc, source, pos, pos, "</section>"); // closes an ancestor
+        assertNotSame(head, doc.head());
+
+        head = doc.head();
+        pos = source.indexOf("One");
+        source = edit(parser, doc, source, pos, pos, "<b>"); // an unclosed formatting element, reconstructed after
+        assertNotSame(head, doc.head());
+
+        head = doc.head();
+        pos = source.indexOf("<title>") + 7;
+        edit(parser, doc, source, pos, pos, "Title "); // in the head
+        assertNotSame(head, doc.head());
+        assertEquals("Title T", doc.title());
+    }
+
+    @Test void containerClosedByContent() {
+        Parser parser = tracking();
+        String html = "<div><p>One</p><p>Two</p></div>";
+        Document doc = Jsoup.parse(html, parser);
+        Element div = doc.expectFirst("div");
+
+        int pos = html.indexOf("One");
+        String source = edit(parser, doc, html, pos, pos, "<ul><li>x</ul>"); // would close the p
+        assertNotSame(div, doc.expectFirst("div"));
+        assertEquals(4, doc.select("div > *").size()); // p, ul, and the empty p of the stray </p>
+
+        div = doc.expectFirst("div");
+        pos = source.indexOf("Two");
+        edit(parser, doc, source, pos, pos, "<textarea>"); // would consume the rest of the document
+        assertNotSame(div, doc.expectFirst("div"));
+    }
+
+    @Test void sequenceOfEdits() {
+        String[] replacements = {"x", "", "\n", "&amp;", "<b>b</b>", "<p>para", "<div>d</div>", "</div>", "<li>",
+            "<!--", "-->", "<img src=i>", "<span title=t>s</span>", "<table><tr><td>1</table>", "<a href=x>"};
+        Random random = new Random(1);
+        Parser parser = tracking();
+        String source = Html;
+        Document doc = Jsoup.parse(source, parser);
+        for (int i = 0; i < 300; i++) {
+            int start = random.nextInt(source.length() + 1);
+            int end = Math.min(source.length(), start + (random.nextInt(3) == 0 ? random.nextInt(8) : 0));
+            source = edit(parser, doc, source, start, end, replacements[random.nextInt(replacements.length)]);
+        }
+    }
+
+    @Test void editsWithinText() {
+        Random random = new Random(2);
+        Parser parser = tracking();
+        String source = Html;
+        Document doc = Jsoup.parse(source, parser);
+        Element head = doc.head();
+        for (int i = 0; i < 100; i++) {
+            TextNode text = doc.expectFirst("span").textNodes().get(0);
+            int pos = text.sourceRange().startPos() + random.nextInt(text.text().length() + 1);
+            source = edit(parser, doc, source, pos, pos, random.nextBoolean() ? "x" : "<b>y</b> ");
+        }
+        assertSame(head, doc.head());
+    }
+
+    @Test void requiresTrackedDocumentAndItsSource() {
+        Parser parser = tracking();
+        Document untracked = Jsoup.parse(Html);
+        assertThrows(IllegalArgumentException.class, () -> parser.reparse(untracked, Html, 0, 0, "x"));
+
+        Document doc = Jsoup.parse(Html, parser);
+        assertNull(doc.attributes().userData("jsoup.source")); // the source is not retained
+        assertThrows(IllegalArgumentException.class, () -> parser.reparse(doc, Html + " ", 0, 0, "x")); // not its source
+        assertThrows(IllegalArgumentException.class, () -> parser.reparse(doc, Html, 5, 4, "x"));
+        assertThrows(IllegalArgumentException.class, () -> parser.reparse(doc, Html, 0, Html.length() + 1, "x"));
+    }
+
+    @Test void reparsesDocumentParsedFromReader() {
+        Parser parser = tracking();
+        Document doc = parser.parseInput(new StringReader(Html), "");
+        int pos = Html.indexOf("Three");
+        edit(parser, doc, Html, pos, pos + 5, "<i>3</i>");
+    }
+
+    @Test void xmlIsFullyReparsed() {
+        Parser parser = Parser.xmlParser().setTrackPosition(true);
+        String xml = "<doc><item>One</item><item>Two</item></doc>";
+        Document doc = Jsoup.parse(xml, parser);
+        int pos = xml.indexOf("Two");
+        parser.reparse(doc, xml, pos, pos + 3, "2");
+        Document expected = Jsoup.parse("<doc><item>One</item><item>2</item></doc>", Parser.xmlParser().setTrackPosition(true));
+        assertEquals(expected.html(), doc.html());
+        assertEquals(describe(expected), describe(doc));
+    }
+
+    @Test void nodeCountUnchangedForUnaffectedSiblings() {
+        Parser parser = tracking();
+        Document doc = Jsoup.parse(Html, parser);
+        Node first = doc.expectFirst("#a").firstChild();
+        int pos = Html.indexOf("After");
+        edit(parser, doc, Html, pos, pos + 5, "Later");
+        assertSame(first, doc.expectFirst("#a").firstChild());
+    }
+}
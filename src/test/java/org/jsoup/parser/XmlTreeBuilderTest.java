@@ -81,6 +81,19 @@ public class XmlTreeBuilderTest {
         assertEquals("<br>one</br>", xmlDoc.html());
     }
 
+    @Test void parsesDeepNestingInLinearTime() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append("<a>x");
+        }
+
+        long start = System.currentTimeMillis();
+        Document doc = Jsoup.parse(sb.toString(), "", Parser.xmlParser());
+
+        assertEquals(20000, doc.select("a").size());
+        assertTrue(System.currentTimeMillis() - start < 1000);
+    }
+
     @Test public void handlesXmlDeclarationAsDeclaration() {
         String html = "<?xml encoding='UTF-8' ?><body>One</body><!-- comment -->";
         Document doc = Jsoup.parse(html, "", Parser.xmlParser());
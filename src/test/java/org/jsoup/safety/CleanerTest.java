@@ -3,19 +3,33 @@ package org.jsoup.safety;
 import org.jsoup.Jsoup;
 import org.jsoup.MultiLocaleExtension.MultiLocaleTest;
 import org.jsoup.TextUtil;
+import org.jsoup.nodes.Attribute;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Entities;
 import org.jsoup.nodes.Range;
+import org.jsoup.parser.ParseSettings;
 import org.jsoup.parser.Parser;
 import org.jsoup.parser.Tag;
 import org.jsoup.parser.TagSet;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.Arrays;
 import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -226,6 +240,70 @@ public class CleanerTest {
         assertFalse(new Cleaner(Safelist.none()).isValid(okDoc));
     }
 
+    /** A Reader of the prefix, then the filler repeated up to about 10MB; counting how much was read. */
+    static class RepeatingReader extends Reader {
+        final String prefix;
+        final String filler;
+        int read = 0;
+
+        RepeatingReader(String prefix, String filler) {
+            this.prefix = prefix;
+            this.filler = filler;
+        }
+
+        @Override public int read(char[] buf, int off, int len) {
+            if (read >= 10_000_000) return -1;
+            int count = 0;
+            while (count < len) {
+                String src = read < prefix.length() ? prefix : filler;
+                int pos = read < prefix.length() ? read : (read - prefix.length()) % filler.length();
+                buf[off + count++] = src.charAt(pos);
+                read++;
+            }
+            return count;
+        }
+
+        @Override public void close() {}
+    }
+
+    @Test void isValidBodyHtmlStopsAtFirstViolation() throws IOException {
+        Cleaner cleaner = new Cleaner(Safelist.basic());
+        RepeatingReader unsafeTag = new RepeatingReader("<p>One</p><script>x</script>", "<p>Filler <b>text</b></p>");
+        assertFalse(cleaner.isValidBodyHtml(unsafeTag));
+        assertTrue(unsafeTag.read < 100_000, "Read " + unsafeTag.read);
+
+        RepeatingReader unsafeAttr = new RepeatingReader("<p onclick=x>One</p>", "<p>Filler <b>text</b></p>");
+        assertFalse(cleaner.isValidBodyHtml(unsafeAttr));
+        assertTrue(unsafeAttr.read < 100_000, "Read " + unsafeAttr.read);
+
+        RepeatingReader parseError = new RepeatingReader("<p>One</div>", "<p>Filler <b>text</b></p>");
+        assertFalse(cleaner.isValidBodyHtml(parseError));
+        assertTrue(parseError.read < 100_000, "Read " + parseError.read);
+    }
+
+    @Test void isValidBodyHtmlFromReader() throws IOException {
+        Cleaner cleaner = new Cleaner(Safelist.basic());
+        assertTrue(cleaner.isValidBodyHtml(new StringReader("<p>Test <b><a href='http://example.com/'>OK</a></b></p>")));
+        assertTrue(cleaner.isValidBodyHtml(new StringReader("")));
+        assertFalse(cleaner.isValidBodyHtml(new StringReader("<p>Not <!-- comment --> OK</p>")));
+        assertFalse(cleaner.isValidBodyHtml(new StringReader("<a href='javascript:alert(1)'>Not OK</a>")));
+        assertFalse(new Cleaner(Safelist.basic().addTags("style")).isValidBodyHtml(new StringReader("<p>One<p>Two</p><div><style>p{}</style></div>")));
+        assertTrue(new Cleaner(Safelist.basic().addTags("div", "style")).isValidBodyHtml(new StringReader("<p>One<p>Two</p><div><style>p{}</style></div>")));
+    }
+
+    @Test void isValidDocumentStopsAtFirstViolation() {
+        AtomicInteger checked = new AtomicInteger();
+        Safelist counting = new Safelist(Safelist.basic()) {
+            @Override public boolean isSafeAttribute(String tagName, Element el, Attribute attr) {
+                if (!tagName.equals(":all")) checked.incrementAndGet(); // not the fallback
+                return super.isSafeAttribute(tagName, el, attr);
+            }
+        };
+        Document doc = Jsoup.parse("<p><a href='/one'>One</a></p><p onclick=x><a href='/two'>Two</a></p>", "http://example.com/");
+        assertFalse(new Cleaner(counting).isValid(doc));
+        assertEquals(2, checked.get()); // the first href, then the onclick; the second href is not reached
+    }
+
     @Test public void resolvesRelativeLinks() {
         String html = "<a href='/foo'>Link</a><img src='/bar'>";
         String clean = Jsoup.clean(html, "http://example.com/", Safelist.basicWithImages());
@@ -509,4 +587,118 @@ public class CleanerTest {
         String clean2 = cleaner.clean(doc2).body().html();
         assertEquals("content is &lt;data&gt;", clean2);
     }
+
+    static Stream<String> streamCleanInputs() {
+        return Stream.of(
+            "",
+            "Hello <b>there</b>!",
+            "<p>One<p>Two <script>alert(1)</script>Three",
+            "<div onclick=x><p id=1 class=c>Para <a href='http://example.com/' onclick=y>Link</a></p></div>",
+            "<a href='/rel'>Rel</a> <a href='javascript:alert(1)'>JS</a> <img src=x onerror=alert(1)>",
+            "<b>1<p>2</b>3</p>", // adoption agency moves the p out of the b
+            "<table><tr><td>One</td></tr>Fostered<b>bold</b></table>After",
+            "<!-- comment --><p>Text<![CDATA[cdata]]></p>",
+            "<svg><![CDATA[<script>]]></svg><math><mi>x</mi></math>",
+            "<style>p{color:red}</style><title>Title</title><textarea><b>x</b></textarea>",
+            "<ul><li>One<li>Two</ul><br><hr><pre>  pre\n text </pre>",
+            "<i>unclosed <b>formatting <p>reconstructed</i> here",
+            "Text &amp; &lt;entities&gt; &nbsp; &copy;",
+            "<html><head><title>x</title></head><body class=b><p>In body</body></html><p>After",
+            "<p>" + repeat("<span>deep ", 200),
+            "<template><tr><p>a</p><b>c<col>d", // template insertion mode resets insert into the closed template
+            "<template><tr><pre>x</pre><b><col><div>y",
+            "<p>One</p><div><template><tr><p>a</p><b>c<col>d</template></div><p>Two"
+        );
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; i++) sb.append(s);
+        return sb.toString();
+    }
+
+    @ParameterizedTest @MethodSource("streamCleanInputs")
+    void streamCleanMatchesClean(String html) throws IOException {
+        Safelist[] safelists = {Safelist.none(), Safelist.basic(), Safelist.relaxed(),
+            Safelist.basic().preserveRelativeLinks(true), Safelist.relaxed().addTags("style", "svg")};
+        for (Safelist safelist : safelists) {
+            String baseUri = "http://example.com/";
+            Document.OutputSettings settings = new Document.OutputSettings().prettyPrint(false);
+            String expected = Jsoup.clean(html, baseUri, safelist, settings);
+            String streamed = new Cleaner(safelist).streamClean(new StringReader(html), baseUri, new StringBuilder()).toString();
+            assertEquals(expected, streamed);
+        }
+    }
+
+    @ParameterizedTest @MethodSource("streamCleanInputs")
+    void compiledSafelistMatches(String html) {
+        Safelist[] safelists = {Safelist.none(), Safelist.basic(), Safelist.relaxed(),
+            Safelist.basic().preserveRelativeLinks(true), Safelist.relaxed().addTags("style", "svg")};
+        for (Safelist safelist : safelists) {
+            String baseUri = "http://example.com/";
+            assertEquals(Jsoup.clean(html, baseUri, safelist), Jsoup.clean(html, baseUri, safelist.compile()));
+            assertEquals(Jsoup.isValid(html, safelist), Jsoup.isValid(html, safelist.compile()));
+        }
+    }
+
+    @Test void compiledSafelistMatchesWithPreservedCase() {
+        // names are looked up as is first; mixed case names and keys fall back to lower-casing
+        Parser parser = Parser.htmlParser().settings(ParseSettings.preserveCase);
+        String html = "<P Class=x ONCLICK=y><A HREF='http://example.com/' Title=t>One</A> <IMG SRC=i.png Alt=a></P>";
+        Safelist[] safelists = {Safelist.basic(), Safelist.relaxed(), Safelist.relaxed().addEnforcedAttribute("p", "Class", "c")};
+        for (Safelist safelist : safelists) {
+            String expected = new Cleaner(safelist).clean(Jsoup.parse(html, "http://example.com/", parser)).body().html();
+            String compiled = new Cleaner(safelist.compile()).clean(Jsoup.parse(html, "http://example.com/", parser)).body().html();
+            assertEquals(expected, compiled);
+        }
+    }
+
+    @Test void compiledSafelistIsShareable() throws InterruptedException {
+        Cleaner cleaner = new Cleaner(Safelist.basicWithImages().compile());
+        String html = "<p onclick=x>One <a href='/foo'>Two</a> <img src=i.png onerror=y> <a href='http://other.com/'>Three</a>";
+        String expected = new Cleaner(Safelist.basicWithImages())
+            .clean(Jsoup.parse(html, "http://example.com/")).body().html();
+
+        Set<String> results = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 100; i++)
+            executor.execute(() -> results.add(cleaner.clean(Jsoup.parse(html, "http://example.com/")).body().html()));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(1, results.size());
+        assertEquals(expected, results.iterator().next());
+    }
+
+    @Test void streamCleanHoldsContentInsertedIntoClosedTemplate() throws IOException {
+        Cleaner cleaner = new Cleaner(Safelist.relaxed());
+        assertEquals("<tr></tr><b>d</b><p>a</p><b>c</b>",
+            cleaner.streamClean(new StringReader("<template><tr><p>a</p><b>c<col>d"), "", new StringBuilder()).toString());
+        assertEquals("<tr></tr><div><b>y</b></div><pre>x</pre><b></b>",
+            cleaner.streamClean(new StringReader("<template><tr><pre>x</pre><b><col><div>y"), "", new StringBuilder()).toString());
+    }
+
+    @Test void streamCleanToWriter() throws IOException {
+        Cleaner cleaner = new Cleaner(Safelist.basic());
+        StringWriter writer = new StringWriter();
+        assertSame(writer, cleaner.streamClean(new StringReader("<p onclick=x>One <a href='/foo'>Two</a>"), "", writer));
+        assertEquals("<p>One <a rel=\"nofollow\">Two</a></p>", writer.toString());
+
+        // preserveRelativeLinks, without a base URI; as in Jsoup.clean, a relative link is same site, so no nofollow
+        Cleaner relative = new Cleaner(Safelist.basic().preserveRelativeLinks(true));
+        assertEquals("<a href=\"/foo\">Two</a>",
+            relative.streamClean(new StringReader("<a href='/foo'>Two</a>"), "", new StringBuilder()).toString());
+    }
+
+    @Test void streamCleanPropagatesReadErrors() {
+        Reader failing = new Reader() {
+            @Override public int read(char[] buf, int off, int len) throws IOException {
+                throw new IOException("Read failed");
+            }
+
+            @Override public void close() {}
+        };
+        IOException e = assertThrows(IOException.class,
+            () -> new Cleaner(Safelist.basic()).streamClean(failing, "", new StringBuilder()));
+        assertEquals("Read failed", e.getMessage());
+    }
 }
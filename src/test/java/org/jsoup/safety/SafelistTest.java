@@ -75,5 +75,94 @@ public class SafelistTest {
         assertNull(safelist);
     }
 
+    @Test void compiledIsImmutable() {
+        Safelist compiled = Safelist.basic().compile();
+        assertSame(compiled, compiled.compile());
+        assertThrows(UnsupportedOperationException.class, () -> compiled.addTags("script"));
+        assertThrows(UnsupportedOperationException.class, () -> compiled.removeTags("a"));
+        assertThrows(UnsupportedOperationException.class, () -> compiled.addAttributes("a", "onclick"));
+        assertThrows(UnsupportedOperationException.class, () -> compiled.removeAttributes("a", "href"));
+        assertThrows(UnsupportedOperationException.class, () -> compiled.addEnforcedAttribute("a", "x", "y"));
+        assertThrows(UnsupportedOperationException.class, () -> compiled.removeEnforcedAttribute("a", "rel"));
+        assertThrows(UnsupportedOperationException.class, () -> compiled.addProtocols("a", "href", "javascript"));
+        assertThrows(UnsupportedOperationException.class, () -> compiled.removeProtocols("a", "href", "http"));
+        assertThrows(UnsupportedOperationException.class, () -> compiled.preserveRelativeLinks(true));
 
+        // a copy is mutable again
+        Safelist copy = new Safelist(compiled).addTags("div");
+        assertTrue(copy.isSafeTag("div"));
+        assertTrue(copy.isSafeTag("a"));
+        assertFalse(compiled.isSafeTag("div"));
+    }
+
+    @Test void compiledIsASnapshot() {
+        Safelist safelist = Safelist.none().addTags("p");
+        Safelist compiled = safelist.compile();
+        safelist.addTags("div").addAttributes("p", "class");
+
+        assertTrue(compiled.isSafeTag("P"));
+        assertFalse(compiled.isSafeTag("div"));
+        Element p = new Element("p");
+        assertFalse(compiled.isSafeAttribute("p", p, new Attribute("class", "c")));
+        assertTrue(safelist.isSafeAttribute("p", p, new Attribute("class", "c")));
+    }
+
+    @Test void subclassCanNotBeCompiled() {
+        Safelist subclass = new Safelist() {
+            @Override public boolean isSafeTag(String tag) {
+                return true;
+            }
+        };
+        assertThrows(ValidationException.class, subclass::compile);
+    }
+
+    @Test void compiledChecksMatch() {
+        Safelist safelist = Safelist.relaxed()
+            .addAttributes(":all", "class", "ID")
+            .addAttributes("a", "rel")
+            .addProtocols("a", "href", "#", "Custom")
+            .addEnforcedAttribute("a", "target", "_blank")
+            .addEnforcedAttribute("img", "loading", "lazy");
+        Safelist compiled = safelist.compile();
+        assertEquals(safelist.preserveRelativeLinks(), compiled.preserveRelativeLinks());
+
+        String[] tags = {"a", "A", "img", "p", "script", "td", ":all", "span"};
+        String[][] attrs = {
+            {"href", "http://example.com/"}, {"HREF", "HTTPS://example.com/"}, {"href", "javascript:alert(1)"},
+            {"href", "#anchor"}, {"href", "#an chor"}, {"href", "custom:x"}, {"href", "mailto:me@example.com"},
+            {"href", "maİlto:me@example.com"}, {"href", "/relative"}, {"href", ""}, {"src", "http://example.com/i.png"},
+            {"src", "data:image/png;base64,x"}, {"class", "c"}, {"id", "i"}, {"Id", "i"}, {"onclick", "x"},
+            {"target", "_blank"}, {"target", "_top"}, {"loading", "lazy"}, {"rel", "nofollow"}, {"width", "10"}};
+
+        for (String tag : tags) {
+            assertEquals(safelist.isSafeTag(tag), compiled.isSafeTag(tag), tag);
+            assertEquals(safelist.getEnforcedAttributes(tag), compiled.getEnforcedAttributes(tag), tag);
+            for (String[] attr : attrs) {
+                // the protocol check may update the attribute to an absolute URL, so check each on its own element
+                Element el = new Element(tag.startsWith(":") ? "span" : tag, "http://example.com/base/");
+                Element compiledEl = el.clone();
+                Attribute attribute = new Attribute(attr[0], attr[1]);
+                Attribute compiledAttribute = new Attribute(attr[0], attr[1]);
+                el.attributes().put(attribute);
+                compiledEl.attributes().put(compiledAttribute);
+
+                String desc = tag + " " + attr[0] + "=" + attr[1];
+                assertEquals(safelist.isSafeAttribute(tag, el, attribute),
+                    compiled.isSafeAttribute(tag, compiledEl, compiledAttribute), desc);
+                assertEquals(attribute.getValue(), compiledAttribute.getValue(), desc);
+            }
+        }
+    }
+
+    @Test void startsWithLowerCase() {
+        assertTrue(CompiledSafelist.startsWithLowerCase("http://example.com", "http:"));
+        assertTrue(CompiledSafelist.startsWithLowerCase("HtTp://example.com", "http:"));
+        assertTrue(CompiledSafelist.startsWithLowerCase("http:", "http:"));
+        assertFalse(CompiledSafelist.startsWithLowerCase("http", "http:"));
+        assertFalse(CompiledSafelist.startsWithLowerCase("https://", "http:"));
+        assertFalse(CompiledSafelist.startsWithLowerCase("", "http:"));
+        assertFalse(CompiledSafelist.startsWithLowerCase("http:", "HTTP:")); // as lowerCase(value).startsWith()
+        assertFalse(CompiledSafelist.startsWithLowerCase("maİlto:x", "mailto:")); // İ lower-cases to two chars
+        assertTrue(CompiledSafelist.startsWithLowerCase("ÄÖ:x", "äö:"));
+    }
 }
@@ -0,0 +1,138 @@
+package org.jsoup.select;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SelectorCacheTest {
+    @Test void returnsSameEvaluatorAndCounts() {
+        SelectorCache cache = new SelectorCache(10);
+        Evaluator one = cache.evaluatorOf("div.foo > p");
+        Evaluator two = cache.evaluatorOf("div.foo > p");
+        assertSame(one, two);
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(1, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.hits());
+        assertEquals(0, cache.misses());
+        assertNotSame(one, cache.evaluatorOf("div.foo > p"));
+    }
+
+    @Test void evictsLeastRecentlyUsed() {
+        SelectorCache cache = new SelectorCache(2);
+        Evaluator a = cache.evaluatorOf("a");
+        cache.evaluatorOf("b");
+        assertSame(a, cache.evaluatorOf("a")); // a now most recent
+        cache.evaluatorOf("c"); // evicts b
+        assertEquals(2, cache.size());
+
+        assertSame(a, cache.evaluatorOf("a"));
+        long misses = cache.misses();
+        cache.evaluatorOf("b");
+        assertEquals(misses + 1, cache.misses());
+    }
+
+    @Test void canResizeAndDisable() {
+        SelectorCache cache = new SelectorCache(5);
+        cache.evaluatorOf("a");
+        cache.evaluatorOf("b");
+        cache.evaluatorOf("c");
+        cache.maxSize(1);
+        assertEquals(1, cache.maxSize());
+        assertEquals(1, cache.size());
+
+        cache.maxSize(0);
+        assertEquals(0, cache.size());
+        Evaluator a = cache.evaluatorOf("a");
+        assertNotSame(a, cache.evaluatorOf("a"));
+        assertEquals(0, cache.size());
+        assertThrows(IllegalArgumentException.class, () -> cache.maxSize(-1));
+    }
+
+    @Test void doesNotCacheInvalidQueries() {
+        SelectorCache cache = new SelectorCache(5);
+        assertThrows(Selector.SelectorParseException.class, () -> cache.evaluatorOf("div["));
+        assertEquals(0, cache.size());
+    }
+
+    @Test void sharedCacheBacksSelect() {
+        SelectorCache cache = Selector.cache();
+        Document doc = Jsoup.parse("<div class=cached><p>One</p></div>");
+        String query = "div.cached > p:containsOwn(one)";
+        doc.select(query);
+        long hits = cache.hits();
+        Elements els = doc.select(query);
+        assertEquals(1, els.size());
+        assertTrue(cache.hits() > hits);
+        assertSame(Selector.evaluatorOf(query), Selector.evaluatorOf(query));
+    }
+
+    @Test void concurrentUse() throws Exception {
+        SelectorCache cache = new SelectorCache(4);
+        Document doc = Jsoup.parse("<div><p class=a>One</p><p class=b>Two</p><span class=c>Three</span></div>");
+        String[] queries = {"p", "p.a", "div > p.b", "span.c", "div:has(span)", "p + span"};
+        int[] expected = {2, 1, 1, 1, 1, 1};
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        int q = i % queries.length;
+                        assertEquals(expected[q], doc.select(cache.evaluatorOf(queries[q])).size());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(8 * 500, cache.hits() + cache.misses());
+        assertTrue(cache.size() <= 4);
+    }
+
+    @Test void cachedEvaluatorsDoNotRetainDocuments() {
+        // a cached evaluator is long-lived, so its memoized matches must be released after each select
+        Document doc = Jsoup.parse("<div><p>One <b>Two</b></p></div><p>Three</p>");
+        StructuralEvaluator ancestor = new StructuralEvaluator.Ancestor(new Evaluator.Tag("div"));
+        Evaluator eval = new CombiningEvaluator.And(new Evaluator.Tag("p"), ancestor);
+
+        assertEquals(1, doc.select(eval).size());
+        assertTrue(ancestor.threadMemo.get().isEmpty());
+        assertNotNull(doc.selectFirst(eval));
+        assertTrue(ancestor.threadMemo.get().isEmpty());
+        assertEquals(1, doc.selectNodes(eval, Element.class).size());
+        assertTrue(ancestor.threadMemo.get().isEmpty());
+
+        assertEquals(1, doc.selectStream(eval).count()); // not closed
+        assertTrue(ancestor.threadMemo.get().isEmpty()); // released when fully consumed
+        Iterator<Element> it = doc.selectStream(eval).iterator();
+        while (it.hasNext()) it.next();
+        assertTrue(ancestor.threadMemo.get().isEmpty());
+        assertEquals(1, doc.selectNodes(eval, Element.class).size());
+        assertEquals(1, Collector.streamNodes(eval, doc, Element.class).count());
+        assertTrue(ancestor.threadMemo.get().isEmpty());
+
+        try (Stream<Element> stream = doc.selectStream(eval)) {
+            assertTrue(stream.findFirst().isPresent());
+            assertFalse(ancestor.threadMemo.get().isEmpty()); // partially consumed
+        }
+        assertTrue(ancestor.threadMemo.get().isEmpty()); // released on close
+    }
+}
@@ -0,0 +1,93 @@
+package org.jsoup.select;
+
+import org.jsoup.Jsoup;
+import org.jsoup.integration.ParseTest;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SelectorSetTest {
+    static final String[] Queries = {
+        "a", "a[href]", "#content", "div#content", ".title", "p.title", "DIV.Title", "div.product a[href]",
+        "ul > li:nth-child(2n+1)", "div:has(> p)", "h1 ~ p, h2 + p", "p:contains(the)", "*", "body > *",
+        "div p, p span, span", "a, a[href], :root", "li:first-child", "td:not(.x)", "[class]", "img[src$=.gif]",
+        "div > div > div", "table tr:nth-of-type(2) td", ":root > body", "script, style, ::comment", "p:empty",
+        ".title, #content, a[href*=yahoo]", "div.a.b"};
+
+    @Test void matchesEachQuery() throws IOException {
+        Document doc = Jsoup.parse(ParseTest.getFile("/htmltests/yahoo-jp.html.gz"));
+        SelectorSet set = new SelectorSet(Queries);
+        assertEquals(Queries.length, set.size());
+
+        List<Elements> results = set.select(doc);
+        assertEquals(Queries.length, results.size());
+        for (int i = 0; i < Queries.length; i++)
+            assertEquals(doc.select(Queries[i]), results.get(i), Queries[i]);
+
+        Element body = doc.body(); // from a sub-root
+        List<Elements> bodyResults = set.select(body);
+        for (int i = 0; i < Queries.length; i++)
+            assertEquals(body.select(Queries[i]), bodyResults.get(i), Queries[i]);
+    }
+
+    @Test void sharesTermsAndDedupes() {
+        Document doc = Jsoup.parse("<div id=1 class='a A b'><p class=a>One</p><p>Two</p></div><p class='b a'>Three</p>");
+        SelectorSet set = new SelectorSet("p.a", ".a", ".A, .b", "p, .a p", "#1, div.a", "p", "p.a");
+        List<Elements> results = set.select(doc);
+
+        assertEquals("One Three", results.get(0).text());
+        assertEquals(3, results.get(1).size());
+        assertEquals(Arrays.asList("div", "p", "p"), tagNames(results.get(2))); // class is case-insensitive
+        assertEquals("One Two Three", results.get(3).text()); // once each, in document order
+        assertEquals(1, results.get(4).size());
+        assertEquals(3, results.get(5).size());
+        assertEquals(results.get(0), results.get(6));
+    }
+
+    private static List<String> tagNames(Elements els) {
+        return Arrays.asList(els.stream().map(Element::tagName).toArray(String[]::new));
+    }
+
+    @Test void classesMatchCaseInsensitivelyAsSelect() {
+        // hasClass() uses equalsIgnoreCase, which equates the dotless ı with i, but lower-casing doesn't
+        Document doc = Jsoup.parse("<div class='ıtem'>One</div><div class=ITEM>Two</div><div class=İtem>Three</div>");
+        String[] queries = {".item", ".ıtem", ".ITEM", "div.Item"};
+        List<Elements> results = new SelectorSet(queries).select(doc);
+        for (int i = 0; i < queries.length; i++)
+            assertEquals(doc.select(queries[i]).text(), results.get(i).text(), queries[i]);
+        assertEquals(3, results.get(0).size());
+    }
+
+    @Test void sharesOnlySimpleTermsByValue() {
+        Document doc = Jsoup.parse("<div><p>One</p></div><section><p>Two</p></section><p>Three</p>");
+        String[] queries = {"div > p", "section > p", "div p, :not(section) > p", "div > p", ":has(p)", "p:nth-child(1)"};
+        List<Elements> results = new SelectorSet(queries).select(doc);
+        for (int i = 0; i < queries.length; i++)
+            assertEquals(doc.select(queries[i]).outerHtml(), results.get(i).outerHtml(), queries[i]);
+    }
+
+    @Test void reusableAcrossDocuments() {
+        SelectorSet set = new SelectorSet(Collections.singletonList("div:has(p) > span"));
+        assertEquals(Collections.singletonList("div:has(p) > span"), set.queries());
+        assertEquals("One", set.select(Jsoup.parse("<div><p></p><span>One</span></div>")).get(0).text());
+        assertEquals("", set.select(Jsoup.parse("<div><span>Two</span></div>")).get(0).text());
+    }
+
+    @Test void emptySet() {
+        SelectorSet set = new SelectorSet();
+        assertEquals(0, set.size());
+        assertTrue(set.select(Jsoup.parse("<p>One")).isEmpty());
+    }
+
+    @Test void invalidQueries() {
+        assertThrows(Selector.SelectorParseException.class, () -> new SelectorSet("p", "div["));
+        assertThrows(IllegalArgumentException.class, () -> new SelectorSet("p", ""));
+    }
+}
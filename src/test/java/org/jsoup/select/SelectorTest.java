@@ -1205,7 +1205,7 @@ public class SelectorTest {
         assertEquals(2, s2.size());
         assertEquals("Two2", s2.first().text());
 
-        assertEquals(1, map.size()); // root of doc 2
+        assertEquals(0, map.size()); // released after each select, so doc 2 is not retained
     }
 
     @Test public void blankTextNodesAreConsideredEmpty() {
@@ -42,7 +42,8 @@ class StructuralEvaluatorTest {
         List<StructuralEvaluator> structuralEvals = new ArrayList<>();
         collectEvals(evaluator, structuralEvals);
 
-        Selector.select(evaluator, doc); // populate memos
+        int matches = Selector.select(evaluator, doc).size();
+        Selector.selectStream(evaluator, doc).limit(matches).count(); // populate memos; as not fully consumed or closed, they are held until reset
         assertFalse(structuralEvals.isEmpty());
 
         boolean hadMemos = false;
@@ -61,6 +62,12 @@ class StructuralEvaluatorTest {
         }
 
         assertEquals(expectMemos, hadMemos);
+
+        // and a select releases them when done
+        Selector.select(evaluator, doc);
+        for (StructuralEvaluator se : structuralEvals) {
+            assertTrue(se.threadMemo.get().isEmpty());
+        }
     }
 
     private static Stream<Arguments> selectorMemoData() {
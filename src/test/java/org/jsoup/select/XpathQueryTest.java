@@ -0,0 +1,140 @@
+package org.jsoup.select;
+
+import org.jsoup.Jsoup;
+import org.jsoup.helper.W3CDom;
+import org.jsoup.integration.ParseTest;
+import org.jsoup.nodes.CDataNode;
+import org.jsoup.nodes.Comment;
+import org.jsoup.nodes.DataNode;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.parser.Parser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class XpathQueryTest {
+    static final String[] Queries = {
+        "//div", "//div/p", "//a[@href]", "//a[@href][2]", "(//a)[last()]", "//*[@id]", "//div[@class]/following-sibling::div[1]",
+        "//p[contains(text(), 'e')]", "//body//p//text()", "//text()[normalize-space()]", "//comment()", "//node()", "/*", ".",
+        "..", "*", "text()", "ancestor::*", "ancestor::node()[last()]", "preceding::*[1]", "preceding::text()[3]",
+        "following::*[1]", "following::node()[5]", "preceding-sibling::node()[1]", "following-sibling::*", "descendant::*[3]",
+        ".//text()[1]", "//*[position() mod 7 = 0]", "//*[last()]", "//*[count(*) > 3]", "//*[count(@*) = 2]", "//@*/..",
+        "//div[not(@class)]", "//div[@class and @id]", "//*[starts-with(@class, 'a')]", "//*[substring-before(@class, ' ') != '']",
+        "//*[translate(name(), 'div', 'DIV') = 'DIV']", "//*[local-name() = 'span'][position() < 3]", "//span | //a",
+        "(//span | //a)[5]", "//div[.//a]", "//div[a][last()]", "//li[. = ../li[1]]", "//*[. = 'Next']", "//*[@width > 100]",
+        "//*[floor(@width div 3) = 33]", "//*[concat(name(), '-', @id) = 'div-main']", "//*[@class != 'a']", "//*[@width > @height]",
+        "//div/*[position() = last()]", "//ul/li[2]/following::li[1]", "//ul/li[2]/preceding::li[1]", "//script/text()",
+        "//table//tr[td][2]", "//*[count(ancestor::*) = 3][1]", "//a[preceding-sibling::*[1][self::a]]", "//*[self::div or self::p]",
+        "//div//a[1]", "//node()[self::text()][3]", "//div[count(.//div) = 0]"};
+
+    @Test void matchesW3cEvaluation() throws IOException {
+        // the native evaluator selects the same nodes as converting to W3C and evaluating with the JDK's XPath
+        Document doc = Jsoup.parse(ParseTest.getFile("/htmltests/yahoo-jp.html.gz"));
+        Elements all = doc.getAllElements();
+        Element[] contexts = {doc, all.get(3), all.get(all.size() / 2), all.get(all.size() - 2)};
+        for (Element context : contexts) {
+            for (String query : Queries) {
+                List<Node> expected = w3cSelect(query, context);
+                List<Node> actual = XpathQuery.compile(query).select(context, Node.class);
+                assertEquals(expected.size(), actual.size(), query);
+                for (int i = 0; i < expected.size(); i++)
+                    assertSame(expected.get(i), actual.get(i), query);
+            }
+        }
+    }
+
+    private static List<Node> w3cSelect(String xpath, Element context) {
+        W3CDom w3c = new W3CDom().namespaceAware(false);
+        org.w3c.dom.Document wDoc = w3c.fromJsoup(context);
+        return w3c.sourceNodes(w3c.selectXpath(xpath, w3c.contextNode(wDoc)), Node.class);
+    }
+
+    @Test void compiledQueryIsReusable() {
+        XpathQuery query = XpathQuery.compile("//div[@class='a']/p[last()]");
+        assertEquals("//div[@class='a']/p[last()]", query.toString());
+
+        Document doc1 = Jsoup.parse("<div class=a><p>One<p>Two</div><div class=b><p>Three</div>");
+        Document doc2 = Jsoup.parse("<div class=a><p>Four</div><div class=a><p>Five<p>Six</div>");
+        assertEquals("Two", query.select(doc1).text());
+        assertEquals("Four Six", query.select(doc2).text());
+    }
+
+    @Test void supportsAxes() {
+        Document doc = Jsoup.parse("<div id=1><p id=2>One <b id=3>Two</b> Three</p><p id=4 class=x>Four</p><p id=5>Five</p></div>");
+        Element b = doc.expectFirst("b");
+        Element p2 = doc.expectFirst("#2");
+
+        assertEquals("2 4 5", ids(XpathQuery.compile("child::p").select(doc.expectFirst("div"))));
+        assertEquals("1 2 3 4 5", ids(XpathQuery.compile("descendant::*[@id]").select(doc)));
+        assertEquals("4 5", ids(XpathQuery.compile("following-sibling::p").select(p2)));
+        assertEquals("4", ids(XpathQuery.compile("following-sibling::p[1]").select(p2)));
+        assertEquals("1 2", ids(XpathQuery.compile("ancestor::*[@id]").select(b))); // in document order
+        assertEquals("2", ids(XpathQuery.compile("ancestor::*[@id][1]").select(b))); // the nearest, in axis order
+        assertEquals("4", ids(XpathQuery.compile("//p[attribute::class = 'x']").select(doc)));
+        assertEquals("4", ids(XpathQuery.compile("//@class/..").select(doc)));
+
+        List<TextNode> texts = XpathQuery.compile("//p[1]/text()").select(doc, TextNode.class);
+        assertEquals(2, texts.size());
+        assertEquals("One ", texts.get(0).text());
+        assertEquals(" Three", texts.get(1).text());
+    }
+
+    private static String ids(Elements els) {
+        return String.join(" ", els.eachAttr("id"));
+    }
+
+    @Test void adjacentTextIsOneTextNode() {
+        Document doc = Jsoup.parse("<p>One</p>");
+        Element p = doc.expectFirst("p");
+        p.appendChild(new CDataNode("Two"));
+        p.appendText("Three");
+        p.appendChild(new Comment("Four"));
+        p.appendChild(new DataNode("Five"));
+
+        List<Node> texts = XpathQuery.compile("//p/text()").select(doc, Node.class);
+        assertEquals(2, texts.size());
+        assertSame(p.childNode(0), texts.get(0)); // represented by the first
+        assertSame(p.childNode(4), texts.get(1));
+        assertEquals(1, XpathQuery.compile("//p[text() = 'OneTwoThree']").select(doc).size());
+        assertEquals(1, XpathQuery.compile("//p[. = 'OneTwoThreeFive']").select(doc).size());
+    }
+
+    @Test void matchesLocalNames() {
+        Document doc = Jsoup.parse("<bk:book xmlns:bk='urn:book' bk:id=1><bk:title>Jsoup</bk:title></bk:book>", Parser.xmlParser());
+        assertEquals("Jsoup", XpathQuery.compile("//book/title").select(doc).text());
+        assertEquals("bk:book", XpathQuery.compile("//*[@id]").select(doc).get(0).tagName());
+        assertEquals(1, XpathQuery.compile("//*[name() = 'bk:book'][local-name() = 'book']").select(doc).size());
+        assertEquals(0, XpathQuery.compile("//*[@xmlns:bk]").select(doc).size()); // namespace declarations are not attributes
+        assertEquals(0, XpathQuery.compile("//bk:book").select(doc).size()); // no namespace context to resolve the prefix
+    }
+
+    @Test void selectsFromDetachedElement() {
+        Element div = new Element("div");
+        Element p = div.appendElement("p");
+        p.appendElement("span").text("One");
+
+        // as with W3C conversion, the element is the root's child
+        assertEquals("One", XpathQuery.compile("/p/span").select(p).text());
+        assertEquals(0, XpathQuery.compile("/div").select(p).size());
+        assertEquals(0, XpathQuery.compile("..").select(p).size());
+    }
+
+    @Test void rejectsUnsupportedQueries() {
+        String[] queries = {"//p[$var]", "//p[id('x')]", "//p[lang('en')]", "namespace::*", "count(//p)", "//???",
+            "//p[", "//p[@class = ]", "//p | 1", "foo()"};
+        for (String query : queries)
+            assertThrows(Selector.SelectorParseException.class, () -> XpathQuery.compile(query), query);
+    }
+
+    @Test void selectXpathFallsBackForUnsupportedQueries() {
+        Document doc = Jsoup.parse("<p>One</p><p>Two</p>");
+        assertEquals("One Two", doc.selectXpath("//p[namespace::*]").text()); // evaluated by the JDK's XPath
+        assertEquals("Two", doc.selectXpath("//p[2]").text());
+    }
+}
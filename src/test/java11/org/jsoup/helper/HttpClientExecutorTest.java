@@ -51,7 +51,7 @@ public class HttpClientExecutorTest {
                 public void connectFailed(URI uri, SocketAddress sa, IOException ioe) {}
             });
 
-            HttpClientExecutor.ProxyWrap wrap = new HttpClientExecutor.ProxyWrap();
+            HttpClientExecutor.ProxyWrap wrap = new HttpClientExecutor.ProxyWrap(null);
             List<Proxy> proxies = wrap.select(URI.create("http://example.com"));
             
             assertEquals(1, proxies.size());
@@ -62,12 +62,11 @@ public class HttpClientExecutorTest {
     }
 
     @Test void proxyWrapConnectFailedOnlyForSystemProxy() {
-        HttpClientExecutor.ProxyWrap wrap = new HttpClientExecutor.ProxyWrap();
-        HttpClientExecutor.perRequestProxy.set(new Proxy(Proxy.Type.HTTP, new InetSocketAddress("custom", 9090)));
+        HttpClientExecutor.ProxyWrap wrap = new HttpClientExecutor.ProxyWrap(
+            new Proxy(Proxy.Type.HTTP, new InetSocketAddress("custom", 9090)));
         wrap.connectFailed(URI.create("http://example.com"), 
             new InetSocketAddress("custom", 9090), 
             new IOException("test"));
-        HttpClientExecutor.perRequestProxy.remove();
     }
 
     @Test
@@ -86,14 +85,11 @@ public class HttpClientExecutorTest {
                 public void connectFailed(URI uri, SocketAddress sa, IOException ioe) {}
             });
 
-            HttpClientExecutor.perRequestProxy.set(
+            HttpClientExecutor.ProxyWrap wrap = new HttpClientExecutor.ProxyWrap(
                 new Proxy(Proxy.Type.HTTP, perReqProxy));
-
-            HttpClientExecutor.ProxyWrap wrap = new HttpClientExecutor.ProxyWrap();
             List<Proxy> proxies = wrap.select(URI.create("http://example.com"));
             assertSame(perReqProxy, proxies.get(0).address());
         } finally {
-            HttpClientExecutor.perRequestProxy.remove();
             ProxySelector.setDefault(original);
         }
     }
@@ -108,7 +104,7 @@ public class HttpClientExecutorTest {
                 @Override
                 public void connectFailed(URI uri, SocketAddress sa, IOException ioe) { called[0] = true; }
             });
-            new HttpClientExecutor.ProxyWrap()
+            new HttpClientExecutor.ProxyWrap(null)
                 .connectFailed(URI.create("http://example.com"), new InetSocketAddress("x", 80), new IOException("x"));
             assertTrue(called[0]);
         } finally {